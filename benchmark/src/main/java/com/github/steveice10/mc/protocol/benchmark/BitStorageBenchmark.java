@@ -0,0 +1,107 @@
+package com.github.steveice10.mc.protocol.benchmark;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.BitStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares per-entry {@link BitStorage} access against the bulk operations, on a full chunk section.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitStorageBenchmark {
+    private static final int SIZE = 4096;
+
+    @Param({"4", "5", "8", "15"})
+    public int bitsPerEntry;
+
+    private BitStorage storage;
+    private BitStorage target;
+    private int[] values;
+    private int[] translation;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        this.values = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            this.values[i] = random.nextInt(1 << this.bitsPerEntry);
+        }
+
+        this.translation = new int[1 << this.bitsPerEntry];
+        for (int i = 0; i < this.translation.length; i++) {
+            this.translation[i] = this.translation.length - 1 - i;
+        }
+
+        this.storage = new BitStorage(this.bitsPerEntry, SIZE);
+        this.storage.setAll(this.values);
+        this.target = new BitStorage(this.bitsPerEntry + 1, SIZE);
+    }
+
+    @Benchmark
+    public int[] unpackPerEntry() {
+        for (int i = 0; i < SIZE; i++) {
+            this.values[i] = this.storage.get(i);
+        }
+
+        return this.values;
+    }
+
+    @Benchmark
+    public int[] unpack() {
+        this.storage.toIntArray(this.values);
+        return this.values;
+    }
+
+    @Benchmark
+    public BitStorage packPerEntry() {
+        for (int i = 0; i < SIZE; i++) {
+            this.storage.set(i, this.values[i]);
+        }
+
+        return this.storage;
+    }
+
+    @Benchmark
+    public BitStorage pack() {
+        this.storage.setAll(this.values);
+        return this.storage;
+    }
+
+    @Benchmark
+    public BitStorage resizePerEntry() {
+        for (int i = 0; i < SIZE; i++) {
+            this.target.set(i, this.translation[this.storage.get(i)]);
+        }
+
+        return this.target;
+    }
+
+    @Benchmark
+    public BitStorage resize() {
+        return this.storage.resize(this.bitsPerEntry + 1, this.translation);
+    }
+
+    @Benchmark
+    public BitStorage remap() {
+        // The translation is its own inverse, so repeated calls keep the data stable.
+        this.storage.remap(this.translation);
+        return this.storage;
+    }
+}
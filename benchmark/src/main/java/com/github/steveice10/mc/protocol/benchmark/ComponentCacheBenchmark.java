@@ -0,0 +1,72 @@
+package com.github.steveice10.mc.protocol.benchmark;
+
+import com.github.steveice10.mc.protocol.codec.ComponentCache;
+import com.github.steveice10.mc.protocol.codec.MinecraftCodec;
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes a typical tab list entry name, with and without a {@link ComponentCache}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentCacheBenchmark {
+    private static final Component COMPONENT = Component.text()
+            .append(Component.text("[Admin] ", NamedTextColor.RED, TextDecoration.BOLD))
+            .append(Component.text("Steve", NamedTextColor.WHITE))
+            .append(Component.text(" (AFK)", NamedTextColor.GRAY, TextDecoration.ITALIC))
+            .build();
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private MinecraftCodecHelper helper;
+    private ByteBuf encoded;
+    private ByteBuf out;
+
+    @Setup
+    public void setup() {
+        this.helper = MinecraftCodec.CODEC.getHelperFactory().get();
+        if (this.cached) {
+            this.helper.setComponentCache(new ComponentCache(1024));
+        }
+
+        this.encoded = Unpooled.buffer();
+        this.helper.writeComponent(this.encoded, COMPONENT);
+        this.out = Unpooled.buffer();
+    }
+
+    @Benchmark
+    public Component read() {
+        this.encoded.readerIndex(0);
+        return this.helper.readComponent(this.encoded);
+    }
+
+    @Benchmark
+    public ByteBuf write() {
+        this.out.clear();
+        this.helper.writeComponent(this.out, COMPONENT);
+        return this.out;
+    }
+}
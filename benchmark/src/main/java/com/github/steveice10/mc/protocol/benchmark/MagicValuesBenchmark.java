@@ -0,0 +1,106 @@
+package com.github.steveice10.mc.protocol.benchmark;
+
+import com.github.steveice10.mc.protocol.data.MagicValues;
+import com.github.steveice10.mc.protocol.data.game.command.CommandParser;
+import com.github.steveice10.mc.protocol.data.game.level.map.MapIconType;
+import com.github.steveice10.mc.protocol.data.game.recipe.RecipeType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link MagicValues} lookups against the original linear scan in {@link LegacyMagicValues}.
+ * <p>
+ * The inputs mirror the hot decode paths: command parser and map icon ids read as var ints, recipe types
+ * read as strings, and parser ids written back out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MagicValuesBenchmark {
+    private static final int LOOKUPS = 1024;
+
+    private final int[] parserIds = new int[LOOKUPS];
+    private final int[] mapIconIds = new int[LOOKUPS];
+    private final String[] recipeTypes = new String[LOOKUPS];
+    private final CommandParser[] parsers = new CommandParser[LOOKUPS];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        CommandParser[] parsers = CommandParser.values();
+        MapIconType[] mapIcons = MapIconType.values();
+        RecipeType[] recipeTypes = RecipeType.values();
+        for (int i = 0; i < LOOKUPS; i++) {
+            this.parsers[i] = parsers[random.nextInt(parsers.length)];
+            this.parserIds[i] = MagicValues.value(Integer.class, this.parsers[i]);
+            this.mapIconIds[i] = MagicValues.value(Integer.class, mapIcons[random.nextInt(mapIcons.length)]);
+            this.recipeTypes[i] = MagicValues.value(String.class, recipeTypes[random.nextInt(recipeTypes.length)]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void keyByIntLegacy(Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            blackhole.consume(LegacyMagicValues.key(CommandParser.class, this.parserIds[i]));
+            blackhole.consume(LegacyMagicValues.key(MapIconType.class, this.mapIconIds[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void keyByInt(Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            blackhole.consume(MagicValues.key(CommandParser.class, this.parserIds[i]));
+            blackhole.consume(MagicValues.key(MapIconType.class, this.mapIconIds[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void keyByStringLegacy(Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            blackhole.consume(LegacyMagicValues.key(RecipeType.class, this.recipeTypes[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void keyByString(Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            blackhole.consume(MagicValues.key(RecipeType.class, this.recipeTypes[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void valueLegacy(Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            blackhole.consume(LegacyMagicValues.value(Integer.class, this.parsers[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void value(Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            blackhole.consume(MagicValues.value(Integer.class, this.parsers[i]));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.steveice10.mc.protocol.benchmark;
+
+import com.github.steveice10.mc.protocol.codec.MinecraftCodec;
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.codec.MinecraftPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of a single packet type, using the samples from {@link PacketCase}.
+ * <p>
+ * Run through {@link PacketBenchmarkRunner} to cover every packet registered in {@link MinecraftCodec#CODEC}
+ * with allocation profiling; running this class directly only measures the packet given by the {@code packet} parameter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class PacketBenchmark {
+    @Param("ClientboundKeepAlivePacket")
+    public String packet;
+
+    private PacketCase packetCase;
+    private MinecraftCodecHelper helper;
+    private ByteBuf encodeBuffer;
+    private ByteBuf decodeBuffer;
+
+    @Setup
+    public void setup() {
+        this.packetCase = PacketCase.get(this.packet);
+        this.helper = MinecraftCodec.CODEC.getHelperFactory().get();
+        this.encodeBuffer = Unpooled.buffer(this.packetCase.getEncoded().length);
+        this.decodeBuffer = Unpooled.wrappedBuffer(this.packetCase.getEncoded());
+    }
+
+    @Benchmark
+    public ByteBuf encode() throws IOException {
+        this.encodeBuffer.clear();
+        this.packetCase.serialize(this.encodeBuffer, this.helper);
+        return this.encodeBuffer;
+    }
+
+    @Benchmark
+    public MinecraftPacket decode() throws IOException {
+        this.decodeBuffer.readerIndex(0);
+        return this.packetCase.deserialize(this.decodeBuffer, this.helper);
+    }
+}
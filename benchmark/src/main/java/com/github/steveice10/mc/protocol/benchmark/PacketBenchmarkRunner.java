@@ -0,0 +1,97 @@
+package com.github.steveice10.mc.protocol.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs {@link PacketBenchmark} for every packet registered in the codec, with the GC profiler attached
+ * so results include bytes allocated per operation.
+ * <p>
+ * Accepts the usual JMH command line options, plus:
+ * <ul>
+ *     <li>{@code --list} prints the packets that would be measured and exits.</li>
+ *     <li>{@code --baseline <file>} writes a per-packet summary of the results to the given file,
+ *     in the format of the committed {@code baseline.txt}.</li>
+ * </ul>
+ * Passing {@code -p packet=...} restricts the run to the given packets.
+ */
+public class PacketBenchmarkRunner {
+    private static final String ALLOCATION_RESULT = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        List<String> names = PacketCase.getNames();
+        PacketCase.getUnsupported().forEach((name, reason) -> System.err.println("Skipping " + name + ": " + reason));
+
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if (jmhArgs.remove("--list")) {
+            names.forEach(System.out::println);
+            return;
+        }
+
+        String baseline = null;
+        int baselineIndex = jmhArgs.indexOf("--baseline");
+        if (baselineIndex != -1) {
+            jmhArgs.remove(baselineIndex);
+            baseline = jmhArgs.remove(baselineIndex);
+        }
+
+        CommandLineOptions commandLine = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .include(PacketBenchmark.class.getName())
+                .addProfiler(GCProfiler.class);
+        if (!commandLine.getParameter("packet").hasValue()) {
+            options.param("packet", names.toArray(new String[0]));
+        }
+
+        Collection<RunResult> results = new Runner(options.build()).run();
+        if (baseline != null) {
+            writeBaseline(baseline, results);
+        }
+    }
+
+    private static void writeBaseline(String file, Collection<RunResult> results) throws IOException {
+        // packet -> encode ns/op, encode B/op, decode ns/op, decode B/op
+        Map<String, double[]> rows = new TreeMap<>();
+        for (RunResult result : results) {
+            String packet = result.getParams().getParam("packet");
+            int offset = result.getParams().getBenchmark().endsWith(".encode") ? 0 : 2;
+            double[] row = rows.computeIfAbsent(packet, k -> new double[]{Double.NaN, Double.NaN, Double.NaN, Double.NaN});
+            row[offset] = result.getPrimaryResult().getScore();
+            for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+                if (secondary.getKey().endsWith(ALLOCATION_RESULT)) {
+                    row[offset + 1] = secondary.getValue().getScore();
+                }
+            }
+        }
+
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8))) {
+            writer.printf(Locale.ROOT, "# Generated by PacketBenchmarkRunner on Java %s (%s)%n", System.getProperty("java.version"), System.getProperty("java.vm.name"));
+            writer.printf(Locale.ROOT, "# %-46s %14s %14s %14s %14s%n", "packet", "encode ns/op", "encode B/op", "decode ns/op", "decode B/op");
+            for (Map.Entry<String, double[]> row : rows.entrySet()) {
+                double[] scores = row.getValue();
+                writer.printf(Locale.ROOT, "%-48s %14.1f %14.0f %14.1f %14.0f%n", row.getKey(), scores[0], scores[1], scores[2], scores[3]);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.steveice10.mc.protocol.benchmark;
+
+import com.github.steveice10.mc.protocol.codec.MinecraftCodec;
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.codec.MinecraftPacket;
+import com.github.steveice10.mc.protocol.codec.PacketStateCodec;
+import com.github.steveice10.mc.protocol.data.ProtocolState;
+import com.github.steveice10.packetlib.codec.PacketDefinition;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A packet definition registered in {@link MinecraftCodec#CODEC} together with a sample instance and its encoding.
+ */
+@Getter
+public class PacketCase {
+    private static final int MAX_PACKET_ID = 0xFF;
+    private static final Map<String, PacketCase> CASES = new LinkedHashMap<>();
+    private static final Map<String, String> UNSUPPORTED = new LinkedHashMap<>();
+
+    static {
+        for (ProtocolState state : ProtocolState.values()) {
+            PacketStateCodec codec = MinecraftCodec.CODEC.getCodec(state);
+            for (int id = 0; id <= MAX_PACKET_ID; id++) {
+                register(state, true, definition(codec, id, true));
+                register(state, false, definition(codec, id, false));
+            }
+        }
+    }
+
+    private final String name;
+    private final ProtocolState state;
+    private final boolean clientbound;
+    private final PacketDefinition<MinecraftPacket, MinecraftCodecHelper> definition;
+    private final MinecraftPacket sample;
+    private final byte[] encoded;
+
+    private PacketCase(ProtocolState state, boolean clientbound, PacketDefinition<MinecraftPacket, MinecraftCodecHelper> definition) throws IOException {
+        this.name = definition.getPacketClass().getSimpleName();
+        this.state = state;
+        this.clientbound = clientbound;
+        this.definition = definition;
+        this.sample = PacketSamples.create(definition.getPacketClass());
+
+        MinecraftCodecHelper helper = MinecraftCodec.CODEC.getHelperFactory().get();
+        ByteBuf buf = Unpooled.buffer();
+        this.serialize(buf, helper);
+        this.encoded = ByteBufUtil.getBytes(buf);
+
+        this.deserialize(buf, helper);
+        if (buf.isReadable()) {
+            throw new IllegalStateException(buf.readableBytes() + " bytes left over after decoding the sample.");
+        }
+
+        ByteBuf reencoded = Unpooled.buffer();
+        this.serialize(reencoded, helper);
+        if (!ByteBufUtil.equals(reencoded, Unpooled.wrappedBuffer(this.encoded))) {
+            throw new IllegalStateException("Sample does not survive a round trip.");
+        }
+    }
+
+    public void serialize(ByteBuf buf, MinecraftCodecHelper helper) throws IOException {
+        this.definition.getSerializer().serialize(buf, helper, this.sample);
+    }
+
+    public MinecraftPacket deserialize(ByteBuf buf, MinecraftCodecHelper helper) throws IOException {
+        return this.definition.newInstance(buf, helper);
+    }
+
+    /**
+     * Gets the benchmark case for the packet with the given simple class name.
+     *
+     * @param name the packet's simple class name
+     * @return the case
+     * @throws IllegalArgumentException if no sample could be built for the packet
+     */
+    public static PacketCase get(String name) {
+        PacketCase packetCase = CASES.get(name);
+        if (packetCase == null) {
+            throw new IllegalArgumentException("No benchmark case for packet " + name + ": " + UNSUPPORTED.getOrDefault(name, "not registered"));
+        }
+
+        return packetCase;
+    }
+
+    public static List<String> getNames() {
+        return new ArrayList<>(CASES.keySet());
+    }
+
+    /**
+     * Gets the packets that are registered in the codec but could not be sampled, with the reason why.
+     *
+     * @return unsupported packet names mapped to failure messages
+     */
+    public static Map<String, String> getUnsupported() {
+        return Collections.unmodifiableMap(UNSUPPORTED);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PacketDefinition<MinecraftPacket, MinecraftCodecHelper> definition(PacketStateCodec codec, int id, boolean clientbound) {
+        try {
+            return (PacketDefinition<MinecraftPacket, MinecraftCodecHelper>) (clientbound ? codec.getClientboundDefinition(id) : codec.getServerboundDefinition(id));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void register(ProtocolState state, boolean clientbound, PacketDefinition<MinecraftPacket, MinecraftCodecHelper> definition) {
+        if (definition == null) {
+            return;
+        }
+
+        String name = definition.getPacketClass().getSimpleName();
+        try {
+            CASES.put(name, new PacketCase(state, clientbound, definition));
+        } catch (Exception e) {
+            UNSUPPORTED.put(name, e.toString());
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.github.steveice10.mc.protocol.benchmark;
+
+import com.github.steveice10.mc.auth.data.GameProfile;
+import com.github.steveice10.mc.protocol.codec.MinecraftPacket;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntry;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntryAction;
+import com.github.steveice10.mc.protocol.data.game.chat.MessageSignature;
+import com.github.steveice10.mc.protocol.data.game.command.CommandNode;
+import com.github.steveice10.mc.protocol.data.game.command.CommandParser;
+import com.github.steveice10.mc.protocol.data.game.command.CommandType;
+import com.github.steveice10.mc.protocol.data.game.command.properties.DoubleProperties;
+import com.github.steveice10.mc.protocol.data.game.command.properties.StringProperties;
+import com.github.steveice10.mc.protocol.data.game.entity.attribute.AttributeType;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.EntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.ItemStack;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.MetadataType;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.BooleanEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.ByteEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.FloatEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.IntEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.ObjectEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.object.GenericObjectData;
+import com.github.steveice10.mc.protocol.data.game.entity.object.ObjectData;
+import com.github.steveice10.mc.protocol.data.game.entity.player.GameMode;
+import com.github.steveice10.mc.protocol.data.game.inventory.ClickItemAction;
+import com.github.steveice10.mc.protocol.data.game.inventory.ContainerAction;
+import com.github.steveice10.mc.protocol.data.game.level.LightUpdateData;
+import com.github.steveice10.mc.protocol.data.game.level.block.value.ChestValue;
+import com.github.steveice10.mc.protocol.data.game.level.block.value.ChestValueType;
+import com.github.steveice10.mc.protocol.data.game.level.event.BreakBlockEventData;
+import com.github.steveice10.mc.protocol.data.game.level.event.LevelEvent;
+import com.github.steveice10.mc.protocol.data.game.level.notify.GameEvent;
+import com.github.steveice10.mc.protocol.data.game.level.notify.GameEventValue;
+import com.github.steveice10.mc.protocol.data.game.level.particle.ParticleData;
+import com.github.steveice10.mc.protocol.data.game.level.sound.BuiltinSound;
+import com.github.steveice10.mc.protocol.data.game.level.sound.Sound;
+import com.github.steveice10.mc.protocol.data.game.recipe.CraftingBookCategory;
+import com.github.steveice10.mc.protocol.data.game.recipe.Ingredient;
+import com.github.steveice10.mc.protocol.data.game.recipe.Recipe;
+import com.github.steveice10.mc.protocol.data.game.recipe.RecipeType;
+import com.github.steveice10.mc.protocol.data.game.recipe.data.ShapedRecipeData;
+import com.github.steveice10.mc.protocol.data.game.recipe.data.ShapelessRecipeData;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundCommandsPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundPlayerInfoUpdatePacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundUpdateRecipesPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.ClientboundSetEntityDataPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundBlockEventPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundGameEventPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundLevelEventPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.serverbound.level.ServerboundSignUpdatePacket;
+import com.github.steveice10.mc.protocol.packet.login.serverbound.ServerboundKeyPacket;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.IntTag;
+import com.github.steveice10.opennbt.tag.builtin.StringTag;
+import com.nukkitx.math.vector.Vector3f;
+import com.nukkitx.math.vector.Vector3i;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.kyori.adventure.key.Key;
+import net.kyori.adventure.text.Component;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Builds representative packet instances for the codec benchmarks.
+ * <p>
+ * Packets are filled in reflectively through their all-args constructor (or their widest public constructor if they
+ * have none). Types that cannot be built that way, such as interfaces, and packets whose fields depend on each other
+ * are given explicit samples.
+ */
+public final class PacketSamples {
+    private static final int MAX_DEPTH = 6;
+    private static final UUID SAMPLE_UUID = new UUID(0x0123456789ABCDEFL, 0xFEDCBA9876543210L);
+    private static final PublicKey SAMPLE_PUBLIC_KEY;
+    private static final Map<Class<?>, Supplier<?>> SAMPLES = new HashMap<>();
+    private static final Map<Class<?>, Supplier<? extends MinecraftPacket>> PACKETS = new HashMap<>();
+
+    static {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(1024);
+            SAMPLE_PUBLIC_KEY = generator.generateKeyPair().getPublic();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to generate sample public key.", e);
+        }
+
+        SAMPLES.put(String.class, () -> "minecraft:sample");
+        SAMPLES.put(UUID.class, () -> SAMPLE_UUID);
+        SAMPLES.put(PublicKey.class, () -> SAMPLE_PUBLIC_KEY);
+        SAMPLES.put(GameProfile.class, () -> new GameProfile(SAMPLE_UUID, "Sample"));
+        SAMPLES.put(OptionalInt.class, () -> OptionalInt.of(3));
+        SAMPLES.put(Vector3i.class, () -> Vector3i.from(1, 64, -2));
+        SAMPLES.put(Vector3f.class, () -> Vector3f.from(1.5F, 64F, -2.5F));
+        SAMPLES.put(MessageSignature.class, () -> new MessageSignature(-1, new byte[256]));
+        SAMPLES.put(ObjectData.class, () -> new GenericObjectData(3));
+        SAMPLES.put(Sound.class, () -> BuiltinSound.values()[0]);
+        SAMPLES.put(AttributeType.class, () -> AttributeType.Builtin.values()[0]);
+        // The first enum constant is used for "type" fields, and these are the matching values.
+        SAMPLES.put(ContainerAction.class, () -> ClickItemAction.values()[0]);
+        SAMPLES.put(ParticleData.class, () -> null);
+        SAMPLES.put(LightUpdateData.class, () -> {
+            BitSet mask = BitSet.valueOf(new long[]{0b110});
+            List<byte[]> updates = Arrays.asList(new byte[2048], new byte[2048]);
+            return new LightUpdateData(mask, mask, new BitSet(), new BitSet(), updates, updates, true);
+        });
+        SAMPLES.put(Component.class, () -> Component.text("Sample text"));
+        SAMPLES.put(Key.class, () -> Key.key("minecraft", "sample"));
+        SAMPLES.put(BitSet.class, () -> BitSet.valueOf(new long[]{0b1011}));
+        SAMPLES.put(CompoundTag.class, () -> {
+            CompoundTag tag = new CompoundTag("");
+            tag.put(new StringTag("id", "minecraft:sample"));
+            tag.put(new IntTag("Count", 1));
+            return tag;
+        });
+
+        PACKETS.put(ServerboundKeyPacket.class, () -> new ServerboundKeyPacket(SAMPLE_PUBLIC_KEY, new SecretKeySpec(new byte[16], "AES"), new byte[]{1, 2, 3, 4}));
+        PACKETS.put(ClientboundBlockEventPacket.class, () -> new ClientboundBlockEventPacket(Vector3i.from(1, 64, -2), ChestValueType.VIEWING_PLAYER_COUNT, new ChestValue(1), 167));
+        PACKETS.put(ClientboundLevelEventPacket.class, () -> new ClientboundLevelEventPacket(LevelEvent.BREAK_BLOCK, Vector3i.from(1, 64, -2), new BreakBlockEventData(1), false));
+        PACKETS.put(ServerboundSignUpdatePacket.class, () -> new ServerboundSignUpdatePacket(Vector3i.from(1, 64, -2), new String[]{"Line 1", "Line 2", "", "Line 4"}));
+        PACKETS.put(ClientboundGameEventPacket.class, () -> new ClientboundGameEventPacket(GameEvent.CHANGE_GAMEMODE, GameMode.CREATIVE));
+        PACKETS.put(ClientboundCommandsPacket.class, () -> new ClientboundCommandsPacket(new CommandNode[]{
+                new CommandNode(CommandType.ROOT, false, new int[]{1}, -1, null, null, null, null),
+                new CommandNode(CommandType.LITERAL, true, new int[]{2, 3}, -1, "sample", null, null, null),
+                new CommandNode(CommandType.ARGUMENT, true, new int[0], -1, "amount", CommandParser.DOUBLE, new DoubleProperties(0, 100), null),
+                new CommandNode(CommandType.ARGUMENT, true, new int[0], -1, "name", CommandParser.STRING, StringProperties.SINGLE_WORD, "minecraft:ask_server")
+        }, 0));
+        PACKETS.put(ClientboundSetEntityDataPacket.class, () -> new ClientboundSetEntityDataPacket(3, new EntityMetadata<?, ?>[]{
+                new ByteEntityMetadata(0, MetadataType.BYTE, (byte) 0x20),
+                new IntEntityMetadata(1, MetadataType.INT, 300),
+                new FloatEntityMetadata(9, MetadataType.FLOAT, 20F),
+                new BooleanEntityMetadata(4, MetadataType.BOOLEAN, true),
+                new ObjectEntityMetadata<>(8, MetadataType.ITEM, new ItemStack(1, 64)),
+                new ObjectEntityMetadata<>(2, MetadataType.OPTIONAL_CHAT, Optional.of(Component.text("Sample")))
+        }));
+        PACKETS.put(ClientboundPlayerInfoUpdatePacket.class, () -> new ClientboundPlayerInfoUpdatePacket(EnumSet.allOf(PlayerListEntryAction.class), new PlayerListEntry[]{
+                new PlayerListEntry(SAMPLE_UUID, new GameProfile(SAMPLE_UUID, "Sample"), true, 20, GameMode.SURVIVAL, Component.text("Sample"), SAMPLE_UUID, 1234L, SAMPLE_PUBLIC_KEY, new byte[256])
+        }));
+        PACKETS.put(ClientboundUpdateRecipesPacket.class, () -> {
+            Ingredient ingredient = new Ingredient(new ItemStack[]{new ItemStack(1), new ItemStack(2)});
+            return new ClientboundUpdateRecipesPacket(new Recipe[]{
+                    new Recipe(RecipeType.CRAFTING_SHAPELESS, "minecraft:shapeless", new ShapelessRecipeData("", CraftingBookCategory.MISC, new Ingredient[]{ingredient, ingredient}, new ItemStack(3))),
+                    new Recipe(RecipeType.CRAFTING_SHAPED, "minecraft:shaped", new ShapedRecipeData(2, 2, "", CraftingBookCategory.BUILDING, new Ingredient[]{ingredient, ingredient, ingredient, ingredient}, new ItemStack(4)))
+            });
+        });
+    }
+
+    private PacketSamples() {
+    }
+
+    public static <T extends MinecraftPacket> T create(Class<T> packetClass) {
+        Supplier<? extends MinecraftPacket> supplier = PACKETS.get(packetClass);
+        return packetClass.cast(supplier != null ? supplier.get() : sample(packetClass, 0));
+    }
+
+    private static Object sample(Type type, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalStateException("Sample for " + type + " is nested too deeply.");
+        }
+
+        if (type instanceof GenericArrayType) {
+            Type component = ((GenericArrayType) type).getGenericComponentType();
+            Class<?> raw = (Class<?>) (component instanceof ParameterizedType ? ((ParameterizedType) component).getRawType() : component);
+            Object array = Array.newInstance(raw, 2);
+            for (int i = 0; i < 2; i++) {
+                Array.set(array, i, sample(component, depth + 1));
+            }
+
+            return array;
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            Class<?> raw = (Class<?>) parameterized.getRawType();
+            Type[] arguments = parameterized.getActualTypeArguments();
+            if (raw == List.class) {
+                List<Object> list = new ArrayList<>();
+                list.add(sample(arguments[0], depth + 1));
+                list.add(sample(arguments[0], depth + 1));
+                return list;
+            } else if (raw == Set.class) {
+                Set<Object> set = new HashSet<>();
+                set.add(sample(arguments[0], depth + 1));
+                return set;
+            } else if (raw == Int2ObjectMap.class) {
+                Int2ObjectMap<Object> map = new Int2ObjectOpenHashMap<>();
+                map.put(3, sample(arguments[0], depth + 1));
+                return map;
+            } else if (raw == Map.class) {
+                Map<Object, Object> map = new HashMap<>();
+                map.put(sample(arguments[0], depth + 1), sample(arguments[1], depth + 1));
+                return map;
+            }
+
+            return sample(raw, depth);
+        }
+
+        Class<?> clazz = (Class<?>) type;
+        if (SAMPLES.containsKey(clazz)) {
+            return SAMPLES.get(clazz).get();
+        }
+
+        if (clazz == int.class || clazz == Integer.class) {
+            return 3;
+        } else if (clazz == long.class || clazz == Long.class) {
+            return 3L;
+        } else if (clazz == short.class || clazz == Short.class) {
+            return (short) 3;
+        } else if (clazz == byte.class || clazz == Byte.class) {
+            return (byte) 3;
+        } else if (clazz == float.class || clazz == Float.class) {
+            return 1.5F;
+        } else if (clazz == double.class || clazz == Double.class) {
+            return 2.5D;
+        } else if (clazz == boolean.class || clazz == Boolean.class) {
+            return true;
+        } else if (clazz == char.class || clazz == Character.class) {
+            return 'a';
+        } else if (clazz.isArray()) {
+            Class<?> component = clazz.getComponentType();
+            // Signatures are the only fixed length arrays, and they are 256 bytes long.
+            int length = component == byte.class ? 256 : component.isPrimitive() ? 16 : 2;
+            Object array = Array.newInstance(component, length);
+            for (int i = 0; i < length; i++) {
+                Array.set(array, i, sample(component, depth + 1));
+            }
+
+            return array;
+        } else if (clazz.isEnum()) {
+            return clazz.getEnumConstants()[0];
+        } else if (clazz.isInterface() || Modifier.isAbstract(clazz.getModifiers())) {
+            throw new IllegalStateException("No sample registered for " + clazz.getName() + ".");
+        }
+
+        return construct(clazz, depth);
+    }
+
+    private static Object construct(Class<?> clazz, int depth) {
+        List<Class<?>> fieldTypes = new ArrayList<>();
+        for (Field field : clazz.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                fieldTypes.add(field.getType());
+            }
+        }
+
+        Constructor<?> widest = null;
+        for (Constructor<?> constructor : clazz.getConstructors()) {
+            if (isDecodeConstructor(constructor)) {
+                continue;
+            }
+
+            if (Arrays.asList(constructor.getParameterTypes()).equals(fieldTypes)) {
+                widest = constructor;
+                break;
+            }
+
+            if (widest == null || constructor.getParameterCount() > widest.getParameterCount()) {
+                widest = constructor;
+            }
+        }
+
+        if (widest == null) {
+            throw new IllegalStateException("No usable constructor for " + clazz.getName() + ".");
+        }
+
+        Type[] parameters = widest.getGenericParameterTypes();
+        Object[] arguments = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            arguments[i] = sample(parameters[i], depth + 1);
+        }
+
+        try {
+            return widest.newInstance(arguments);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to construct sample " + clazz.getName() + ".", e);
+        }
+    }
+
+    private static boolean isDecodeConstructor(Constructor<?> constructor) {
+        Class<?>[] parameters = constructor.getParameterTypes();
+        return parameters.length == 2 && parameters[0].getName().equals("io.netty.buffer.ByteBuf");
+    }
+}
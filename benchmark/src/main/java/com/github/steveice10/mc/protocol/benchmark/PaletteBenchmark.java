@@ -0,0 +1,64 @@
+package com.github.steveice10.mc.protocol.benchmark;
+
+import com.github.steveice10.mc.protocol.data.game.chunk.ChunkSection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes every block of a chunk section through {@link ChunkSection#setBlock(int, int, int, int)}.
+ * <p>
+ * The section is filled with every state in setup, so the palette does not resize while measuring.
+ * The state counts select a list palette, a map palette and the global palette respectively.
+ * Run with {@code -prof gc} to check that writes do not allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaletteBenchmark {
+    private static final int SIZE = 4096;
+
+    @Param({"16", "200", "1000"})
+    public int states;
+
+    private ChunkSection section;
+    private int[] blocks;
+
+    @Setup
+    public void setup() {
+        this.section = new ChunkSection();
+        for (int i = 0; i < this.states; i++) {
+            this.section.setBlock(i & 15, i >> 8, (i >> 4) & 15, i + 1);
+        }
+
+        Random random = new Random(0);
+        this.blocks = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            this.blocks[i] = random.nextInt(this.states) + 1;
+        }
+    }
+
+    @Benchmark
+    public ChunkSection setBlocks() {
+        int[] blocks = this.blocks;
+        for (int i = 0; i < SIZE; i++) {
+            this.section.setBlock(i & 15, i >> 8, (i >> 4) & 15, blocks[i]);
+        }
+
+        return this.section;
+    }
+}
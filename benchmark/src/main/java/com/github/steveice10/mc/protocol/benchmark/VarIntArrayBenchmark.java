@@ -0,0 +1,160 @@
+package com.github.steveice10.mc.protocol.benchmark;
+
+import com.github.steveice10.mc.protocol.codec.MinecraftCodec;
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundUpdateTagsPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading and writing VarInt arrays one value at a time, as packetlib does, with the
+ * batched codecs on {@link MinecraftCodecHelper}.
+ * <p>
+ * The palette workload is a full map palette of block states, which mostly take 2 or 3 bytes. The
+ * tags workload is the id list of a large tag, which mostly takes 1 or 2 bytes. The tag packet
+ * benchmarks decode and encode a whole {@link ClientboundUpdateTagsPacket} of the same shape.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VarIntArrayBenchmark {
+    @Param({"palette", "tags"})
+    public String workload;
+
+    @Param({"false", "true"})
+    public boolean direct;
+
+    private final MinecraftCodecHelper helper = MinecraftCodec.CODEC.getHelperFactory().get();
+    private int[] values;
+    private int[] decoded;
+    private ByteBuf encoded;
+    private ByteBuf output;
+    private ClientboundUpdateTagsPacket tags;
+    private ByteBuf encodedTags;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(0);
+        boolean palette = this.workload.equals("palette");
+        this.values = new int[palette ? 256 : 1200];
+        for (int i = 0; i < this.values.length; i++) {
+            this.values[i] = random.nextInt(palette ? 24000 : 1200);
+        }
+
+        this.decoded = new int[this.values.length];
+        this.encoded = this.allocate();
+        this.helper.writeVarInts(this.encoded, this.values, 0, this.values.length);
+        this.output = this.allocate();
+
+        this.tags = new ClientboundUpdateTagsPacket();
+        for (String registry : new String[]{"minecraft:block", "minecraft:item", "minecraft:entity_type"}) {
+            Map<String, int[]> registryTags = new HashMap<>();
+            for (int i = 0; i < 100; i++) {
+                int[] ids = new int[1 + random.nextInt(this.values.length / 10)];
+                for (int j = 0; j < ids.length; j++) {
+                    ids[j] = this.values[random.nextInt(this.values.length)];
+                }
+
+                registryTags.put("minecraft:tag_" + i, ids);
+            }
+
+            this.tags.getTags().put(registry, registryTags);
+        }
+
+        this.encodedTags = this.allocate();
+        this.tags.serialize(this.encodedTags, this.helper);
+    }
+
+    private ByteBuf allocate() {
+        return this.direct ? Unpooled.directBuffer() : Unpooled.buffer();
+    }
+
+    private static int readVarIntLoop(ByteBuf buf) {
+        int value = 0;
+        int size = 0;
+        int b;
+        while (((b = buf.readByte()) & 0x80) == 0x80) {
+            value |= (b & 0x7F) << (size++ * 7);
+            if (size > 5) {
+                throw new IllegalArgumentException("VarInt too long (length must be <= 5)");
+            }
+        }
+
+        return value | ((b & 0x7F) << (size * 7));
+    }
+
+    private static void writeVarIntLoop(ByteBuf buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        buf.writeByte(value);
+    }
+
+    @Benchmark
+    public int[] readPerValue() {
+        ByteBuf in = this.encoded.duplicate();
+        int[] decoded = this.decoded;
+        for (int i = 0; i < decoded.length; i++) {
+            decoded[i] = readVarIntLoop(in);
+        }
+
+        return decoded;
+    }
+
+    @Benchmark
+    public int[] readBatched() {
+        this.helper.readVarInts(this.encoded.duplicate(), this.decoded, 0, this.decoded.length);
+        return this.decoded;
+    }
+
+    @Benchmark
+    public ByteBuf writePerValue() {
+        ByteBuf out = this.output.clear();
+        for (int value : this.values) {
+            writeVarIntLoop(out, value);
+        }
+
+        return out;
+    }
+
+    @Benchmark
+    public ByteBuf writeBatched() {
+        ByteBuf out = this.output.clear();
+        this.helper.writeVarInts(out, this.values, 0, this.values.length);
+        return out;
+    }
+
+    @Benchmark
+    public ClientboundUpdateTagsPacket readTagsPacket() throws IOException {
+        return new ClientboundUpdateTagsPacket(this.encodedTags.duplicate(), this.helper);
+    }
+
+    @Benchmark
+    public ByteBuf writeTagsPacket() throws IOException {
+        ByteBuf out = this.output.clear();
+        this.tags.serialize(out, this.helper);
+        return out;
+    }
+}
@@ -0,0 +1,516 @@
+package com.github.steveice10.mc.protocol;
+
+import com.github.steveice10.mc.protocol.codec.LazyPacket;
+import com.github.steveice10.mc.protocol.codec.MinecraftCodec;
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.data.game.chunk.ChunkSection;
+import com.github.steveice10.mc.protocol.data.game.chunk.DataPalette;
+import com.github.steveice10.mc.protocol.data.game.level.CompactLightData;
+import com.github.steveice10.mc.protocol.data.game.level.LightUpdateData;
+import com.github.steveice10.mc.protocol.data.game.level.block.BlockChangeEntry;
+import com.github.steveice10.mc.protocol.data.game.registry.GameRegistry;
+import com.github.steveice10.mc.protocol.data.game.registry.Registry;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundLoginPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundRespawnPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundBlockUpdatePacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundForgetLevelChunkPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundLevelChunkWithLightPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundLightUpdatePacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundSectionBlocksUpdatePacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundSetChunkCacheCenterPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundSetChunkCacheRadiusPacket;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.IntTag;
+import com.github.steveice10.opennbt.tag.builtin.Tag;
+import com.github.steveice10.packetlib.Session;
+import com.github.steveice10.packetlib.event.session.DisconnectedEvent;
+import com.github.steveice10.packetlib.event.session.SessionAdapter;
+import com.github.steveice10.packetlib.packet.Packet;
+import com.nukkitx.math.vector.Vector3i;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the chunks a client has loaded, applying block updates as they arrive.
+ * <p>
+ * Chunks are indexed by their packed coordinates in an open addressing table. The sections of a
+ * chunk are kept in their encoded form until a block of the chunk is first read or changed, so
+ * chunks that are never looked at are never parsed. Chunks are dropped when the server forgets
+ * them or when the chunk cache center moves out of range, like the vanilla client does. Light is
+ * kept as {@link CompactLightData} in buffers from a configurable allocator, and light updates are
+ * merged into it. Add an instance to a client session to keep it up to date.
+ * <p>
+ * The world height and biome palette size are read from the dimension type and biome registries
+ * of the login packet. Until a login packet is seen, the overworld defaults are used.
+ * <p>
+ * Reading a block may decode a section, so even queries modify the cache. Queries should be made
+ * from the session's listeners, which run on the same thread as the updates.
+ */
+public class ChunkCache extends SessionAdapter {
+    private static final int DEFAULT_MIN_Y = -64;
+    private static final int DEFAULT_HEIGHT = 384;
+    private static final int DEFAULT_BIOME_PALETTE_BITS = 6;
+    private static final int AIR = 0;
+
+    private final MinecraftCodecHelper helper = MinecraftCodec.CODEC.getHelperFactory().get();
+    private final ColumnTable columns = new ColumnTable();
+    private final ByteBufAllocator lightAllocator;
+
+    private Registry dimensionTypes;
+    /**
+     * The lowest block Y coordinate of the current dimension.
+     */
+    @Getter
+    private int minY = DEFAULT_MIN_Y;
+    /**
+     * The number of chunk sections in a chunk of the current dimension.
+     */
+    @Getter
+    private int sectionCount = DEFAULT_HEIGHT >> 4;
+    private int biomePaletteBits = DEFAULT_BIOME_PALETTE_BITS;
+    @Getter
+    private int centerX;
+    @Getter
+    private int centerZ;
+    @Getter
+    private int viewDistance = -1;
+
+    public ChunkCache() {
+        this(ByteBufAllocator.DEFAULT);
+    }
+
+    /**
+     * Creates a chunk cache which stores light in buffers from the given allocator.
+     *
+     * @param lightAllocator the allocator of light buffers
+     */
+    public ChunkCache(ByteBufAllocator lightAllocator) {
+        this.lightAllocator = lightAllocator;
+    }
+
+    @Override
+    public void packetReceived(Session session, Packet packet) {
+        packet = LazyPacket.unwrap(packet, ChunkCache::isTracked);
+        if (packet == null) {
+            return;
+        }
+
+        if (packet instanceof ClientboundBlockUpdatePacket) {
+            BlockChangeEntry entry = ((ClientboundBlockUpdatePacket) packet).getEntry();
+            Vector3i position = entry.getPosition();
+            this.setBlock(position.getX(), position.getY(), position.getZ(), entry.getBlock());
+        } else if (packet instanceof ClientboundSectionBlocksUpdatePacket) {
+            ClientboundSectionBlocksUpdatePacket update = (ClientboundSectionBlocksUpdatePacket) packet;
+            Column column = this.columns.get(chunkKey(update.getChunkX(), update.getChunkZ()));
+            if (column != null) {
+                for (BlockChangeEntry entry : update.getEntries()) {
+                    Vector3i position = entry.getPosition();
+                    this.setBlock(column, position.getX(), position.getY(), position.getZ(), entry.getBlock());
+                }
+            }
+        } else if (packet instanceof ClientboundLevelChunkWithLightPacket) {
+            ClientboundLevelChunkWithLightPacket chunk = (ClientboundLevelChunkWithLightPacket) packet;
+            CompactLightData light = CompactLightData.of(chunk.getLightData(), this.lightAllocator);
+            this.columns.put(chunkKey(chunk.getX(), chunk.getZ()), new Column(chunk.getX(), chunk.getZ(), chunk.getChunkData(), light));
+        } else if (packet instanceof ClientboundLightUpdatePacket) {
+            ClientboundLightUpdatePacket update = (ClientboundLightUpdatePacket) packet;
+            Column column = this.columns.get(chunkKey(update.getX(), update.getZ()));
+            if (column != null) {
+                LightUpdateData data = update.getLightData();
+                CompactLightData light = data.getCompact() != null ? data.getCompact().retain() : CompactLightData.of(data, this.lightAllocator);
+                try {
+                    CompactLightData merged = column.light.merge(light, this.lightAllocator);
+                    column.light.release();
+                    column.light = merged;
+                } finally {
+                    light.release();
+                }
+            }
+        } else if (packet instanceof ClientboundForgetLevelChunkPacket) {
+            ClientboundForgetLevelChunkPacket forget = (ClientboundForgetLevelChunkPacket) packet;
+            this.columns.remove(chunkKey(forget.getX(), forget.getZ()));
+        } else if (packet instanceof ClientboundSetChunkCacheCenterPacket) {
+            ClientboundSetChunkCacheCenterPacket center = (ClientboundSetChunkCacheCenterPacket) packet;
+            this.centerX = center.getChunkX();
+            this.centerZ = center.getChunkZ();
+            this.evictOutOfRange();
+        } else if (packet instanceof ClientboundSetChunkCacheRadiusPacket) {
+            this.viewDistance = ((ClientboundSetChunkCacheRadiusPacket) packet).getViewDistance();
+            this.evictOutOfRange();
+        } else if (packet instanceof ClientboundLoginPacket) {
+            ClientboundLoginPacket login = (ClientboundLoginPacket) packet;
+            GameRegistry registry = this.getRegistryView(session, login.getRegistry());
+            this.dimensionTypes = registry != null ? registry.getDimensionTypes() : null;
+            int biomes = registry != null ? registry.getBiomes().size() : 0;
+            this.biomePaletteBits = biomes > 1 ? 32 - Integer.numberOfLeadingZeros(biomes - 1) : DEFAULT_BIOME_PALETTE_BITS;
+            this.viewDistance = login.getViewDistance();
+            this.setDimension(login.getDimension());
+        } else if (packet instanceof ClientboundRespawnPacket) {
+            this.setDimension(((ClientboundRespawnPacket) packet).getDimension());
+        }
+    }
+
+    @Override
+    public void disconnected(DisconnectedEvent event) {
+        this.clear();
+    }
+
+    private static boolean isTracked(Class<?> packetClass) {
+        return packetClass == ClientboundBlockUpdatePacket.class || packetClass == ClientboundSectionBlocksUpdatePacket.class
+                || packetClass == ClientboundLevelChunkWithLightPacket.class || packetClass == ClientboundLightUpdatePacket.class
+                || packetClass == ClientboundForgetLevelChunkPacket.class
+                || packetClass == ClientboundSetChunkCacheCenterPacket.class || packetClass == ClientboundSetChunkCacheRadiusPacket.class
+                || packetClass == ClientboundLoginPacket.class || packetClass == ClientboundRespawnPacket.class;
+    }
+
+    /**
+     * Gets the indexed view of a login registry. The session's helper already holds the view if it
+     * read the registry through a {@link com.github.steveice10.mc.protocol.codec.RegistryCache};
+     * otherwise the view is built once by this cache's own helper.
+     *
+     * @return the registry view, or null if the registry is malformed
+     */
+    @Nullable
+    private GameRegistry getRegistryView(@Nullable Session session, CompoundTag registry) {
+        MinecraftCodecHelper helper = this.helper;
+        if (session != null && session.getCodecHelper() instanceof MinecraftCodecHelper
+                && ((MinecraftCodecHelper) session.getCodecHelper()).getRegistry() == registry) {
+            helper = (MinecraftCodecHelper) session.getCodecHelper();
+        } else if (helper.getRegistry() != registry) {
+            helper.setRegistry(registry);
+        }
+
+        try {
+            return helper.getRegistryView();
+        } catch (IOException e) {
+            // Fall back to the overworld defaults, as if no login packet had been seen.
+            return null;
+        }
+    }
+
+    private void setDimension(String dimension) {
+        this.clear();
+
+        CompoundTag dimensionType = this.dimensionTypes != null ? this.dimensionTypes.get(dimension) : null;
+        if (dimensionType == null) {
+            return;
+        }
+
+        Tag minY = dimensionType.get("min_y");
+        Tag height = dimensionType.get("height");
+        if (minY instanceof IntTag && height instanceof IntTag) {
+            int blocks = ((IntTag) height).getValue();
+            if (blocks > 0 && (blocks & 15) == 0) {
+                this.setWorldHeight(((IntTag) minY).getValue(), blocks);
+            }
+        }
+    }
+
+    /**
+     * Sets the height of the world. Loaded chunks are cleared, since their sections no longer line up.
+     *
+     * @param minY   the lowest block Y coordinate
+     * @param height the height in blocks, a multiple of 16
+     */
+    public void setWorldHeight(int minY, int height) {
+        this.clear();
+        this.minY = minY;
+        this.sectionCount = height >> 4;
+    }
+
+    private void evictOutOfRange() {
+        if (this.viewDistance < 0) {
+            return;
+        }
+
+        // The vanilla client keeps chunks up to this many chunks away from the center.
+        int range = Math.max(2, this.viewDistance) + 3;
+        this.columns.removeIf(column -> Math.abs(column.x - this.centerX) > range || Math.abs(column.z - this.centerZ) > range);
+    }
+
+    /**
+     * Drops all loaded chunks.
+     */
+    public void clear() {
+        this.columns.clear();
+    }
+
+    public int getLoadedChunkCount() {
+        return this.columns.size();
+    }
+
+    public boolean isLoaded(int chunkX, int chunkZ) {
+        return this.columns.get(chunkKey(chunkX, chunkZ)) != null;
+    }
+
+    /**
+     * Gets the block state at a position.
+     *
+     * @param x the block X coordinate
+     * @param y the block Y coordinate
+     * @param z the block Z coordinate
+     * @return the block state, or air if the chunk is not loaded or the position is outside the world height
+     */
+    public int getBlock(int x, int y, int z) {
+        Column column = this.columns.get(chunkKey(x >> 4, z >> 4));
+        int sectionIndex = (y - this.minY) >> 4;
+        if (column == null || sectionIndex < 0 || sectionIndex >= this.sectionCount) {
+            return AIR;
+        }
+
+        return this.sections(column)[sectionIndex].getBlock(x & 15, y & 15, z & 15);
+    }
+
+    /**
+     * Gets the sky light at a position.
+     *
+     * @param x the block X coordinate
+     * @param y the block Y coordinate
+     * @param z the block Z coordinate
+     * @return the light level, or 0 if the chunk is not loaded or the section has no sky light
+     */
+    public int getSkyLight(int x, int y, int z) {
+        Column column = this.columns.get(chunkKey(x >> 4, z >> 4));
+        // Light sections start one section below the world.
+        return column != null ? column.light.getSkyLight(((y - this.minY) >> 4) + 1, x & 15, y & 15, z & 15) : 0;
+    }
+
+    /**
+     * Gets the block light at a position.
+     *
+     * @param x the block X coordinate
+     * @param y the block Y coordinate
+     * @param z the block Z coordinate
+     * @return the light level, or 0 if the chunk is not loaded or the section has no block light
+     */
+    public int getBlockLight(int x, int y, int z) {
+        Column column = this.columns.get(chunkKey(x >> 4, z >> 4));
+        return column != null ? column.light.getBlockLight(((y - this.minY) >> 4) + 1, x & 15, y & 15, z & 15) : 0;
+    }
+
+    /**
+     * Gets the light of a loaded chunk.
+     *
+     * @param chunkX the chunk X coordinate
+     * @param chunkZ the chunk Z coordinate
+     * @return the light, or null if the chunk is not loaded
+     */
+    @Nullable
+    public CompactLightData getLight(int chunkX, int chunkZ) {
+        Column column = this.columns.get(chunkKey(chunkX, chunkZ));
+        return column != null ? column.light : null;
+    }
+
+    /**
+     * Sets the block state at a position. Positions in chunks that are not loaded are ignored.
+     *
+     * @param x     the block X coordinate
+     * @param y     the block Y coordinate
+     * @param z     the block Z coordinate
+     * @param state the block state
+     * @return whether the block was set
+     */
+    public boolean setBlock(int x, int y, int z, int state) {
+        Column column = this.columns.get(chunkKey(x >> 4, z >> 4));
+        return column != null && this.setBlock(column, x, y, z, state);
+    }
+
+    private boolean setBlock(Column column, int x, int y, int z, int state) {
+        int sectionIndex = (y - this.minY) >> 4;
+        if (sectionIndex < 0 || sectionIndex >= this.sectionCount) {
+            return false;
+        }
+
+        this.sections(column)[sectionIndex].setBlock(x & 15, y & 15, z & 15, state);
+        return true;
+    }
+
+    /**
+     * Gets the sections of a loaded chunk, parsing them if needed.
+     *
+     * @param chunkX the chunk X coordinate
+     * @param chunkZ the chunk Z coordinate
+     * @return the sections from the bottom of the world up, or null if the chunk is not loaded
+     */
+    @Nullable
+    public ChunkSection[] getSections(int chunkX, int chunkZ) {
+        Column column = this.columns.get(chunkKey(chunkX, chunkZ));
+        return column != null ? this.sections(column) : null;
+    }
+
+    private ChunkSection[] sections(Column column) {
+        if (column.sections == null) {
+            ChunkSection[] sections = new ChunkSection[this.sectionCount];
+            ByteBuf buf = Unpooled.wrappedBuffer(column.encoded);
+            try {
+                for (int i = 0; i < sections.length; i++) {
+                    sections[i] = this.helper.readChunkSection(buf, this.biomePaletteBits);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read chunk " + column.x + ", " + column.z + ".", e);
+            }
+
+            column.sections = sections;
+            column.encoded = null;
+        }
+
+        return column.sections;
+    }
+
+    /**
+     * Estimates the memory used by the block, biome and light data of a loaded chunk.
+     *
+     * @param chunkX the chunk X coordinate
+     * @param chunkZ the chunk Z coordinate
+     * @return the estimated size in bytes, or 0 if the chunk is not loaded
+     */
+    public long getMemoryUsage(int chunkX, int chunkZ) {
+        Column column = this.columns.get(chunkKey(chunkX, chunkZ));
+        return column != null ? column.getMemoryUsage() : 0;
+    }
+
+    /**
+     * Estimates the memory used by the block, biome and light data of all loaded chunks.
+     *
+     * @return the estimated size in bytes
+     */
+    public long getMemoryUsage() {
+        long[] total = new long[1];
+        this.columns.forEach(column -> total[0] += column.getMemoryUsage());
+        return total[0];
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static class Column {
+        private final int x;
+        private final int z;
+        private byte[] encoded;
+        private ChunkSection[] sections;
+        private CompactLightData light;
+
+        private Column(int x, int z, byte[] encoded, CompactLightData light) {
+            this.x = x;
+            this.z = z;
+            this.encoded = encoded;
+            this.light = light;
+        }
+
+        private void release() {
+            this.light.release();
+        }
+
+        private long getMemoryUsage() {
+            long size = this.light.getMemoryUsage();
+            if (this.sections == null) {
+                return size + this.encoded.length;
+            }
+
+            for (ChunkSection section : this.sections) {
+                size += getMemoryUsage(section.getChunkData()) + getMemoryUsage(section.getBiomeData());
+            }
+
+            return size;
+        }
+
+        private static long getMemoryUsage(DataPalette palette) {
+            long size = (long) palette.getPalette().size() * Integer.BYTES;
+            if (palette.getStorage() != null) {
+                size += (long) palette.getStorage().getData().length * Long.BYTES;
+            }
+
+            return size;
+        }
+    }
+
+    /**
+     * The loaded columns, stored densely and indexed by their packed chunk coordinates.
+     */
+    private static class ColumnTable {
+        private final LongIntTable indexByKey = new LongIntTable();
+        private Column[] columns = new Column[64];
+        private int size;
+
+        int size() {
+            return this.size;
+        }
+
+        @Nullable
+        Column get(long key) {
+            int index = this.indexByKey.get(key);
+            return index != LongIntTable.NONE ? this.columns[index] : null;
+        }
+
+        void put(long key, Column value) {
+            int index = this.indexByKey.get(key);
+            if (index != LongIntTable.NONE) {
+                this.columns[index].release();
+                this.columns[index] = value;
+                return;
+            }
+
+            if (this.size == this.columns.length) {
+                this.columns = Arrays.copyOf(this.columns, this.size * 2);
+            }
+
+            this.columns[this.size] = value;
+            this.indexByKey.put(key, this.size++);
+        }
+
+        void remove(long key) {
+            int index = this.indexByKey.get(key);
+            if (index != LongIntTable.NONE) {
+                this.removeAt(index);
+            }
+        }
+
+        void removeIf(Predicate<Column> predicate) {
+            // Removal moves the last column into the gap, so walking backwards visits every column once.
+            for (int index = this.size - 1; index >= 0; index--) {
+                if (predicate.test(this.columns[index])) {
+                    this.removeAt(index);
+                }
+            }
+        }
+
+        private void removeAt(int index) {
+            Column column = this.columns[index];
+            column.release();
+            this.indexByKey.remove(chunkKey(column.x, column.z));
+
+            Column last = this.columns[--this.size];
+            this.columns[this.size] = null;
+            if (index != this.size) {
+                this.columns[index] = last;
+                this.indexByKey.put(chunkKey(last.x, last.z), index);
+            }
+        }
+
+        void forEach(Consumer<Column> consumer) {
+            for (int index = 0; index < this.size; index++) {
+                consumer.accept(this.columns[index]);
+            }
+        }
+
+        void clear() {
+            for (int index = 0; index < this.size; index++) {
+                this.columns[index].release();
+                this.columns[index] = null;
+            }
+
+            this.size = 0;
+            this.indexByKey.clear();
+        }
+    }
+}
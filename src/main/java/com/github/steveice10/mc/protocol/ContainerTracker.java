@@ -0,0 +1,365 @@
+package com.github.steveice10.mc.protocol;
+
+import com.github.steveice10.mc.protocol.codec.LazyPacket;
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.codec.MinecraftPacket;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.ItemStack;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundLoginPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.inventory.ClientboundContainerClosePacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.inventory.ClientboundContainerSetContentPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.inventory.ClientboundContainerSetSlotPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.inventory.ClientboundOpenScreenPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.serverbound.inventory.ServerboundContainerClickPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.serverbound.inventory.ServerboundContainerClosePacket;
+import com.github.steveice10.packetlib.Session;
+import com.github.steveice10.packetlib.event.session.DisconnectedEvent;
+import com.github.steveice10.packetlib.event.session.SessionAdapter;
+import com.github.steveice10.packetlib.packet.Packet;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Tracks the containers a client has open, as the client sees them: the state id and the item in
+ * every slot of each container, and the item carried by the cursor.
+ * <p>
+ * Add an instance to a session, client or server, to keep it up to date: container packets are
+ * applied in place, and the slots a client changes with a click are applied as it predicted them.
+ * On a server, call {@link #diff(int, ItemStack[], ItemStack, MinecraftCodecHelper)} with the
+ * contents the client should see to get the cheapest packets that bring it up to date: one slot
+ * packet per changed slot, or a single content packet when that is smaller once encoded. Encoded
+ * item sizes are remembered per slot, so only changed items are measured.
+ * <p>
+ * Game logic that calls {@code diff} from its own thread must not let it overlap with packets
+ * being applied to the same tracker, since both update the remembered slots.
+ */
+public class ContainerTracker extends SessionAdapter {
+    public static final int PLAYER_INVENTORY_ID = 0;
+    /**
+     * Container id of slot packets which set the carried item.
+     */
+    public static final int CARRIED_ITEM_ID = -1;
+    /**
+     * Container id of slot packets which set a player inventory slot, whatever container is open.
+     */
+    public static final int PLAYER_INVENTORY_SLOT_ID = -2;
+
+    private static final int STATE_ID_MASK = 0x7FFF;
+    private static final int UNKNOWN_SIZE = -1;
+
+    private final Int2ObjectMap<Container> containers = new Int2ObjectOpenHashMap<>();
+    private final ByteBuf scratch = Unpooled.buffer();
+    private @Nullable ItemStack carriedItem;
+    private int carriedItemSize = UNKNOWN_SIZE;
+
+    @Override
+    public void packetReceived(Session session, Packet packet) {
+        this.apply(packet);
+    }
+
+    @Override
+    public void packetSent(Session session, Packet packet) {
+        this.apply(packet);
+    }
+
+    @Override
+    public void disconnected(DisconnectedEvent event) {
+        this.clear();
+    }
+
+    /**
+     * Applies a container packet sent or received by the session. Other packets are ignored.
+     *
+     * @param packet Packet to apply.
+     */
+    public void apply(Packet packet) {
+        packet = LazyPacket.unwrap(packet, ContainerTracker::isTracked);
+        if (packet == null) {
+            return;
+        }
+
+        if (packet instanceof ClientboundContainerSetSlotPacket) {
+            ClientboundContainerSetSlotPacket slot = (ClientboundContainerSetSlotPacket) packet;
+            int containerId = (byte) slot.getContainerId();
+            if (containerId == CARRIED_ITEM_ID) {
+                this.setCarriedItem(slot.getItem());
+            } else {
+                Container container = this.containers.get(containerId == PLAYER_INVENTORY_SLOT_ID ? PLAYER_INVENTORY_ID : containerId);
+                if (container != null) {
+                    container.set(slot.getSlot(), slot.getItem());
+                    if (containerId != PLAYER_INVENTORY_SLOT_ID) {
+                        container.stateId = slot.getStateId();
+                    }
+                }
+            }
+        } else if (packet instanceof ClientboundContainerSetContentPacket) {
+            ClientboundContainerSetContentPacket content = (ClientboundContainerSetContentPacket) packet;
+            Container container = this.containers.computeIfAbsent(content.getContainerId(), id -> new Container());
+            container.setContents(content.getStateId(), content.getItems());
+            this.setCarriedItem(content.getCarriedItem());
+        } else if (packet instanceof ServerboundContainerClickPacket) {
+            ServerboundContainerClickPacket click = (ServerboundContainerClickPacket) packet;
+            Container container = this.containers.get(click.getContainerId());
+            if (container != null) {
+                // A click made against an outdated state is answered with the whole container.
+                container.desynced |= click.getStateId() != container.stateId;
+                for (Int2ObjectMap.Entry<ItemStack> changed : click.getChangedSlots().int2ObjectEntrySet()) {
+                    container.set(changed.getIntKey(), changed.getValue());
+                }
+
+                this.setCarriedItem(click.getCarriedItem());
+            }
+        } else if (packet instanceof ClientboundOpenScreenPacket) {
+            this.containers.put(((ClientboundOpenScreenPacket) packet).getContainerId(), new Container());
+        } else if (packet instanceof ClientboundContainerClosePacket) {
+            this.close(((ClientboundContainerClosePacket) packet).getContainerId());
+        } else if (packet instanceof ServerboundContainerClosePacket) {
+            this.close(((ServerboundContainerClosePacket) packet).getContainerId());
+        } else if (packet instanceof ClientboundLoginPacket) {
+            this.clear();
+        }
+    }
+
+    private void close(int containerId) {
+        if (containerId != PLAYER_INVENTORY_ID) {
+            this.containers.remove(containerId);
+        }
+    }
+
+    private void setCarriedItem(@Nullable ItemStack item) {
+        if (!Objects.equals(this.carriedItem, item)) {
+            this.carriedItem = item;
+            this.carriedItemSize = UNKNOWN_SIZE;
+        }
+    }
+
+    /**
+     * Brings a container to the given contents and returns the packets which do the same on the
+     * client. The packets are applied to the tracker, and use the next state id of the container.
+     *
+     * @param containerId Container to update.
+     * @param items       Contents the client should see.
+     * @param carriedItem Item the client's cursor should carry.
+     * @param helper      Codec helper used to measure items.
+     * @return The packets to send, in order, which is empty if the client is up to date.
+     * @throws IOException If an item could not be measured.
+     */
+    public List<MinecraftPacket> diff(int containerId, ItemStack[] items, @Nullable ItemStack carriedItem, MinecraftCodecHelper helper) throws IOException {
+        Container container = this.containers.get(containerId);
+        boolean carriedChanged = !Objects.equals(this.carriedItem, carriedItem);
+        int stateId = container != null ? (container.stateId + 1) & STATE_ID_MASK : 1;
+        if (container == null || container.desynced || container.items.length != items.length) {
+            return this.send(new ClientboundContainerSetContentPacket(containerId, stateId, items.clone(), carriedItem));
+        }
+
+        int[] sizes = new int[items.length];
+        int[] changed = new int[items.length];
+        int changedCount = 0;
+        int itemsSize = 0;
+        int slotsSize = 0;
+        int slotHeaderSize = 1 + MinecraftCodecHelper.getVarIntSize(stateId) + 2;
+        for (int slot = 0; slot < items.length; slot++) {
+            int size;
+            if (Objects.equals(container.items[slot], items[slot])) {
+                if (container.sizes[slot] == UNKNOWN_SIZE) {
+                    container.sizes[slot] = this.getSize(container.items[slot], helper);
+                }
+
+                size = container.sizes[slot];
+            } else {
+                changed[changedCount++] = slot;
+                size = this.getSize(items[slot], helper);
+                slotsSize += getFramedSize(slotHeaderSize + size);
+            }
+
+            sizes[slot] = size;
+            itemsSize += size;
+        }
+
+        if (changedCount == 0 && !carriedChanged) {
+            return Collections.emptyList();
+        }
+
+        int carriedSize = carriedChanged ? this.getSize(carriedItem, helper) : this.getCarriedItemSize(helper);
+        if (carriedChanged) {
+            slotsSize += getFramedSize(slotHeaderSize + carriedSize);
+        }
+
+        int contentSize = getFramedSize(1 + MinecraftCodecHelper.getVarIntSize(stateId) + MinecraftCodecHelper.getVarIntSize(items.length) + itemsSize + carriedSize);
+        if (contentSize <= slotsSize) {
+            List<MinecraftPacket> packets = this.send(new ClientboundContainerSetContentPacket(containerId, stateId, items.clone(), carriedItem));
+            // Keep the sizes measured above, so the next diff does not measure the items again.
+            System.arraycopy(sizes, 0, container.sizes, 0, sizes.length);
+            this.carriedItemSize = carriedSize;
+            return packets;
+        }
+
+        List<MinecraftPacket> packets = new ArrayList<>(changedCount + 1);
+        for (int i = 0; i < changedCount; i++) {
+            int slot = changed[i];
+            packets.add(new ClientboundContainerSetSlotPacket(containerId, stateId, slot, items[slot]));
+        }
+
+        if (carriedChanged) {
+            packets.add(new ClientboundContainerSetSlotPacket(CARRIED_ITEM_ID, stateId, -1, carriedItem));
+        }
+
+        for (MinecraftPacket packet : packets) {
+            this.apply(packet);
+        }
+
+        for (int i = 0; i < changedCount; i++) {
+            container.sizes[changed[i]] = sizes[changed[i]];
+        }
+
+        this.carriedItemSize = carriedSize;
+        return packets;
+    }
+
+    private List<MinecraftPacket> send(MinecraftPacket packet) {
+        this.apply(packet);
+        return Collections.singletonList(packet);
+    }
+
+    private int getCarriedItemSize(MinecraftCodecHelper helper) throws IOException {
+        if (this.carriedItemSize == UNKNOWN_SIZE) {
+            this.carriedItemSize = this.getSize(this.carriedItem, helper);
+        }
+
+        return this.carriedItemSize;
+    }
+
+    private int getSize(@Nullable ItemStack item, MinecraftCodecHelper helper) throws IOException {
+        if (item == null) {
+            return 1;
+        }
+
+        if (item.getNbt() == null) {
+            // Presence, id, amount and an empty tag.
+            return 1 + MinecraftCodecHelper.getVarIntSize(item.getId()) + 1 + 1;
+        }
+
+        this.scratch.clear();
+        helper.writeItemStack(this.scratch, item);
+        return this.scratch.readableBytes();
+    }
+
+    /**
+     * Gets the size of a packet once framed with its length and a single byte id, before
+     * compression.
+     */
+    private static int getFramedSize(int bodySize) {
+        return MinecraftCodecHelper.getVarIntSize(bodySize + 1) + bodySize + 1;
+    }
+
+    /**
+     * Gets the last state id of a container.
+     *
+     * @param containerId Container to look up.
+     * @return The state id, or -1 if the container is not open.
+     */
+    public int getStateId(int containerId) {
+        Container container = this.containers.get(containerId);
+        return container != null ? container.stateId : -1;
+    }
+
+    public boolean isOpen(int containerId) {
+        return this.containers.containsKey(containerId);
+    }
+
+    /**
+     * Gets the item in a slot of a container.
+     *
+     * @param containerId Container to look up.
+     * @param slot        Slot to look up.
+     * @return The item, or null if the slot or container is empty or unknown.
+     */
+    public @Nullable ItemStack getItem(int containerId, int slot) {
+        Container container = this.containers.get(containerId);
+        return container != null && slot >= 0 && slot < container.items.length ? container.items[slot] : null;
+    }
+
+    /**
+     * Gets a copy of the contents of a container.
+     *
+     * @param containerId Container to look up.
+     * @return The items by slot, or null if the container is not open.
+     */
+    public ItemStack @Nullable[] getItems(int containerId) {
+        Container container = this.containers.get(containerId);
+        return container != null ? container.items.clone() : null;
+    }
+
+    public @Nullable ItemStack getCarriedItem() {
+        return this.carriedItem;
+    }
+
+    public void clear() {
+        this.containers.clear();
+        this.carriedItem = null;
+        this.carriedItemSize = UNKNOWN_SIZE;
+    }
+
+    private static boolean isTracked(Class<?> packetClass) {
+        return packetClass == ClientboundContainerSetSlotPacket.class || packetClass == ClientboundContainerSetContentPacket.class
+                || packetClass == ServerboundContainerClickPacket.class || packetClass == ClientboundOpenScreenPacket.class
+                || packetClass == ClientboundContainerClosePacket.class || packetClass == ServerboundContainerClosePacket.class
+                || packetClass == ClientboundLoginPacket.class;
+    }
+
+    private static class Container {
+        private static final ItemStack[] EMPTY = new ItemStack[0];
+
+        private int stateId;
+        private ItemStack[] items = EMPTY;
+        /**
+         * Encoded size of the item in each slot, or {@link #UNKNOWN_SIZE} if it has not been measured.
+         */
+        private int[] sizes = new int[0];
+        private boolean desynced;
+
+        private void setContents(int stateId, ItemStack[] items) {
+            this.stateId = stateId;
+            this.desynced = false;
+            if (items.length != this.items.length) {
+                this.items = items.clone();
+                this.sizes = new int[items.length];
+                Arrays.fill(this.sizes, UNKNOWN_SIZE);
+                return;
+            }
+
+            // Only slots whose item changed have to be measured again.
+            for (int slot = 0; slot < items.length; slot++) {
+                this.set(slot, items[slot]);
+            }
+        }
+
+        private void set(int slot, @Nullable ItemStack item) {
+            if (slot < 0) {
+                return;
+            }
+
+            if (slot >= this.items.length) {
+                // Slots may be set before the contents of a new container are sent.
+                int length = this.items.length;
+                this.items = Arrays.copyOf(this.items, slot + 1);
+                this.sizes = Arrays.copyOf(this.sizes, slot + 1);
+                Arrays.fill(this.sizes, length, this.sizes.length, UNKNOWN_SIZE);
+            }
+
+            if (!Objects.equals(this.items[slot], item)) {
+                this.items[slot] = item;
+                this.sizes[slot] = UNKNOWN_SIZE;
+            }
+        }
+    }
+}
@@ -0,0 +1,522 @@
+package com.github.steveice10.mc.protocol;
+
+import com.github.steveice10.mc.protocol.codec.LazyPacket;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.EntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.EntityMetadataMap;
+import com.github.steveice10.mc.protocol.data.game.entity.type.EntityType;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundLoginPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundRespawnPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.ClientboundMoveEntityPosPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.ClientboundMoveEntityPosRotPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.ClientboundMoveEntityRotPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.ClientboundRemoveEntitiesPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.ClientboundRotateHeadPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.ClientboundSetEntityDataPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.ClientboundTeleportEntityPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.spawn.ClientboundAddEntityPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.spawn.ClientboundAddExperienceOrbPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.spawn.ClientboundAddPlayerPacket;
+import com.github.steveice10.packetlib.Session;
+import com.github.steveice10.packetlib.event.session.DisconnectedEvent;
+import com.github.steveice10.packetlib.event.session.SessionAdapter;
+import com.github.steveice10.packetlib.packet.Packet;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.IntConsumer;
+
+/**
+ * Tracks the entities a client can see from the clientbound entity packets.
+ * <p>
+ * Entities are stored in parallel arrays rather than one object per entity. Positions are kept in
+ * the fixed point units of the move packets (1/4096 of a block) and angles as the byte steps they
+ * are sent in, so applying a move is an integer addition. Entities are also indexed by the chunk
+ * they are in, which backs the radius queries. Add an instance to a client session to keep it up
+ * to date; the tracker is cleared when the client logs in, respawns or disconnects.
+ * <p>
+ * Removing an entity moves the last entity into its slot, so a query running on another thread
+ * while the tracker is updated can return the wrong entity. Queries should be made from the
+ * session's listeners.
+ */
+public class EntityTracker extends SessionAdapter {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int NONE = LongIntTable.NONE;
+    private static final double FIXED_POINT_SCALE = 4096;
+
+    private final LongIntTable indexById = new LongIntTable();
+    private final LongIntTable headByChunk = new LongIntTable();
+
+    private int size;
+    private int[] ids;
+    private long[] uuidMost;
+    private long[] uuidLeast;
+    private EntityType[] types;
+    private long[] x;
+    private long[] y;
+    private long[] z;
+    private byte[] yaw;
+    private byte[] pitch;
+    private byte[] headYaw;
+    private boolean[] onGround;
+    private EntityMetadataMap[] metadata;
+    private int[] nextInChunk;
+    private int[] previousInChunk;
+
+    public EntityTracker() {
+        this.allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        this.ids = new int[capacity];
+        this.uuidMost = new long[capacity];
+        this.uuidLeast = new long[capacity];
+        this.types = new EntityType[capacity];
+        this.x = new long[capacity];
+        this.y = new long[capacity];
+        this.z = new long[capacity];
+        this.yaw = new byte[capacity];
+        this.pitch = new byte[capacity];
+        this.headYaw = new byte[capacity];
+        this.onGround = new boolean[capacity];
+        this.metadata = new EntityMetadataMap[capacity];
+        this.nextInChunk = new int[capacity];
+        this.previousInChunk = new int[capacity];
+    }
+
+    private void grow() {
+        int capacity = this.ids.length * 2;
+        this.ids = Arrays.copyOf(this.ids, capacity);
+        this.uuidMost = Arrays.copyOf(this.uuidMost, capacity);
+        this.uuidLeast = Arrays.copyOf(this.uuidLeast, capacity);
+        this.types = Arrays.copyOf(this.types, capacity);
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        this.z = Arrays.copyOf(this.z, capacity);
+        this.yaw = Arrays.copyOf(this.yaw, capacity);
+        this.pitch = Arrays.copyOf(this.pitch, capacity);
+        this.headYaw = Arrays.copyOf(this.headYaw, capacity);
+        this.onGround = Arrays.copyOf(this.onGround, capacity);
+        this.metadata = Arrays.copyOf(this.metadata, capacity);
+        this.nextInChunk = Arrays.copyOf(this.nextInChunk, capacity);
+        this.previousInChunk = Arrays.copyOf(this.previousInChunk, capacity);
+    }
+
+    @Override
+    public void packetReceived(Session session, Packet packet) {
+        packet = LazyPacket.unwrap(packet, EntityTracker::isTracked);
+        if (packet == null) {
+            return;
+        }
+
+        if (packet instanceof ClientboundMoveEntityPosPacket) {
+            ClientboundMoveEntityPosPacket move = (ClientboundMoveEntityPosPacket) packet;
+            int index = this.indexById.get(move.getEntityId());
+            if (index != NONE) {
+                this.move(index, toFixed(move.getMoveX()), toFixed(move.getMoveY()), toFixed(move.getMoveZ()));
+                this.onGround[index] = move.isOnGround();
+            }
+        } else if (packet instanceof ClientboundMoveEntityPosRotPacket) {
+            ClientboundMoveEntityPosRotPacket move = (ClientboundMoveEntityPosRotPacket) packet;
+            int index = this.indexById.get(move.getEntityId());
+            if (index != NONE) {
+                this.move(index, toFixed(move.getMoveX()), toFixed(move.getMoveY()), toFixed(move.getMoveZ()));
+                this.yaw[index] = toAngle(move.getYaw());
+                this.pitch[index] = toAngle(move.getPitch());
+                this.onGround[index] = move.isOnGround();
+            }
+        } else if (packet instanceof ClientboundMoveEntityRotPacket) {
+            ClientboundMoveEntityRotPacket move = (ClientboundMoveEntityRotPacket) packet;
+            int index = this.indexById.get(move.getEntityId());
+            if (index != NONE) {
+                this.yaw[index] = toAngle(move.getYaw());
+                this.pitch[index] = toAngle(move.getPitch());
+                this.onGround[index] = move.isOnGround();
+            }
+        } else if (packet instanceof ClientboundRotateHeadPacket) {
+            ClientboundRotateHeadPacket rotate = (ClientboundRotateHeadPacket) packet;
+            int index = this.indexById.get(rotate.getEntityId());
+            if (index != NONE) {
+                this.headYaw[index] = toAngle(rotate.getHeadYaw());
+            }
+        } else if (packet instanceof ClientboundTeleportEntityPacket) {
+            ClientboundTeleportEntityPacket teleport = (ClientboundTeleportEntityPacket) packet;
+            int index = this.indexById.get(teleport.getEntityId());
+            if (index != NONE) {
+                this.setPosition(index, toFixed(teleport.getX()), toFixed(teleport.getY()), toFixed(teleport.getZ()));
+                this.yaw[index] = toAngle(teleport.getYaw());
+                this.pitch[index] = toAngle(teleport.getPitch());
+                this.onGround[index] = teleport.isOnGround();
+            }
+        } else if (packet instanceof ClientboundSetEntityDataPacket) {
+            ClientboundSetEntityDataPacket data = (ClientboundSetEntityDataPacket) packet;
+            int index = this.indexById.get(data.getEntityId());
+            if (index != NONE) {
+                EntityMetadataMap map = this.metadata[index];
+                if (map == null) {
+                    map = this.metadata[index] = new EntityMetadataMap();
+                }
+
+                for (EntityMetadata<?, ?> entry : data.getMetadata()) {
+                    map.set(entry);
+                }
+            }
+        } else if (packet instanceof ClientboundAddEntityPacket) {
+            ClientboundAddEntityPacket add = (ClientboundAddEntityPacket) packet;
+            this.add(add.getEntityId(), add.getUuid(), add.getType(), add.getX(), add.getY(), add.getZ(), add.getYaw(), add.getPitch(), add.getHeadYaw());
+        } else if (packet instanceof ClientboundAddPlayerPacket) {
+            ClientboundAddPlayerPacket add = (ClientboundAddPlayerPacket) packet;
+            this.add(add.getEntityId(), add.getUuid(), EntityType.PLAYER, add.getX(), add.getY(), add.getZ(), add.getYaw(), add.getPitch(), add.getYaw());
+        } else if (packet instanceof ClientboundAddExperienceOrbPacket) {
+            ClientboundAddExperienceOrbPacket add = (ClientboundAddExperienceOrbPacket) packet;
+            this.add(add.getEntityId(), null, EntityType.EXPERIENCE_ORB, add.getX(), add.getY(), add.getZ(), 0, 0, 0);
+        } else if (packet instanceof ClientboundRemoveEntitiesPacket) {
+            for (int entityId : ((ClientboundRemoveEntitiesPacket) packet).getEntityIds()) {
+                this.remove(entityId);
+            }
+        } else if (packet instanceof ClientboundLoginPacket || packet instanceof ClientboundRespawnPacket) {
+            this.clear();
+        }
+    }
+
+    @Override
+    public void disconnected(DisconnectedEvent event) {
+        this.clear();
+    }
+
+    private static boolean isTracked(Class<?> packetClass) {
+        return packetClass == ClientboundMoveEntityPosPacket.class || packetClass == ClientboundMoveEntityPosRotPacket.class
+                || packetClass == ClientboundMoveEntityRotPacket.class || packetClass == ClientboundRotateHeadPacket.class
+                || packetClass == ClientboundTeleportEntityPacket.class || packetClass == ClientboundSetEntityDataPacket.class
+                || packetClass == ClientboundAddEntityPacket.class || packetClass == ClientboundAddPlayerPacket.class
+                || packetClass == ClientboundAddExperienceOrbPacket.class || packetClass == ClientboundRemoveEntitiesPacket.class
+                || packetClass == ClientboundLoginPacket.class || packetClass == ClientboundRespawnPacket.class;
+    }
+
+    /**
+     * Starts tracking an entity, replacing any entity with the same id.
+     *
+     * @param entityId the entity id
+     * @param uuid     the entity's UUID, or null if it has none
+     * @param type     the entity type
+     * @param x        the X coordinate
+     * @param y        the Y coordinate
+     * @param z        the Z coordinate
+     * @param yaw      the yaw
+     * @param pitch    the pitch
+     * @param headYaw  the head yaw
+     */
+    public void add(int entityId, @Nullable UUID uuid, EntityType type, double x, double y, double z, float yaw, float pitch, float headYaw) {
+        this.remove(entityId);
+        if (this.size == this.ids.length) {
+            this.grow();
+        }
+
+        int index = this.size++;
+        this.ids[index] = entityId;
+        this.uuidMost[index] = uuid != null ? uuid.getMostSignificantBits() : 0;
+        this.uuidLeast[index] = uuid != null ? uuid.getLeastSignificantBits() : 0;
+        this.types[index] = type;
+        this.x[index] = toFixed(x);
+        this.y[index] = toFixed(y);
+        this.z[index] = toFixed(z);
+        this.yaw[index] = toAngle(yaw);
+        this.pitch[index] = toAngle(pitch);
+        this.headYaw[index] = toAngle(headYaw);
+        this.onGround[index] = false;
+        this.indexById.put(entityId, index);
+        this.link(index);
+    }
+
+    /**
+     * Stops tracking an entity.
+     *
+     * @param entityId the entity id
+     * @return whether the entity was tracked
+     */
+    public boolean remove(int entityId) {
+        int index = this.indexById.get(entityId);
+        if (index == NONE) {
+            return false;
+        }
+
+        this.unlink(index);
+        this.indexById.remove(entityId);
+
+        // Move the last entity into the freed index to keep the arrays dense.
+        int last = --this.size;
+        if (index != last) {
+            this.ids[index] = this.ids[last];
+            this.uuidMost[index] = this.uuidMost[last];
+            this.uuidLeast[index] = this.uuidLeast[last];
+            this.types[index] = this.types[last];
+            this.x[index] = this.x[last];
+            this.y[index] = this.y[last];
+            this.z[index] = this.z[last];
+            this.yaw[index] = this.yaw[last];
+            this.pitch[index] = this.pitch[last];
+            this.headYaw[index] = this.headYaw[last];
+            this.onGround[index] = this.onGround[last];
+            this.metadata[index] = this.metadata[last];
+
+            int previous = this.previousInChunk[last];
+            int next = this.nextInChunk[last];
+            this.previousInChunk[index] = previous;
+            this.nextInChunk[index] = next;
+            if (previous != NONE) {
+                this.nextInChunk[previous] = index;
+            } else {
+                this.headByChunk.put(this.chunkKey(index), index);
+            }
+
+            if (next != NONE) {
+                this.previousInChunk[next] = index;
+            }
+
+            this.indexById.put(this.ids[index], index);
+        }
+
+        this.types[last] = null;
+        this.metadata[last] = null;
+        return true;
+    }
+
+    /**
+     * Stops tracking all entities.
+     */
+    public void clear() {
+        Arrays.fill(this.types, 0, this.size, null);
+        Arrays.fill(this.metadata, 0, this.size, null);
+        this.size = 0;
+        this.indexById.clear();
+        this.headByChunk.clear();
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean contains(int entityId) {
+        return this.indexById.get(entityId) != NONE;
+    }
+
+    private int indexOf(int entityId) {
+        int index = this.indexById.get(entityId);
+        if (index == NONE) {
+            throw new IllegalArgumentException("Entity " + entityId + " is not tracked.");
+        }
+
+        return index;
+    }
+
+    @Nullable
+    public UUID getUuid(int entityId) {
+        int index = this.indexOf(entityId);
+        if (this.uuidMost[index] == 0 && this.uuidLeast[index] == 0) {
+            return null;
+        }
+
+        return new UUID(this.uuidMost[index], this.uuidLeast[index]);
+    }
+
+    public EntityType getType(int entityId) {
+        return this.types[this.indexOf(entityId)];
+    }
+
+    public double getX(int entityId) {
+        return this.x[this.indexOf(entityId)] / FIXED_POINT_SCALE;
+    }
+
+    public double getY(int entityId) {
+        return this.y[this.indexOf(entityId)] / FIXED_POINT_SCALE;
+    }
+
+    public double getZ(int entityId) {
+        return this.z[this.indexOf(entityId)] / FIXED_POINT_SCALE;
+    }
+
+    public float getYaw(int entityId) {
+        return this.yaw[this.indexOf(entityId)] * 360 / 256f;
+    }
+
+    public float getPitch(int entityId) {
+        return this.pitch[this.indexOf(entityId)] * 360 / 256f;
+    }
+
+    public float getHeadYaw(int entityId) {
+        return this.headYaw[this.indexOf(entityId)] * 360 / 256f;
+    }
+
+    public boolean isOnGround(int entityId) {
+        return this.onGround[this.indexOf(entityId)];
+    }
+
+    /**
+     * Gets the metadata received for an entity. The returned map is updated in place.
+     *
+     * @param entityId the entity id
+     * @return the metadata, or null if none has been received
+     */
+    @Nullable
+    public EntityMetadataMap getMetadata(int entityId) {
+        return this.metadata[this.indexOf(entityId)];
+    }
+
+    /**
+     * Calls the consumer with the id of each tracked entity of the given type.
+     *
+     * @param type     the entity type
+     * @param consumer the consumer
+     */
+    public void forEachOfType(EntityType type, IntConsumer consumer) {
+        for (int index = 0; index < this.size; index++) {
+            if (this.types[index] == type) {
+                consumer.accept(this.ids[index]);
+            }
+        }
+    }
+
+    public int[] getEntitiesOfType(EntityType type) {
+        IdCollector collector = new IdCollector();
+        this.forEachOfType(type, collector);
+        return collector.toArray();
+    }
+
+    /**
+     * Calls the consumer with the id of each tracked entity within a radius of a point.
+     *
+     * @param x        the X coordinate of the center
+     * @param y        the Y coordinate of the center
+     * @param z        the Z coordinate of the center
+     * @param radius   the radius
+     * @param type     the entity type to match, or null to match every type
+     * @param consumer the consumer
+     */
+    public void forEachInRadius(double x, double y, double z, double radius, @Nullable EntityType type, IntConsumer consumer) {
+        double radiusSquared = radius * radius;
+        int minChunkX = (int) Math.floor((x - radius) / 16);
+        int maxChunkX = (int) Math.floor((x + radius) / 16);
+        int minChunkZ = (int) Math.floor((z - radius) / 16);
+        int maxChunkZ = (int) Math.floor((z + radius) / 16);
+
+        // Scanning every entity is cheaper than probing more chunks than are occupied.
+        if ((long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1) > this.headByChunk.size()) {
+            for (int index = 0; index < this.size; index++) {
+                this.test(index, x, y, z, radiusSquared, type, consumer);
+            }
+
+            return;
+        }
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                for (int index = this.headByChunk.get(chunkKey(chunkX, chunkZ)); index != NONE; index = this.nextInChunk[index]) {
+                    this.test(index, x, y, z, radiusSquared, type, consumer);
+                }
+            }
+        }
+    }
+
+    public int[] getEntitiesInRadius(double x, double y, double z, double radius, @Nullable EntityType type) {
+        IdCollector collector = new IdCollector();
+        this.forEachInRadius(x, y, z, radius, type, collector);
+        return collector.toArray();
+    }
+
+    private void test(int index, double x, double y, double z, double radiusSquared, @Nullable EntityType type, IntConsumer consumer) {
+        if (type != null && this.types[index] != type) {
+            return;
+        }
+
+        double dx = this.x[index] / FIXED_POINT_SCALE - x;
+        double dy = this.y[index] / FIXED_POINT_SCALE - y;
+        double dz = this.z[index] / FIXED_POINT_SCALE - z;
+        if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+            consumer.accept(this.ids[index]);
+        }
+    }
+
+    private void move(int index, long dx, long dy, long dz) {
+        this.setPosition(index, this.x[index] + dx, this.y[index] + dy, this.z[index] + dz);
+    }
+
+    private void setPosition(int index, long x, long y, long z) {
+        long oldChunk = this.chunkKey(index);
+        this.x[index] = x;
+        this.y[index] = y;
+        this.z[index] = z;
+
+        long newChunk = this.chunkKey(index);
+        if (newChunk != oldChunk) {
+            this.unlink(index, oldChunk);
+            this.link(index);
+        }
+    }
+
+    private void link(int index) {
+        long chunk = this.chunkKey(index);
+        int head = this.headByChunk.get(chunk);
+        this.previousInChunk[index] = NONE;
+        this.nextInChunk[index] = head;
+        if (head != NONE) {
+            this.previousInChunk[head] = index;
+        }
+
+        this.headByChunk.put(chunk, index);
+    }
+
+    private void unlink(int index) {
+        this.unlink(index, this.chunkKey(index));
+    }
+
+    private void unlink(int index, long chunk) {
+        int previous = this.previousInChunk[index];
+        int next = this.nextInChunk[index];
+        if (previous != NONE) {
+            this.nextInChunk[previous] = next;
+        } else if (next != NONE) {
+            this.headByChunk.put(chunk, next);
+        } else {
+            this.headByChunk.remove(chunk);
+        }
+
+        if (next != NONE) {
+            this.previousInChunk[next] = previous;
+        }
+    }
+
+    private long chunkKey(int index) {
+        // 16 blocks of 4096 units each make up a chunk.
+        return chunkKey((int) (this.x[index] >> 16), (int) (this.z[index] >> 16));
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static long toFixed(double value) {
+        return Math.round(value * FIXED_POINT_SCALE);
+    }
+
+    private static byte toAngle(float degrees) {
+        return (byte) (degrees * 256 / 360);
+    }
+
+    private static class IdCollector implements IntConsumer {
+        private int[] ids = new int[16];
+        private int size;
+
+        @Override
+        public void accept(int id) {
+            if (this.size == this.ids.length) {
+                this.ids = Arrays.copyOf(this.ids, this.size * 2);
+            }
+
+            this.ids[this.size++] = id;
+        }
+
+        public int[] toArray() {
+            return Arrays.copyOf(this.ids, this.size);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.steveice10.mc.protocol;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash table from longs to non-negative ints, such as packed chunk coordinates
+ * to an index into the arrays of a tracker. Missing keys map to {@link #NONE}.
+ */
+class LongIntTable {
+    static final int NONE = -1;
+
+    private long[] keys = new long[16];
+    private int[] values = new int[16];
+    private int mask = 15;
+    private int size;
+
+    LongIntTable() {
+        Arrays.fill(this.values, NONE);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    int get(long key) {
+        return this.values[this.slot(key)];
+    }
+
+    void put(long key, int value) {
+        int slot = this.slot(key);
+        if (this.values[slot] == NONE) {
+            this.keys[slot] = key;
+            this.size++;
+        }
+
+        this.values[slot] = value;
+        // Keep the load factor at or below 0.5 so probe sequences stay short.
+        if (this.size * 2 > this.keys.length) {
+            this.rehash(this.keys.length * 2);
+        }
+    }
+
+    void remove(long key) {
+        int gap = this.slot(key);
+        if (this.values[gap] == NONE) {
+            return;
+        }
+
+        // Shift later entries of the probe sequence back so lookups never stop early.
+        int slot = (gap + 1) & this.mask;
+        while (this.values[slot] != NONE) {
+            int ideal = mix(this.keys[slot]) & this.mask;
+            if (((slot - ideal) & this.mask) >= ((slot - gap) & this.mask)) {
+                this.keys[gap] = this.keys[slot];
+                this.values[gap] = this.values[slot];
+                gap = slot;
+            }
+
+            slot = (slot + 1) & this.mask;
+        }
+
+        this.values[gap] = NONE;
+        this.size--;
+    }
+
+    void clear() {
+        Arrays.fill(this.values, NONE);
+        this.size = 0;
+    }
+
+    private int slot(long key) {
+        int slot = mix(key) & this.mask;
+        while (this.values[slot] != NONE && this.keys[slot] != key) {
+            slot = (slot + 1) & this.mask;
+        }
+
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(this.values, NONE);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != NONE) {
+                int slot = this.slot(oldKeys[i]);
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.steveice10.mc.protocol;
+
+import com.github.steveice10.mc.protocol.codec.SkippedPacket;
+import com.github.steveice10.packetlib.ProxyInfo;
+import com.github.steveice10.packetlib.packet.Packet;
+import com.github.steveice10.packetlib.tcp.TcpClientSession;
+
+/**
+ * A client session that drops packets removed by a {@link MinecraftProtocol} clientbound filter
+ * before they are dispatched, so listeners only receive packets that were decoded.
+ *
+ * @see MinecraftProtocol#setClientboundFilter(com.github.steveice10.mc.protocol.data.ProtocolState, java.util.function.Predicate)
+ */
+public class MinecraftClientSession extends TcpClientSession {
+    public MinecraftClientSession(String host, int port, MinecraftProtocol protocol) {
+        super(host, port, protocol);
+    }
+
+    public MinecraftClientSession(String host, int port, MinecraftProtocol protocol, ProxyInfo proxy) {
+        super(host, port, protocol, proxy);
+    }
+
+    @Override
+    public void callPacketReceived(Packet packet) {
+        if (packet != SkippedPacket.INSTANCE) {
+            super.callPacketReceived(packet);
+        }
+    }
+}
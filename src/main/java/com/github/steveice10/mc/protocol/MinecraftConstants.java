@@ -73,6 +73,11 @@ public final class MinecraftConstants {
      */
     public static final String SERVER_COMPRESSION_THRESHOLD = "compression-threshold";
 
+    /**
+     * Session flag for providing a shared {@link ServerExecutor} for authentication and keep-alives. Server only.
+     */
+    public static final String SERVER_EXECUTOR_KEY = "server-executor";
+
     /**
      * The packet header used by Minecraft.
      */
@@ -1,11 +1,15 @@
 package com.github.steveice10.mc.protocol;
 
 import com.github.steveice10.mc.auth.data.GameProfile;
+import com.github.steveice10.mc.protocol.capture.PacketDirection;
 import com.github.steveice10.mc.protocol.codec.MinecraftCodec;
 import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
 import com.github.steveice10.mc.protocol.codec.PacketCodec;
 import com.github.steveice10.mc.protocol.codec.PacketStateCodec;
+import com.github.steveice10.mc.protocol.codec.PreparedPacket;
+import com.github.steveice10.mc.protocol.codec.SkippedPacket;
 import com.github.steveice10.mc.protocol.data.ProtocolState;
+import com.github.steveice10.mc.protocol.metrics.PacketMetrics;
 import com.github.steveice10.packetlib.Server;
 import com.github.steveice10.packetlib.Session;
 import com.github.steveice10.packetlib.codec.PacketCodecHelper;
@@ -19,11 +23,15 @@ import io.netty.buffer.ByteBuf;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.security.Key;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 /**
  * Implements the Minecraft protocol.
@@ -41,6 +49,11 @@ public class MinecraftProtocol extends PacketProtocol {
 
     private final ProtocolState targetState;
 
+    private final Map<ProtocolState, Predicate<Class<? extends Packet>>> clientboundFilters = new EnumMap<>(ProtocolState.class);
+    private final Map<ProtocolState, Predicate<Class<? extends Packet>>> serverboundFilters = new EnumMap<>(ProtocolState.class);
+    private Predicate<Class<? extends Packet>> clientboundFilter;
+    private Predicate<Class<? extends Packet>> serverboundFilter;
+
     /**
      * The player's identity.
      */
@@ -60,6 +73,13 @@ public class MinecraftProtocol extends PacketProtocol {
     @Setter
     private boolean useDefaultListeners = true;
 
+    /**
+     * Metrics to record decoded and encoded packets to, or null to not record them.
+     */
+    @Getter
+    @Setter
+    private @Nullable PacketMetrics metrics;
+
     /**
      * Constructs a new MinecraftProtocol instance for making status queries.
      */
@@ -180,10 +200,83 @@ public class MinecraftProtocol extends PacketProtocol {
     public void setState(ProtocolState state) {
         this.state = state;
         this.stateCodec = this.codec.getCodec(state);
+        this.clientboundFilter = this.clientboundFilters.get(state);
+        this.serverboundFilter = this.serverboundFilters.get(state);
+    }
+
+    /**
+     * Sets which clientbound packets are decoded while in the given state. Packets rejected by the
+     * filter have their bytes skipped without being constructed. A {@link MinecraftClientSession}
+     * drops them before its listeners are called; other sessions receive them as
+     * {@link SkippedPacket#INSTANCE}. An allow-list can be passed as {@code allowed::contains},
+     * and a deny-list as {@code packetClass -> !denied.contains(packetClass)}.
+     * <p>
+     * The default listeners rely on the login, keep-alive and disconnect packets, so those
+     * should not be filtered out.
+     *
+     * @param state  The state to filter packets in.
+     * @param filter Filter accepting the packet classes to decode, or null to decode every packet.
+     */
+    public void setClientboundFilter(@NonNull ProtocolState state, @Nullable Predicate<Class<? extends Packet>> filter) {
+        setFilter(this.clientboundFilters, state, filter);
+        if (state == this.state) {
+            this.clientboundFilter = filter;
+        }
+    }
+
+    /**
+     * Sets which serverbound packets are decoded while in the given state. Server sessions
+     * receive rejected packets as {@link SkippedPacket#INSTANCE}.
+     *
+     * @param state  The state to filter packets in.
+     * @param filter Filter accepting the packet classes to decode, or null to decode every packet.
+     * @see #setClientboundFilter(ProtocolState, Predicate)
+     */
+    public void setServerboundFilter(@NonNull ProtocolState state, @Nullable Predicate<Class<? extends Packet>> filter) {
+        setFilter(this.serverboundFilters, state, filter);
+        if (state == this.state) {
+            this.serverboundFilter = filter;
+        }
+    }
+
+    private static void setFilter(Map<ProtocolState, Predicate<Class<? extends Packet>>> filters, ProtocolState state, Predicate<Class<? extends Packet>> filter) {
+        if (filter != null) {
+            filters.put(state, filter);
+        } else {
+            filters.remove(state);
+        }
+    }
+
+    private static boolean isSkipped(@Nullable Predicate<Class<? extends Packet>> filter, PacketDefinition<?, ?> definition, ByteBuf buf) {
+        if (filter == null || filter.test(definition.getPacketClass())) {
+            return false;
+        }
+
+        buf.skipBytes(buf.readableBytes());
+        return true;
     }
 
     @Override
     public Packet createClientboundPacket(int id, ByteBuf buf, PacketCodecHelper codecHelper) throws IOException {
+        PacketMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return this.decodeClientbound(id, buf, codecHelper);
+        }
+
+        ProtocolState state = this.state;
+        PacketDefinition<?, ?> definition = this.stateCodec.getClientboundDefinition(id);
+        int size = buf.readableBytes();
+        long start = System.nanoTime();
+        Packet packet = this.decodeClientbound(id, buf, codecHelper);
+        metrics.recordDecode(state, PacketDirection.CLIENTBOUND, id, definition != null ? definition.getPacketClass() : null, size, System.nanoTime() - start);
+        return packet;
+    }
+
+    private Packet decodeClientbound(int id, ByteBuf buf, PacketCodecHelper codecHelper) throws IOException {
+        if (isSkipped(this.clientboundFilter, this.stateCodec.getClientboundDefinition(id), buf)) {
+            return SkippedPacket.INSTANCE;
+        }
+
         return this.stateCodec.createClientboundPacket(id, buf, codecHelper);
     }
 
@@ -194,6 +287,7 @@ public class MinecraftProtocol extends PacketProtocol {
 
     @Override
     public int getClientboundId(Packet packet) {
+        this.checkPrepared(packet);
         return this.stateCodec.getClientboundId(packet);
     }
 
@@ -204,6 +298,25 @@ public class MinecraftProtocol extends PacketProtocol {
 
     @Override
     public Packet createServerboundPacket(int id, ByteBuf buf, PacketCodecHelper codecHelper) throws IOException {
+        PacketMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return this.decodeServerbound(id, buf, codecHelper);
+        }
+
+        ProtocolState state = this.state;
+        PacketDefinition<?, ?> definition = this.stateCodec.getServerboundDefinition(id);
+        int size = buf.readableBytes();
+        long start = System.nanoTime();
+        Packet packet = this.decodeServerbound(id, buf, codecHelper);
+        metrics.recordDecode(state, PacketDirection.SERVERBOUND, id, definition != null ? definition.getPacketClass() : null, size, System.nanoTime() - start);
+        return packet;
+    }
+
+    private Packet decodeServerbound(int id, ByteBuf buf, PacketCodecHelper codecHelper) throws IOException {
+        if (isSkipped(this.serverboundFilter, this.stateCodec.getServerboundDefinition(id), buf)) {
+            return SkippedPacket.INSTANCE;
+        }
+
         return this.stateCodec.createServerboundPacket(id, buf, codecHelper);
     }
 
@@ -214,9 +327,20 @@ public class MinecraftProtocol extends PacketProtocol {
 
     @Override
     public int getServerboundId(Packet packet) {
+        this.checkPrepared(packet);
         return this.stateCodec.getServerboundId(packet);
     }
 
+    private void checkPrepared(Packet packet) {
+        if (packet instanceof PreparedPacket) {
+            PreparedPacket<?> prepared = (PreparedPacket<?>) packet;
+            if (prepared.getProtocolVersion() != this.codec.getProtocolVersion() || prepared.getState() != this.state) {
+                throw new IllegalArgumentException("Packet prepared for protocol " + prepared.getProtocolVersion() + " in state " + prepared.getState()
+                        + " cannot be sent with protocol " + this.codec.getProtocolVersion() + " in state " + this.state + ".");
+            }
+        }
+    }
+
     @Override
     public Class<? extends Packet> getServerboundClass(int id) {
         return this.stateCodec.getServerboundClass(id);
@@ -224,11 +348,25 @@ public class MinecraftProtocol extends PacketProtocol {
 
     @Override
     public PacketDefinition<?, ?> getServerboundDefinition(int id) {
-        return this.stateCodec.getServerboundDefinition(id);
+        PacketDefinition<?, ?> definition = this.stateCodec.getServerboundDefinition(id);
+        PacketMetrics metrics = this.metrics;
+        if (metrics == null || definition == null) {
+            return definition;
+        }
+
+        // The session serializes through the definition, so an instrumented one records the encode.
+        return metrics.instrument(this.state, PacketDirection.SERVERBOUND, definition);
     }
 
     @Override
     public PacketDefinition<?, ?> getClientboundDefinition(int id) {
-        return this.stateCodec.getClientboundDefinition(id);
+        PacketDefinition<?, ?> definition = this.stateCodec.getClientboundDefinition(id);
+        PacketMetrics metrics = this.metrics;
+        if (metrics == null || definition == null) {
+            return definition;
+        }
+
+        // The session serializes through the definition, so an instrumented one records the encode.
+        return metrics.instrument(this.state, PacketDirection.CLIENTBOUND, definition);
     }
 }
@@ -0,0 +1,252 @@
+package com.github.steveice10.mc.protocol;
+
+import com.github.steveice10.mc.auth.data.GameProfile;
+import com.github.steveice10.mc.protocol.codec.LazyPacket;
+import com.github.steveice10.mc.protocol.codec.MinecraftPacket;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntry;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntryAction;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundLoginPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundPlayerInfoRemovePacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundPlayerInfoUpdatePacket;
+import com.github.steveice10.packetlib.Session;
+import com.github.steveice10.packetlib.event.session.DisconnectedEvent;
+import com.github.steveice10.packetlib.event.session.SessionAdapter;
+import com.github.steveice10.packetlib.packet.Packet;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The player list of a session, keyed by profile id.
+ * <p>
+ * On a client, add an instance to the session to apply the player info packets it receives: each
+ * update only changes the fields of its actions, in the existing entry. On a server, keep one
+ * instance per session and call {@link #diff(Collection)} with the list the client should see to
+ * get the fewest packets that bring it up to date.
+ * <p>
+ * Entries are owned by the list and must not be modified. The list is not thread safe.
+ */
+public class PlayerList extends SessionAdapter {
+    private final Map<UUID, PlayerListEntry> entries = new LinkedHashMap<>();
+
+    @Override
+    public void packetReceived(Session session, Packet packet) {
+        packet = LazyPacket.unwrap(packet, PlayerList::isTracked);
+        if (packet == null) {
+            return;
+        }
+
+        if (packet instanceof ClientboundPlayerInfoUpdatePacket) {
+            this.apply((ClientboundPlayerInfoUpdatePacket) packet);
+        } else if (packet instanceof ClientboundPlayerInfoRemovePacket) {
+            this.apply((ClientboundPlayerInfoRemovePacket) packet);
+        } else if (packet instanceof ClientboundLoginPacket) {
+            this.clear();
+        }
+    }
+
+    @Override
+    public void disconnected(DisconnectedEvent event) {
+        this.clear();
+    }
+
+    private static boolean isTracked(Class<?> packetClass) {
+        return packetClass == ClientboundPlayerInfoUpdatePacket.class || packetClass == ClientboundPlayerInfoRemovePacket.class
+                || packetClass == ClientboundLoginPacket.class;
+    }
+
+    /**
+     * Applies a player info update. As on the vanilla client, adding a known player keeps its
+     * profile, and entries which are neither added nor known are ignored.
+     *
+     * @param packet Update to apply.
+     */
+    public void apply(ClientboundPlayerInfoUpdatePacket packet) {
+        EnumSet<PlayerListEntryAction> actions = packet.getActions();
+        for (PlayerListEntry update : packet.getEntries()) {
+            PlayerListEntry entry = this.entries.get(update.getProfileId());
+            if (entry == null && actions.contains(PlayerListEntryAction.ADD_PLAYER)) {
+                entry = new PlayerListEntry(update.getProfileId());
+                entry.setProfile(update.getProfile());
+                this.entries.put(update.getProfileId(), entry);
+            } else if (entry == null) {
+                continue;
+            }
+
+            for (PlayerListEntryAction action : actions) {
+                apply(entry, update, action);
+            }
+        }
+    }
+
+    /**
+     * Applies a player info removal.
+     *
+     * @param packet Removal to apply.
+     */
+    public void apply(ClientboundPlayerInfoRemovePacket packet) {
+        for (UUID profileId : packet.getProfileIds()) {
+            this.entries.remove(profileId);
+        }
+    }
+
+    private static void apply(PlayerListEntry entry, PlayerListEntry update, PlayerListEntryAction action) {
+        switch (action) {
+            case INITIALIZE_CHAT:
+                entry.setSessionId(update.getSessionId());
+                entry.setExpiresAt(update.getExpiresAt());
+                entry.setPublicKey(update.getPublicKey());
+                entry.setKeySignature(update.getKeySignature());
+                break;
+            case UPDATE_GAME_MODE:
+                entry.setGameMode(update.getGameMode());
+                break;
+            case UPDATE_LISTED:
+                entry.setListed(update.isListed());
+                break;
+            case UPDATE_LATENCY:
+                entry.setLatency(update.getLatency());
+                break;
+            case UPDATE_DISPLAY_NAME:
+                entry.setDisplayName(update.getDisplayName());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Brings the list to a target state and returns the packets which do the same on a client.
+     * Removed players, and players whose profile changed, are removed with one packet. Other
+     * entries only send the actions whose fields changed, and entries with the same changes share
+     * a packet.
+     *
+     * @param target Every entry the client should see.
+     * @return The packets to send, in order, which is empty if the list is up to date.
+     */
+    public List<MinecraftPacket> diff(Collection<PlayerListEntry> target) {
+        Set<UUID> targetIds = new HashSet<>(target.size() * 2);
+        List<UUID> removed = new ArrayList<>();
+        Map<EnumSet<PlayerListEntryAction>, List<PlayerListEntry>> updates = new LinkedHashMap<>();
+        for (PlayerListEntry entry : target) {
+            targetIds.add(entry.getProfileId());
+            PlayerListEntry current = this.entries.get(entry.getProfileId());
+            if (current != null && !sameProfile(current.getProfile(), entry.getProfile())) {
+                // The profile is only sent when a player is added.
+                removed.add(entry.getProfileId());
+                current = null;
+            }
+
+            EnumSet<PlayerListEntryAction> actions = changes(current, entry);
+            if (!actions.isEmpty()) {
+                updates.computeIfAbsent(actions, key -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        for (UUID profileId : this.entries.keySet()) {
+            if (!targetIds.contains(profileId)) {
+                removed.add(profileId);
+            }
+        }
+
+        List<MinecraftPacket> packets = new ArrayList<>(updates.size() + 1);
+        if (!removed.isEmpty()) {
+            ClientboundPlayerInfoRemovePacket remove = new ClientboundPlayerInfoRemovePacket(removed);
+            this.apply(remove);
+            packets.add(remove);
+        }
+
+        for (Map.Entry<EnumSet<PlayerListEntryAction>, List<PlayerListEntry>> update : updates.entrySet()) {
+            ClientboundPlayerInfoUpdatePacket packet = new ClientboundPlayerInfoUpdatePacket(update.getKey(), update.getValue().toArray(new PlayerListEntry[0]));
+            this.apply(packet);
+            packets.add(packet);
+        }
+
+        return packets;
+    }
+
+    private static EnumSet<PlayerListEntryAction> changes(@Nullable PlayerListEntry current, PlayerListEntry target) {
+        EnumSet<PlayerListEntryAction> actions = EnumSet.noneOf(PlayerListEntryAction.class);
+        if (current == null) {
+            // Compare with the entry a client creates when the player is added.
+            actions.add(PlayerListEntryAction.ADD_PLAYER);
+            current = new PlayerListEntry(target.getProfileId());
+        }
+
+        if (!Objects.equals(current.getSessionId(), target.getSessionId()) || current.getExpiresAt() != target.getExpiresAt()
+                || !Objects.equals(current.getPublicKey(), target.getPublicKey()) || !Arrays.equals(current.getKeySignature(), target.getKeySignature())) {
+            actions.add(PlayerListEntryAction.INITIALIZE_CHAT);
+        }
+
+        if (current.getGameMode() != target.getGameMode()) {
+            actions.add(PlayerListEntryAction.UPDATE_GAME_MODE);
+        }
+
+        if (current.isListed() != target.isListed()) {
+            actions.add(PlayerListEntryAction.UPDATE_LISTED);
+        }
+
+        if (current.getLatency() != target.getLatency()) {
+            actions.add(PlayerListEntryAction.UPDATE_LATENCY);
+        }
+
+        if (!Objects.equals(current.getDisplayName(), target.getDisplayName())) {
+            actions.add(PlayerListEntryAction.UPDATE_DISPLAY_NAME);
+        }
+
+        return actions;
+    }
+
+    private static boolean sameProfile(GameProfile a, GameProfile b) {
+        if (a == b) {
+            return true;
+        }
+
+        if (!Objects.equals(a.getName(), b.getName()) || a.getProperties().size() != b.getProperties().size()) {
+            return false;
+        }
+
+        for (int i = 0; i < a.getProperties().size(); i++) {
+            GameProfile.Property first = a.getProperties().get(i);
+            GameProfile.Property second = b.getProperties().get(i);
+            if (!Objects.equals(first.getName(), second.getName()) || !Objects.equals(first.getValue(), second.getValue())
+                    || !Objects.equals(first.getSignature(), second.getSignature())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public @Nullable PlayerListEntry get(UUID profileId) {
+        return this.entries.get(profileId);
+    }
+
+    /**
+     * Gets every entry, in the order players were added.
+     *
+     * @return An unmodifiable view of the entries.
+     */
+    public Collection<PlayerListEntry> getEntries() {
+        return Collections.unmodifiableCollection(this.entries.values());
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    public void clear() {
+        this.entries.clear();
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.steveice10.mc.protocol;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the background work of {@link ServerListener}s: user authentication on a bounded pool,
+ * and keep-alives on a single shared scheduler.
+ * <p>
+ * One executor is shared by every session of a server, set through the
+ * {@link MinecraftConstants#SERVER_EXECUTOR_KEY} flag. Sessions without the flag use
+ * {@link #getDefault()}. Queue depth and authentication latency are exposed so that
+ * login storms can be monitored.
+ */
+public class ServerExecutor {
+    private static final int DEFAULT_AUTH_QUEUE_SIZE = 1024;
+
+    private static volatile ServerExecutor defaultExecutor;
+
+    private final ThreadPoolExecutor authExecutor;
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder authLatencyNanos = new LongAdder();
+    private final LongAdder rejectedAuthTasks = new LongAdder();
+
+    /**
+     * Creates an executor with one platform authentication thread per processor.
+     */
+    public ServerExecutor() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_AUTH_QUEUE_SIZE, false);
+    }
+
+    /**
+     * Creates an executor.
+     *
+     * @param authThreads    Maximum number of concurrent authentication requests.
+     * @param authQueueSize  Maximum number of authentication requests waiting for a thread.
+     * @param virtualThreads Whether to run authentication on virtual threads, if supported by the runtime.
+     */
+    public ServerExecutor(int authThreads, int authQueueSize, boolean virtualThreads) {
+        ThreadFactory authThreadFactory = virtualThreads ? virtualThreadFactory() : null;
+        if (authThreadFactory == null) {
+            authThreadFactory = daemonThreadFactory("MCProtocolLib Auth Thread #");
+        }
+
+        this.authExecutor = new ThreadPoolExecutor(authThreads, authThreads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(authQueueSize), authThreadFactory);
+        this.authExecutor.allowCoreThreadTimeOut(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("MCProtocolLib Keep Alive Thread #"));
+    }
+
+    /**
+     * Gets the executor used by sessions which do not set {@link MinecraftConstants#SERVER_EXECUTOR_KEY}.
+     *
+     * @return The default executor.
+     */
+    public static ServerExecutor getDefault() {
+        ServerExecutor executor = defaultExecutor;
+        if (executor == null) {
+            synchronized (ServerExecutor.class) {
+                executor = defaultExecutor;
+                if (executor == null) {
+                    defaultExecutor = executor = new ServerExecutor();
+                }
+            }
+        }
+
+        return executor;
+    }
+
+    /**
+     * Runs an authentication task.
+     *
+     * @param task Task to run.
+     * @throws RejectedExecutionException If the authentication queue is full.
+     */
+    public void executeAuth(Runnable task) {
+        long submitted = System.nanoTime();
+        try {
+            this.authExecutor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    this.authLatencyNanos.add(System.nanoTime() - submitted);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.rejectedAuthTasks.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs a task periodically on the shared scheduler.
+     *
+     * @param task   Task to run.
+     * @param period Time between runs.
+     * @param unit   Unit of the period.
+     * @return Future used to cancel the task.
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long period, TimeUnit unit) {
+        return this.scheduler.scheduleAtFixedRate(task, 0, period, unit);
+    }
+
+    /**
+     * Gets the number of authentication requests waiting for a thread.
+     *
+     * @return The authentication queue depth.
+     */
+    public int getAuthQueueDepth() {
+        return this.authExecutor.getQueue().size();
+    }
+
+    /**
+     * Gets the number of authentication requests currently running.
+     *
+     * @return The active authentication count.
+     */
+    public int getActiveAuthTasks() {
+        return this.authExecutor.getActiveCount();
+    }
+
+    /**
+     * Gets the number of finished authentication requests.
+     *
+     * @return The completed authentication count.
+     */
+    public long getCompletedAuthTasks() {
+        return this.authExecutor.getCompletedTaskCount();
+    }
+
+    /**
+     * Gets the number of authentication requests rejected because the queue was full.
+     *
+     * @return The rejected authentication count.
+     */
+    public long getRejectedAuthTasks() {
+        return this.rejectedAuthTasks.sum();
+    }
+
+    /**
+     * Gets the total time finished authentication requests took, from submission to completion.
+     *
+     * @return The total authentication latency, in nanoseconds.
+     */
+    public long getTotalAuthLatencyNanos() {
+        return this.authLatencyNanos.sum();
+    }
+
+    /**
+     * Gets the average time finished authentication requests took, from submission to completion.
+     *
+     * @return The average authentication latency, in nanoseconds.
+     */
+    public long getAverageAuthLatencyNanos() {
+        long completed = this.getCompletedAuthTasks();
+        return completed == 0 ? 0 : this.getTotalAuthLatencyNanos() / completed;
+    }
+
+    /**
+     * Stops accepting new tasks and cancels scheduled keep-alives.
+     */
+    public void shutdown() {
+        this.authExecutor.shutdown();
+        this.scheduler.shutdownNow();
+    }
+
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static ThreadFactory virtualThreadFactory() {
+        // Virtual threads are only available on Java 21+, so they are looked up reflectively.
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "MCProtocolLib Auth Thread #", 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -24,6 +24,7 @@ import com.github.steveice10.mc.protocol.packet.status.serverbound.ServerboundPi
 import com.github.steveice10.mc.protocol.packet.status.serverbound.ServerboundStatusRequestPacket;
 import com.github.steveice10.packetlib.Session;
 import com.github.steveice10.packetlib.event.session.ConnectedEvent;
+import com.github.steveice10.packetlib.event.session.DisconnectedEvent;
 import com.github.steveice10.packetlib.event.session.DisconnectingEvent;
 import com.github.steveice10.packetlib.event.session.SessionAdapter;
 import com.github.steveice10.packetlib.packet.Packet;
@@ -34,12 +35,16 @@ import java.security.*;
 import java.util.Arrays;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Handles initial login and status requests for servers.
  */
 public class ServerListener extends SessionAdapter {
     private static final int DEFAULT_COMPRESSION_THRESHOLD = 256;
+    private static final long KEEP_ALIVE_INTERVAL_MILLIS = 2000;
 
     // Always empty post-1.7
     private static final String SERVER_ID = "";
@@ -58,8 +63,9 @@ public class ServerListener extends SessionAdapter {
     private final byte[] challenge = new byte[4];
     private String username = "";
 
-    private long lastPingTime = 0;
-    private int lastPingId = 0;
+    private volatile long lastPingTime = 0;
+    private volatile int lastPingId = 0;
+    private volatile ScheduledFuture<?> keepAliveFuture;
 
     public ServerListener() {
         new Random().nextBytes(this.challenge);
@@ -102,7 +108,7 @@ public class ServerListener extends SessionAdapter {
                 if (session.getFlag(MinecraftConstants.VERIFY_USERS_KEY, true)) {
                     session.send(new ClientboundHelloPacket(SERVER_ID, KEY_PAIR.getPublic(), this.challenge));
                 } else {
-                    new Thread(new UserAuthTask(session, null)).start();
+                    this.authenticate(session, null);
                 }
             } else if (packet instanceof ServerboundKeyPacket) {
                 ServerboundKeyPacket keyPacket = (ServerboundKeyPacket) packet;
@@ -115,7 +121,7 @@ public class ServerListener extends SessionAdapter {
 
                 SecretKey key = keyPacket.getSecretKey(privateKey);
                 session.enableEncryption(protocol.enableEncryption(key));
-                new Thread(new UserAuthTask(session, key)).start();
+                this.authenticate(session, key);
             }
         }
 
@@ -162,11 +168,36 @@ public class ServerListener extends SessionAdapter {
             }
 
             if (session.getFlag(MinecraftConstants.AUTOMATIC_KEEP_ALIVE_MANAGEMENT, true)) {
-                new Thread(new KeepAliveTask(session)).start();
+                this.keepAliveFuture = getExecutor(session).schedule(new KeepAliveTask(session), KEEP_ALIVE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
             }
         }
     }
 
+    @Override
+    public void disconnected(DisconnectedEvent event) {
+        this.cancelKeepAlive();
+    }
+
+    private void cancelKeepAlive() {
+        ScheduledFuture<?> future = this.keepAliveFuture;
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    private static ServerExecutor getExecutor(Session session) {
+        ServerExecutor executor = session.getFlag(MinecraftConstants.SERVER_EXECUTOR_KEY);
+        return executor != null ? executor : ServerExecutor.getDefault();
+    }
+
+    private void authenticate(Session session, SecretKey key) {
+        try {
+            getExecutor(session).executeAuth(new UserAuthTask(session, key));
+        } catch (RejectedExecutionException e) {
+            session.disconnect("Too many players are logging in, please try again later.");
+        }
+    }
+
     @Override
     public void disconnecting(DisconnectingEvent event) {
         MinecraftProtocol protocol = (MinecraftProtocol) event.getSession().getPacketProtocol();
@@ -221,17 +252,14 @@ public class ServerListener extends SessionAdapter {
 
         @Override
         public void run() {
-            while (this.session.isConnected()) {
-                lastPingTime = System.currentTimeMillis();
-                lastPingId = (int) lastPingTime;
-                this.session.send(new ClientboundKeepAlivePacket(lastPingId));
-
-                try {
-                    Thread.sleep(2000);
-                } catch (InterruptedException e) {
-                    break;
-                }
+            if (!this.session.isConnected()) {
+                cancelKeepAlive();
+                return;
             }
+
+            lastPingTime = System.currentTimeMillis();
+            lastPingId = (int) lastPingTime;
+            this.session.send(new ClientboundKeepAlivePacket(lastPingId));
         }
     }
 }
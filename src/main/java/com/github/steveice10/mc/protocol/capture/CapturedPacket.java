@@ -0,0 +1,51 @@
+package com.github.steveice10.mc.protocol.capture;
+
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.codec.PacketCodec;
+import com.github.steveice10.mc.protocol.codec.PacketStateCodec;
+import com.github.steveice10.mc.protocol.data.ProtocolState;
+import com.github.steveice10.packetlib.packet.Packet;
+import io.netty.buffer.ByteBuf;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.IOException;
+
+/**
+ * A packet read from a capture.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CapturedPacket {
+    /**
+     * The time the packet was captured at, in nanoseconds since the capture started.
+     */
+    private final long timestamp;
+    private final ProtocolState state;
+    private final PacketDirection direction;
+    private final int id;
+    /**
+     * The encoded packet body, without the packet id. The buffer is a view of the capture and is
+     * only valid until the reader is closed.
+     */
+    @ToString.Exclude
+    private final ByteBuf body;
+
+    /**
+     * Decodes the packet.
+     *
+     * @param codec  the codec of the captured protocol version
+     * @param helper the codec helper to decode with
+     * @return the decoded packet
+     */
+    public Packet decode(PacketCodec codec, MinecraftCodecHelper helper) throws IOException {
+        PacketStateCodec stateCodec = codec.getCodec(this.state);
+        if (this.direction == PacketDirection.CLIENTBOUND) {
+            return stateCodec.createClientboundPacket(this.id, this.body.duplicate(), helper);
+        } else {
+            return stateCodec.createServerboundPacket(this.id, this.body.duplicate(), helper);
+        }
+    }
+}
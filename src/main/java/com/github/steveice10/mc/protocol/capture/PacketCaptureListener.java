@@ -0,0 +1,120 @@
+package com.github.steveice10.mc.protocol.capture;
+
+import com.github.steveice10.mc.protocol.MinecraftProtocol;
+import com.github.steveice10.mc.protocol.codec.LazyPacket;
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.codec.MinecraftPacket;
+import com.github.steveice10.mc.protocol.codec.PacketStateCodec;
+import com.github.steveice10.mc.protocol.codec.PreparedPacket;
+import com.github.steveice10.mc.protocol.data.ProtocolState;
+import com.github.steveice10.packetlib.Session;
+import com.github.steveice10.packetlib.event.session.PacketSendingEvent;
+import com.github.steveice10.packetlib.event.session.SessionAdapter;
+import com.github.steveice10.packetlib.packet.Packet;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.io.IOException;
+
+/**
+ * Writes every packet a session sends and receives to a {@link PacketCaptureWriter}.
+ * <p>
+ * Listeners only see decoded packets, so each packet is serialized again to be captured. Lazy and
+ * prepared packets still hold their encoded form and are captured without being re-encoded. Since
+ * the channel releases a prepared packet once it is written, prepared packets are captured when
+ * they are about to be sent rather than after. The listener looks the packet id up in the session's
+ * current protocol state, falling back to the other states for packets that switched the state
+ * before the listener ran. Packets skipped by a filter on {@link MinecraftProtocol} are not
+ * captured, and packets which cannot be serialized or written are left out of the capture rather
+ * than failing the session.
+ */
+public class PacketCaptureListener extends SessionAdapter {
+    private static final ProtocolState[] STATES = ProtocolState.values();
+
+    private final PacketCaptureWriter writer;
+    private final boolean client;
+
+    /**
+     * Creates a capture listener.
+     *
+     * @param writer the writer to capture to
+     * @param client whether the listener is added to a client session, which receives clientbound packets
+     */
+    public PacketCaptureListener(PacketCaptureWriter writer, boolean client) {
+        this.writer = writer;
+        this.client = client;
+    }
+
+    @Override
+    public void packetReceived(Session session, Packet packet) {
+        this.capture(session, packet, this.client ? PacketDirection.CLIENTBOUND : PacketDirection.SERVERBOUND);
+    }
+
+    @Override
+    public void packetSending(PacketSendingEvent event) {
+        Packet packet = event.getPacket();
+        if (packet instanceof PreparedPacket && !event.isCancelled()) {
+            this.capture(event.getSession(), packet, this.client ? PacketDirection.SERVERBOUND : PacketDirection.CLIENTBOUND);
+        }
+    }
+
+    @Override
+    public void packetSent(Session session, Packet packet) {
+        if (!(packet instanceof PreparedPacket)) {
+            this.capture(session, packet, this.client ? PacketDirection.SERVERBOUND : PacketDirection.CLIENTBOUND);
+        }
+    }
+
+    private void capture(Session session, Packet packet, PacketDirection direction) {
+        if (!(packet instanceof MinecraftPacket) || !(session.getPacketProtocol() instanceof MinecraftProtocol)) {
+            return;
+        }
+
+        MinecraftProtocol protocol = (MinecraftProtocol) session.getPacketProtocol();
+        Class<? extends Packet> packetClass = getPacketClass(packet);
+        ProtocolState state = protocol.getState();
+        int id = getId(protocol.getCodec().getCodec(state), packetClass, direction);
+        for (int i = 0; id < 0 && i < STATES.length; i++) {
+            if (STATES[i] != protocol.getState()) {
+                state = STATES[i];
+                id = getId(protocol.getCodec().getCodec(state), packetClass, direction);
+            }
+        }
+
+        if (id < 0) {
+            return;
+        }
+
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            ((MinecraftPacket) packet).serialize(buffer, (MinecraftCodecHelper) session.getCodecHelper());
+            this.writer.write(state, direction, id, buffer);
+        } catch (IOException ignored) {
+            // The writer keeps its own failures, and a packet which cannot be serialized is not captured.
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static Class<? extends Packet> getPacketClass(Packet packet) {
+        if (packet instanceof LazyPacket) {
+            return ((LazyPacket<?>) packet).getPacketClass();
+        } else if (packet instanceof PreparedPacket) {
+            return ((PreparedPacket<?>) packet).getPacketClass();
+        }
+
+        return packet.getClass();
+    }
+
+    private static int getId(PacketStateCodec codec, Class<? extends Packet> packetClass, PacketDirection direction) {
+        if (codec == null) {
+            return -1;
+        }
+
+        try {
+            return direction == PacketDirection.CLIENTBOUND ? codec.getClientboundId(packetClass) : codec.getServerboundId(packetClass);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
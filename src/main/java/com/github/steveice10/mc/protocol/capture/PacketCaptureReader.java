@@ -0,0 +1,332 @@
+package com.github.steveice10.mc.protocol.capture;
+
+import com.github.steveice10.mc.protocol.MinecraftProtocol;
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.codec.PacketCodec;
+import com.github.steveice10.mc.protocol.data.ProtocolState;
+import com.github.steveice10.packetlib.Session;
+import com.github.steveice10.packetlib.packet.Packet;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a capture written by {@link PacketCaptureWriter}.
+ * <p>
+ * Segments are memory mapped when the reader is opened, and the bodies of returned packets are
+ * views of the mapped files, so iterating a capture does not copy packet data. Packets are only
+ * decoded when {@link CapturedPacket#decode(PacketCodec, MinecraftCodecHelper)} is called. A sparse
+ * index of record timestamps is built on open, which {@link #iterator(long)} uses to seek. A
+ * truncated record at the end of the last segment, as left by a writer that was not closed, ends
+ * the capture.
+ */
+public class PacketCaptureReader implements Closeable, Iterable<CapturedPacket> {
+    private static final int INDEX_INTERVAL = 256;
+    private static final ProtocolState[] STATES = ProtocolState.values();
+    private static final PacketDirection[] DIRECTIONS = PacketDirection.values();
+
+    @Getter
+    private final int protocolVersion;
+    /**
+     * The time the capture started at, in milliseconds since the epoch.
+     */
+    @Getter
+    private final long startEpochMillis;
+    @Getter
+    private final long packetCount;
+    private final ByteBuf[] segments;
+    /**
+     * The end of the last complete record in each segment.
+     */
+    private final int[] segmentEnds;
+
+    private int indexSize;
+    private int[] indexSegments = new int[16];
+    private int[] indexOffsets = new int[16];
+    private long[] indexTimestamps = new long[16];
+
+    private boolean closed;
+
+    public PacketCaptureReader(Path directory) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PacketCaptureWriter.SEGMENT_PREFIX + "*" + PacketCaptureWriter.SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                paths.add(path);
+            }
+        }
+
+        if (paths.isEmpty()) {
+            throw new IOException("No capture segments found in " + directory + ".");
+        }
+
+        paths.sort(null);
+        this.segments = new ByteBuf[paths.size()];
+        this.segmentEnds = new int[paths.size()];
+
+        int protocolVersion = 0;
+        long startEpochMillis = 0;
+        long packetCount = 0;
+        for (int i = 0; i < paths.size(); i++) {
+            ByteBuf segment;
+            try (FileChannel channel = FileChannel.open(paths.get(i), StandardOpenOption.READ)) {
+                segment = Unpooled.wrappedBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+
+            if (segment.readableBytes() < PacketCaptureWriter.HEADER_SIZE || segment.getInt(0) != PacketCaptureWriter.MAGIC) {
+                throw new IOException("Invalid capture segment " + paths.get(i) + ".");
+            }
+
+            short version = segment.getShort(4);
+            if (version != PacketCaptureWriter.VERSION) {
+                throw new IOException("Unsupported capture version " + version + " in " + paths.get(i) + ".");
+            }
+
+            int segmentProtocol = segment.getInt(6);
+            long segmentStart = segment.getLong(10);
+            if (i == 0) {
+                protocolVersion = segmentProtocol;
+                startEpochMillis = segmentStart;
+            } else if (segmentProtocol != protocolVersion || segmentStart != startEpochMillis) {
+                throw new IOException("Capture segment " + paths.get(i) + " belongs to a different capture.");
+            }
+
+            this.segments[i] = segment;
+            packetCount = this.scan(i, packetCount);
+        }
+
+        this.protocolVersion = protocolVersion;
+        this.startEpochMillis = startEpochMillis;
+        this.packetCount = packetCount;
+    }
+
+    private long scan(int segmentIndex, long packetCount) {
+        ByteBuf segment = this.segments[segmentIndex];
+        int offset = PacketCaptureWriter.HEADER_SIZE;
+        int limit = segment.writerIndex();
+        while (limit - offset >= Integer.BYTES) {
+            int length = segment.getInt(offset);
+            if (length < PacketCaptureWriter.RECORD_HEADER_SIZE || length > limit - offset - Integer.BYTES) {
+                break;
+            }
+
+            if (packetCount % INDEX_INTERVAL == 0) {
+                this.addIndex(segmentIndex, offset, segment.getLong(offset + Integer.BYTES));
+            }
+
+            offset += Integer.BYTES + length;
+            packetCount++;
+        }
+
+        this.segmentEnds[segmentIndex] = offset;
+        return packetCount;
+    }
+
+    private void addIndex(int segment, int offset, long timestamp) {
+        if (this.indexSize == this.indexOffsets.length) {
+            int capacity = this.indexSize * 2;
+            this.indexSegments = Arrays.copyOf(this.indexSegments, capacity);
+            this.indexOffsets = Arrays.copyOf(this.indexOffsets, capacity);
+            this.indexTimestamps = Arrays.copyOf(this.indexTimestamps, capacity);
+        }
+
+        this.indexSegments[this.indexSize] = segment;
+        this.indexOffsets[this.indexSize] = offset;
+        this.indexTimestamps[this.indexSize] = timestamp;
+        this.indexSize++;
+    }
+
+    /**
+     * Gets the number of segments in the capture.
+     *
+     * @return the segment count
+     */
+    public int getSegmentCount() {
+        return this.segments.length;
+    }
+
+    /**
+     * Iterates over every packet in the capture.
+     *
+     * @return an iterator starting at the first packet
+     */
+    @Override
+    public Iterator<CapturedPacket> iterator() {
+        this.checkOpen();
+        return new CaptureIterator(0, PacketCaptureWriter.HEADER_SIZE);
+    }
+
+    /**
+     * Iterates over the packets captured at or after the given time.
+     *
+     * @param fromTimestamp the time to seek to, in nanoseconds since the capture started
+     * @return an iterator starting at the first packet captured at or after the given time
+     */
+    public Iterator<CapturedPacket> iterator(long fromTimestamp) {
+        this.checkOpen();
+
+        // Find the last indexed record before the requested time, then scan forward from it.
+        int low = 0;
+        int high = this.indexSize - 1;
+        int start = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (this.indexTimestamps[mid] < fromTimestamp) {
+                start = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        CaptureIterator iterator = start < 0 ? new CaptureIterator(0, PacketCaptureWriter.HEADER_SIZE)
+                : new CaptureIterator(this.indexSegments[start], this.indexOffsets[start]);
+        iterator.skipBefore(fromTimestamp);
+        return iterator;
+    }
+
+    /**
+     * Sends the captured packets of one direction to a session, keeping their original timing.
+     * <p>
+     * Each packet is decoded with the session's codec helper and sent with {@link Session#send(Packet)}.
+     * Only packets captured in the protocol state the session is in when the replay starts are sent.
+     * Sessions switch state in listeners once a packet has been written, after {@code send} returns,
+     * so packets after a state switch in the capture are skipped rather than sent in the wrong state.
+     * Replay each state separately, once the session has reached it.
+     *
+     * @param session   the session to send to, which must use a {@link MinecraftProtocol}
+     * @param direction the direction of the packets to send
+     * @param speed     the playback speed, where 1 is the original speed and 0 or less sends packets without delay
+     * @return the number of packets sent
+     * @throws InterruptedException if the thread is interrupted while waiting to send a packet
+     */
+    public int replay(Session session, PacketDirection direction, double speed) throws IOException, InterruptedException {
+        if (!(session.getPacketProtocol() instanceof MinecraftProtocol)) {
+            throw new IllegalArgumentException("Session does not use a MinecraftProtocol.");
+        }
+
+        MinecraftProtocol protocol = (MinecraftProtocol) session.getPacketProtocol();
+        if (protocol.getCodec().getProtocolVersion() != this.protocolVersion) {
+            throw new IllegalArgumentException("Capture of protocol " + this.protocolVersion + " cannot be replayed with protocol "
+                    + protocol.getCodec().getProtocolVersion() + ".");
+        }
+
+        MinecraftCodecHelper helper = (MinecraftCodecHelper) session.getCodecHelper();
+        ProtocolState state = protocol.getState();
+        long replayStart = System.nanoTime();
+        long firstTimestamp = -1;
+        int sent = 0;
+        for (CapturedPacket captured : this) {
+            if (captured.getDirection() != direction || captured.getState() != state) {
+                continue;
+            }
+
+            if (speed > 0) {
+                if (firstTimestamp < 0) {
+                    firstTimestamp = captured.getTimestamp();
+                }
+
+                long due = replayStart + (long) ((captured.getTimestamp() - firstTimestamp) / speed);
+                long delay = due - System.nanoTime();
+                if (delay > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                }
+            }
+
+            session.send(captured.decode(protocol.getCodec(), helper));
+            sent++;
+        }
+
+        return sent;
+    }
+
+    private void checkOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("Capture reader is closed.");
+        }
+    }
+
+    /**
+     * Closes the reader. Packet bodies returned by the reader must not be used afterwards. The
+     * mappings themselves are released once they are garbage collected.
+     */
+    @Override
+    public void close() {
+        if (!this.closed) {
+            this.closed = true;
+            for (ByteBuf segment : this.segments) {
+                segment.release();
+            }
+        }
+    }
+
+    private class CaptureIterator implements Iterator<CapturedPacket> {
+        private int segment;
+        private int offset;
+
+        private CaptureIterator(int segment, int offset) {
+            this.segment = segment;
+            this.offset = offset;
+            this.advanceSegment();
+        }
+
+        private void advanceSegment() {
+            while (this.segment < segments.length && this.offset >= segmentEnds[this.segment]) {
+                this.segment++;
+                this.offset = PacketCaptureWriter.HEADER_SIZE;
+            }
+        }
+
+        private void skipBefore(long timestamp) {
+            while (this.hasNext() && segments[this.segment].getLong(this.offset + Integer.BYTES) < timestamp) {
+                this.skip();
+            }
+        }
+
+        private void skip() {
+            this.offset += Integer.BYTES + segments[this.segment].getInt(this.offset);
+            this.advanceSegment();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.segment < segments.length;
+        }
+
+        @Override
+        public CapturedPacket next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            checkOpen();
+            ByteBuf buf = segments[this.segment];
+            int position = this.offset;
+            int length = buf.getInt(position);
+            position += Integer.BYTES;
+            long timestamp = buf.getLong(position);
+            position += Long.BYTES;
+            ProtocolState state = STATES[buf.getByte(position++)];
+            PacketDirection direction = DIRECTIONS[buf.getByte(position++)];
+            int id = buf.getInt(position);
+            position += Integer.BYTES;
+            ByteBuf body = buf.slice(position, length - PacketCaptureWriter.RECORD_HEADER_SIZE);
+
+            this.skip();
+            return new CapturedPacket(timestamp, state, direction, id, body);
+        }
+    }
+}
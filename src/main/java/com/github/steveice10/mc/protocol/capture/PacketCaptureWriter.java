@@ -0,0 +1,338 @@
+package com.github.steveice10.mc.protocol.capture;
+
+import com.github.steveice10.mc.protocol.data.ProtocolState;
+import io.netty.buffer.ByteBuf;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes packets to a capture, which is a directory of append-only segment files.
+ * <p>
+ * Each segment starts with a header holding the protocol version and the time the capture started,
+ * followed by records of the form (length, timestamp, state, direction, packet id, body). A new
+ * segment is started once the current one would grow past the maximum segment size, so segments
+ * can be memory mapped by {@link PacketCaptureReader}.
+ * <p>
+ * {@link #write} only copies the packet into a bounded queue, so it can be called from event loops
+ * of several sessions without waiting for the disk. A dedicated thread drains the queue into the
+ * segment files. Packets arriving while the queue is full are dropped and counted. If writing
+ * fails, the writer keeps the error, which {@link #flush()} and {@link #close()} rethrow, and
+ * discards every later packet instead of failing the sessions feeding it.
+ */
+public class PacketCaptureWriter implements Closeable {
+    static final int MAGIC = 0x4D435043;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + Integer.BYTES + Long.BYTES;
+    /**
+     * The size of a record without its body, not counting the length prefix.
+     */
+    static final int RECORD_HEADER_SIZE = Long.BYTES + Byte.BYTES + Byte.BYTES + Integer.BYTES;
+    static final String SEGMENT_PREFIX = "capture-";
+    static final String SEGMENT_SUFFIX = ".mcpc";
+
+    private static final long DEFAULT_MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int DEFAULT_QUEUE_CAPACITY = 8192;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final Record CLOSE = new Record(0, null, null, 0, null, null);
+
+    @Getter
+    private final Path directory;
+    @Getter
+    private final int protocolVersion;
+    private final long maxSegmentSize;
+    private final long startTime = System.nanoTime();
+    private final long startEpochMillis = System.currentTimeMillis();
+    private final BlockingQueue<Record> queue;
+    private final Thread thread;
+    private final LongAdder droppedCount = new LongAdder();
+
+    // Only used by the writer thread once it has started.
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private FileChannel channel;
+    private long segmentSize;
+
+    @Getter
+    private volatile int segmentCount;
+    @Getter
+    private volatile long packetCount;
+    /**
+     * The error which stopped the writer, if any.
+     */
+    @Getter
+    private volatile @Nullable IOException failure;
+    private volatile boolean closed;
+
+    public PacketCaptureWriter(Path directory, int protocolVersion) throws IOException {
+        this(directory, protocolVersion, DEFAULT_MAX_SEGMENT_SIZE);
+    }
+
+    public PacketCaptureWriter(Path directory, int protocolVersion, long maxSegmentSize) throws IOException {
+        this(directory, protocolVersion, maxSegmentSize, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a capture in a directory. The directory is created if needed, and must not already
+     * hold a capture.
+     *
+     * @param directory       the capture directory
+     * @param protocolVersion the protocol version of the captured packets
+     * @param maxSegmentSize  the size in bytes after which a new segment is started
+     * @param queueCapacity   the number of packets which may wait to be written before new ones are dropped
+     */
+    public PacketCaptureWriter(Path directory, int protocolVersion, long maxSegmentSize, int queueCapacity) throws IOException {
+        if (maxSegmentSize <= HEADER_SIZE || maxSegmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between " + HEADER_SIZE + " and " + Integer.MAX_VALUE + " bytes.");
+        }
+
+        this.directory = Files.createDirectories(directory);
+        this.protocolVersion = protocolVersion;
+        this.maxSegmentSize = maxSegmentSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.openSegment();
+
+        this.thread = new Thread(this::run, "MCProtocolLib Capture Writer #" + THREAD_COUNT.incrementAndGet());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    static String segmentName(int index) {
+        return String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+    }
+
+    private void openSegment() throws IOException {
+        Path path = this.directory.resolve(segmentName(this.segmentCount));
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.segmentCount++;
+        this.buffer.putInt(MAGIC);
+        this.buffer.putShort(VERSION);
+        this.buffer.putInt(this.protocolVersion);
+        this.buffer.putLong(this.startEpochMillis);
+        this.segmentSize = HEADER_SIZE;
+    }
+
+    /**
+     * Queues a packet with the current time.
+     *
+     * @param state     the protocol state the packet was sent in
+     * @param direction the direction the packet was sent in
+     * @param id        the packet id
+     * @param body      the encoded packet body, which is copied but not consumed
+     * @throws IOException if the writer is closed or the packet does not fit in a segment
+     */
+    public void write(ProtocolState state, PacketDirection direction, int id, ByteBuf body) throws IOException {
+        byte[] bytes = this.copyBody(body);
+        // Taking the time under the lock keeps the records of concurrent callers in time order.
+        synchronized (this.queue) {
+            this.offer(new Record(System.nanoTime() - this.startTime, state, direction, id, bytes, null));
+        }
+    }
+
+    /**
+     * Queues a packet.
+     *
+     * @param timestamp the time the packet was sent at, in nanoseconds since the capture started
+     * @param state     the protocol state the packet was sent in
+     * @param direction the direction the packet was sent in
+     * @param id        the packet id
+     * @param body      the encoded packet body, which is copied but not consumed
+     * @throws IOException if the writer is closed or the packet does not fit in a segment
+     */
+    public void write(long timestamp, ProtocolState state, PacketDirection direction, int id, ByteBuf body) throws IOException {
+        byte[] bytes = this.copyBody(body);
+        synchronized (this.queue) {
+            this.offer(new Record(timestamp, state, direction, id, bytes, null));
+        }
+    }
+
+    private byte[] copyBody(ByteBuf body) throws IOException {
+        int bodySize = body.readableBytes();
+        if (HEADER_SIZE + Integer.BYTES + RECORD_HEADER_SIZE + (long) bodySize > this.maxSegmentSize) {
+            throw new IOException("Packet of " + bodySize + " bytes does not fit in a segment of " + this.maxSegmentSize + " bytes.");
+        }
+
+        byte[] bytes = new byte[bodySize];
+        body.getBytes(body.readerIndex(), bytes);
+        return bytes;
+    }
+
+    private void offer(Record record) throws IOException {
+        if (this.closed) {
+            throw new IOException("Capture writer is closed.");
+        }
+
+        if (this.failure != null || !this.queue.offer(record)) {
+            this.droppedCount.increment();
+        }
+    }
+
+    /**
+     * Gets the number of packets which were not written, because the queue was full or the
+     * writer had failed.
+     *
+     * @return the dropped packet count
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.sum();
+    }
+
+    private void run() {
+        try {
+            Record record;
+            while ((record = this.queue.take()) != CLOSE) {
+                if (this.failure == null) {
+                    try {
+                        if (record.flushed != null) {
+                            this.flushBuffer();
+                        } else {
+                            this.writeRecord(record);
+                        }
+                    } catch (IOException e) {
+                        this.failure = e;
+                    }
+                }
+
+                if (record.flushed != null) {
+                    record.flushed.countDown();
+                } else if (this.failure != null) {
+                    this.droppedCount.increment();
+                }
+            }
+
+            if (this.failure == null) {
+                this.flushBuffer();
+            }
+        } catch (IOException e) {
+            this.failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                if (this.failure == null) {
+                    this.failure = e;
+                }
+            }
+        }
+    }
+
+    private void writeRecord(Record record) throws IOException {
+        int bodySize = record.body.length;
+        long recordSize = Integer.BYTES + RECORD_HEADER_SIZE + (long) bodySize;
+        if (this.segmentSize + recordSize > this.maxSegmentSize) {
+            this.flushBuffer();
+            this.channel.close();
+            this.openSegment();
+        }
+
+        if (this.buffer.remaining() < Integer.BYTES + RECORD_HEADER_SIZE) {
+            this.flushBuffer();
+        }
+
+        this.buffer.putInt(RECORD_HEADER_SIZE + bodySize);
+        this.buffer.putLong(record.timestamp);
+        this.buffer.put((byte) record.state.ordinal());
+        this.buffer.put((byte) record.direction.ordinal());
+        this.buffer.putInt(record.id);
+        if (bodySize <= this.buffer.remaining()) {
+            this.buffer.put(record.body);
+        } else {
+            this.flushBuffer();
+            ByteBuffer body = ByteBuffer.wrap(record.body);
+            while (body.hasRemaining()) {
+                this.channel.write(body);
+            }
+        }
+
+        this.segmentSize += recordSize;
+        this.packetCount++;
+    }
+
+    private void flushBuffer() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+
+        this.buffer.clear();
+    }
+
+    /**
+     * Waits until every queued packet has been written to the current segment file.
+     *
+     * @throws IOException if writing failed
+     */
+    public void flush() throws IOException {
+        if (!this.closed) {
+            CountDownLatch flushed = new CountDownLatch(1);
+            try {
+                this.queue.put(new Record(0, null, null, 0, null, flushed));
+                flushed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while flushing capture.");
+            }
+        }
+
+        this.checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        IOException failure = this.failure;
+        if (failure != null) {
+            throw new IOException("Failed to write capture.", failure);
+        }
+    }
+
+    /**
+     * Writes the queued packets and closes the capture.
+     *
+     * @throws IOException if writing failed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this.queue) {
+            if (this.closed) {
+                return;
+            }
+
+            this.closed = true;
+        }
+
+        try {
+            this.queue.put(CLOSE);
+            this.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing capture.");
+        }
+
+        this.checkFailure();
+    }
+
+    @AllArgsConstructor
+    private static final class Record {
+        private final long timestamp;
+        private final ProtocolState state;
+        private final PacketDirection direction;
+        private final int id;
+        private final byte[] body;
+        private final CountDownLatch flushed;
+    }
+}
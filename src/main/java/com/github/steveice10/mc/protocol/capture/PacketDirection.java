@@ -0,0 +1,9 @@
+package com.github.steveice10.mc.protocol.capture;
+
+/**
+ * The direction a captured packet was sent in.
+ */
+public enum PacketDirection {
+    CLIENTBOUND,
+    SERVERBOUND;
+}
@@ -0,0 +1,309 @@
+package com.github.steveice10.mc.protocol.chat;
+
+import com.github.steveice10.mc.protocol.codec.LazyPacket;
+import com.github.steveice10.mc.protocol.data.game.ArgumentSignature;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundLoginPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundPlayerChatPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.serverbound.ServerboundChatAckPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.serverbound.ServerboundChatCommandPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.serverbound.ServerboundChatPacket;
+import com.github.steveice10.packetlib.Session;
+import com.github.steveice10.packetlib.event.session.DisconnectedEvent;
+import com.github.steveice10.packetlib.event.session.SessionAdapter;
+import com.github.steveice10.packetlib.packet.Packet;
+import org.jetbrains.annotations.Nullable;
+
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Builds signed {@link ServerboundChatPacket}s and {@link ServerboundChatCommandPacket}s for a
+ * client, and acknowledges the player chat messages it receives.
+ * <p>
+ * Add an instance to a client session once the chat session has been sent with a
+ * {@code ServerboundChatSessionUpdatePacket}. Received signatures are kept in a fixed ring of the
+ * last {@value #LAST_SEEN_SIZE} messages, as the vanilla client does, and every outgoing message
+ * acknowledges the ring and takes the next index of the chain. Signatures are made with a
+ * {@link Signature} per thread, initialized once with the private key.
+ * <p>
+ * With a signing executor, {@link #sendChat(Session, String)} and
+ * {@link #sendCommand(Session, String, Map)} sign off the calling thread and still send packets
+ * in chain order. Without a private key, messages are sent unsigned and only acknowledgements are
+ * tracked.
+ */
+public class ChatSigner extends SessionAdapter {
+    public static final int LAST_SEEN_SIZE = 20;
+    private static final int ACKNOWLEDGE_THRESHOLD = 64;
+
+    private final UUID profileId;
+    private final UUID sessionId;
+    private final @Nullable ThreadLocal<Signature> signatures;
+    private final @Nullable Executor signingExecutor;
+    private final SecureRandom random = new SecureRandom();
+
+    private final byte[][] lastSeen = new byte[LAST_SEEN_SIZE][];
+    private final boolean[] lastSeenPending = new boolean[LAST_SEEN_SIZE];
+    private int tail;
+    private int offset;
+    private byte @Nullable[] lastTracked;
+    private int nextIndex;
+    private CompletableFuture<?> lastSend = CompletableFuture.completedFuture(null);
+
+    /**
+     * Creates a signer which signs on the calling thread.
+     *
+     * @param profileId  Profile of the client.
+     * @param sessionId  Chat session sent to the server.
+     * @param privateKey Private key of the chat session, or null to send unsigned messages.
+     */
+    public ChatSigner(UUID profileId, UUID sessionId, @Nullable PrivateKey privateKey) {
+        this(profileId, sessionId, privateKey, null);
+    }
+
+    /**
+     * Creates a signer.
+     *
+     * @param profileId       Profile of the client.
+     * @param sessionId       Chat session sent to the server.
+     * @param privateKey      Private key of the chat session, or null to send unsigned messages.
+     * @param signingExecutor Executor the send methods sign on, or null to sign on the calling thread.
+     */
+    public ChatSigner(UUID profileId, UUID sessionId, @Nullable PrivateKey privateKey, @Nullable Executor signingExecutor) {
+        this.profileId = profileId;
+        this.sessionId = sessionId;
+        this.signingExecutor = signingExecutor;
+        this.signatures = privateKey == null ? null : ThreadLocal.withInitial(() -> {
+            try {
+                Signature signature = Signature.getInstance("SHA256withRSA");
+                signature.initSign(privateKey);
+                return signature;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Failed to initialize chat signature.", e);
+            }
+        });
+    }
+
+    @Override
+    public void packetReceived(Session session, Packet packet) {
+        packet = LazyPacket.unwrap(packet, ChatSigner::isTracked);
+        if (packet == null) {
+            return;
+        }
+
+        if (packet instanceof ClientboundPlayerChatPacket) {
+            byte[] signature = ((ClientboundPlayerChatPacket) packet).getMessageSignature();
+            int acknowledge = signature != null ? this.track(signature) : 0;
+            if (acknowledge > 0) {
+                session.send(new ServerboundChatAckPacket(acknowledge));
+            }
+        } else if (packet instanceof ClientboundLoginPacket) {
+            this.reset();
+        }
+    }
+
+    @Override
+    public void disconnected(DisconnectedEvent event) {
+        this.reset();
+    }
+
+    private static boolean isTracked(Class<?> packetClass) {
+        return packetClass == ClientboundPlayerChatPacket.class || packetClass == ClientboundLoginPacket.class;
+    }
+
+    /**
+     * Records a received message signature.
+     *
+     * @param signature Signature of the message.
+     * @return The offset to acknowledge with a {@link ServerboundChatAckPacket}, or 0 if no
+     * acknowledgement is due yet.
+     */
+    public synchronized int track(byte[] signature) {
+        if (Arrays.equals(signature, this.lastTracked)) {
+            return 0;
+        }
+
+        this.lastTracked = signature;
+        this.lastSeen[this.tail] = signature;
+        this.lastSeenPending[this.tail] = true;
+        this.tail = (this.tail + 1) % LAST_SEEN_SIZE;
+        if (++this.offset <= ACKNOWLEDGE_THRESHOLD) {
+            return 0;
+        }
+
+        int acknowledge = this.offset;
+        this.offset = 0;
+        return acknowledge;
+    }
+
+    /**
+     * Builds a chat packet, signing on the calling thread.
+     *
+     * @param message Message to send.
+     * @return The packet.
+     */
+    public ServerboundChatPacket chat(String message) {
+        return this.prepare(1).chat(message);
+    }
+
+    /**
+     * Builds a chat command packet, signing on the calling thread.
+     *
+     * @param command         Command to send, without the leading slash.
+     * @param signedArguments Values of the command's message arguments by name, in command order.
+     * @return The packet.
+     */
+    public ServerboundChatCommandPacket command(String command, Map<String, String> signedArguments) {
+        return this.prepare(signedArguments.size()).command(command, signedArguments);
+    }
+
+    /**
+     * Sends a chat message, signing on the signing executor if there is one.
+     *
+     * @param session Session to send on.
+     * @param message Message to send.
+     * @return Future completed once the packet has been sent.
+     */
+    public CompletableFuture<ServerboundChatPacket> sendChat(Session session, String message) {
+        synchronized (this) {
+            Prepared prepared = this.prepare(1);
+            return this.send(session, () -> prepared.chat(message));
+        }
+    }
+
+    /**
+     * Sends a chat command, signing on the signing executor if there is one.
+     *
+     * @param session         Session to send on.
+     * @param command         Command to send, without the leading slash.
+     * @param signedArguments Values of the command's message arguments by name, in command order.
+     * @return Future completed once the packet has been sent.
+     */
+    public CompletableFuture<ServerboundChatCommandPacket> sendCommand(Session session, String command, Map<String, String> signedArguments) {
+        synchronized (this) {
+            Prepared prepared = this.prepare(signedArguments.size());
+            return this.send(session, () -> prepared.command(command, signedArguments));
+        }
+    }
+
+    private <T extends Packet> CompletableFuture<T> send(Session session, Supplier<T> builder) {
+        CompletableFuture<T> built = this.signingExecutor != null ? CompletableFuture.supplyAsync(builder, this.signingExecutor) : CompletableFuture.completedFuture(builder.get());
+        // Packets are sent in chain order, whichever finishes signing first.
+        CompletableFuture<T> sent = this.lastSend.handle((ignored, error) -> null).thenCombine(built, (ignored, packet) -> {
+            session.send(packet);
+            return packet;
+        });
+
+        this.lastSend = sent;
+        return sent;
+    }
+
+    private synchronized Prepared prepare(int signedCount) {
+        BitSet acknowledged = new BitSet(LAST_SEEN_SIZE);
+        List<byte[]> seen = new ArrayList<>(LAST_SEEN_SIZE);
+        for (int i = 0; i < LAST_SEEN_SIZE; i++) {
+            int slot = (this.tail + i) % LAST_SEEN_SIZE;
+            if (this.lastSeen[slot] != null) {
+                acknowledged.set(i);
+                seen.add(this.lastSeen[slot]);
+                this.lastSeenPending[slot] = false;
+            }
+        }
+
+        int offset = this.offset;
+        this.offset = 0;
+        int index = this.nextIndex;
+        if (this.signatures != null) {
+            this.nextIndex += signedCount;
+        }
+
+        return new Prepared(System.currentTimeMillis(), this.random.nextLong(), index, offset, acknowledged, seen);
+    }
+
+    /**
+     * Gets the number of received signatures which have not been acknowledged by a sent message.
+     *
+     * @return The number of pending signatures.
+     */
+    public synchronized int getPendingCount() {
+        int count = 0;
+        for (boolean pending : this.lastSeenPending) {
+            if (pending) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Forgets received signatures and restarts the chain.
+     */
+    public synchronized void reset() {
+        Arrays.fill(this.lastSeen, null);
+        Arrays.fill(this.lastSeenPending, false);
+        this.tail = 0;
+        this.offset = 0;
+        this.lastTracked = null;
+        this.nextIndex = 0;
+    }
+
+    private class Prepared {
+        private final long timeStamp;
+        private final long salt;
+        private final int index;
+        private final int offset;
+        private final BitSet acknowledged;
+        private final List<byte[]> lastSeen;
+
+        private Prepared(long timeStamp, long salt, int index, int offset, BitSet acknowledged, List<byte[]> lastSeen) {
+            this.timeStamp = timeStamp;
+            this.salt = salt;
+            this.index = index;
+            this.offset = offset;
+            this.acknowledged = acknowledged;
+            this.lastSeen = lastSeen;
+        }
+
+        private ServerboundChatPacket chat(String message) {
+            return new ServerboundChatPacket(message, this.timeStamp, this.salt, this.sign(this.index, message), this.offset, this.acknowledged);
+        }
+
+        private ServerboundChatCommandPacket command(String command, Map<String, String> signedArguments) {
+            List<ArgumentSignature> argumentSignatures = signatures == null ? Collections.emptyList() : new ArrayList<>(signedArguments.size());
+            if (signatures != null) {
+                int index = this.index;
+                for (Map.Entry<String, String> argument : signedArguments.entrySet()) {
+                    argumentSignatures.add(new ArgumentSignature(argument.getKey(), this.sign(index++, argument.getValue())));
+                }
+            }
+
+            return new ServerboundChatCommandPacket(command, this.timeStamp, this.salt, argumentSignatures, this.offset, this.acknowledged);
+        }
+
+        private byte @Nullable[] sign(int index, String content) {
+            if (signatures == null) {
+                return null;
+            }
+
+            Signature signature = signatures.get();
+            try {
+                signature.update(ChatVerifier.signedData(profileId, sessionId, index, this.salt, this.timeStamp, content, this.lastSeen));
+                return signature.sign();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Failed to sign chat message.", e);
+            }
+        }
+    }
+}
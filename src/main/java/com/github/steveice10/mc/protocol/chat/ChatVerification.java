@@ -0,0 +1,21 @@
+package com.github.steveice10.mc.protocol.chat;
+
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundPlayerChatPacket;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The result of verifying a {@link ClientboundPlayerChatPacket}.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ChatVerification {
+    private final ClientboundPlayerChatPacket packet;
+    private final ChatVerificationStatus status;
+
+    public boolean isAccepted() {
+        return this.status.isAccepted();
+    }
+}
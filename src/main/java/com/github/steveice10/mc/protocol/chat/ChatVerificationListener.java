@@ -0,0 +1,15 @@
+package com.github.steveice10.mc.protocol.chat;
+
+/**
+ * Receives the results of a {@link ChatVerifier}.
+ */
+@FunctionalInterface
+public interface ChatVerificationListener {
+    /**
+     * Called once a message has been verified. Called from a verification worker thread, or from
+     * the session thread for messages which did not need a signature check.
+     *
+     * @param verification the result
+     */
+    void messageVerified(ChatVerification verification);
+}
@@ -0,0 +1,49 @@
+package com.github.steveice10.mc.protocol.chat;
+
+/**
+ * The outcome of verifying a player chat message.
+ */
+public enum ChatVerificationStatus {
+    /**
+     * The message was signed by the sender's current chat session key.
+     */
+    VERIFIED,
+    /**
+     * The message is unsigned and the sender has no chat session, which the vanilla client accepts.
+     */
+    UNSIGNED,
+    /**
+     * The signature does not match the message, or a signed sender sent an unsigned message.
+     */
+    INVALID_SIGNATURE,
+    /**
+     * The message does not follow the previous message of the sender, or an earlier message of the
+     * chain was invalid.
+     */
+    BROKEN_CHAIN,
+    /**
+     * The sender is not in the player list.
+     */
+    UNKNOWN_SENDER,
+    /**
+     * The message is signed but the sender has no chat session.
+     */
+    MISSING_KEY,
+    /**
+     * The sender's chat session key has expired.
+     */
+    EXPIRED_KEY,
+    /**
+     * The message refers to a previously seen message which is not in the signature cache.
+     */
+    UNKNOWN_LAST_SEEN;
+
+    /**
+     * Whether the vanilla client would display the message.
+     *
+     * @return whether the message is verified or acceptably unsigned
+     */
+    public boolean isAccepted() {
+        return this == VERIFIED || this == UNSIGNED;
+    }
+}
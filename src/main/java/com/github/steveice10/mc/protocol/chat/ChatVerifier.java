@@ -0,0 +1,386 @@
+package com.github.steveice10.mc.protocol.chat;
+
+import com.github.steveice10.mc.protocol.codec.LazyPacket;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntry;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntryAction;
+import com.github.steveice10.mc.protocol.data.game.chat.MessageSignature;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundLoginPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundPlayerChatPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundPlayerInfoRemovePacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundPlayerInfoUpdatePacket;
+import com.github.steveice10.packetlib.Session;
+import com.github.steveice10.packetlib.event.session.DisconnectedEvent;
+import com.github.steveice10.packetlib.event.session.SessionAdapter;
+import com.github.steveice10.packetlib.packet.Packet;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Verifies the signatures of {@link ClientboundPlayerChatPacket}s the way the vanilla client
+ * does, without blocking the session.
+ * <p>
+ * Add an instance to a client session. Chat session keys are taken from the
+ * {@link PlayerListEntryAction#INITIALIZE_CHAT} entries of player info updates, and previously
+ * seen messages are resolved through a {@link MessageSignatureCache} kept in step with the
+ * server. The message chain and the cache are updated on the session thread as messages arrive;
+ * only the RSA verification, which dominates the cost, runs on the executor. Pending signatures
+ * are drained in batches by at most {@code parallelism} workers at a time, each reusing a
+ * thread-local {@link Signature}.
+ * <p>
+ * Results are published to the {@link ChatVerificationListener} and to the future returned by
+ * {@link #verify(ClientboundPlayerChatPacket)} as soon as they are known, so results of messages
+ * verified by different workers may arrive out of order. Unlike the vanilla client, a message is
+ * added to the signature cache before its signature has been checked; an invalid signature
+ * breaks the chain of its sender for the messages that follow.
+ */
+public class ChatVerifier extends SessionAdapter {
+    private static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+    private static final int SIGNATURE_VERSION = 1;
+    private static final int DEFAULT_BATCH_SIZE = 32;
+    private static final ChatVerificationStatus[] STATUSES = ChatVerificationStatus.values();
+
+    private static final ThreadLocal<Signature> SIGNATURES = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance(SIGNATURE_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Missing " + SIGNATURE_ALGORITHM + " support.", e);
+        }
+    });
+
+    private final Executor executor;
+    private final int parallelism;
+    private final int batchSize;
+    private final @Nullable ChatVerificationListener listener;
+
+    private final Map<UUID, Sender> senders = new HashMap<>();
+    private final MessageSignatureCache signatureCache = new MessageSignatureCache();
+
+    private final Queue<Job> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final LongAdder[] counts = new LongAdder[STATUSES.length];
+
+    /**
+     * Creates a verifier which runs on the common fork join pool.
+     *
+     * @param listener Listener to publish results to, or null to only use the returned futures.
+     */
+    public ChatVerifier(@Nullable ChatVerificationListener listener) {
+        this(ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism(), DEFAULT_BATCH_SIZE, listener);
+    }
+
+    /**
+     * Creates a verifier.
+     *
+     * @param executor    Executor to verify signatures on.
+     * @param parallelism Maximum number of workers verifying signatures at once.
+     * @param batchSize   Maximum number of signatures a worker verifies per task.
+     * @param listener    Listener to publish results to, or null to only use the returned futures.
+     */
+    public ChatVerifier(Executor executor, int parallelism, int batchSize, @Nullable ChatVerificationListener listener) {
+        if (parallelism <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Parallelism and batch size must be positive.");
+        }
+
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.listener = listener;
+        for (int i = 0; i < this.counts.length; i++) {
+            this.counts[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void packetReceived(Session session, Packet packet) {
+        packet = LazyPacket.unwrap(packet, ChatVerifier::isTracked);
+        if (packet == null) {
+            return;
+        }
+
+        if (packet instanceof ClientboundPlayerChatPacket) {
+            this.verify((ClientboundPlayerChatPacket) packet);
+        } else if (packet instanceof ClientboundPlayerInfoUpdatePacket) {
+            this.updatePlayers((ClientboundPlayerInfoUpdatePacket) packet);
+        } else if (packet instanceof ClientboundPlayerInfoRemovePacket) {
+            for (UUID profileId : ((ClientboundPlayerInfoRemovePacket) packet).getProfileIds()) {
+                this.senders.remove(profileId);
+            }
+        } else if (packet instanceof ClientboundLoginPacket) {
+            this.clear();
+        }
+    }
+
+    @Override
+    public void disconnected(DisconnectedEvent event) {
+        this.clear();
+    }
+
+    /**
+     * Updates the chat state with a message and schedules its signature to be verified. Must be
+     * called on the session thread, in the order messages were received.
+     *
+     * @param packet Message to verify.
+     * @return Future completed with the result.
+     */
+    public CompletableFuture<ChatVerification> verify(ClientboundPlayerChatPacket packet) {
+        CompletableFuture<ChatVerification> future = new CompletableFuture<>();
+        List<byte[]> lastSeen = new ArrayList<>(packet.getLastSeenMessages().size());
+        for (MessageSignature seen : packet.getLastSeenMessages()) {
+            byte[] signature = this.signatureCache.unpack(seen);
+            if (signature == null) {
+                this.complete(future, packet, ChatVerificationStatus.UNKNOWN_LAST_SEEN);
+                return future;
+            }
+
+            lastSeen.add(signature);
+        }
+
+        ChatVerificationStatus status = this.checkChain(packet);
+        if (status != null) {
+            this.complete(future, packet, status);
+            return future;
+        }
+
+        this.signatureCache.push(lastSeen, packet.getMessageSignature());
+        Sender sender = this.senders.get(packet.getSender());
+        if (sender.key == null) {
+            this.complete(future, packet, ChatVerificationStatus.UNSIGNED);
+            return future;
+        }
+
+        this.pending.add(new Job(packet, sender, signedData(packet, sender.sessionId, lastSeen), future));
+        this.schedule();
+        return future;
+    }
+
+    private @Nullable ChatVerificationStatus checkChain(ClientboundPlayerChatPacket packet) {
+        Sender sender = this.senders.get(packet.getSender());
+        if (sender == null) {
+            return ChatVerificationStatus.UNKNOWN_SENDER;
+        }
+
+        if (sender.key == null) {
+            return packet.getMessageSignature() != null ? ChatVerificationStatus.MISSING_KEY : null;
+        }
+
+        if (sender.expiresAt != 0 && System.currentTimeMillis() > sender.expiresAt) {
+            return ChatVerificationStatus.EXPIRED_KEY;
+        }
+
+        if (packet.getMessageSignature() == null) {
+            sender.broken = true;
+            return ChatVerificationStatus.INVALID_SIGNATURE;
+        }
+
+        if (sender.broken || packet.getIndex() <= sender.lastIndex) {
+            sender.broken = true;
+            return ChatVerificationStatus.BROKEN_CHAIN;
+        }
+
+        sender.lastIndex = packet.getIndex();
+        return null;
+    }
+
+    private void updatePlayers(ClientboundPlayerInfoUpdatePacket packet) {
+        boolean added = packet.getActions().contains(PlayerListEntryAction.ADD_PLAYER);
+        boolean chat = packet.getActions().contains(PlayerListEntryAction.INITIALIZE_CHAT);
+        if (!added && !chat) {
+            return;
+        }
+
+        for (PlayerListEntry entry : packet.getEntries()) {
+            if (chat) {
+                // A new chat session starts a new chain, even if the key is the same.
+                this.senders.put(entry.getProfileId(), new Sender(entry.getSessionId(), entry.getPublicKey(), entry.getExpiresAt()));
+            } else {
+                this.senders.putIfAbsent(entry.getProfileId(), new Sender(null, null, 0));
+            }
+        }
+    }
+
+    private void schedule() {
+        while (!this.pending.isEmpty()) {
+            int active = this.activeWorkers.get();
+            if (active >= this.parallelism) {
+                return;
+            }
+
+            if (this.activeWorkers.compareAndSet(active, active + 1)) {
+                try {
+                    this.executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Verify on the calling thread rather than dropping the batch.
+                    this.drain();
+                }
+
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Job job;
+            for (int i = 0; i < this.batchSize && (job = this.pending.poll()) != null; i++) {
+                ChatVerificationStatus status = verifySignature(job);
+                if (status != ChatVerificationStatus.VERIFIED) {
+                    job.sender.broken = true;
+                }
+
+                this.complete(job.future, job.packet, status);
+            }
+        } finally {
+            this.activeWorkers.decrementAndGet();
+        }
+
+        // Signatures queued while this batch ran are picked up by the next task.
+        this.schedule();
+    }
+
+    private void complete(CompletableFuture<ChatVerification> future, ClientboundPlayerChatPacket packet, ChatVerificationStatus status) {
+        this.counts[status.ordinal()].increment();
+        ChatVerification verification = new ChatVerification(packet, status);
+        if (this.listener != null) {
+            this.listener.messageVerified(verification);
+        }
+
+        future.complete(verification);
+    }
+
+    private static ChatVerificationStatus verifySignature(Job job) {
+        Signature signature = SIGNATURES.get();
+        try {
+            signature.initVerify(job.sender.key);
+            signature.update(job.signedData);
+            return signature.verify(job.packet.getMessageSignature()) ? ChatVerificationStatus.VERIFIED : ChatVerificationStatus.INVALID_SIGNATURE;
+        } catch (GeneralSecurityException e) {
+            return ChatVerificationStatus.INVALID_SIGNATURE;
+        }
+    }
+
+    /**
+     * Gets the data a player chat message signature covers.
+     *
+     * @param packet    Message that was signed.
+     * @param sessionId Chat session of the sender.
+     * @param lastSeen  Resolved signatures of the messages the sender had seen.
+     * @return The signed data.
+     */
+    public static byte[] signedData(ClientboundPlayerChatPacket packet, UUID sessionId, List<byte[]> lastSeen) {
+        return signedData(packet.getSender(), sessionId, packet.getIndex(), packet.getSalt(), packet.getTimeStamp(), packet.getContent(), lastSeen);
+    }
+
+    /**
+     * Gets the data a player chat message signature covers.
+     *
+     * @param sender    Profile of the sender.
+     * @param sessionId Chat session of the sender.
+     * @param index     Index of the message in the sender's chain.
+     * @param salt      Salt of the message.
+     * @param timeStamp Time the message was sent, in milliseconds.
+     * @param content   Signed content of the message.
+     * @param lastSeen  Signatures of the messages the sender had seen.
+     * @return The signed data.
+     */
+    public static byte[] signedData(UUID sender, UUID sessionId, int index, long salt, long timeStamp, String content, List<byte[]> lastSeen) {
+        byte[] contentBytes = content.getBytes(StandardCharsets.UTF_8);
+        int size = 4 + 16 + 16 + 4 + 8 + 8 + 4 + contentBytes.length + 4;
+        for (byte[] seen : lastSeen) {
+            size += seen.length;
+        }
+
+        ByteBuffer data = ByteBuffer.allocate(size);
+        data.putInt(SIGNATURE_VERSION);
+        data.putLong(sender.getMostSignificantBits()).putLong(sender.getLeastSignificantBits());
+        data.putLong(sessionId.getMostSignificantBits()).putLong(sessionId.getLeastSignificantBits());
+        data.putInt(index);
+        data.putLong(salt);
+        data.putLong(timeStamp / 1000);
+        data.putInt(contentBytes.length).put(contentBytes);
+        data.putInt(lastSeen.size());
+        for (byte[] seen : lastSeen) {
+            data.put(seen);
+        }
+
+        return data.array();
+    }
+
+    /**
+     * Gets the number of messages which were given a status.
+     *
+     * @param status Status to count.
+     * @return The number of messages.
+     */
+    public long getCount(ChatVerificationStatus status) {
+        return this.counts[status.ordinal()].sum();
+    }
+
+    /**
+     * Gets the number of signatures waiting for a worker.
+     *
+     * @return The number of pending signatures.
+     */
+    public int getPendingCount() {
+        return this.pending.size();
+    }
+
+    /**
+     * Forgets every sender and cached signature. Signatures already queued are still verified.
+     */
+    public void clear() {
+        this.senders.clear();
+        this.signatureCache.clear();
+    }
+
+    private static boolean isTracked(Class<?> packetClass) {
+        return packetClass == ClientboundPlayerChatPacket.class || packetClass == ClientboundPlayerInfoUpdatePacket.class
+                || packetClass == ClientboundPlayerInfoRemovePacket.class || packetClass == ClientboundLoginPacket.class;
+    }
+
+    private static class Sender {
+        private final @Nullable UUID sessionId;
+        private final @Nullable PublicKey key;
+        private final long expiresAt;
+        private int lastIndex = -1;
+        private volatile boolean broken;
+
+        private Sender(@Nullable UUID sessionId, @Nullable PublicKey key, long expiresAt) {
+            this.sessionId = sessionId;
+            this.key = key;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class Job {
+        private final ClientboundPlayerChatPacket packet;
+        private final Sender sender;
+        private final byte[] signedData;
+        private final CompletableFuture<ChatVerification> future;
+
+        private Job(ClientboundPlayerChatPacket packet, Sender sender, byte[] signedData, CompletableFuture<ChatVerification> future) {
+            this.packet = packet;
+            this.sender = sender;
+            this.signedData = signedData;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.steveice10.mc.protocol.chat;
+
+import com.github.steveice10.mc.protocol.data.game.chat.MessageSignature;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The client's cache of recently seen message signatures, which the server refers to by index
+ * instead of resending whole signatures. Mirrors the vanilla cache, so both sides agree on the
+ * index of every signature.
+ */
+public class MessageSignatureCache {
+    public static final int DEFAULT_CAPACITY = 128;
+
+    private final ByteBuffer[] entries;
+
+    public MessageSignatureCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MessageSignatureCache(int capacity) {
+        this.entries = new ByteBuffer[capacity];
+    }
+
+    /**
+     * Gets the signature at an index.
+     *
+     * @param id the index sent by the server
+     * @return the signature, or null if the index is out of range or empty
+     */
+    public byte @Nullable[] unpack(int id) {
+        if (id < 0 || id >= this.entries.length) {
+            return null;
+        }
+
+        ByteBuffer entry = this.entries[id];
+        return entry != null ? entry.array() : null;
+    }
+
+    /**
+     * Resolves a signature sent by the server.
+     *
+     * @param signature the full or packed signature
+     * @return the signature bytes, or null if a packed signature is not in the cache
+     */
+    public byte @Nullable[] unpack(MessageSignature signature) {
+        return signature.getMessageSignature() != null ? signature.getMessageSignature() : this.unpack(signature.getId());
+    }
+
+    /**
+     * Gets the index of a signature.
+     *
+     * @param signature the signature bytes
+     * @return the index, or -1 if the signature is not cached
+     */
+    public int pack(byte[] signature) {
+        ByteBuffer key = ByteBuffer.wrap(signature);
+        for (int i = 0; i < this.entries.length; i++) {
+            if (key.equals(this.entries[i])) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Adds the signatures of a displayed message: the messages it had seen, then its own
+     * signature. The most recent signature takes index 0 and displaced signatures move down,
+     * unless they were pushed again.
+     *
+     * @param lastSeen  the resolved signatures of the messages the message had seen
+     * @param signature the signature of the message, or null if it is unsigned
+     */
+    public void push(List<byte[]> lastSeen, byte @Nullable[] signature) {
+        ArrayDeque<ByteBuffer> pending = new ArrayDeque<>(lastSeen.size() + 1);
+        for (byte[] seen : lastSeen) {
+            pending.add(ByteBuffer.wrap(seen));
+        }
+
+        if (signature != null) {
+            pending.add(ByteBuffer.wrap(signature));
+        }
+
+        Set<ByteBuffer> pushed = new HashSet<>(pending);
+        for (int i = 0; !pending.isEmpty() && i < this.entries.length; i++) {
+            ByteBuffer displaced = this.entries[i];
+            this.entries[i] = pending.removeLast();
+            if (displaced != null && !pushed.contains(displaced)) {
+                pending.addFirst(displaced);
+            }
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < this.entries.length; i++) {
+            this.entries[i] = null;
+        }
+    }
+}
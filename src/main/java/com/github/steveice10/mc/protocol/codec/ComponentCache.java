@@ -0,0 +1,101 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.mc.protocol.data.DefaultComponentSerializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import lombok.Getter;
+import net.kyori.adventure.text.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Caches parsed and serialized chat components, so that repeated JSON such as tab list
+ * entries, scoreboards and entity names are only converted once.
+ * <p>
+ * Decoded components are keyed by their raw UTF-8 JSON, which is looked up without being
+ * copied or decoded into a string. Encoded components are keyed by component equality.
+ * Components longer than {@link #MAX_CACHED_LENGTH} bytes are never cached. Cached components
+ * were produced by the {@link DefaultComponentSerializer} in use at the time, so the cache should
+ * be {@link #clear() cleared} when the serializer is replaced.
+ */
+public class ComponentCache {
+    public static final int MAX_CACHED_LENGTH = 4096;
+
+    /**
+     * Components by their encoded JSON.
+     */
+    @Getter
+    private final LruCache<ByteBuf, Component> decodeCache;
+
+    /**
+     * Encoded JSON by component.
+     */
+    @Getter
+    private final LruCache<Component, byte[]> encodeCache;
+
+    /**
+     * Creates a cache holding at most {@code maximumSize} components in each direction.
+     *
+     * @param maximumSize the maximum number of entries per direction
+     */
+    public ComponentCache(int maximumSize) {
+        this.decodeCache = new LruCache<>(maximumSize);
+        this.encodeCache = new LruCache<>(maximumSize);
+    }
+
+    /**
+     * Reads a component from its encoded JSON.
+     *
+     * @param buf    the input buffer, positioned at the start of the JSON
+     * @param length the length of the JSON in bytes
+     * @param maxLength the maximum length of the JSON in characters
+     * @return the component
+     * @throws IllegalArgumentException if the JSON is longer than {@code maxLength} characters
+     */
+    public Component read(ByteBuf buf, int length, int maxLength) {
+        int index = buf.readerIndex();
+        if (length > MAX_CACHED_LENGTH || length > maxLength) {
+            String json = buf.toString(index, length, StandardCharsets.UTF_8);
+            if (json.length() > maxLength) {
+                throw new IllegalArgumentException("String length " + json.length() + " is longer than maximum allowed " + maxLength);
+            }
+
+            buf.skipBytes(length);
+            return DefaultComponentSerializer.get().deserialize(json);
+        }
+
+        // ByteBuf equality and hash codes are based on the readable bytes, so a slice can be used to probe.
+        ByteBuf key = buf.slice(index, length);
+        Component component = this.decodeCache.get(key);
+        if (component == null) {
+            component = DefaultComponentSerializer.get().deserialize(key.toString(StandardCharsets.UTF_8));
+            this.decodeCache.put(Unpooled.copiedBuffer(key), component);
+        }
+
+        buf.skipBytes(length);
+        return component;
+    }
+
+    /**
+     * Encodes a component to its JSON.
+     *
+     * @param component the component
+     * @return the UTF-8 encoded JSON; must not be modified
+     */
+    public byte[] encode(Component component) {
+        byte[] json = this.encodeCache.get(component);
+        if (json == null) {
+            json = DefaultComponentSerializer.get().serialize(component).getBytes(StandardCharsets.UTF_8);
+            if (json.length <= MAX_CACHED_LENGTH) {
+                this.encodeCache.put(component, json);
+            }
+        }
+
+        return json;
+    }
+
+    public void clear() {
+        this.decodeCache.clear();
+        this.encodeCache.clear();
+    }
+}
@@ -0,0 +1,183 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.ItemStack;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shares decoded {@link ItemStack}s between slots and sessions.
+ * <p>
+ * Stacks without NBT are replaced by canonical instances, one per item id and amount, which are
+ * shared by every pool. Optionally, stacks with NBT are also shared: they are keyed by their
+ * encoded bytes, so a repeated stack is found without decoding its tag. Shared stacks, and the
+ * tags of shared stacks, must not be modified. Since canonical stacks do not depend on the pool,
+ * a pool only has to be shared between sessions, as described on {@link MinecraftCodecHelper},
+ * for stacks with NBT to be deduplicated across them.
+ */
+public class ItemStackPool {
+    private static final int MAX_CANONICAL_ID = 4096;
+    private static final int MAX_CANONICAL_AMOUNT = 64;
+
+    /**
+     * Canonical stacks by item id, then amount. Rows are created on first use; racing threads may
+     * each create an instance, which only costs a miss since stacks are compared by value.
+     */
+    private static final ItemStack[][] CANONICAL = new ItemStack[MAX_CANONICAL_ID][];
+
+    private final @Nullable LruCache<ByteBuf, ItemStack> nbtCache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a pool which only shares stacks without NBT.
+     */
+    public ItemStackPool() {
+        this(0);
+    }
+
+    /**
+     * Creates a pool.
+     *
+     * @param maximumNbtStacks the maximum number of distinct stacks with NBT to share, or 0 to
+     *                         decode every stack with NBT
+     */
+    public ItemStackPool(int maximumNbtStacks) {
+        this.nbtCache = maximumNbtStacks > 0 ? new LruCache<>(maximumNbtStacks) : null;
+    }
+
+    /**
+     * Gets the canonical stack without NBT of an item.
+     *
+     * @param id     the item id
+     * @param amount the stack size
+     * @return the shared stack, or a new one if the id or amount is out of the canonical range
+     */
+    public static ItemStack canonical(int id, int amount) {
+        ItemStack item = getCanonical(id, amount);
+        return item != null ? item : createCanonical(id, amount);
+    }
+
+    @Nullable
+    private static ItemStack getCanonical(int id, int amount) {
+        if (id < 0 || id >= MAX_CANONICAL_ID || amount < 0 || amount > MAX_CANONICAL_AMOUNT) {
+            return null;
+        }
+
+        ItemStack[] row = CANONICAL[id];
+        return row != null ? row[amount] : null;
+    }
+
+    private static ItemStack createCanonical(int id, int amount) {
+        ItemStack item = new ItemStack(id, amount);
+        if (id >= 0 && id < MAX_CANONICAL_ID && amount >= 0 && amount <= MAX_CANONICAL_AMOUNT) {
+            ItemStack[] row = CANONICAL[id];
+            if (row == null) {
+                CANONICAL[id] = row = new ItemStack[MAX_CANONICAL_AMOUNT + 1];
+            }
+
+            row[amount] = item;
+        }
+
+        return item;
+    }
+
+    /**
+     * Reads an item stack, reusing a shared instance when possible.
+     *
+     * @param buf    the input buffer
+     * @param helper the codec helper of the session
+     * @return the item stack, or null if the slot is empty
+     */
+    @Nullable
+    public ItemStack read(ByteBuf buf, MinecraftCodecHelper helper) throws IOException {
+        if (!buf.readBoolean()) {
+            return null;
+        }
+
+        int start = buf.readerIndex();
+        int id = helper.readVarInt(buf);
+        int amount = buf.readByte();
+        if (buf.getByte(buf.readerIndex()) == NBTCodec.TAG_END) {
+            buf.skipBytes(1);
+            ItemStack item = getCanonical(id, amount);
+            if (item != null) {
+                this.hits.increment();
+                return item;
+            }
+
+            this.misses.increment();
+            return createCanonical(id, amount);
+        }
+
+        if (this.nbtCache == null) {
+            this.misses.increment();
+            return new ItemStack(id, amount, helper.readTag(buf));
+        }
+
+        int tagStart = buf.readerIndex();
+        NBTCodec.skipTag(buf, false);
+        ByteBuf key = buf.slice(start, buf.readerIndex() - start);
+        ItemStack item = this.nbtCache.get(key);
+        if (item != null) {
+            this.hits.increment();
+            return item;
+        }
+
+        this.misses.increment();
+        CompoundTag nbt = helper.readTag(buf.slice(tagStart, buf.readerIndex() - tagStart));
+        item = new ItemStack(id, amount, nbt);
+        this.nbtCache.put(Unpooled.copiedBuffer(key), item);
+        return item;
+    }
+
+    /**
+     * The cache of stacks with NBT, keyed by their encoded id, amount and tag.
+     *
+     * @return the cache, or null if stacks with NBT are not shared
+     */
+    @Nullable
+    public LruCache<ByteBuf, ItemStack> getNbtCache() {
+        return this.nbtCache;
+    }
+
+    /**
+     * Gets the number of stacks read as a shared instance.
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Gets the number of stacks which had to be created.
+     *
+     * @return the miss count
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Gets the share of stacks read as a shared instance.
+     *
+     * @return the hit rate, between 0 and 1
+     */
+    public double getHitRate() {
+        long hits = this.getHits();
+        long total = hits + this.getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public void clear() {
+        if (this.nbtCache != null) {
+            this.nbtCache.clear();
+        }
+    }
+}
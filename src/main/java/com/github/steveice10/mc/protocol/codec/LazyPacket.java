@@ -0,0 +1,176 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.packetlib.packet.Packet;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.ReferenceCounted;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Predicate;
+
+/**
+ * A received packet which is kept in its encoded form until it is first accessed.
+ * <p>
+ * Lazy packets are produced instead of the real packet for every class accepted by
+ * {@link MinecraftCodecHelper#getLazyPackets()}. While undecoded, the packet holds a retained
+ * slice of its body, and serializing it copies those bytes verbatim. The first call to
+ * {@link #get()} decodes the packet and releases the slice; from then on the decoded packet is
+ * serialized normally. Like other reference counted messages, lazy packets are released by the
+ * session once listeners have run, so {@link #retain()} one before holding on to it or forwarding it.
+ * Accessing a released lazy packet throws an {@link IllegalReferenceCountException}.
+ *
+ * @param <T> the packet type
+ */
+public class LazyPacket<T extends MinecraftPacket> extends AbstractReferenceCounted implements MinecraftPacket {
+    @Getter
+    private final Class<T> packetClass;
+    private final PacketFactory<T, MinecraftCodecHelper> factory;
+    private final MinecraftCodecHelper helper;
+    /**
+     * The encoded body, until the packet is decoded or released. Guarded by this instance.
+     */
+    private ByteBuf encoded;
+    /**
+     * The decoded packet. Set after the body has been decoded, so a reader that sees it can skip the lock.
+     */
+    private volatile T packet;
+
+    /**
+     * Creates a lazy packet backed by an encoded packet body.
+     *
+     * @param encoded     the encoded body, without the packet id; ownership of this buffer is transferred to the new instance
+     * @param packetClass the packet type
+     * @param factory     the factory used to decode the body
+     * @param helper      the codec helper to decode the body with
+     */
+    public LazyPacket(ByteBuf encoded, Class<T> packetClass, PacketFactory<T, MinecraftCodecHelper> factory, MinecraftCodecHelper helper) {
+        this.encoded = encoded;
+        this.packetClass = packetClass;
+        this.factory = factory;
+        this.helper = helper;
+    }
+
+    /**
+     * Whether the packet has been decoded.
+     *
+     * @return true if the encoded form has been discarded
+     */
+    public boolean isDecoded() {
+        return this.packet != null;
+    }
+
+    /**
+     * Decodes the packet if necessary and returns it.
+     *
+     * @return the decoded packet
+     * @throws IllegalReferenceCountException if the packet has been released
+     */
+    public T get() throws IOException {
+        T packet = this.packet;
+        if (packet == null) {
+            synchronized (this) {
+                packet = this.packet;
+                if (packet == null) {
+                    ByteBuf encoded = this.checkEncoded();
+                    packet = this.factory.construct(encoded.duplicate(), this.helper);
+                    this.encoded = null;
+                    encoded.release();
+                    this.packet = packet;
+                }
+            }
+        }
+
+        this.checkAccessible();
+        return packet;
+    }
+
+    /**
+     * Unwraps a packet passed to a listener which only handles some packet classes. A lazy packet
+     * is only decoded if its class is handled, so listeners never decode packets they would ignore.
+     *
+     * @param packet  the packet passed to the listener
+     * @param handled whether the listener handles a packet class
+     * @return the decoded packet of a lazy packet, the packet itself if it is not lazy, or null if it
+     * is a lazy packet of a class which is not handled
+     * @throws UncheckedIOException if the lazy packet cannot be decoded
+     */
+    @Nullable
+    public static Packet unwrap(Packet packet, Predicate<Class<?>> handled) {
+        if (!(packet instanceof LazyPacket)) {
+            return packet;
+        }
+
+        LazyPacket<?> lazy = (LazyPacket<?>) packet;
+        if (!handled.test(lazy.getPacketClass())) {
+            return null;
+        }
+
+        try {
+            return lazy.get();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode lazy " + lazy.getPacketClass().getSimpleName() + ".", e);
+        }
+    }
+
+    @Override
+    public void serialize(ByteBuf buf, MinecraftCodecHelper helper) throws IOException {
+        T packet = this.packet;
+        if (packet == null) {
+            synchronized (this) {
+                packet = this.packet;
+                if (packet == null) {
+                    ByteBuf encoded = this.checkEncoded();
+                    buf.writeBytes(encoded, encoded.readerIndex(), encoded.readableBytes());
+                    return;
+                }
+            }
+        }
+
+        this.checkAccessible();
+        packet.serialize(buf, helper);
+    }
+
+    private ByteBuf checkEncoded() {
+        // Without a decoded packet, the body is only gone once the packet has been released.
+        if (this.encoded == null) {
+            throw new IllegalReferenceCountException(0);
+        }
+
+        return this.encoded;
+    }
+
+    private void checkAccessible() {
+        int refCnt = this.refCnt();
+        if (refCnt == 0) {
+            throw new IllegalReferenceCountException(refCnt);
+        }
+    }
+
+    @Override
+    protected synchronized void deallocate() {
+        if (this.encoded != null) {
+            this.encoded.release();
+            this.encoded = null;
+        } else if (this.packet instanceof ReferenceCounted) {
+            ((ReferenceCounted) this.packet).release();
+        }
+    }
+
+    @Override
+    public LazyPacket<T> touch(Object hint) {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        if (this.isDecoded()) {
+            return "LazyPacket(" + this.packet + ")";
+        }
+
+        return "LazyPacket(" + this.packetClass.getSimpleName() + ", encoded)";
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.opennbt.tag.builtin.Tag;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.AbstractReferenceCounted;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * A tag which is kept in its encoded form until it is first accessed.
+ * <p>
+ * While undecoded, the tag holds a retained slice of the buffer it was read from, and
+ * writing it copies those bytes verbatim. The first call to {@link #get()} decodes the tag
+ * and releases the slice; from then on the (possibly modified) tag is encoded normally.
+ * Instances must be {@link #release() released} once they are no longer needed.
+ *
+ * @param <T> the expected tag type
+ */
+public class LazyTag<T extends Tag> extends AbstractReferenceCounted {
+    private final Class<T> expected;
+    private ByteBuf encoded;
+    private T tag;
+
+    /**
+     * Creates a lazy tag backed by an encoded, big endian named tag.
+     *
+     * @param encoded  the encoded tag; ownership of this buffer is transferred to the new instance
+     * @param expected the expected tag type
+     */
+    public LazyTag(ByteBuf encoded, Class<T> expected) {
+        this.encoded = encoded;
+        this.expected = expected;
+    }
+
+    /**
+     * Creates an already decoded lazy tag, for use when constructing packets to send.
+     *
+     * @param tag the tag
+     * @return a lazy tag wrapping the given tag
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Tag> LazyTag<T> of(@Nullable T tag) {
+        LazyTag<T> lazyTag = new LazyTag<>(null, (Class<T>) (tag != null ? tag.getClass() : Tag.class));
+        lazyTag.tag = tag;
+        return lazyTag;
+    }
+
+    /**
+     * Whether the tag has been decoded.
+     *
+     * @return true if the encoded form has been discarded
+     */
+    public synchronized boolean isDecoded() {
+        return this.encoded == null;
+    }
+
+    /**
+     * Decodes the tag if necessary and returns it.
+     *
+     * @return the tag, or null if the encoded tag was an end tag
+     */
+    @Nullable
+    public synchronized T get() throws IOException {
+        if (this.encoded != null) {
+            ByteBuf encoded = this.encoded;
+            Tag tag = NBTCodec.readTag(encoded.duplicate(), false);
+            if (tag != null && tag.getClass() != this.expected) {
+                throw new IllegalArgumentException("Expected tag of type " + this.expected.getName() + " but got " + tag.getClass().getName());
+            }
+
+            this.tag = this.expected.cast(tag);
+            this.encoded = null;
+            encoded.release();
+        }
+
+        return this.tag;
+    }
+
+    /**
+     * Writes the tag, copying the original bytes if it has not been decoded.
+     *
+     * @param buf the output buffer
+     */
+    public synchronized void write(ByteBuf buf) throws IOException {
+        if (this.encoded != null) {
+            buf.writeBytes(this.encoded, this.encoded.readerIndex(), this.encoded.readableBytes());
+        } else {
+            NBTCodec.writeTag(buf, this.tag, false);
+        }
+    }
+
+    @Override
+    protected synchronized void deallocate() {
+        if (this.encoded != null) {
+            this.encoded.release();
+            this.encoded = null;
+        }
+    }
+
+    @Override
+    public LazyTag<T> touch(Object hint) {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        if (this.isDecoded()) {
+            return "LazyTag(" + this.tag + ")";
+        }
+
+        return "LazyTag(encoded)";
+    }
+}
@@ -0,0 +1,143 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache which evicts its least recently used entries.
+ * <p>
+ * Entries are spread over independently locked segments, each holding an equal share
+ * of the maximum size, so that concurrent sessions rarely contend on the same lock.
+ * Hit, miss and eviction counts are kept to help with sizing the cache.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class LruCache<K, V> {
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LruCache(int maximumSize) {
+        this(maximumSize, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    @SuppressWarnings("unchecked")
+    public LruCache(int maximumSize, int concurrencyLevel) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("Concurrency level must be positive: " + concurrencyLevel);
+        }
+
+        int segmentCount = Integer.highestOneBit(Math.min(maximumSize, concurrencyLevel));
+        int segmentSize = (maximumSize + segmentCount - 1) / segmentCount;
+
+        this.segments = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment<>(segmentSize, this.evictions);
+        }
+
+        this.segmentMask = segmentCount - 1;
+    }
+
+    private Segment<K, V> segment(Object key) {
+        int hash = key.hashCode();
+        return this.segments[(hash ^ (hash >>> 16)) & this.segmentMask];
+    }
+
+    /**
+     * Gets the value cached for a key, marking it as recently used.
+     *
+     * @param key the key
+     * @return the cached value, or null if there is none
+     */
+    public V get(K key) {
+        Segment<K, V> segment = this.segment(key);
+        V value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+
+        if (value != null) {
+            this.hits.increment();
+        } else {
+            this.misses.increment();
+        }
+
+        return value;
+    }
+
+    /**
+     * Caches a value, evicting the least recently used entry of its segment if it is full.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void put(K key, V value) {
+        Segment<K, V> segment = this.segment(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : this.segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+
+        return size;
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+        private final int maximumSize;
+        private final LongAdder evictions;
+
+        private Segment(int maximumSize, LongAdder evictions) {
+            super(16, 0.75F, true);
+            this.maximumSize = maximumSize;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (this.size() > this.maximumSize) {
+                this.evictions.increment();
+                return true;
+            }
+
+            return false;
+        }
+    }
+}
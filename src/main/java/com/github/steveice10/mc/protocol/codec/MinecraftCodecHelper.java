@@ -16,6 +16,7 @@ import com.github.steveice10.mc.protocol.data.game.entity.metadata.*;
 import com.github.steveice10.mc.protocol.data.game.entity.object.Direction;
 import com.github.steveice10.mc.protocol.data.game.entity.player.BlockBreakStage;
 import com.github.steveice10.mc.protocol.data.game.entity.type.PaintingType;
+import com.github.steveice10.mc.protocol.data.game.level.CompactLightData;
 import com.github.steveice10.mc.protocol.data.game.level.LightUpdateData;
 import com.github.steveice10.mc.protocol.data.game.level.block.BlockEntityType;
 import com.github.steveice10.mc.protocol.data.game.level.event.LevelEvent;
@@ -28,24 +29,27 @@ import com.github.steveice10.mc.protocol.data.game.level.sound.BuiltinSound;
 import com.github.steveice10.mc.protocol.data.game.level.sound.CustomSound;
 import com.github.steveice10.mc.protocol.data.game.level.sound.Sound;
 import com.github.steveice10.mc.protocol.data.game.level.sound.SoundCategory;
+import com.github.steveice10.mc.protocol.data.game.registry.GameRegistry;
 import com.github.steveice10.mc.protocol.data.game.recipe.Ingredient;
 import com.github.steveice10.mc.protocol.data.game.statistic.StatisticCategory;
 import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundLoginPacket;
-import com.github.steveice10.opennbt.NBTIO;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundLevelChunkWithLightPacket;
 import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
 import com.github.steveice10.opennbt.tag.builtin.Tag;
 import com.github.steveice10.packetlib.codec.BasePacketCodecHelper;
 import com.nukkitx.math.vector.Vector3f;
 import com.nukkitx.math.vector.Vector3i;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import lombok.RequiredArgsConstructor;
 import net.kyori.adventure.text.Component;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
@@ -55,6 +59,15 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.function.*;
 
+/**
+ * Reads and writes the data types of the Minecraft protocol. Every session has its own helper.
+ * <p>
+ * Decoding can be sped up with the optional caches and pools set on a helper, such as a
+ * {@link ComponentCache} or an {@link ItemStackPool}. These are thread safe, and they save the most
+ * when one instance is set on the helper of every session of a server or client network, since
+ * those sessions receive many identical packets. Objects returned by them may be shared by several
+ * sessions, so they must not be modified.
+ */
 @RequiredArgsConstructor
 public class MinecraftCodecHelper extends BasePacketCodecHelper {
     private static final int POSITION_X_SIZE = 38;
@@ -62,11 +75,30 @@ public class MinecraftCodecHelper extends BasePacketCodecHelper {
     private static final int POSITION_Z_SIZE = 38;
     private static final int POSITION_Y_SHIFT = 0xFFF;
     private static final int POSITION_WRITE_SHIFT = 0x3FFFFFF;
+    private static final ByteBufAllocator LIGHT_ALLOCATOR = new UnpooledByteBufAllocator(false);
 
     private final Int2ObjectMap<LevelEvent> levelEvents;
     private final Map<String, BuiltinSound> soundNames;
 
     protected CompoundTag registry;
+    @Nullable
+    protected GameRegistry registryView;
+    @Nullable
+    protected RegistryCache.CachedRegistry cachedRegistry;
+    @Nullable
+    protected RegistryCache registryCache;
+    protected boolean opaqueChunks;
+    protected boolean compactLight;
+    @Nullable
+    protected Predicate<Class<? extends MinecraftPacket>> lazyPackets;
+    @Nullable
+    protected ComponentCache componentCache;
+    @Nullable
+    protected PacketInternPool internPool;
+    @Nullable
+    protected PublicKeyCache publicKeyCache;
+    @Nullable
+    protected ItemStackPool itemStackPool;
 
     @Nullable
     public <T> T readNullable(ByteBuf buf, Function<ByteBuf, T> ifPresent) {
@@ -118,6 +150,22 @@ public class MinecraftCodecHelper extends BasePacketCodecHelper {
         this.writeByteArray(buf, bytes, this::writeVarInt);
     }
 
+    /**
+     * Reads an X.509 encoded RSA public key, through the {@link PublicKeyCache} if one is set.
+     *
+     * @param buf the input buffer
+     * @return the key
+     * @throws IOException if the key is invalid
+     */
+    public PublicKey readPublicKey(ByteBuf buf) throws IOException {
+        byte[] encoded = this.readByteArray(buf);
+        try {
+            return this.publicKeyCache != null ? this.publicKeyCache.decode(encoded) : PublicKeyCache.decodeKey(encoded);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Could not decode public key.", e);
+        }
+    }
+
     public void writeByteArray(ByteBuf buf, byte[] bytes, ObjIntConsumer<ByteBuf> writer) {
         writer.accept(buf, bytes.length);
         buf.writeBytes(bytes);
@@ -152,28 +200,120 @@ public class MinecraftCodecHelper extends BasePacketCodecHelper {
         }
     }
 
-    public CompoundTag readTag(ByteBuf buf) throws IOException {
-        return readTag(buf, CompoundTag.class);
+    @Override
+    public int readVarInt(ByteBuf buf) {
+        return VarInts.readVarInt(buf);
     }
 
-    @Nullable
-    public <T extends Tag> T readTag(ByteBuf buf, Class<T> expected) throws IOException {
-        Tag tag = NBTIO.readTag(new InputStream() {
-            @Override
-            public int read() {
-                return buf.readUnsignedByte();
-            }
-        });
+    @Override
+    public void writeVarInt(ByteBuf buf, int value) {
+        VarInts.writeVarInt(buf, value);
+    }
 
-        if (tag == null) {
-            return null;
-        }
+    @Override
+    public long readVarLong(ByteBuf buf) {
+        return VarInts.readVarLong(buf);
+    }
 
-        if (tag.getClass() != expected) {
-            throw new IllegalArgumentException("Expected tag of type " + expected.getName() + " but got " + tag.getClass().getName());
+    /**
+     * Gets the number of bytes a value takes up when written as a VarInt.
+     *
+     * @param value the value
+     * @return the encoded size, between 1 and 5
+     */
+    public static int getVarIntSize(int value) {
+        return VarInts.getVarIntSize(value);
+    }
+
+    /**
+     * Gets the number of bytes a value takes up when written as a VarLong.
+     *
+     * @param value the value
+     * @return the encoded size, between 1 and 10
+     */
+    public static int getVarLongSize(long value) {
+        return VarInts.getVarLongSize(value);
+    }
+
+    /**
+     * Reads a VarInt length followed by that many VarInts.
+     *
+     * @param buf the input buffer
+     * @return the values
+     */
+    public int[] readVarIntArray(ByteBuf buf) {
+        int length = this.readVarInt(buf);
+        if (length < 0 || length > buf.readableBytes()) {
+            throw new IllegalArgumentException("Invalid VarInt array length: " + length);
         }
 
-        return expected.cast(tag);
+        int[] values = new int[length];
+        VarInts.readVarInts(buf, values, 0, length);
+        return values;
+    }
+
+    /**
+     * Reads consecutive VarInts into part of an array, decoding from the buffer's memory directly
+     * instead of one value at a time.
+     *
+     * @param buf    the input buffer
+     * @param dest   the array to read into
+     * @param offset the index of the first value in the array
+     * @param length the number of values to read
+     */
+    public void readVarInts(ByteBuf buf, int[] dest, int offset, int length) {
+        VarInts.readVarInts(buf, dest, offset, length);
+    }
+
+    public void writeVarIntArray(ByteBuf buf, int[] values) {
+        this.writeVarInt(buf, values.length);
+        VarInts.writeVarInts(buf, values, 0, values.length);
+    }
+
+    /**
+     * Writes part of an array as consecutive VarInts, growing the buffer at most once.
+     *
+     * @param buf    the output buffer
+     * @param values the values to write
+     * @param offset the index of the first value in the array
+     * @param length the number of values to write
+     */
+    public void writeVarInts(ByteBuf buf, int[] values, int offset, int length) {
+        VarInts.writeVarInts(buf, values, offset, length);
+    }
+
+    /**
+     * Reads consecutive VarLongs into part of an array.
+     *
+     * @param buf    the input buffer
+     * @param dest   the array to read into
+     * @param offset the index of the first value in the array
+     * @param length the number of values to read
+     * @see #readVarInts(ByteBuf, int[], int, int)
+     */
+    public void readVarLongs(ByteBuf buf, long[] dest, int offset, int length) {
+        VarInts.readVarLongs(buf, dest, offset, length);
+    }
+
+    /**
+     * Writes part of an array as consecutive VarLongs, growing the buffer at most once.
+     *
+     * @param buf    the output buffer
+     * @param values the values to write
+     * @param offset the index of the first value in the array
+     * @param length the number of values to write
+     */
+    public void writeVarLongs(ByteBuf buf, long[] values, int offset, int length) {
+        VarInts.writeVarLongs(buf, values, offset, length);
+    }
+
+    public CompoundTag readTag(ByteBuf buf) throws IOException {
+        return readTag(buf, CompoundTag.class);
+    }
+
+    @Nullable
+    public <T extends Tag> T readTag(ByteBuf buf, Class<T> expected) throws IOException {
+        return this.readTag(buf, expected, false);
     }
 
     public CompoundTag readTagLE(ByteBuf buf) throws IOException {
@@ -182,12 +322,12 @@ public class MinecraftCodecHelper extends BasePacketCodecHelper {
 
     @Nullable
     public <T extends Tag> T readTagLE(ByteBuf buf, Class<T> expected) throws IOException {
-        Tag tag = NBTIO.readTag(new InputStream() {
-            @Override
-            public int read() {
-                return buf.readUnsignedByte();
-            }
-        }, true);
+        return this.readTag(buf, expected, true);
+    }
+
+    @Nullable
+    private <T extends Tag> T readTag(ByteBuf buf, Class<T> expected, boolean littleEndian) throws IOException {
+        Tag tag = NBTCodec.readTag(buf, littleEndian);
 
         if (tag == null) {
             return null;
@@ -201,24 +341,36 @@ public class MinecraftCodecHelper extends BasePacketCodecHelper {
     }
 
     public <T extends Tag> void writeTag(ByteBuf buf, T tag) throws IOException {
-        NBTIO.writeTag(new OutputStream() {
-            @Override
-            public void write(int b) throws IOException {
-                buf.writeByte(b);
-            }
-        }, tag);
+        NBTCodec.writeTag(buf, tag, false);
     }
 
     public <T extends Tag> void writeTagLE(ByteBuf buf, T tag) throws IOException {
-        NBTIO.writeTag(new OutputStream() {
-            @Override
-            public void write(int b) throws IOException {
-                buf.writeByte(b);
-            }
-        }, tag, true);
+        NBTCodec.writeTag(buf, tag, true);
+    }
+
+    /**
+     * Reads a tag without decoding it. The returned {@link LazyTag} retains a slice of the
+     * input buffer until it is first accessed, and must be released by the caller.
+     *
+     * @param buf      the input buffer
+     * @param expected the expected tag type
+     * @return the undecoded tag
+     */
+    public <T extends Tag> LazyTag<T> readLazyTag(ByteBuf buf, Class<T> expected) throws IOException {
+        int start = buf.readerIndex();
+        NBTCodec.skipTag(buf, false);
+        return new LazyTag<>(buf.retainedSlice(start, buf.readerIndex() - start), expected);
+    }
+
+    public void writeLazyTag(ByteBuf buf, LazyTag<?> tag) throws IOException {
+        tag.write(buf);
     }
 
     public ItemStack readItemStack(ByteBuf buf) throws IOException {
+        if (this.itemStackPool != null) {
+            return this.itemStackPool.read(buf, this);
+        }
+
         boolean present = buf.readBoolean();
         if (!present) {
             return null;
@@ -298,11 +450,28 @@ public class MinecraftCodecHelper extends BasePacketCodecHelper {
     }
 
     public Component readComponent(ByteBuf buf) {
-        return DefaultComponentSerializer.get().deserialize(this.readString(buf));
+        if (this.componentCache == null) {
+            return DefaultComponentSerializer.get().deserialize(this.readString(buf));
+        }
+
+        // Same limits as readString: at most 3 bytes per character, and at most Short.MAX_VALUE characters.
+        int length = this.readVarInt(buf);
+        if (length < 0 || length > Short.MAX_VALUE * 3) {
+            throw new IllegalArgumentException("String length " + length + " is outside of the allowed range 0 to " + Short.MAX_VALUE * 3);
+        }
+
+        return this.componentCache.read(buf, length, Short.MAX_VALUE);
     }
 
     public void writeComponent(ByteBuf buf, Component component) {
-        this.writeString(buf, DefaultComponentSerializer.get().serialize(component));
+        if (this.componentCache == null) {
+            this.writeString(buf, DefaultComponentSerializer.get().serialize(component));
+            return;
+        }
+
+        byte[] json = this.componentCache.encode(component);
+        this.writeVarInt(buf, json.length);
+        buf.writeBytes(json);
     }
 
     public EntityMetadata<?, ?>[] readEntityMetadata(ByteBuf buf) throws IOException {
@@ -323,6 +492,22 @@ public class MinecraftCodecHelper extends BasePacketCodecHelper {
         buf.writeByte(255);
     }
 
+    /**
+     * Reads entity metadata into a map, without allocating an entry object per value. Unlike
+     * {@link #readEntityMetadata(ByteBuf)}, which keeps the entries as they were sent, a slot sent
+     * more than once keeps its last value, and the map writes its slots in order.
+     *
+     * @param buf      the input buffer
+     * @param metadata the map to add the values to
+     */
+    public void readEntityMetadata(ByteBuf buf, EntityMetadataMap metadata) throws IOException {
+        metadata.read(this, buf);
+    }
+
+    public void writeEntityMetadata(ByteBuf buf, EntityMetadataMap metadata) throws IOException {
+        metadata.write(this, buf);
+    }
+
     public EntityMetadata<?, ?> readMetadata(ByteBuf buf, int id) throws IOException {
         MetadataType<?> type = this.readMetadataType(buf);
         return type.readMetadata(this, buf, id);
@@ -534,7 +719,11 @@ public class MinecraftCodecHelper extends BasePacketCodecHelper {
         this.writeEnum(buf, type);
     }
 
-    public LightUpdateData readLightUpdateData(ByteBuf buf) {
+    public LightUpdateData readLightUpdateData(ByteBuf buf) throws IOException {
+        if (this.compactLight) {
+            return new LightUpdateData(CompactLightData.read(buf, this, LIGHT_ALLOCATOR));
+        }
+
         boolean trustEdges = buf.readBoolean();
 
         BitSet skyYMask = BitSet.valueOf(this.readLongArray(buf));
@@ -558,6 +747,11 @@ public class MinecraftCodecHelper extends BasePacketCodecHelper {
     }
 
     public void writeLightUpdateData(ByteBuf buf, LightUpdateData data) {
+        if (data.getCompact() != null) {
+            data.getCompact().write(buf, this);
+            return;
+        }
+
         buf.writeBoolean(data.isTrustEdges());
 
         writeBitSet(buf, data.getSkyYMask());
@@ -801,5 +995,164 @@ public class MinecraftCodecHelper extends BasePacketCodecHelper {
 
     public void setRegistry(CompoundTag registry) {
         this.registry = registry;
+        this.registryView = null;
+        this.cachedRegistry = null;
+    }
+
+    /**
+     * An indexed view of {@link #getRegistry()}, built on first access.
+     *
+     * @return the registry view, or null if no registry has been set
+     * @throws IOException if the registry is malformed
+     */
+    @Nullable
+    public GameRegistry getRegistryView() throws IOException {
+        if (this.registryView == null && this.registry != null) {
+            this.registryView = this.cachedRegistry != null ? this.cachedRegistry.getView() : new GameRegistry(this.registry);
+        }
+
+        return this.registryView;
+    }
+
+    /**
+     * Reads the registry tag of a {@link ClientboundLoginPacket}. If a {@link RegistryCache} is set,
+     * the registry is shared with other sessions that received the same bytes and becomes this
+     * helper's {@link #getRegistry() registry}.
+     *
+     * @param buf the input buffer
+     * @return the registry tag
+     */
+    public CompoundTag readRegistry(ByteBuf buf) throws IOException {
+        if (this.registryCache == null) {
+            return this.readTag(buf);
+        }
+
+        RegistryCache.CachedRegistry registry = this.registryCache.read(buf);
+        this.registry = registry.getTag();
+        this.registryView = null;
+        this.cachedRegistry = registry;
+        return this.registry;
+    }
+
+    /**
+     * The cache used to share login registries between sessions. Disabled by default.
+     *
+     * @return the registry cache, or null if every session decodes its own registry
+     */
+    @Nullable
+    public RegistryCache getRegistryCache() {
+        return this.registryCache;
+    }
+
+    public void setRegistryCache(@Nullable RegistryCache registryCache) {
+        this.registryCache = registryCache;
+    }
+
+    /**
+     * Whether {@link ClientboundLevelChunkWithLightPacket}s are decoded in opaque mode, keeping
+     * their payload as a retained buffer slice until it is accessed. Useful for proxies and
+     * recorders that forward chunks without inspecting them.
+     *
+     * @return whether opaque chunk decoding is enabled
+     */
+    public boolean isOpaqueChunks() {
+        return this.opaqueChunks;
+    }
+
+    public void setOpaqueChunks(boolean opaqueChunks) {
+        this.opaqueChunks = opaqueChunks;
+    }
+
+    /**
+     * Whether {@link LightUpdateData} is read into {@link CompactLightData}, storing the light arrays
+     * of a packet in one heap buffer and uniform sections as a single value. The separate arrays
+     * are only created if they are accessed.
+     *
+     * @return whether compact light decoding is enabled
+     */
+    public boolean isCompactLight() {
+        return this.compactLight;
+    }
+
+    public void setCompactLight(boolean compactLight) {
+        this.compactLight = compactLight;
+    }
+
+    /**
+     * The packet types which are received as {@link LazyPacket}s, deferring their decoding until
+     * {@link LazyPacket#get()} is called. Packets handled by the built-in session listeners, such as
+     * keep-alives and login packets, should not be included.
+     *
+     * @return the lazy packet filter, or null if lazy decoding is disabled
+     */
+    @Nullable
+    public Predicate<Class<? extends MinecraftPacket>> getLazyPackets() {
+        return this.lazyPackets;
+    }
+
+    public void setLazyPackets(@Nullable Predicate<Class<? extends MinecraftPacket>> lazyPackets) {
+        this.lazyPackets = lazyPackets;
+    }
+
+    public boolean isLazy(Class<? extends MinecraftPacket> packetClass) {
+        return this.lazyPackets != null && this.lazyPackets.test(packetClass);
+    }
+
+    /**
+     * The cache used when reading and writing components. Caches are usually shared between all
+     * sessions, and are disabled by default.
+     *
+     * @return the component cache, or null if components are always parsed and serialized
+     */
+    @Nullable
+    public ComponentCache getComponentCache() {
+        return this.componentCache;
+    }
+
+    public void setComponentCache(@Nullable ComponentCache componentCache) {
+        this.componentCache = componentCache;
+    }
+
+    /**
+     * The pool used to share large packets which are identical between sessions, such as recipes,
+     * tags and commands. Disabled by default.
+     *
+     * @return the intern pool, or null if every session decodes its own packets
+     */
+    @Nullable
+    public PacketInternPool getInternPool() {
+        return this.internPool;
+    }
+
+    public void setInternPool(@Nullable PacketInternPool internPool) {
+        this.internPool = internPool;
+    }
+
+    /**
+     * The cache used to share decoded public keys between sessions. Disabled by default.
+     *
+     * @return the public key cache, or null if every session decodes its own keys
+     */
+    @Nullable
+    public PublicKeyCache getPublicKeyCache() {
+        return this.publicKeyCache;
+    }
+
+    public void setPublicKeyCache(@Nullable PublicKeyCache publicKeyCache) {
+        this.publicKeyCache = publicKeyCache;
+    }
+
+    /**
+     * The pool used to share decoded item stacks between slots and sessions. Disabled by default.
+     *
+     * @return the item stack pool, or null if every item stack is decoded as a new instance
+     */
+    @Nullable
+    public ItemStackPool getItemStackPool() {
+        return this.itemStackPool;
+    }
+
+    public void setItemStackPool(@Nullable ItemStackPool itemStackPool) {
+        this.itemStackPool = itemStackPool;
     }
 }
@@ -17,7 +17,18 @@ public class MinecraftPacketSerializer<T extends MinecraftPacket> implements Pac
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public T deserialize(ByteBuf buf, MinecraftCodecHelper helper, PacketDefinition<T, MinecraftCodecHelper> definition) throws IOException {
+        if (helper.isLazy(definition.getPacketClass())) {
+            // Lazy packets stand in for the real type; the protocol unwraps them when looking up ids.
+            return (T) new LazyPacket<>(buf.readRetainedSlice(buf.readableBytes()), definition.getPacketClass(), this.factory, helper);
+        }
+
+        PacketInternPool internPool = helper.getInternPool();
+        if (internPool != null && internPool.isInterned(definition.getPacketClass())) {
+            return internPool.read(buf, definition.getPacketClass(), this.factory, helper);
+        }
+
         return this.factory.construct(buf, helper);
     }
 }
@@ -0,0 +1,510 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.opennbt.tag.TagRegistry;
+import com.github.steveice10.opennbt.tag.builtin.ByteArrayTag;
+import com.github.steveice10.opennbt.tag.builtin.ByteTag;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.DoubleTag;
+import com.github.steveice10.opennbt.tag.builtin.FloatTag;
+import com.github.steveice10.opennbt.tag.builtin.IntArrayTag;
+import com.github.steveice10.opennbt.tag.builtin.IntTag;
+import com.github.steveice10.opennbt.tag.builtin.ListTag;
+import com.github.steveice10.opennbt.tag.builtin.LongArrayTag;
+import com.github.steveice10.opennbt.tag.builtin.LongTag;
+import com.github.steveice10.opennbt.tag.builtin.ShortTag;
+import com.github.steveice10.opennbt.tag.builtin.StringTag;
+import com.github.steveice10.opennbt.tag.builtin.Tag;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.ByteProcessor;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes NBT directly against a {@link ByteBuf}.
+ * <p>
+ * The wire format is identical to the one produced by {@link com.github.steveice10.opennbt.NBTIO},
+ * but strings and arrays are transferred in bulk instead of one byte per stream call.
+ */
+public final class NBTCodec {
+    public static final int TAG_END = 0;
+    public static final int TAG_BYTE = 1;
+    public static final int TAG_SHORT = 2;
+    public static final int TAG_INT = 3;
+    public static final int TAG_LONG = 4;
+    public static final int TAG_FLOAT = 5;
+    public static final int TAG_DOUBLE = 6;
+    public static final int TAG_BYTE_ARRAY = 7;
+    public static final int TAG_STRING = 8;
+    public static final int TAG_LIST = 9;
+    public static final int TAG_COMPOUND = 10;
+    public static final int TAG_INT_ARRAY = 11;
+    public static final int TAG_LONG_ARRAY = 12;
+
+    /**
+     * Maximum nesting depth accepted when reading, matching the vanilla limit.
+     */
+    public static final int MAX_DEPTH = 512;
+
+    private static final ByteProcessor FIND_NON_ASCII = value -> value >= 0;
+
+    private NBTCodec() {
+    }
+
+    /**
+     * Reads a named tag.
+     *
+     * @param buf          the input buffer
+     * @param littleEndian whether the tag is encoded in little endian
+     * @return the tag, or null if the buffer contained an end tag
+     */
+    @Nullable
+    public static Tag readTag(ByteBuf buf, boolean littleEndian) throws IOException {
+        int id = buf.readUnsignedByte();
+        if (id == TAG_END) {
+            return null;
+        }
+
+        String name = readString(buf, littleEndian);
+        return readPayload(buf, id, name, littleEndian, 0);
+    }
+
+    /**
+     * Writes a named tag. A null tag is written as an end tag.
+     *
+     * @param buf          the output buffer
+     * @param tag          the tag to write
+     * @param littleEndian whether to encode the tag in little endian
+     */
+    public static void writeTag(ByteBuf buf, @Nullable Tag tag, boolean littleEndian) throws IOException {
+        if (tag == null) {
+            buf.writeByte(TAG_END);
+            return;
+        }
+
+        int id = getId(tag.getClass());
+        buf.writeByte(id);
+        writeString(buf, tag.getName(), littleEndian);
+        writePayload(buf, id, tag, littleEndian);
+    }
+
+    /**
+     * Advances the reader index past a named tag without decoding it.
+     *
+     * @param buf          the input buffer
+     * @param littleEndian whether the tag is encoded in little endian
+     */
+    public static void skipTag(ByteBuf buf, boolean littleEndian) throws IOException {
+        int id = buf.readUnsignedByte();
+        if (id == TAG_END) {
+            return;
+        }
+
+        buf.skipBytes(littleEndian ? buf.readUnsignedShortLE() : buf.readUnsignedShort());
+        skipPayload(buf, id, littleEndian, 0);
+    }
+
+    private static Tag readPayload(ByteBuf buf, int id, String name, boolean littleEndian, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("Tried to read NBT tag with too high complexity, depth > " + MAX_DEPTH);
+        }
+
+        switch (id) {
+            case TAG_BYTE:
+                return new ByteTag(name, buf.readByte());
+            case TAG_SHORT:
+                return new ShortTag(name, littleEndian ? buf.readShortLE() : buf.readShort());
+            case TAG_INT:
+                return new IntTag(name, littleEndian ? buf.readIntLE() : buf.readInt());
+            case TAG_LONG:
+                return new LongTag(name, littleEndian ? buf.readLongLE() : buf.readLong());
+            case TAG_FLOAT:
+                return new FloatTag(name, Float.intBitsToFloat(littleEndian ? buf.readIntLE() : buf.readInt()));
+            case TAG_DOUBLE:
+                return new DoubleTag(name, Double.longBitsToDouble(littleEndian ? buf.readLongLE() : buf.readLong()));
+            case TAG_BYTE_ARRAY: {
+                byte[] value = new byte[readArrayLength(buf, Byte.BYTES, littleEndian)];
+                buf.readBytes(value);
+                return new ByteArrayTag(name, value);
+            }
+            case TAG_STRING:
+                return new StringTag(name, readString(buf, littleEndian));
+            case TAG_LIST: {
+                int elementId = buf.readUnsignedByte();
+                int count = littleEndian ? buf.readIntLE() : buf.readInt();
+                if (elementId == TAG_END) {
+                    if (count > 0) {
+                        throw new IOException("Missing element type in ListTag with " + count + " elements.");
+                    }
+
+                    return new ListTag(name);
+                }
+
+                ListTag list = new ListTag(name, getTagClass(elementId));
+                for (int i = 0; i < count; i++) {
+                    list.add(readPayload(buf, elementId, "", littleEndian, depth + 1));
+                }
+
+                return list;
+            }
+            case TAG_COMPOUND: {
+                Map<String, Tag> value = new LinkedHashMap<>();
+                int childId;
+                while ((childId = buf.readUnsignedByte()) != TAG_END) {
+                    String childName = readString(buf, littleEndian);
+                    value.put(childName, readPayload(buf, childId, childName, littleEndian, depth + 1));
+                }
+
+                return new CompoundTag(name, value);
+            }
+            case TAG_INT_ARRAY: {
+                int length = readArrayLength(buf, Integer.BYTES, littleEndian);
+                int[] value = new int[length];
+                buf.nioBuffer(buf.readerIndex(), length * Integer.BYTES)
+                        .order(littleEndian ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN)
+                        .asIntBuffer()
+                        .get(value);
+                buf.skipBytes(length * Integer.BYTES);
+                return new IntArrayTag(name, value);
+            }
+            case TAG_LONG_ARRAY: {
+                int length = readArrayLength(buf, Long.BYTES, littleEndian);
+                long[] value = new long[length];
+                buf.nioBuffer(buf.readerIndex(), length * Long.BYTES)
+                        .order(littleEndian ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN)
+                        .asLongBuffer()
+                        .get(value);
+                buf.skipBytes(length * Long.BYTES);
+                return new LongArrayTag(name, value);
+            }
+            default:
+                throw new IOException("Unknown NBT tag id: " + id);
+        }
+    }
+
+    private static void writePayload(ByteBuf buf, int id, Tag tag, boolean littleEndian) throws IOException {
+        switch (id) {
+            case TAG_BYTE:
+                buf.writeByte(((ByteTag) tag).getValue());
+                break;
+            case TAG_SHORT:
+                short shortValue = ((ShortTag) tag).getValue();
+                if (littleEndian) {
+                    buf.writeShortLE(shortValue);
+                } else {
+                    buf.writeShort(shortValue);
+                }
+                break;
+            case TAG_INT:
+                writeInt(buf, ((IntTag) tag).getValue(), littleEndian);
+                break;
+            case TAG_LONG:
+                writeLong(buf, ((LongTag) tag).getValue(), littleEndian);
+                break;
+            case TAG_FLOAT:
+                writeInt(buf, Float.floatToIntBits(((FloatTag) tag).getValue()), littleEndian);
+                break;
+            case TAG_DOUBLE:
+                writeLong(buf, Double.doubleToLongBits(((DoubleTag) tag).getValue()), littleEndian);
+                break;
+            case TAG_BYTE_ARRAY:
+                byte[] bytes = ((ByteArrayTag) tag).getValue();
+                writeInt(buf, bytes.length, littleEndian);
+                buf.writeBytes(bytes);
+                break;
+            case TAG_STRING:
+                writeString(buf, ((StringTag) tag).getValue(), littleEndian);
+                break;
+            case TAG_LIST:
+                ListTag list = (ListTag) tag;
+                if (list.size() == 0) {
+                    buf.writeByte(TAG_END);
+                    writeInt(buf, 0, littleEndian);
+                    break;
+                }
+
+                int elementId = getId(list.getElementType());
+                buf.writeByte(elementId);
+                writeInt(buf, list.size(), littleEndian);
+                for (Tag element : list) {
+                    writePayload(buf, elementId, element, littleEndian);
+                }
+                break;
+            case TAG_COMPOUND:
+                for (Tag child : ((CompoundTag) tag).values()) {
+                    int childId = getId(child.getClass());
+                    buf.writeByte(childId);
+                    writeString(buf, child.getName(), littleEndian);
+                    writePayload(buf, childId, child, littleEndian);
+                }
+
+                buf.writeByte(TAG_END);
+                break;
+            case TAG_INT_ARRAY:
+                int[] ints = ((IntArrayTag) tag).getValue();
+                writeInt(buf, ints.length, littleEndian);
+                buf.ensureWritable(ints.length * Integer.BYTES);
+                for (int value : ints) {
+                    writeInt(buf, value, littleEndian);
+                }
+                break;
+            case TAG_LONG_ARRAY:
+                long[] longs = ((LongArrayTag) tag).getValue();
+                writeInt(buf, longs.length, littleEndian);
+                buf.ensureWritable(longs.length * Long.BYTES);
+                for (long value : longs) {
+                    writeLong(buf, value, littleEndian);
+                }
+                break;
+            default:
+                throw new IOException("Unknown NBT tag id: " + id);
+        }
+    }
+
+    private static void skipPayload(ByteBuf buf, int id, boolean littleEndian, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("Tried to read NBT tag with too high complexity, depth > " + MAX_DEPTH);
+        }
+
+        switch (id) {
+            case TAG_BYTE:
+            case TAG_SHORT:
+            case TAG_INT:
+            case TAG_LONG:
+            case TAG_FLOAT:
+            case TAG_DOUBLE:
+                buf.skipBytes(getFixedSize(id));
+                break;
+            case TAG_BYTE_ARRAY:
+                buf.skipBytes(readArrayLength(buf, Byte.BYTES, littleEndian));
+                break;
+            case TAG_STRING:
+                buf.skipBytes(littleEndian ? buf.readUnsignedShortLE() : buf.readUnsignedShort());
+                break;
+            case TAG_LIST:
+                int elementId = buf.readUnsignedByte();
+                int count = littleEndian ? buf.readIntLE() : buf.readInt();
+                int fixedSize = getFixedSize(elementId);
+                if (fixedSize > 0) {
+                    if (count < 0 || (long) count * fixedSize > buf.readableBytes()) {
+                        throw new IOException("Invalid ListTag length: " + count);
+                    }
+
+                    buf.skipBytes(count * fixedSize);
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        skipPayload(buf, elementId, littleEndian, depth + 1);
+                    }
+                }
+                break;
+            case TAG_COMPOUND:
+                int childId;
+                while ((childId = buf.readUnsignedByte()) != TAG_END) {
+                    buf.skipBytes(littleEndian ? buf.readUnsignedShortLE() : buf.readUnsignedShort());
+                    skipPayload(buf, childId, littleEndian, depth + 1);
+                }
+                break;
+            case TAG_INT_ARRAY:
+                buf.skipBytes(readArrayLength(buf, Integer.BYTES, littleEndian) * Integer.BYTES);
+                break;
+            case TAG_LONG_ARRAY:
+                buf.skipBytes(readArrayLength(buf, Long.BYTES, littleEndian) * Long.BYTES);
+                break;
+            default:
+                throw new IOException("Unknown NBT tag id: " + id);
+        }
+    }
+
+    private static int getFixedSize(int id) {
+        switch (id) {
+            case TAG_BYTE:
+                return Byte.BYTES;
+            case TAG_SHORT:
+                return Short.BYTES;
+            case TAG_INT:
+            case TAG_FLOAT:
+                return Integer.BYTES;
+            case TAG_LONG:
+            case TAG_DOUBLE:
+                return Long.BYTES;
+            default:
+                return 0;
+        }
+    }
+
+    private static int readArrayLength(ByteBuf buf, int elementSize, boolean littleEndian) throws IOException {
+        int length = littleEndian ? buf.readIntLE() : buf.readInt();
+        if (length < 0 || (long) length * elementSize > buf.readableBytes()) {
+            throw new IOException("Invalid NBT array length: " + length);
+        }
+
+        return length;
+    }
+
+    private static void writeInt(ByteBuf buf, int value, boolean littleEndian) {
+        if (littleEndian) {
+            buf.writeIntLE(value);
+        } else {
+            buf.writeInt(value);
+        }
+    }
+
+    private static void writeLong(ByteBuf buf, long value, boolean littleEndian) {
+        if (littleEndian) {
+            buf.writeLongLE(value);
+        } else {
+            buf.writeLong(value);
+        }
+    }
+
+    private static int getId(Class<? extends Tag> clazz) throws IOException {
+        int id = TagRegistry.getIdFor(clazz);
+        if (id < TAG_BYTE || id > TAG_LONG_ARRAY) {
+            throw new IOException("Tag class " + clazz.getName() + " is not a vanilla NBT type.");
+        }
+
+        return id;
+    }
+
+    private static Class<? extends Tag> getTagClass(int id) throws IOException {
+        Class<? extends Tag> clazz = id >= TAG_BYTE && id <= TAG_LONG_ARRAY ? TagRegistry.getClassFor(id) : null;
+        if (clazz == null) {
+            throw new IOException("Unknown NBT tag id: " + id);
+        }
+
+        return clazz;
+    }
+
+    /**
+     * Reads a string in the same encoding as {@link java.io.DataInput#readUTF()}
+     * (or plain UTF-8 with a little endian length when reading little endian NBT).
+     */
+    private static String readString(ByteBuf buf, boolean littleEndian) throws IOException {
+        int length = littleEndian ? buf.readUnsignedShortLE() : buf.readUnsignedShort();
+        if (length > buf.readableBytes()) {
+            throw new IOException("NBT string length " + length + " exceeds remaining bytes " + buf.readableBytes());
+        }
+
+        int start = buf.readerIndex();
+        buf.skipBytes(length);
+        if (littleEndian) {
+            return buf.toString(start, length, StandardCharsets.UTF_8);
+        }
+
+        if (buf.forEachByte(start, length, FIND_NON_ASCII) == -1) {
+            return buf.toString(start, length, StandardCharsets.US_ASCII);
+        }
+
+        char[] chars = new char[length];
+        int count = 0;
+        int end = start + length;
+        int index = start;
+        while (index < end) {
+            int b = buf.getByte(index) & 0xFF;
+            switch (b >> 4) {
+                case 0:
+                case 1:
+                case 2:
+                case 3:
+                case 4:
+                case 5:
+                case 6:
+                case 7:
+                    chars[count++] = (char) b;
+                    index++;
+                    break;
+                case 12:
+                case 13: {
+                    if (index + 2 > end) {
+                        throw new UTFDataFormatException("malformed input: partial character at end");
+                    }
+
+                    int b2 = buf.getByte(index + 1);
+                    if ((b2 & 0xC0) != 0x80) {
+                        throw new UTFDataFormatException("malformed input around byte " + (index - start + 1));
+                    }
+
+                    chars[count++] = (char) (((b & 0x1F) << 6) | (b2 & 0x3F));
+                    index += 2;
+                    break;
+                }
+                case 14: {
+                    if (index + 3 > end) {
+                        throw new UTFDataFormatException("malformed input: partial character at end");
+                    }
+
+                    int b2 = buf.getByte(index + 1);
+                    int b3 = buf.getByte(index + 2);
+                    if ((b2 & 0xC0) != 0x80 || (b3 & 0xC0) != 0x80) {
+                        throw new UTFDataFormatException("malformed input around byte " + (index - start + 2));
+                    }
+
+                    chars[count++] = (char) (((b & 0x0F) << 12) | ((b2 & 0x3F) << 6) | (b3 & 0x3F));
+                    index += 3;
+                    break;
+                }
+                default:
+                    throw new UTFDataFormatException("malformed input around byte " + (index - start));
+            }
+        }
+
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * Writes a string in the same encoding as {@link java.io.DataOutput#writeUTF(String)}
+     * (or plain UTF-8 with a little endian length when writing little endian NBT).
+     */
+    private static void writeString(ByteBuf buf, String value, boolean littleEndian) throws IOException {
+        if (littleEndian) {
+            int length = ByteBufUtil.utf8Bytes(value);
+            if (length > 0xFFFF) {
+                throw new UTFDataFormatException("encoded string too long: " + length + " bytes");
+            }
+
+            buf.writeShortLE(length);
+            buf.writeCharSequence(value, StandardCharsets.UTF_8);
+            return;
+        }
+
+        int chars = value.length();
+        int length = chars;
+        for (int i = 0; i < chars; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80 || c == 0) {
+                length += c >= 0x800 ? 2 : 1;
+            }
+        }
+
+        if (length > 0xFFFF) {
+            throw new UTFDataFormatException("encoded string too long: " + length + " bytes");
+        }
+
+        buf.writeShort(length);
+        if (length == chars) {
+            buf.writeCharSequence(value, StandardCharsets.US_ASCII);
+            return;
+        }
+
+        buf.ensureWritable(length);
+        for (int i = 0; i < chars; i++) {
+            char c = value.charAt(i);
+            if (c != 0 && c < 0x80) {
+                buf.writeByte(c);
+            } else if (c >= 0x800) {
+                buf.writeByte(0xE0 | ((c >> 12) & 0x0F));
+                buf.writeByte(0x80 | ((c >> 6) & 0x3F));
+                buf.writeByte(0x80 | (c & 0x3F));
+            } else {
+                buf.writeByte(0xC0 | ((c >> 6) & 0x1F));
+                buf.writeByte(0x80 | (c & 0x3F));
+            }
+        }
+    }
+}
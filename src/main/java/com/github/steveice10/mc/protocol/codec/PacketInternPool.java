@@ -0,0 +1,128 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.mc.protocol.data.game.TagTable;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundCommandsPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundUpdateRecipesPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundUpdateTagsPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Deduplicates large packets which are identical for every session on a server, such as recipes,
+ * tags and commands.
+ * <p>
+ * Packets are keyed by their encoded body, so each distinct payload is decoded once and every
+ * session receiving the same bytes gets the same instance. Before being shared, a packet may be
+ * converted into an immutable form; tags are stored as {@link TagTable}s. Shared packets must not
+ * be modified. Packet types must be {@link #register registered} before the pool is set on a
+ * {@link MinecraftCodecHelper}.
+ */
+public class PacketInternPool {
+    private static final int DEFAULT_MAXIMUM_SIZE = 16;
+
+    private final Map<Class<?>, Pool<?>> pools = new IdentityHashMap<>();
+    private final int maximumSize;
+
+    /**
+     * Creates a pool interning {@link ClientboundUpdateRecipesPacket}, {@link ClientboundUpdateTagsPacket}
+     * and {@link ClientboundCommandsPacket}.
+     */
+    public PacketInternPool() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Creates a pool interning the default packets, holding at most {@code maximumSize} distinct
+     * payloads of each packet type.
+     *
+     * @param maximumSize the maximum number of payloads per packet type
+     */
+    public PacketInternPool(int maximumSize) {
+        this.maximumSize = maximumSize;
+        this.register(ClientboundUpdateRecipesPacket.class, UnaryOperator.identity());
+        this.register(ClientboundUpdateTagsPacket.class, PacketInternPool::freezeTags);
+        this.register(ClientboundCommandsPacket.class, UnaryOperator.identity());
+    }
+
+    private static ClientboundUpdateTagsPacket freezeTags(ClientboundUpdateTagsPacket packet) {
+        Map<String, Map<String, int[]>> tags = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, int[]>> entry : packet.getTags().entrySet()) {
+            tags.put(entry.getKey(), TagTable.of(entry.getValue()));
+        }
+
+        return new ClientboundUpdateTagsPacket(Collections.unmodifiableMap(tags));
+    }
+
+    /**
+     * Interns another packet type. Registration is not thread-safe and must happen before the pool
+     * is used by sessions.
+     *
+     * @param packetClass the packet type
+     * @param freezer     converts a freshly decoded packet into the instance that is shared
+     */
+    public <T extends MinecraftPacket> void register(Class<T> packetClass, UnaryOperator<T> freezer) {
+        this.pools.put(packetClass, new Pool<>(new LruCache<>(this.maximumSize, 1), freezer));
+    }
+
+    public boolean isInterned(Class<?> packetClass) {
+        return this.pools.containsKey(packetClass);
+    }
+
+    /**
+     * Reads the rest of a packet body, reusing a previously decoded packet with the same bytes.
+     *
+     * @param buf         the packet body
+     * @param packetClass the packet type, which must have been registered
+     * @param factory     the factory used to decode packets that are not yet interned
+     * @param helper      the codec helper to decode with
+     * @return the shared packet
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends MinecraftPacket> T read(ByteBuf buf, Class<T> packetClass, PacketFactory<T, MinecraftCodecHelper> factory, MinecraftCodecHelper helper) throws IOException {
+        Pool<T> pool = (Pool<T>) this.pools.get(packetClass);
+        if (pool == null) {
+            throw new IllegalArgumentException("Packet " + packetClass.getName() + " is not interned.");
+        }
+
+        ByteBuf key = buf.readSlice(buf.readableBytes());
+        T packet = pool.cache.get(key);
+        if (packet == null) {
+            packet = pool.freezer.apply(factory.construct(key.duplicate(), helper));
+            pool.cache.put(Unpooled.copiedBuffer(key), packet);
+        }
+
+        return packet;
+    }
+
+    /**
+     * Gets the cache holding the interned packets of a type, keyed by their encoded body.
+     *
+     * @param packetClass the packet type
+     * @return the cache, or null if the type is not interned
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends MinecraftPacket> LruCache<ByteBuf, T> getCache(Class<T> packetClass) {
+        Pool<T> pool = (Pool<T>) this.pools.get(packetClass);
+        return pool != null ? pool.cache : null;
+    }
+
+    public void clear() {
+        for (Pool<?> pool : this.pools.values()) {
+            pool.cache.clear();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Pool<T> {
+        private final LruCache<ByteBuf, T> cache;
+        private final UnaryOperator<T> freezer;
+    }
+}
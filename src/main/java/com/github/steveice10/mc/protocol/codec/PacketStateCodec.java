@@ -5,6 +5,7 @@ import com.github.steveice10.packetlib.Server;
 import com.github.steveice10.packetlib.Session;
 import com.github.steveice10.packetlib.codec.PacketCodecHelper;
 import com.github.steveice10.packetlib.codec.PacketDefinition;
+import com.github.steveice10.packetlib.packet.Packet;
 import com.github.steveice10.packetlib.packet.PacketHeader;
 import com.github.steveice10.packetlib.packet.PacketProtocol;
 
@@ -32,6 +33,28 @@ public class PacketStateCodec extends PacketProtocol {
         throw new UnsupportedOperationException("Not supported!");
     }
 
+    @Override
+    public int getClientboundId(Packet packet) {
+        if (packet instanceof LazyPacket) {
+            return this.getClientboundId(((LazyPacket<?>) packet).getPacketClass());
+        } else if (packet instanceof PreparedPacket) {
+            return this.getClientboundId(((PreparedPacket<?>) packet).getPacketClass());
+        }
+
+        return super.getClientboundId(packet);
+    }
+
+    @Override
+    public int getServerboundId(Packet packet) {
+        if (packet instanceof LazyPacket) {
+            return this.getServerboundId(((LazyPacket<?>) packet).getPacketClass());
+        } else if (packet instanceof PreparedPacket) {
+            return this.getServerboundId(((PreparedPacket<?>) packet).getPacketClass());
+        }
+
+        return super.getServerboundId(packet);
+    }
+
     @Override
     public void newClientSession(Session session) {
         throw new UnsupportedOperationException("Not supported!");
@@ -0,0 +1,190 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.mc.protocol.data.ProtocolState;
+import com.github.steveice10.packetlib.Session;
+import com.github.steveice10.packetlib.event.session.PacketSendingEvent;
+import com.github.steveice10.packetlib.event.session.SessionAdapter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.AbstractReferenceCounted;
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * A packet which has been serialized once, so it can be sent to many sessions without being
+ * serialized again for each of them.
+ * <p>
+ * Sending a prepared packet copies its encoded body into the outgoing buffer. The packet is tagged
+ * with the protocol version and state it was encoded for, and sessions in any other version or state
+ * refuse to send it. Channels release outgoing packets once they are written, so each send must be
+ * paired with a {@link #retain()}; {@link #send(Session)} does this, and releases the reference again
+ * if the packet never reaches the channel. The creator still owns one reference and must
+ * {@link #release()} it once the packet is no longer needed.
+ *
+ * @param <T> the packet type
+ */
+public class PreparedPacket<T extends MinecraftPacket> extends AbstractReferenceCounted implements MinecraftPacket {
+    /**
+     * The packet that was serialized.
+     */
+    @Getter
+    private final T packet;
+    @Getter
+    private final int protocolVersion;
+    @Getter
+    private final ProtocolState state;
+    private final ByteBuf encoded;
+
+    private PreparedPacket(T packet, int protocolVersion, ProtocolState state, ByteBuf encoded) {
+        this.packet = packet;
+        this.protocolVersion = protocolVersion;
+        this.state = state;
+        this.encoded = encoded;
+    }
+
+    /**
+     * Serializes a packet for sending to sessions in the given state.
+     *
+     * @param codec  the codec the receiving sessions use
+     * @param state  the state the receiving sessions are in
+     * @param packet the packet to serialize
+     * @return the prepared packet
+     */
+    public static <T extends MinecraftPacket> PreparedPacket<T> prepare(PacketCodec codec, ProtocolState state, T packet) throws IOException {
+        ByteBuf encoded = Unpooled.buffer();
+        try {
+            packet.serialize(encoded, codec.getHelperFactory().get());
+        } catch (IOException | RuntimeException e) {
+            encoded.release();
+            throw e;
+        }
+
+        return new PreparedPacket<>(packet, codec.getProtocolVersion(), state, encoded);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Class<T> getPacketClass() {
+        return (Class<T>) this.packet.getClass();
+    }
+
+    /**
+     * Gets the size of the encoded body, without the packet id.
+     *
+     * @return the encoded size in bytes
+     */
+    public int getEncodedSize() {
+        return this.encoded.readableBytes();
+    }
+
+    /**
+     * Sends this packet to each of the given sessions, retaining it once per session.
+     *
+     * @param sessions the sessions to send to
+     * @see #send(Session)
+     */
+    public void send(Iterable<? extends Session> sessions) {
+        for (Session session : sessions) {
+            this.send(session);
+        }
+    }
+
+    /**
+     * Sends this packet to a session, retaining it for the channel to release once written.
+     * <p>
+     * The session only hands the packet to its channel if it is connected and no listener cancels
+     * the send or replaces the packet. In any other case the reference is released again here.
+     *
+     * @param session the session to send to
+     */
+    public void send(Session session) {
+        if (!session.isConnected()) {
+            return;
+        }
+
+        SendTracker.install(session);
+        Send send = new Send(session, this);
+        Send outer = SendTracker.CURRENT.get();
+        SendTracker.CURRENT.set(send);
+        this.retain();
+        try {
+            session.send(this);
+        } finally {
+            SendTracker.CURRENT.set(outer);
+            // Every listener has run once send returns, so the event holds the final outcome.
+            PacketSendingEvent event = send.event;
+            if (event == null || event.isCancelled() || event.getPacket() != this) {
+                this.release();
+            }
+        }
+    }
+
+    @Override
+    public void serialize(ByteBuf buf, MinecraftCodecHelper helper) {
+        // Absolute reads leave the shared buffer untouched, so sessions can copy it concurrently.
+        buf.writeBytes(this.encoded, this.encoded.readerIndex(), this.encoded.readableBytes());
+    }
+
+    @Override
+    public boolean isPriority() {
+        return this.packet.isPriority();
+    }
+
+    @Override
+    protected void deallocate() {
+        this.encoded.release();
+    }
+
+    @Override
+    public PreparedPacket<T> touch(Object hint) {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "PreparedPacket(" + this.packet + ")";
+    }
+
+    private static final class Send {
+        private final Session session;
+        private final PreparedPacket<?> packet;
+        private PacketSendingEvent event;
+
+        private Send(Session session, PreparedPacket<?> packet) {
+            this.session = session;
+            this.packet = packet;
+        }
+    }
+
+    /**
+     * Records the sending event of the prepared packet being sent on the current thread. One tracker
+     * is added to each session the first time a prepared packet is sent to it, so sends do not
+     * change the session's listeners.
+     */
+    private static final class SendTracker extends SessionAdapter {
+        private static final String KEY = "prepared-packet-tracker";
+        /**
+         * The innermost send on this thread. A listener may send other packets while one is being
+         * sent, so each send saves and restores the outer one.
+         */
+        private static final ThreadLocal<Send> CURRENT = new ThreadLocal<>();
+
+        private static void install(Session session) {
+            // Session flags are not thread safe, so even the check is made under the lock.
+            synchronized (session) {
+                if (!session.hasFlag(KEY)) {
+                    session.addListener(new SendTracker());
+                    session.setFlag(KEY, Boolean.TRUE);
+                }
+            }
+        }
+
+        @Override
+        public void packetSending(PacketSendingEvent event) {
+            Send send = CURRENT.get();
+            if (send != null && send.event == null && send.session == event.getSession() && send.packet == event.getPacket()) {
+                send.event = event;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import lombok.Getter;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+
+/**
+ * Shares decoded RSA public keys between sessions.
+ * <p>
+ * Every player's chat session key is sent to every client in the player info packets, so on a
+ * large network each session would otherwise decode the same keys again. Keys are cached by their
+ * X.509 encoding. Decoding goes through a {@link KeyFactory} per thread, so sessions on different
+ * event loops do not contend on a shared factory.
+ */
+public class PublicKeyCache {
+    private static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+    private static final ThreadLocal<KeyFactory> KEY_FACTORIES = ThreadLocal.withInitial(() -> {
+        try {
+            return KeyFactory.getInstance("RSA");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Missing RSA support.", e);
+        }
+    });
+
+    /**
+     * Keys by their encoding.
+     */
+    @Getter
+    private final LruCache<ByteBuf, PublicKey> cache;
+
+    public PublicKeyCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Creates a cache holding at most {@code maximumSize} keys.
+     *
+     * @param maximumSize the maximum number of keys
+     */
+    public PublicKeyCache(int maximumSize) {
+        this.cache = new LruCache<>(maximumSize);
+    }
+
+    /**
+     * Decodes a key, reusing a previously decoded key with the same encoding.
+     *
+     * @param encoded the X.509 encoded key, which must not be modified afterwards
+     * @return the key
+     * @throws GeneralSecurityException if the key is invalid
+     */
+    public PublicKey decode(byte[] encoded) throws GeneralSecurityException {
+        ByteBuf key = Unpooled.wrappedBuffer(encoded);
+        PublicKey publicKey = this.cache.get(key);
+        if (publicKey == null) {
+            publicKey = decodeKey(encoded);
+            this.cache.put(key, publicKey);
+        }
+
+        return publicKey;
+    }
+
+    /**
+     * Decodes a key without caching it, using a {@link KeyFactory} kept per thread.
+     *
+     * @param encoded the X.509 encoded key
+     * @return the key
+     * @throws GeneralSecurityException if the key is invalid
+     */
+    public static PublicKey decodeKey(byte[] encoded) throws GeneralSecurityException {
+        return KEY_FACTORIES.get().generatePublic(new X509EncodedKeySpec(encoded));
+    }
+
+    public void clear() {
+        this.cache.clear();
+    }
+}
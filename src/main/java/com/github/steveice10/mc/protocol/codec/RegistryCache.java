@@ -0,0 +1,102 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.mc.protocol.data.game.registry.GameRegistry;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.Tag;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * Deduplicates the registry sent in the login packet between sessions.
+ * <p>
+ * Registries are keyed by their encoded bytes, so sessions connected to the same server decode
+ * its registry tag once. The {@link GameRegistry} view of a cached tag is only built when a
+ * session first asks for it, and is then shared as well. Shared registries must not be modified.
+ */
+public class RegistryCache {
+    private static final int DEFAULT_MAXIMUM_SIZE = 16;
+
+    /**
+     * Registries by their encoded tag.
+     */
+    @Getter
+    private final LruCache<ByteBuf, CachedRegistry> cache;
+
+    public RegistryCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * Creates a cache holding at most {@code maximumSize} distinct registries.
+     *
+     * @param maximumSize the maximum number of registries
+     */
+    public RegistryCache(int maximumSize) {
+        this.cache = new LruCache<>(maximumSize, 1);
+    }
+
+    /**
+     * Reads a registry tag, reusing a previously decoded registry with the same bytes.
+     *
+     * @param buf the input buffer
+     * @return the registry
+     */
+    public CachedRegistry read(ByteBuf buf) throws IOException {
+        int start = buf.readerIndex();
+        NBTCodec.skipTag(buf, false);
+
+        ByteBuf key = buf.slice(start, buf.readerIndex() - start);
+        CachedRegistry registry = this.cache.get(key);
+        if (registry == null) {
+            Tag tag = NBTCodec.readTag(key.duplicate(), false);
+            if (!(tag instanceof CompoundTag)) {
+                throw new IOException("Expected registry of type " + CompoundTag.class.getName() + " but got " + (tag != null ? tag.getClass().getName() : "null"));
+            }
+
+            registry = new CachedRegistry((CompoundTag) tag);
+            this.cache.put(Unpooled.copiedBuffer(key), registry);
+        }
+
+        return registry;
+    }
+
+    public void clear() {
+        this.cache.clear();
+    }
+
+    /**
+     * A registry tag held by the cache, with its view.
+     */
+    public static final class CachedRegistry {
+        @Getter
+        private final CompoundTag tag;
+        private volatile GameRegistry view;
+
+        private CachedRegistry(CompoundTag tag) {
+            this.tag = tag;
+        }
+
+        /**
+         * Gets the indexed view of the tag, building it on first access.
+         *
+         * @return the registry view
+         * @throws IOException if the registry is malformed
+         */
+        public GameRegistry getView() throws IOException {
+            GameRegistry view = this.view;
+            if (view == null) {
+                synchronized (this) {
+                    view = this.view;
+                    if (view == null) {
+                        this.view = view = new GameRegistry(this.tag);
+                    }
+                }
+            }
+
+            return view;
+        }
+    }
+}
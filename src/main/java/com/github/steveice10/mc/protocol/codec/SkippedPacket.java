@@ -0,0 +1,24 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.packetlib.packet.Packet;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Placeholder for a received packet whose body was skipped by a
+ * {@link com.github.steveice10.mc.protocol.MinecraftProtocol} packet filter.
+ * <p>
+ * The transport still expects a packet for every frame it reads, so this shared instance is
+ * passed on in place of the filtered packet. A
+ * {@link com.github.steveice10.mc.protocol.MinecraftClientSession} drops it before dispatching to
+ * listeners. It carries no data and cannot be sent.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class SkippedPacket implements Packet {
+    public static final SkippedPacket INSTANCE = new SkippedPacket();
+
+    @Override
+    public String toString() {
+        return "SkippedPacket";
+    }
+}
@@ -0,0 +1,296 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Batched VarInt and VarLong codecs used by {@link MinecraftCodecHelper}.
+ * <p>
+ * Arrays in heap buffers are decoded and encoded straight from the backing array, so buffer
+ * indices and bounds are only checked once per array rather than once per byte. Other buffers
+ * fall back to the unrolled single value codecs. Writes compute the exact encoded size first, so
+ * the buffer is grown at most once.
+ */
+final class VarInts {
+    private static final int MAX_VAR_INT_SIZE = 5;
+    private static final int MAX_VAR_LONG_SIZE = 10;
+
+    private VarInts() {
+    }
+
+    static int getVarIntSize(int value) {
+        // ceil(bits / 7) without a division, and 1 for zero.
+        return (9 * (32 - Integer.numberOfLeadingZeros(value)) + 64) >>> 6;
+    }
+
+    static int getVarLongSize(long value) {
+        return (9 * (64 - Long.numberOfLeadingZeros(value)) + 64) >>> 6;
+    }
+
+    private static IllegalArgumentException varIntTooLong() {
+        return new IllegalArgumentException("VarInt too long (length must be <= 5)");
+    }
+
+    private static IllegalArgumentException varLongTooLong() {
+        return new IllegalArgumentException("VarLong too long (length must be <= 10)");
+    }
+
+    private static IndexOutOfBoundsException truncated(ByteBuf buf) {
+        return new IndexOutOfBoundsException("Truncated VarInt array, readable bytes: " + buf.readableBytes());
+    }
+
+    static void readVarInts(ByteBuf buf, int[] dest, int offset, int length) {
+        checkRange(dest.length, offset, length);
+        if (!buf.hasArray()) {
+            for (int i = offset, end = offset + length; i < end; i++) {
+                dest[i] = readVarInt(buf);
+            }
+
+            return;
+        }
+
+        byte[] array = buf.array();
+        int base = buf.arrayOffset();
+        int position = base + buf.readerIndex();
+        int limit = base + buf.writerIndex();
+        for (int i = offset, end = offset + length; i < end; i++) {
+            if (limit - position >= MAX_VAR_INT_SIZE) {
+                int b = array[position++];
+                if (b >= 0) {
+                    dest[i] = b;
+                    continue;
+                }
+
+                int value = b & 0x7F;
+                b = array[position++];
+                if (b >= 0) {
+                    dest[i] = value | b << 7;
+                    continue;
+                }
+
+                value |= (b & 0x7F) << 7;
+                b = array[position++];
+                if (b >= 0) {
+                    dest[i] = value | b << 14;
+                    continue;
+                }
+
+                value |= (b & 0x7F) << 14;
+                b = array[position++];
+                if (b >= 0) {
+                    dest[i] = value | b << 21;
+                    continue;
+                }
+
+                value |= (b & 0x7F) << 21;
+                b = array[position++];
+                if (b < 0) {
+                    throw varIntTooLong();
+                }
+
+                dest[i] = value | b << 28;
+            } else {
+                int value = 0;
+                int shift = 0;
+                int b;
+                do {
+                    if (position >= limit) {
+                        throw truncated(buf);
+                    }
+
+                    b = array[position++];
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0 && shift < MAX_VAR_INT_SIZE * 7);
+
+                if (b < 0) {
+                    throw varIntTooLong();
+                }
+
+                dest[i] = value;
+            }
+        }
+
+        buf.readerIndex(position - base);
+    }
+
+    static int readVarInt(ByteBuf buf) {
+        int b = buf.readByte();
+        if (b >= 0) {
+            return b;
+        }
+
+        int value = b & 0x7F;
+        b = buf.readByte();
+        if (b >= 0) {
+            return value | b << 7;
+        }
+
+        value |= (b & 0x7F) << 7;
+        b = buf.readByte();
+        if (b >= 0) {
+            return value | b << 14;
+        }
+
+        value |= (b & 0x7F) << 14;
+        b = buf.readByte();
+        if (b >= 0) {
+            return value | b << 21;
+        }
+
+        value |= (b & 0x7F) << 21;
+        b = buf.readByte();
+        if (b < 0) {
+            throw varIntTooLong();
+        }
+
+        return value | b << 28;
+    }
+
+    static void readVarLongs(ByteBuf buf, long[] dest, int offset, int length) {
+        checkRange(dest.length, offset, length);
+        if (!buf.hasArray()) {
+            for (int i = 0; i < length; i++) {
+                dest[offset + i] = readVarLong(buf);
+            }
+
+            return;
+        }
+
+        byte[] array = buf.array();
+        int base = buf.arrayOffset();
+        int position = base + buf.readerIndex();
+        int limit = base + buf.writerIndex();
+        for (int i = offset, end = offset + length; i < end; i++) {
+            boolean checked = limit - position < MAX_VAR_LONG_SIZE;
+            long value = 0;
+            int shift = 0;
+            int b;
+            do {
+                if (checked && position >= limit) {
+                    throw truncated(buf);
+                }
+
+                b = array[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0 && shift < MAX_VAR_LONG_SIZE * 7);
+
+            if (b < 0) {
+                throw varLongTooLong();
+            }
+
+            dest[i] = value;
+        }
+
+        buf.readerIndex(position - base);
+    }
+
+    static long readVarLong(ByteBuf buf) {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = buf.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0 && shift < MAX_VAR_LONG_SIZE * 7);
+
+        if (b < 0) {
+            throw varLongTooLong();
+        }
+
+        return value;
+    }
+
+    static void writeVarInt(ByteBuf buf, int value) {
+        // Emit whole values with one write of the matching width.
+        if ((value & 0xFFFFFF80) == 0) {
+            buf.writeByte(value);
+        } else if ((value & 0xFFFFC000) == 0) {
+            buf.writeShort((value & 0x7F | 0x80) << 8 | value >>> 7);
+        } else if ((value & 0xFFE00000) == 0) {
+            buf.writeMedium((value & 0x7F | 0x80) << 16 | (value >>> 7 & 0x7F | 0x80) << 8 | value >>> 14);
+        } else if ((value & 0xF0000000) == 0) {
+            buf.writeInt((value & 0x7F | 0x80) << 24 | (value >>> 7 & 0x7F | 0x80) << 16 | (value >>> 14 & 0x7F | 0x80) << 8 | value >>> 21);
+        } else {
+            buf.writeInt((value & 0x7F | 0x80) << 24 | (value >>> 7 & 0x7F | 0x80) << 16 | (value >>> 14 & 0x7F | 0x80) << 8 | (value >>> 21 & 0x7F | 0x80));
+            buf.writeByte(value >>> 28);
+        }
+    }
+
+    static void writeVarInts(ByteBuf buf, int[] values, int offset, int length) {
+        checkRange(values.length, offset, length);
+        int size = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            size += getVarIntSize(values[i]);
+        }
+
+        buf.ensureWritable(size);
+        if (!buf.hasArray()) {
+            for (int i = offset, end = offset + length; i < end; i++) {
+                writeVarInt(buf, values[i]);
+            }
+
+            return;
+        }
+
+        byte[] array = buf.array();
+        int index = buf.writerIndex();
+        int position = buf.arrayOffset() + index;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int value = values[i];
+            while ((value & 0xFFFFFF80) != 0) {
+                array[position++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+
+            array[position++] = (byte) value;
+        }
+
+        buf.writerIndex(index + size);
+    }
+
+    static void writeVarLongs(ByteBuf buf, long[] values, int offset, int length) {
+        checkRange(values.length, offset, length);
+        int size = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            size += getVarLongSize(values[i]);
+        }
+
+        buf.ensureWritable(size);
+        if (!buf.hasArray()) {
+            for (int i = offset, end = offset + length; i < end; i++) {
+                long value = values[i];
+                while ((value & 0xFFFFFFFFFFFFFF80L) != 0) {
+                    buf.writeByte((int) (value & 0x7F | 0x80));
+                    value >>>= 7;
+                }
+
+                buf.writeByte((int) value);
+            }
+
+            return;
+        }
+
+        byte[] array = buf.array();
+        int index = buf.writerIndex();
+        int position = buf.arrayOffset() + index;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            long value = values[i];
+            while ((value & 0xFFFFFFFFFFFFFF80L) != 0) {
+                array[position++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+
+            array[position++] = (byte) value;
+        }
+
+        buf.writerIndex(index + size);
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + ", array length: " + arrayLength);
+        }
+    }
+}
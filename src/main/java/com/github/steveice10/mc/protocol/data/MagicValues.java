@@ -69,12 +69,23 @@ import com.github.steveice10.mc.protocol.data.game.setting.Difficulty;
 import com.github.steveice10.mc.protocol.data.handshake.HandshakeIntent;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps protocol enums to and from their wire values.
+ * <p>
+ * Mappings are compiled at class initialization into one table per enum class: forward values are
+ * indexed by ordinal, and integer values map back to keys through an array offset by the smallest
+ * registered value, so lookups on hot decode paths are constant time and allocation free.
+ */
 public class MagicValues {
-    private static final Map<Object, List<Object>> VALUES = new HashMap<>();
+    private static final Map<Class<?>, MappingTable> TABLES = new HashMap<>();
+    private static final Map<Class<?>, MappingTable[]> ASSIGNABLE_TABLES = new ConcurrentHashMap<>();
 
     static {
         register(HandshakeIntent.STATUS, 1);
@@ -538,29 +549,55 @@ public class MagicValues {
     private MagicValues() {
     }
 
-    private static void register(Enum<?> key, Object value) {
-        VALUES.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+    private static void register(Enum<?> key, int value) {
+        TABLES.computeIfAbsent(key.getDeclaringClass(), MappingTable::new).register(key, value);
+    }
+
+    private static void register(Enum<?> key, String value) {
+        TABLES.computeIfAbsent(key.getDeclaringClass(), MappingTable::new).register(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T key(Class<T> keyType, int value) {
+        MappingTable table = TABLES.get(keyType);
+        if (table != null) {
+            Enum<?> key = table.keyByInt(value);
+            if (key != null) {
+                return (T) key;
+            }
+        } else {
+            for (MappingTable assignable : getAssignableTables(keyType)) {
+                Enum<?> key = assignable.keyByInt(value);
+                if (key != null) {
+                    return (T) key;
+                }
+            }
+        }
+
+        throw new UnmappedValueException(value, keyType);
     }
 
     @SuppressWarnings("unchecked")
     public static <T> T key(Class<T> keyType, Object value) {
-        for (Map.Entry<Object, List<Object>> entry : VALUES.entrySet()) {
-            if (keyType.isAssignableFrom(entry.getKey().getClass())) {
-                for (Object val : entry.getValue()) {
-                    if (val == value || val.equals(value)) {
-                        return (T) entry.getKey();
-                    } else if (Number.class.isAssignableFrom(val.getClass()) && Number.class.isAssignableFrom(value.getClass())) {
-                        Number num = (Number) val;
-                        Number num2 = (Number) value;
-                        if (num.doubleValue() == num2.doubleValue()) {
-                            return (T) entry.getKey();
-                        }
-                    } else if (String.class.isAssignableFrom(val.getClass()) && String.class.isAssignableFrom(value.getClass())) {
-                        String str = (String) val;
-                        String str2 = (String) value;
-                        if (str.equalsIgnoreCase(str2)) {
-                            return (T) entry.getKey();
-                        }
+        if (value instanceof Integer) {
+            return key(keyType, ((Integer) value).intValue());
+        } else if (value instanceof Number) {
+            double number = ((Number) value).doubleValue();
+            if (number == (int) number) {
+                return key(keyType, (int) number);
+            }
+        } else if (value instanceof String) {
+            MappingTable table = TABLES.get(keyType);
+            if (table != null) {
+                Enum<?> key = table.keyByString((String) value);
+                if (key != null) {
+                    return (T) key;
+                }
+            } else {
+                for (MappingTable assignable : getAssignableTables(keyType)) {
+                    Enum<?> key = assignable.keyByString((String) value);
+                    if (key != null) {
+                        return (T) key;
                     }
                 }
             }
@@ -571,29 +608,125 @@ public class MagicValues {
 
     @SuppressWarnings("unchecked")
     public static <T> T value(Class<T> valueType, Object key) {
-        List<Object> values = VALUES.get(key);
-        if (values != null) {
-            for (Object val : values) {
-                if (valueType.isAssignableFrom(val.getClass())) {
-                    return (T) val;
-                } else if (Number.class.isAssignableFrom(val.getClass())) {
-                    if (valueType == Byte.class) {
-                        return (T) (Object) ((Number) val).byteValue();
-                    } else if (valueType == Short.class) {
-                        return (T) (Object) ((Number) val).shortValue();
-                    } else if (valueType == Integer.class) {
-                        return (T) (Object) ((Number) val).intValue();
-                    } else if (valueType == Long.class) {
-                        return (T) (Object) ((Number) val).longValue();
-                    } else if (valueType == Float.class) {
-                        return (T) (Object) ((Number) val).floatValue();
-                    } else if (valueType == Double.class) {
-                        return (T) (Object) ((Number) val).doubleValue();
-                    }
+        if (key instanceof Enum) {
+            Enum<?> enumKey = (Enum<?>) key;
+            MappingTable table = TABLES.get(enumKey.getDeclaringClass());
+            if (table != null) {
+                Object value = table.value(valueType, enumKey.ordinal());
+                if (value != null) {
+                    return (T) value;
                 }
             }
         }
 
         throw new UnmappedKeyException(key, valueType);
     }
+
+    /**
+     * Resolves lookups made through a supertype of the mapped enums, such as an interface they implement.
+     */
+    private static MappingTable[] getAssignableTables(Class<?> keyType) {
+        return ASSIGNABLE_TABLES.computeIfAbsent(keyType, type -> {
+            List<MappingTable> tables = new ArrayList<>();
+            for (Map.Entry<Class<?>, MappingTable> entry : TABLES.entrySet()) {
+                if (type.isAssignableFrom(entry.getKey())) {
+                    tables.add(entry.getValue());
+                }
+            }
+
+            return tables.toArray(new MappingTable[0]);
+        });
+    }
+
+    private static class MappingTable {
+        private final int[] intValues;
+        private final boolean[] hasIntValue;
+        private final String[] stringValues;
+        private final Map<String, Enum<?>> keysByString = new HashMap<>();
+        private Enum<?>[] keysByInt = new Enum<?>[0];
+        private int minIntValue;
+
+        private MappingTable(Class<?> enumClass) {
+            int size = enumClass.getEnumConstants().length;
+            this.intValues = new int[size];
+            this.hasIntValue = new boolean[size];
+            this.stringValues = new String[size];
+        }
+
+        private void register(Enum<?> key, int value) {
+            if (!this.hasIntValue[key.ordinal()]) {
+                this.intValues[key.ordinal()] = value;
+                this.hasIntValue[key.ordinal()] = true;
+            }
+
+            if (this.keysByInt.length == 0) {
+                this.minIntValue = value;
+                this.keysByInt = new Enum<?>[1];
+            } else if (value < this.minIntValue) {
+                Enum<?>[] keysByInt = new Enum<?>[this.keysByInt.length + this.minIntValue - value];
+                System.arraycopy(this.keysByInt, 0, keysByInt, this.minIntValue - value, this.keysByInt.length);
+                this.keysByInt = keysByInt;
+                this.minIntValue = value;
+            } else if (value - this.minIntValue >= this.keysByInt.length) {
+                this.keysByInt = Arrays.copyOf(this.keysByInt, value - this.minIntValue + 1);
+            }
+
+            if (this.keysByInt[value - this.minIntValue] == null) {
+                this.keysByInt[value - this.minIntValue] = key;
+            }
+        }
+
+        private void register(Enum<?> key, String value) {
+            if (this.stringValues[key.ordinal()] == null) {
+                this.stringValues[key.ordinal()] = value;
+            }
+
+            this.keysByString.putIfAbsent(value.toLowerCase(Locale.ROOT), key);
+        }
+
+        private Enum<?> keyByInt(int value) {
+            int index = value - this.minIntValue;
+            if (index < 0 || index >= this.keysByInt.length) {
+                return null;
+            }
+
+            return this.keysByInt[index];
+        }
+
+        private Enum<?> keyByString(String value) {
+            // Wire values are almost always lower case already, so try them as-is before folding case.
+            Enum<?> key = this.keysByString.get(value);
+            if (key == null) {
+                key = this.keysByString.get(value.toLowerCase(Locale.ROOT));
+            }
+
+            return key;
+        }
+
+        private Object value(Class<?> valueType, int ordinal) {
+            if (this.hasIntValue[ordinal]) {
+                int value = this.intValues[ordinal];
+                if (valueType == Integer.class || valueType.isAssignableFrom(Integer.class)) {
+                    return value;
+                } else if (valueType == Byte.class) {
+                    return (byte) value;
+                } else if (valueType == Short.class) {
+                    return (short) value;
+                } else if (valueType == Long.class) {
+                    return (long) value;
+                } else if (valueType == Float.class) {
+                    return (float) value;
+                } else if (valueType == Double.class) {
+                    return (double) value;
+                }
+            }
+
+            String value = this.stringValues[ordinal];
+            if (value != null && valueType.isAssignableFrom(String.class)) {
+                return value;
+            }
+
+            return null;
+        }
+    }
 }
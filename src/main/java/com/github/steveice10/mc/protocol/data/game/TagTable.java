@@ -0,0 +1,178 @@
+package com.github.steveice10.mc.protocol.data.game;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map of tag names to the ids they contain, as sent for one registry in
+ * {@link com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundUpdateTagsPacket}.
+ * <p>
+ * Names are kept sorted in a single array, with an open-addressing index of their positions for
+ * lookups. Tables are shared between sessions when tags are interned, so the returned id arrays
+ * must not be modified.
+ */
+public final class TagTable extends AbstractMap<String, int[]> {
+    private final String[] names;
+    private final int[][] ids;
+    /**
+     * Positions of the names plus one, indexed by name hash, where 0 marks an empty slot.
+     */
+    private final int[] index;
+    private final int mask;
+
+    private Set<Map.Entry<String, int[]>> entrySet;
+
+    private TagTable(String[] names, int[][] ids) {
+        this.names = names;
+        this.ids = ids;
+
+        int capacity = Integer.highestOneBit(Math.max(names.length * 2 - 1, 1)) * 2;
+        this.index = new int[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < names.length; i++) {
+            int slot = mix(names[i].hashCode()) & this.mask;
+            while (this.index[slot] != 0) {
+                slot = (slot + 1) & this.mask;
+            }
+
+            this.index[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Creates a table holding the entries of a map.
+     *
+     * @param tags the tags to copy
+     * @return the table
+     */
+    public static TagTable of(Map<String, int[]> tags) {
+        if (tags instanceof TagTable) {
+            return (TagTable) tags;
+        }
+
+        String[] names = tags.keySet().toArray(new String[0]);
+        Arrays.sort(names);
+        int[][] ids = new int[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            ids[i] = tags.get(names[i]);
+        }
+
+        return new TagTable(names, ids);
+    }
+
+    private static int mix(int hash) {
+        int mixed = hash * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+
+    /**
+     * Finds the position of a tag in the sorted order of names.
+     *
+     * @param name the tag name
+     * @return the position, or -1 if the tag is not present
+     */
+    public int indexOf(String name) {
+        int slot = mix(name.hashCode()) & this.mask;
+        int position;
+        while ((position = this.index[slot]) != 0) {
+            if (this.names[position - 1].equals(name)) {
+                return position - 1;
+            }
+
+            slot = (slot + 1) & this.mask;
+        }
+
+        return -1;
+    }
+
+    public String getName(int position) {
+        return this.names[position];
+    }
+
+    public int[] getIds(int position) {
+        return this.ids[position];
+    }
+
+    /**
+     * Checks whether a tag contains an id.
+     *
+     * @param name the tag name
+     * @param id   the id to look for
+     * @return whether the tag exists and contains the id
+     */
+    public boolean contains(String name, int id) {
+        int position = this.indexOf(name);
+        if (position < 0) {
+            return false;
+        }
+
+        for (int value : this.ids[position]) {
+            if (value == id) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return this.names.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && this.indexOf((String) key) >= 0;
+    }
+
+    @Override
+    public int[] get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+
+        int position = this.indexOf((String) key);
+        return position >= 0 ? this.ids[position] : null;
+    }
+
+    @Override
+    public Set<Map.Entry<String, int[]>> entrySet() {
+        if (this.entrySet == null) {
+            this.entrySet = new AbstractSet<Map.Entry<String, int[]>>() {
+                @Override
+                public Iterator<Map.Entry<String, int[]>> iterator() {
+                    return new Iterator<Map.Entry<String, int[]>>() {
+                        private int position;
+
+                        @Override
+                        public boolean hasNext() {
+                            return this.position < names.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, int[]> next() {
+                            if (!this.hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+
+                            int position = this.position++;
+                            return new SimpleImmutableEntry<>(names[position], ids[position]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return names.length;
+                }
+            };
+        }
+
+        return this.entrySet;
+    }
+}
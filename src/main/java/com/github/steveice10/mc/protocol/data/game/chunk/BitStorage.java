@@ -103,21 +103,237 @@ public class BitStorage {
 
     public int[] toIntArray() {
         int[] result = new int[this.size];
+        this.toIntArray(result);
+        return result;
+    }
+
+    /**
+     * Unpacks every entry into the given array.
+     *
+     * @param out the destination, which must hold at least {@link #getSize()} entries
+     */
+    public void toIntArray(int @NonNull[] out) {
+        checkLength(out.length);
+
+        long[] data = this.data;
+        int bitsPerEntry = this.bitsPerEntry;
+        int valuesPerLong = this.valuesPerLong;
+        long maxValue = this.maxValue;
+        int fullCells = this.size / valuesPerLong;
+        int index = 0;
+        for (int cellIndex = 0; cellIndex < fullCells; cellIndex++) {
+            long cell = data[cellIndex];
+            for (int i = 0; i < valuesPerLong; i++) {
+                out[index++] = (int) (cell & maxValue);
+                cell >>>= bitsPerEntry;
+            }
+        }
+
+        if (index < this.size) {
+            long cell = data[fullCells];
+            for (; index < this.size; index++) {
+                out[index] = (int) (cell & maxValue);
+                cell >>>= bitsPerEntry;
+            }
+        }
+    }
+
+    /**
+     * Unpacks every entry into the given array. Only storages of up to 16 bits per entry can be unpacked this way;
+     * entries should be read back as unsigned values.
+     *
+     * @param out the destination, which must hold at least {@link #getSize()} entries
+     */
+    public void toShortArray(short @NonNull[] out) {
+        checkLength(out.length);
+        if (this.bitsPerEntry > Short.SIZE) {
+            throw new IllegalStateException("Cannot unpack " + this.bitsPerEntry + " bit entries into a short array.");
+        }
+
+        long[] data = this.data;
+        int bitsPerEntry = this.bitsPerEntry;
+        int valuesPerLong = this.valuesPerLong;
+        long maxValue = this.maxValue;
+        int fullCells = this.size / valuesPerLong;
+        int index = 0;
+        for (int cellIndex = 0; cellIndex < fullCells; cellIndex++) {
+            long cell = data[cellIndex];
+            for (int i = 0; i < valuesPerLong; i++) {
+                out[index++] = (short) (cell & maxValue);
+                cell >>>= bitsPerEntry;
+            }
+        }
+
+        if (index < this.size) {
+            long cell = data[fullCells];
+            for (; index < this.size; index++) {
+                out[index] = (short) (cell & maxValue);
+                cell >>>= bitsPerEntry;
+            }
+        }
+    }
+
+    /**
+     * Packs every entry from the given array, replacing the current contents.
+     *
+     * @param values the source, which must hold at least {@link #getSize()} entries
+     * @throws IllegalArgumentException if any value is outside of the accepted range
+     */
+    public void setAll(int @NonNull[] values) {
+        checkLength(values.length);
+
+        int bits = 0;
+        for (int i = 0; i < this.size; i++) {
+            bits |= values[i];
+        }
+
+        checkRange(bits);
+
+        long[] data = this.data;
+        int bitsPerEntry = this.bitsPerEntry;
+        int valuesPerLong = this.valuesPerLong;
+        int index = 0;
+        for (int cellIndex = 0; cellIndex < data.length; cellIndex++) {
+            long cell = 0;
+            int count = Math.min(valuesPerLong, this.size - index);
+            for (int i = 0; i < count; i++) {
+                cell |= Integer.toUnsignedLong(values[index++]) << (i * bitsPerEntry);
+            }
+
+            data[cellIndex] = cell;
+        }
+    }
+
+    /**
+     * Packs every entry from the given array, replacing the current contents. Entries are read as unsigned values.
+     *
+     * @param values the source, which must hold at least {@link #getSize()} entries
+     * @throws IllegalArgumentException if any value is outside of the accepted range
+     */
+    public void setAll(short @NonNull[] values) {
+        checkLength(values.length);
+
+        int bits = 0;
+        for (int i = 0; i < this.size; i++) {
+            bits |= values[i] & 0xFFFF;
+        }
+
+        checkRange(bits);
+
+        long[] data = this.data;
+        int bitsPerEntry = this.bitsPerEntry;
+        int valuesPerLong = this.valuesPerLong;
         int index = 0;
-        for (long cell : this.data) {
-            for (int bitIndex = 0; bitIndex < this.valuesPerLong; bitIndex++) {
-                result[index++] = (int) (cell & this.maxValue);
-                cell >>= this.bitsPerEntry;
+        for (int cellIndex = 0; cellIndex < data.length; cellIndex++) {
+            long cell = 0;
+            int count = Math.min(valuesPerLong, this.size - index);
+            for (int i = 0; i < count; i++) {
+                cell |= (long) (values[index++] & 0xFFFF) << (i * bitsPerEntry);
+            }
+
+            data[cellIndex] = cell;
+        }
+    }
+
+    /**
+     * Replaces every entry with {@code translation[entry]} in a single pass.
+     *
+     * @param translation the translation table, which must have an entry for every value present in the storage
+     * @throws IllegalArgumentException if the table contains a value outside of the accepted range
+     */
+    public void remap(int @NonNull[] translation) {
+        int bits = 0;
+        for (int value : translation) {
+            bits |= value;
+        }
+
+        checkRange(bits);
 
-                if (index >= this.size) {
-                    return result;
+        long[] data = this.data;
+        int bitsPerEntry = this.bitsPerEntry;
+        int valuesPerLong = this.valuesPerLong;
+        long maxValue = this.maxValue;
+        int remaining = this.size;
+        for (int cellIndex = 0; cellIndex < data.length; cellIndex++) {
+            long cell = data[cellIndex];
+            long remapped = 0;
+            int count = Math.min(valuesPerLong, remaining);
+            for (int i = 0; i < count; i++) {
+                int shift = i * bitsPerEntry;
+                remapped |= Integer.toUnsignedLong(translation[(int) (cell >>> shift & maxValue)]) << shift;
+            }
+
+            data[cellIndex] = remapped;
+            remaining -= count;
+        }
+    }
+
+    /**
+     * Re-encodes this storage at a different number of bits per entry, optionally translating every entry
+     * as it is copied.
+     *
+     * @param bitsPerEntry the bits per entry of the new storage
+     * @param translation  the translation table, which must have an entry for every value present in the storage, or null to copy values as-is
+     * @return a new storage of the same size
+     * @throws IllegalArgumentException if a resulting value is outside of the new storage's range
+     */
+    public BitStorage resize(int bitsPerEntry, int @Nullable[] translation) {
+        BitStorage result = new BitStorage(bitsPerEntry, this.size);
+
+        long[] source = this.data;
+        int sourceBits = this.bitsPerEntry;
+        int sourceValuesPerLong = this.valuesPerLong;
+        long sourceMaxValue = this.maxValue;
+        long[] target = result.data;
+        int targetValuesPerLong = result.valuesPerLong;
+
+        int bits = 0;
+        long cell = 0;
+        int count = 0;
+        int targetIndex = 0;
+        int remaining = this.size;
+        for (int sourceIndex = 0; sourceIndex < source.length; sourceIndex++) {
+            long sourceCell = source[sourceIndex];
+            int sourceCount = Math.min(sourceValuesPerLong, remaining);
+            for (int i = 0; i < sourceCount; i++) {
+                int value = (int) (sourceCell >>> (i * sourceBits) & sourceMaxValue);
+                if (translation != null) {
+                    value = translation[value];
+                }
+
+                bits |= value;
+                cell |= Integer.toUnsignedLong(value) << (count * bitsPerEntry);
+                if (++count == targetValuesPerLong) {
+                    target[targetIndex++] = cell;
+                    cell = 0;
+                    count = 0;
                 }
             }
+
+            remaining -= sourceCount;
+        }
+
+        if (count != 0) {
+            target[targetIndex] = cell;
         }
 
+        result.checkRange(bits);
         return result;
     }
 
+    private void checkLength(int length) {
+        if (length < this.size) {
+            throw new IllegalArgumentException("Array length " + length + " is smaller than storage size " + this.size + ".");
+        }
+    }
+
+    private void checkRange(int bits) {
+        // bits is every value or'd together, so it is only in range if each value is.
+        if (bits < 0 || bits > this.maxValue) {
+            throw new IllegalArgumentException("Value cannot be outside of accepted range.");
+        }
+    }
+
     private int cellIndex(int index) {
         return (int) (index * this.divideMultiply + this.divideAdd >> 32 >> this.divideShift);
     }
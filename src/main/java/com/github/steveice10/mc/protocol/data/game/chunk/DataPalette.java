@@ -78,14 +78,18 @@ public class DataPalette {
 
         int bitsPerEntry = sanitizeBitsPerEntry(oldPalette instanceof SingletonPalette ? 1 : oldData.getBitsPerEntry() + 1);
         this.palette = createPalette(bitsPerEntry, paletteType);
-        this.storage = new BitStorage(bitsPerEntry, paletteType.getStorageSize());
 
         if (oldPalette instanceof SingletonPalette) {
+            this.storage = new BitStorage(bitsPerEntry, paletteType.getStorageSize());
             this.palette.stateToId(oldPalette.idToState(0));
         } else {
-            for (int i = 0; i < paletteType.getStorageSize(); i++) {
-                this.storage.set(i, this.palette.stateToId(oldPalette.idToState(oldData.get(i))));
+            // The old palette is full, so it has an entry for every value the old storage can hold.
+            int[] translation = new int[oldPalette.size()];
+            for (int id = 0; id < translation.length; id++) {
+                translation[id] = this.palette.stateToId(oldPalette.idToState(id));
             }
+
+            this.storage = oldData.resize(bitsPerEntry, translation);
         }
     }
 
@@ -28,9 +28,7 @@ public class ListPalette implements Palette {
         this(bitsPerEntry);
 
         int paletteLength = helper.readVarInt(in);
-        for (int i = 0; i < paletteLength; i++) {
-            this.data[i] = helper.readVarInt(in);
-        }
+        helper.readVarInts(in, this.data, 0, paletteLength);
 
         this.nextId = paletteLength;
     }
@@ -42,19 +40,20 @@ public class ListPalette implements Palette {
 
     @Override
     public int stateToId(int state) {
-        int id = -1;
-        for (int i = 0; i < this.nextId; i++) { // Linear search for state
-            if (this.data[i] == state) {
-                id = i;
-                break;
+        // At most 16 entries, where a linear probe beats hashing.
+        int[] data = this.data;
+        for (int i = 0; i < this.nextId; i++) {
+            if (data[i] == state) {
+                return i;
             }
         }
-        if (id == -1 && this.size() < this.maxId + 1) {
-            id = this.nextId++;
-            this.data[id] = state;
+
+        if (this.nextId <= this.maxId) {
+            data[this.nextId] = state;
+            return this.nextId++;
         }
 
-        return id;
+        return -1;
     }
 
     @Override
@@ -2,37 +2,57 @@ package com.github.steveice10.mc.protocol.data.game.chunk.palette;
 
 import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
 import io.netty.buffer.ByteBuf;
-import io.netty.util.collection.IntObjectHashMap;
-import io.netty.util.collection.IntObjectMap;
 import lombok.EqualsAndHashCode;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * A palette backed by a map.
+ * <p>
+ * States are mapped to IDs with an open addressing hash table of primitive ints,
+ * so lookups and inserts do not allocate.
  */
 @EqualsAndHashCode
 public class MapPalette implements Palette {
+    private static final int EMPTY = -1;
+
     private final int maxId;
 
     private final int[] idToState;
-    private final IntObjectMap<Integer> stateToId = new IntObjectHashMap<>();
+    @EqualsAndHashCode.Exclude
+    private final int[] keys;
+    @EqualsAndHashCode.Exclude
+    private final int[] values;
+    @EqualsAndHashCode.Exclude
+    private final int mask;
     private int nextId = 0;
 
     public MapPalette(int bitsPerEntry) {
         this.maxId = (1 << bitsPerEntry) - 1;
 
         this.idToState = new int[this.maxId + 1];
+
+        // Keep the load factor at or below 0.5 so probe sequences stay short.
+        int capacity = Integer.highestOneBit(this.maxId + 1) << 1;
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(this.values, EMPTY);
     }
 
     public MapPalette(int bitsPerEntry, ByteBuf in, MinecraftCodecHelper helper) throws IOException {
         this(bitsPerEntry);
 
         int paletteLength = helper.readVarInt(in);
+        helper.readVarInts(in, this.idToState, 0, paletteLength);
         for (int i = 0; i < paletteLength; i++) {
-            int state = helper.readVarInt(in);
-            this.idToState[i] = state;
-            this.stateToId.putIfAbsent(state, i);
+            int state = this.idToState[i];
+            int slot = this.slot(state);
+            if (this.values[slot] == EMPTY) {
+                this.keys[slot] = state;
+                this.values[slot] = i;
+            }
         }
         this.nextId = paletteLength;
     }
@@ -44,18 +64,16 @@ public class MapPalette implements Palette {
 
     @Override
     public int stateToId(int state) {
-        Integer id = this.stateToId.get(state);
-        if (id == null && this.size() < this.maxId + 1) {
+        int slot = this.slot(state);
+        int id = this.values[slot];
+        if (id == EMPTY && this.size() < this.maxId + 1) {
             id = this.nextId++;
             this.idToState[id] = state;
-            this.stateToId.put(state, id);
+            this.keys[slot] = state;
+            this.values[slot] = id;
         }
 
-        if (id != null) {
-            return id;
-        } else {
-            return -1;
-        }
+        return id;
     }
 
     @Override
@@ -66,4 +84,21 @@ public class MapPalette implements Palette {
             return 0;
         }
     }
+
+    /**
+     * Finds the slot holding the given state, or the empty slot where it would be inserted.
+     */
+    private int slot(int state) {
+        int slot = mix(state) & this.mask;
+        while (this.values[slot] != EMPTY && this.keys[slot] != state) {
+            slot = (slot + 1) & this.mask;
+        }
+
+        return slot;
+    }
+
+    private static int mix(int state) {
+        int hash = state * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
 }
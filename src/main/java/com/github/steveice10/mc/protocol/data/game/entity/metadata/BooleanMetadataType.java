@@ -24,6 +24,10 @@ public class BooleanMetadataType extends MetadataType<Boolean> {
         return this.primitiveFactory.createPrimitive(id, this, this.primitiveReader.readPrimitive(input));
     }
 
+    public boolean readMetadataPrimitive(ByteBuf input) throws IOException {
+        return this.primitiveReader.readPrimitive(input);
+    }
+
     public void writeMetadataPrimitive(ByteBuf output, boolean value) throws IOException {
        this.primitiveWriter.writePrimitive(output, value);
     }
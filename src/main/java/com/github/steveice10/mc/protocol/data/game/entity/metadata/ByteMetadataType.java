@@ -24,6 +24,10 @@ public class ByteMetadataType extends MetadataType<Byte> {
         return this.primitiveFactory.createPrimitive(id, this, this.primitiveReader.readPrimitive(input));
     }
 
+    public byte readMetadataPrimitive(ByteBuf input) throws IOException {
+        return this.primitiveReader.readPrimitive(input);
+    }
+
     public void writeMetadataPrimitive(ByteBuf output, byte value) throws IOException {
         this.primitiveWriter.writePrimitive(output, value);
     }
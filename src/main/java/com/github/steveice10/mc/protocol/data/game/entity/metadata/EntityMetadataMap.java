@@ -0,0 +1,452 @@
+package com.github.steveice10.mc.protocol.data.game.entity.metadata;
+
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.BooleanEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.ByteEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.FloatEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.IntEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.LongEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.ObjectEntityMetadata;
+import io.netty.buffer.ByteBuf;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.OptionalInt;
+
+/**
+ * Entity metadata stored by slot id, without an {@link EntityMetadata} object per entry.
+ * <p>
+ * Byte, int, long, float, boolean and optional int values are kept in a primitive array;
+ * other values are kept in an object array which is only allocated once an object type is
+ * stored. Lookups by slot are constant time. An instance can be reused to decode or build many updates by
+ * {@link #clear() clearing} it, and applied to the tracked state of an entity with
+ * {@link #merge(EntityMetadataMap)}.
+ */
+public class EntityMetadataMap {
+    private static final int MAX_SLOTS = 255;
+    private static final int INITIAL_SLOTS = 16;
+
+    private MetadataType<?>[] types;
+    private long[] values;
+    private Object[] objects;
+    private int size;
+
+    public EntityMetadataMap() {
+        this.types = new MetadataType<?>[INITIAL_SLOTS];
+        this.values = new long[INITIAL_SLOTS];
+    }
+
+    /**
+     * Creates a map from metadata entries. If a slot appears more than once, the last entry wins.
+     *
+     * @param metadata the metadata entries
+     * @return the new map
+     */
+    public static EntityMetadataMap of(EntityMetadata<?, ?>[] metadata) {
+        EntityMetadataMap map = new EntityMetadataMap();
+        for (EntityMetadata<?, ?> entry : metadata) {
+            map.set(entry);
+        }
+
+        return map;
+    }
+
+    private static boolean isPrimitive(MetadataType<?> type) {
+        return type instanceof ByteMetadataType || type instanceof IntMetadataType || type instanceof LongMetadataType
+                || type instanceof FloatMetadataType || type instanceof BooleanMetadataType || type instanceof OptionalIntMetadataType;
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot < 0 || slot >= MAX_SLOTS) {
+            throw new IllegalArgumentException("Metadata slot " + slot + " is out of range [0, " + MAX_SLOTS + ").");
+        }
+
+        if (slot >= this.types.length) {
+            int length = Math.min(MAX_SLOTS, Math.max(slot + 1, this.types.length * 2));
+            this.types = Arrays.copyOf(this.types, length);
+            this.values = Arrays.copyOf(this.values, length);
+            if (this.objects != null) {
+                this.objects = Arrays.copyOf(this.objects, length);
+            }
+        }
+    }
+
+    private void setRaw(int slot, MetadataType<?> type, long value, Object object) {
+        this.ensureCapacity(slot);
+        if (this.types[slot] == null) {
+            this.size++;
+        }
+
+        this.types[slot] = type;
+        this.values[slot] = value;
+        if (!isPrimitive(type)) {
+            // Object types may hold null, such as an empty item stack, so the array is needed either way.
+            if (this.objects == null) {
+                this.objects = new Object[this.types.length];
+            }
+
+            this.objects[slot] = object;
+        } else if (this.objects != null) {
+            this.objects[slot] = null;
+        }
+    }
+
+    private MetadataType<?> checkType(int slot, Class<? extends MetadataType<?>> expected) {
+        MetadataType<?> type = this.getType(slot);
+        if (!expected.isInstance(type)) {
+            throw new IllegalStateException("Metadata slot " + slot + " holds " + (type != null ? "type " + type.getId() : "no value") + ", not a " + expected.getSimpleName() + ".");
+        }
+
+        return type;
+    }
+
+    public boolean has(int slot) {
+        return slot >= 0 && slot < this.types.length && this.types[slot] != null;
+    }
+
+    @Nullable
+    public MetadataType<?> getType(int slot) {
+        return slot >= 0 && slot < this.types.length ? this.types[slot] : null;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public byte getByte(int slot) {
+        this.checkType(slot, ByteMetadataType.class);
+        return (byte) this.values[slot];
+    }
+
+    public int getInt(int slot) {
+        this.checkType(slot, IntMetadataType.class);
+        return (int) this.values[slot];
+    }
+
+    public long getLong(int slot) {
+        this.checkType(slot, LongMetadataType.class);
+        return this.values[slot];
+    }
+
+    public float getFloat(int slot) {
+        this.checkType(slot, FloatMetadataType.class);
+        return Float.intBitsToFloat((int) this.values[slot]);
+    }
+
+    public boolean getBoolean(int slot) {
+        this.checkType(slot, BooleanMetadataType.class);
+        return this.values[slot] != 0;
+    }
+
+    /**
+     * Gets an optional int value, such as a block state, without allocating.
+     *
+     * @param slot         the slot
+     * @param defaultValue the value to return if the optional is empty
+     * @return the value, or the default value if the optional is empty
+     */
+    public int getOptionalInt(int slot, int defaultValue) {
+        this.checkType(slot, OptionalIntMetadataType.class);
+        int value = (int) this.values[slot];
+        return value != 0 ? value - 1 : defaultValue;
+    }
+
+    public OptionalInt getOptionalInt(int slot) {
+        this.checkType(slot, OptionalIntMetadataType.class);
+        int value = (int) this.values[slot];
+        return value != 0 ? OptionalInt.of(value - 1) : OptionalInt.empty();
+    }
+
+    /**
+     * Gets the value of a slot, boxing it if it is a primitive.
+     *
+     * @param slot the slot
+     * @return the value, or null if the slot is empty
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public <T> T get(int slot) {
+        MetadataType<?> type = this.getType(slot);
+        if (type == null) {
+            return null;
+        }
+
+        if (type instanceof ByteMetadataType) {
+            return (T) (Byte) this.getByte(slot);
+        } else if (type instanceof IntMetadataType) {
+            return (T) (Integer) this.getInt(slot);
+        } else if (type instanceof LongMetadataType) {
+            return (T) (Long) this.getLong(slot);
+        } else if (type instanceof FloatMetadataType) {
+            return (T) (Float) this.getFloat(slot);
+        } else if (type instanceof BooleanMetadataType) {
+            return (T) (Boolean) this.getBoolean(slot);
+        } else if (type instanceof OptionalIntMetadataType) {
+            return (T) this.getOptionalInt(slot);
+        }
+
+        return (T) this.objects[slot];
+    }
+
+    public void set(int slot, ByteMetadataType type, byte value) {
+        this.setRaw(slot, type, value, null);
+    }
+
+    public void set(int slot, IntMetadataType type, int value) {
+        this.setRaw(slot, type, value, null);
+    }
+
+    public void set(int slot, LongMetadataType type, long value) {
+        this.setRaw(slot, type, value, null);
+    }
+
+    public void set(int slot, FloatMetadataType type, float value) {
+        this.setRaw(slot, type, Float.floatToRawIntBits(value), null);
+    }
+
+    public void set(int slot, BooleanMetadataType type, boolean value) {
+        this.setRaw(slot, type, value ? 1 : 0, null);
+    }
+
+    /**
+     * Sets a present optional int value.
+     *
+     * @param slot  the slot
+     * @param type  the optional int type
+     * @param value the value, which must not be negative
+     */
+    public void set(int slot, OptionalIntMetadataType type, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Optional int metadata cannot hold negative value " + value + ".");
+        }
+
+        this.setRaw(slot, type, value + 1L, null);
+    }
+
+    /**
+     * Sets the value of a slot. Boxed values of primitive types are unboxed.
+     *
+     * @param slot  the slot
+     * @param type  the metadata type
+     * @param value the value
+     */
+    public <T> void set(int slot, MetadataType<T> type, T value) {
+        if (type instanceof ByteMetadataType) {
+            this.set(slot, (ByteMetadataType) type, ((Byte) value).byteValue());
+        } else if (type instanceof IntMetadataType) {
+            this.set(slot, (IntMetadataType) type, ((Integer) value).intValue());
+        } else if (type instanceof LongMetadataType) {
+            this.set(slot, (LongMetadataType) type, ((Long) value).longValue());
+        } else if (type instanceof FloatMetadataType) {
+            this.set(slot, (FloatMetadataType) type, ((Float) value).floatValue());
+        } else if (type instanceof BooleanMetadataType) {
+            this.set(slot, (BooleanMetadataType) type, ((Boolean) value).booleanValue());
+        } else if (type instanceof OptionalIntMetadataType) {
+            OptionalInt optional = (OptionalInt) value;
+            this.setRaw(slot, type, optional.isPresent() ? optional.getAsInt() + 1L : 0, null);
+        } else {
+            this.setRaw(slot, type, 0, value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void set(EntityMetadata<?, ?> metadata) {
+        if (metadata instanceof ByteEntityMetadata) {
+            this.set(metadata.getId(), (ByteMetadataType) metadata.getType(), ((ByteEntityMetadata) metadata).getPrimitiveValue());
+        } else if (metadata instanceof IntEntityMetadata) {
+            this.set(metadata.getId(), (IntMetadataType) metadata.getType(), ((IntEntityMetadata) metadata).getPrimitiveValue());
+        } else if (metadata instanceof LongEntityMetadata) {
+            this.set(metadata.getId(), (LongMetadataType) metadata.getType(), ((LongEntityMetadata) metadata).getPrimitiveValue());
+        } else if (metadata instanceof FloatEntityMetadata) {
+            this.set(metadata.getId(), (FloatMetadataType) metadata.getType(), ((FloatEntityMetadata) metadata).getPrimitiveValue());
+        } else if (metadata instanceof BooleanEntityMetadata) {
+            this.set(metadata.getId(), (BooleanMetadataType) metadata.getType(), ((BooleanEntityMetadata) metadata).getPrimitiveValue());
+        } else {
+            this.set(metadata.getId(), (MetadataType<Object>) metadata.getType(), metadata.getValue());
+        }
+    }
+
+    public void remove(int slot) {
+        if (this.has(slot)) {
+            this.types[slot] = null;
+            this.values[slot] = 0;
+            if (this.objects != null) {
+                this.objects[slot] = null;
+            }
+
+            this.size--;
+        }
+    }
+
+    /**
+     * Removes all values, keeping the allocated storage for reuse.
+     */
+    public void clear() {
+        Arrays.fill(this.types, null);
+        Arrays.fill(this.values, 0);
+        if (this.objects != null) {
+            Arrays.fill(this.objects, null);
+        }
+
+        this.size = 0;
+    }
+
+    /**
+     * Copies every value of an update into this map, replacing the values of the same slots.
+     *
+     * @param update the update to apply
+     */
+    public void merge(EntityMetadataMap update) {
+        for (int slot = 0; slot < update.types.length; slot++) {
+            MetadataType<?> type = update.types[slot];
+            if (type != null) {
+                this.setRaw(slot, type, update.values[slot], update.objects != null ? update.objects[slot] : null);
+            }
+        }
+    }
+
+    /**
+     * Converts this map to metadata entries, in slot order.
+     *
+     * @return the metadata entries
+     */
+    @SuppressWarnings("unchecked")
+    public EntityMetadata<?, ?>[] toArray() {
+        EntityMetadata<?, ?>[] metadata = new EntityMetadata<?, ?>[this.size];
+        int index = 0;
+        for (int slot = 0; slot < this.types.length; slot++) {
+            MetadataType<?> type = this.types[slot];
+            if (type == null) {
+                continue;
+            }
+
+            if (type instanceof ByteMetadataType) {
+                metadata[index++] = new ByteEntityMetadata(slot, (ByteMetadataType) type, this.getByte(slot));
+            } else if (type instanceof IntMetadataType) {
+                metadata[index++] = new IntEntityMetadata(slot, (IntMetadataType) type, this.getInt(slot));
+            } else if (type instanceof LongMetadataType) {
+                metadata[index++] = new LongEntityMetadata(slot, (LongMetadataType) type, this.getLong(slot));
+            } else if (type instanceof FloatMetadataType) {
+                metadata[index++] = new FloatEntityMetadata(slot, (FloatMetadataType) type, this.getFloat(slot));
+            } else if (type instanceof BooleanMetadataType) {
+                metadata[index++] = new BooleanEntityMetadata(slot, (BooleanMetadataType) type, this.getBoolean(slot));
+            } else {
+                metadata[index++] = new ObjectEntityMetadata<>(slot, (MetadataType<Object>) type, this.get(slot));
+            }
+        }
+
+        return metadata;
+    }
+
+    /**
+     * Reads metadata entries up to the end marker, adding them to this map.
+     *
+     * @param helper the codec helper
+     * @param in     the input buffer
+     */
+    public void read(MinecraftCodecHelper helper, ByteBuf in) throws IOException {
+        int slot;
+        while ((slot = in.readUnsignedByte()) != 255) {
+            MetadataType<?> type = helper.readMetadataType(in);
+            if (type instanceof ByteMetadataType) {
+                this.setRaw(slot, type, ((ByteMetadataType) type).readMetadataPrimitive(in), null);
+            } else if (type instanceof IntMetadataType) {
+                this.setRaw(slot, type, ((IntMetadataType) type).readMetadataPrimitive(helper, in), null);
+            } else if (type instanceof LongMetadataType) {
+                this.setRaw(slot, type, ((LongMetadataType) type).readMetadataPrimitive(helper, in), null);
+            } else if (type instanceof FloatMetadataType) {
+                this.setRaw(slot, type, Float.floatToRawIntBits(((FloatMetadataType) type).readMetadataPrimitive(in)), null);
+            } else if (type instanceof BooleanMetadataType) {
+                this.setRaw(slot, type, ((BooleanMetadataType) type).readMetadataPrimitive(in) ? 1 : 0, null);
+            } else if (type instanceof OptionalIntMetadataType) {
+                this.setRaw(slot, type, helper.readVarInt(in) & 0xFFFFFFFFL, null);
+            } else {
+                this.setRaw(slot, type, 0, type.getReader().read(helper, in));
+            }
+        }
+    }
+
+    /**
+     * Writes the metadata entries in slot order, followed by the end marker.
+     *
+     * @param helper the codec helper
+     * @param out    the output buffer
+     */
+    @SuppressWarnings("unchecked")
+    public void write(MinecraftCodecHelper helper, ByteBuf out) throws IOException {
+        for (int slot = 0; slot < this.types.length; slot++) {
+            MetadataType<?> type = this.types[slot];
+            if (type == null) {
+                continue;
+            }
+
+            out.writeByte(slot);
+            helper.writeMetadataType(out, type);
+            long value = this.values[slot];
+            if (type instanceof ByteMetadataType) {
+                ((ByteMetadataType) type).writeMetadataPrimitive(out, (byte) value);
+            } else if (type instanceof IntMetadataType) {
+                ((IntMetadataType) type).writeMetadataPrimitive(helper, out, (int) value);
+            } else if (type instanceof LongMetadataType) {
+                ((LongMetadataType) type).writeMetadataPrimitive(helper, out, value);
+            } else if (type instanceof FloatMetadataType) {
+                ((FloatMetadataType) type).writeMetadataPrimitive(out, Float.intBitsToFloat((int) value));
+            } else if (type instanceof BooleanMetadataType) {
+                ((BooleanMetadataType) type).writeMetadataPrimitive(out, value != 0);
+            } else if (type instanceof OptionalIntMetadataType) {
+                helper.writeVarInt(out, (int) value);
+            } else {
+                ((MetadataType<Object>) type).writeMetadata(helper, out, this.objects[slot]);
+            }
+        }
+
+        out.writeByte(255);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof EntityMetadataMap)) {
+            return false;
+        }
+
+        EntityMetadataMap that = (EntityMetadataMap) o;
+        if (this.size != that.size) {
+            return false;
+        }
+
+        for (int slot = 0; slot < this.types.length; slot++) {
+            MetadataType<?> type = this.types[slot];
+            if (type != null && (type != that.getType(slot) || this.values[slot] != that.values[slot]
+                    || (!isPrimitive(type) && !Objects.equals(this.objects[slot], that.objects[slot])))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int slot = 0; slot < this.types.length; slot++) {
+            MetadataType<?> type = this.types[slot];
+            if (type != null) {
+                Object object = isPrimitive(type) ? null : this.objects[slot];
+                hash = 31 * hash + (slot ^ type.getId() << 8 ^ Long.hashCode(this.values[slot]) ^ Objects.hashCode(object));
+            }
+        }
+
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityMetadataMap(" + Arrays.toString(this.toArray()) + ")";
+    }
+}
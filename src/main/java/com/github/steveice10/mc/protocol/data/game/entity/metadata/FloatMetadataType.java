@@ -24,6 +24,10 @@ public class FloatMetadataType extends MetadataType<Float> {
         return this.primitiveFactory.createPrimitive(id, this, this.primitiveReader.readPrimitive(input));
     }
 
+    public float readMetadataPrimitive(ByteBuf input) throws IOException {
+        return this.primitiveReader.readPrimitive(input);
+    }
+
     public void writeMetadataPrimitive(ByteBuf output, float value) throws IOException {
         this.primitiveWriter.writePrimitive(output, value);
     }
@@ -24,6 +24,10 @@ public class IntMetadataType extends MetadataType<Integer> {
         return this.primitiveFactory.createPrimitive(id, this, this.primitiveReader.readPrimitive(helper, input));
     }
 
+    public int readMetadataPrimitive(MinecraftCodecHelper helper, ByteBuf input) throws IOException {
+        return this.primitiveReader.readPrimitive(helper, input);
+    }
+
     public void writeMetadataPrimitive(MinecraftCodecHelper helper, ByteBuf output, int value) throws IOException {
         this.primitiveWriter.writePrimitive(helper, output, value);
     }
@@ -24,6 +24,10 @@ public class LongMetadataType extends MetadataType<Long> {
         return this.primitiveFactory.createPrimitive(id, this, this.primitiveReader.readPrimitive(helper, input));
     }
 
+    public long readMetadataPrimitive(MinecraftCodecHelper helper, ByteBuf input) throws IOException {
+        return this.primitiveReader.readPrimitive(helper, input);
+    }
+
     public void writeMetadataPrimitive(MinecraftCodecHelper helper, ByteBuf output, long value) throws IOException {
         this.primitiveWriter.writePrimitive(helper, output, value);
     }
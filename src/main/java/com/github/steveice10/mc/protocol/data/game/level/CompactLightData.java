@@ -0,0 +1,522 @@
+package com.github.steveice10.mc.protocol.data.game.level;
+
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.data.game.chunk.NibbleArray3d;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.AbstractReferenceCounted;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Light data of a chunk stored in a single buffer.
+ * <p>
+ * The light arrays of all sections share one buffer from the given allocator, and sections whose
+ * light is the same everywhere, such as fully lit sky or unlit sections, are stored as just their
+ * value. Masks are kept as the long arrays they are sent as. Instances hold the same information
+ * as {@link LightUpdateData} and convert to and from it losslessly.
+ * <p>
+ * The buffer is released once this object is {@link #release() released}. Data created with a
+ * pooled or direct allocator must be released by its owner.
+ */
+public class CompactLightData extends AbstractReferenceCounted {
+    /**
+     * The size of the light array of one section.
+     */
+    public static final int SECTION_SIZE = 2048;
+
+    private static final int ABSENT = -1;
+
+    @Getter
+    private final boolean trustEdges;
+    private final long[] skyYMask;
+    private final long[] blockYMask;
+    private final long[] emptySkyYMask;
+    private final long[] emptyBlockYMask;
+    /**
+     * For each section, the offset of its array in the buffer, or the negated value plus two of
+     * a uniform section, or {@link #ABSENT}.
+     */
+    private final int[] skySections;
+    private final int[] blockSections;
+    private final ByteBuf buffer;
+
+    private CompactLightData(boolean trustEdges, long[] skyYMask, long[] blockYMask, long[] emptySkyYMask, long[] emptyBlockYMask,
+                             int[] skySections, int[] blockSections, ByteBuf buffer) {
+        this.trustEdges = trustEdges;
+        this.skyYMask = skyYMask;
+        this.blockYMask = blockYMask;
+        this.emptySkyYMask = emptySkyYMask;
+        this.emptyBlockYMask = emptyBlockYMask;
+        this.skySections = skySections;
+        this.blockSections = blockSections;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Reads light data in the format of {@link MinecraftCodecHelper#readLightUpdateData(ByteBuf)}.
+     *
+     * @param in        the input buffer
+     * @param helper    the codec helper
+     * @param allocator the allocator of the light buffer
+     * @return the light data
+     * @throws IOException if the arrays do not match the masks
+     */
+    public static CompactLightData read(ByteBuf in, MinecraftCodecHelper helper, ByteBufAllocator allocator) throws IOException {
+        boolean trustEdges = in.readBoolean();
+        long[] skyYMask = helper.readLongArray(in);
+        long[] blockYMask = helper.readLongArray(in);
+        long[] emptySkyYMask = helper.readLongArray(in);
+        long[] emptyBlockYMask = helper.readLongArray(in);
+
+        Builder builder = new Builder(in);
+        int[] skySections = builder.read(skyYMask, emptySkyYMask, helper);
+        int[] blockSections = builder.read(blockYMask, emptyBlockYMask, helper);
+        return new CompactLightData(trustEdges, skyYMask, blockYMask, emptySkyYMask, emptyBlockYMask,
+                skySections, blockSections, builder.build(allocator));
+    }
+
+    /**
+     * Creates compact light data holding the same light as the given data.
+     *
+     * @param data      the light data
+     * @param allocator the allocator of the light buffer
+     * @return the light data
+     */
+    public static CompactLightData of(LightUpdateData data, ByteBufAllocator allocator) {
+        CompactLightData compact = data.getCompact();
+        if (compact != null) {
+            return compact.copy(allocator);
+        }
+
+        long[] skyYMask = data.getSkyYMask().toLongArray();
+        long[] blockYMask = data.getBlockYMask().toLongArray();
+        long[] emptySkyYMask = data.getEmptySkyYMask().toLongArray();
+        long[] emptyBlockYMask = data.getEmptyBlockYMask().toLongArray();
+
+        Builder builder = new Builder(null);
+        int[] skySections = builder.add(skyYMask, emptySkyYMask, data.getSkyUpdates());
+        int[] blockSections = builder.add(blockYMask, emptyBlockYMask, data.getBlockUpdates());
+        return new CompactLightData(data.isTrustEdges(), skyYMask, blockYMask, emptySkyYMask, emptyBlockYMask,
+                skySections, blockSections, builder.build(allocator));
+    }
+
+    private CompactLightData copy(ByteBufAllocator allocator) {
+        ByteBuf buffer = allocator.buffer(this.buffer.readableBytes());
+        buffer.writeBytes(this.buffer, 0, this.buffer.readableBytes());
+        return new CompactLightData(this.trustEdges, this.skyYMask, this.blockYMask, this.emptySkyYMask, this.emptyBlockYMask,
+                this.skySections, this.blockSections, buffer);
+    }
+
+    /**
+     * Applies a light update to this light data, like the vanilla client does. Sections sent in
+     * the update replace the sections of this data, and other sections are kept. This data is
+     * not modified.
+     *
+     * @param update    the light update
+     * @param allocator the allocator of the light buffer
+     * @return the updated light data
+     */
+    public CompactLightData merge(CompactLightData update, ByteBufAllocator allocator) {
+        long[] skyYMask = mergeMask(this.skyYMask, update.skyYMask, update.emptySkyYMask, update.skyYMask);
+        long[] emptySkyYMask = mergeMask(this.emptySkyYMask, update.skyYMask, update.emptySkyYMask, update.emptySkyYMask);
+        long[] blockYMask = mergeMask(this.blockYMask, update.blockYMask, update.emptyBlockYMask, update.blockYMask);
+        long[] emptyBlockYMask = mergeMask(this.emptyBlockYMask, update.blockYMask, update.emptyBlockYMask, update.emptyBlockYMask);
+
+        Builder builder = new Builder(null);
+        int[] skySections = builder.merge(this.skySections, this.buffer, update.skySections, update.buffer);
+        int[] blockSections = builder.merge(this.blockSections, this.buffer, update.blockSections, update.buffer);
+        return new CompactLightData(update.trustEdges, skyYMask, blockYMask, emptySkyYMask, emptyBlockYMask,
+                skySections, blockSections, builder.build(allocator));
+    }
+
+    private static long[] mergeMask(long[] mask, long[] updated, long[] updatedEmpty, long[] added) {
+        long[] merged = Arrays.copyOf(mask, Math.max(mask.length, added.length));
+        for (int i = 0; i < merged.length; i++) {
+            long replaced = (i < updated.length ? updated[i] : 0) | (i < updatedEmpty.length ? updatedEmpty[i] : 0);
+            merged[i] = merged[i] & ~replaced | (i < added.length ? added[i] : 0);
+        }
+
+        int length = merged.length;
+        while (length > 0 && merged[length - 1] == 0) {
+            length--;
+        }
+
+        return length == merged.length ? merged : Arrays.copyOf(merged, length);
+    }
+
+    /**
+     * Gets the number of sections that may hold light, which is the highest section index with
+     * light plus one.
+     *
+     * @return the section count
+     */
+    public int getSectionCount() {
+        return Math.max(this.skySections.length, this.blockSections.length);
+    }
+
+    public boolean hasSkyLight(int section) {
+        return section >= 0 && section < this.skySections.length && this.skySections[section] != ABSENT;
+    }
+
+    public boolean hasBlockLight(int section) {
+        return section >= 0 && section < this.blockSections.length && this.blockSections[section] != ABSENT;
+    }
+
+    /**
+     * Gets the sky light at a position in a section.
+     *
+     * @param section the section index, where 0 is the section below the world
+     * @param x       the X coordinate in the section
+     * @param y       the Y coordinate in the section
+     * @param z       the Z coordinate in the section
+     * @return the light level, or 0 if the section has no sky light
+     */
+    public int getSkyLight(int section, int x, int y, int z) {
+        return this.get(this.skySections, section, x, y, z);
+    }
+
+    /**
+     * Gets the block light at a position in a section.
+     *
+     * @param section the section index, where 0 is the section below the world
+     * @param x       the X coordinate in the section
+     * @param y       the Y coordinate in the section
+     * @param z       the Z coordinate in the section
+     * @return the light level, or 0 if the section has no block light
+     */
+    public int getBlockLight(int section, int x, int y, int z) {
+        return this.get(this.blockSections, section, x, y, z);
+    }
+
+    private int get(int[] sections, int section, int x, int y, int z) {
+        int value = section >= 0 && section < sections.length ? sections[section] : ABSENT;
+        if (value < 0) {
+            return value == ABSENT ? 0 : -value - 2;
+        }
+
+        int key = y << 8 | z << 4 | x;
+        int packed = this.buffer.getByte(value + (key >> 1));
+        return (key & 1) == 0 ? packed & 15 : packed >> 4 & 15;
+    }
+
+    /**
+     * Copies the sky light of a section.
+     *
+     * @param section the section index, where 0 is the section below the world
+     * @return the light array, or null if the section has no sky light
+     */
+    @Nullable
+    public NibbleArray3d getSkyLightArray(int section) {
+        return this.hasSkyLight(section) ? new NibbleArray3d(this.toArray(this.skySections[section])) : null;
+    }
+
+    /**
+     * Copies the block light of a section.
+     *
+     * @param section the section index, where 0 is the section below the world
+     * @return the light array, or null if the section has no block light
+     */
+    @Nullable
+    public NibbleArray3d getBlockLightArray(int section) {
+        return this.hasBlockLight(section) ? new NibbleArray3d(this.toArray(this.blockSections[section])) : null;
+    }
+
+    private byte[] toArray(int value) {
+        byte[] array = new byte[SECTION_SIZE];
+        if (value < 0) {
+            int level = -value - 2;
+            Arrays.fill(array, (byte) (level << 4 | level));
+        } else {
+            this.buffer.getBytes(value, array);
+        }
+
+        return array;
+    }
+
+    /**
+     * Gets the number of bytes used by the light arrays of this data.
+     *
+     * @return the buffer size in bytes
+     */
+    public int getBufferSize() {
+        return this.buffer.capacity();
+    }
+
+    /**
+     * Estimates the memory used by this data, including its buffer and section table.
+     *
+     * @return the estimated size in bytes
+     */
+    public long getMemoryUsage() {
+        return (long) this.buffer.capacity() + (long) (this.skySections.length + this.blockSections.length) * Integer.BYTES
+                + (long) (this.skyYMask.length + this.blockYMask.length + this.emptySkyYMask.length + this.emptyBlockYMask.length) * Long.BYTES;
+    }
+
+    /**
+     * Converts this data to light update data with a separate array for each section.
+     *
+     * @return the light update data
+     */
+    public LightUpdateData toLightUpdateData() {
+        return new LightUpdateData(BitSet.valueOf(this.skyYMask), BitSet.valueOf(this.blockYMask),
+                BitSet.valueOf(this.emptySkyYMask), BitSet.valueOf(this.emptyBlockYMask),
+                this.toArrays(this.skyYMask, this.skySections), this.toArrays(this.blockYMask, this.blockSections), this.trustEdges);
+    }
+
+    private List<byte[]> toArrays(long[] mask, int[] sections) {
+        List<byte[]> arrays = new ArrayList<>();
+        for (int section = 0; section < mask.length * Long.SIZE; section++) {
+            if (isSet(mask, section)) {
+                arrays.add(this.toArray(sections[section]));
+            }
+        }
+
+        return arrays;
+    }
+
+    /**
+     * Writes this data in the format of {@link MinecraftCodecHelper#writeLightUpdateData(ByteBuf, LightUpdateData)}.
+     *
+     * @param out    the output buffer
+     * @param helper the codec helper
+     */
+    public void write(ByteBuf out, MinecraftCodecHelper helper) {
+        out.writeBoolean(this.trustEdges);
+        helper.writeLongArray(out, this.skyYMask);
+        helper.writeLongArray(out, this.blockYMask);
+        helper.writeLongArray(out, this.emptySkyYMask);
+        helper.writeLongArray(out, this.emptyBlockYMask);
+        this.writeArrays(out, helper, this.skyYMask, this.skySections);
+        this.writeArrays(out, helper, this.blockYMask, this.blockSections);
+    }
+
+    private void writeArrays(ByteBuf out, MinecraftCodecHelper helper, long[] mask, int[] sections) {
+        int count = 0;
+        for (long word : mask) {
+            count += Long.bitCount(word);
+        }
+
+        helper.writeVarInt(out, count);
+        for (int section = 0; section < mask.length * Long.SIZE; section++) {
+            if (!isSet(mask, section)) {
+                continue;
+            }
+
+            helper.writeVarInt(out, SECTION_SIZE);
+            int value = sections[section];
+            if (value < 0) {
+                int level = -value - 2;
+                for (int i = 0; i < SECTION_SIZE; i += Long.BYTES) {
+                    out.writeLong((level << 4 | level) * 0x0101010101010101L);
+                }
+            } else {
+                out.writeBytes(this.buffer, value, SECTION_SIZE);
+            }
+        }
+    }
+
+    private static boolean isSet(long[] mask, int bit) {
+        int word = bit >> 6;
+        return word < mask.length && (mask[word] & 1L << bit) != 0;
+    }
+
+    @Override
+    protected void deallocate() {
+        this.buffer.release();
+    }
+
+    @Override
+    public CompactLightData retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public CompactLightData retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public CompactLightData touch(Object hint) {
+        this.buffer.touch(hint);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactLightData(sections=" + this.getSectionCount() + ", bufferSize=" + this.getBufferSize() + ")";
+    }
+
+    /**
+     * Collects the non-uniform arrays of the sections being built, then copies them into one buffer.
+     */
+    private static class Builder {
+        private final ByteBuf source;
+        private ByteBuf[] sources = new ByteBuf[8];
+        private int[] offsets = new int[8];
+        private int count;
+
+        private Builder(@Nullable ByteBuf source) {
+            this.source = source;
+        }
+
+        private int[] read(long[] mask, long[] emptyMask, MinecraftCodecHelper helper) throws IOException {
+            int[] sections = newSections(mask, emptyMask);
+            int arrays = helper.readVarInt(this.source);
+            int expected = cardinality(mask);
+            if (arrays != expected) {
+                // Sections in the mask without an array would be left absent but still written as present.
+                throw new IOException("Light mask has " + expected + " sections but " + arrays + " arrays were sent.");
+            }
+
+            int section = -1;
+            for (int i = 0; i < arrays; i++) {
+                section = nextSetBit(mask, section + 1);
+                int length = helper.readVarInt(this.source);
+                if (length != SECTION_SIZE) {
+                    throw new IOException("Light array " + i + " has length " + length + ".");
+                }
+
+                sections[section] = this.add(this.source, this.source.readerIndex());
+                this.source.skipBytes(SECTION_SIZE);
+            }
+
+            return sections;
+        }
+
+        private int[] add(long[] mask, long[] emptyMask, List<byte[]> arrays) {
+            int[] sections = newSections(mask, emptyMask);
+            int section = -1;
+            for (byte[] array : arrays) {
+                section = nextSetBit(mask, section + 1);
+                if (array.length != SECTION_SIZE || section < 0) {
+                    throw new IllegalArgumentException("Light array has length " + array.length + " or no section in its mask.");
+                }
+
+                sections[section] = this.add(Unpooled.wrappedBuffer(array), 0);
+            }
+
+            return sections;
+        }
+
+        private int[] merge(int[] sections, ByteBuf buffer, int[] updated, ByteBuf updatedBuffer) {
+            int[] merged = new int[Math.max(sections.length, updated.length)];
+            for (int section = 0; section < merged.length; section++) {
+                int value = section < updated.length ? updated[section] : ABSENT;
+                ByteBuf source = updatedBuffer;
+                if (value == ABSENT) {
+                    value = section < sections.length ? sections[section] : ABSENT;
+                    source = buffer;
+                }
+
+                merged[section] = value >= 0 ? this.add(source, value) : value;
+            }
+
+            return merged;
+        }
+
+        private static int[] newSections(long[] mask, long[] emptyMask) {
+            int length = Math.max(bitLength(mask), bitLength(emptyMask));
+            int[] sections = new int[length];
+            Arrays.fill(sections, ABSENT);
+            for (int section = 0; section < length; section++) {
+                if (isSet(emptyMask, section)) {
+                    sections[section] = uniform(0);
+                }
+            }
+
+            return sections;
+        }
+
+        /**
+         * Adds an array, returning its uniform value, or the index of the array to be replaced by
+         * its offset once the buffer is built.
+         */
+        private int add(ByteBuf source, int offset) {
+            int uniform = uniformLevel(source, offset);
+            if (uniform >= 0) {
+                return uniform(uniform);
+            }
+
+            if (this.count == this.sources.length) {
+                this.sources = Arrays.copyOf(this.sources, this.count * 2);
+                this.offsets = Arrays.copyOf(this.offsets, this.count * 2);
+            }
+
+            this.sources[this.count] = source;
+            this.offsets[this.count] = offset;
+            return this.count++ * SECTION_SIZE;
+        }
+
+        private ByteBuf build(ByteBufAllocator allocator) {
+            if (this.count == 0) {
+                return Unpooled.EMPTY_BUFFER;
+            }
+
+            ByteBuf buffer = allocator.buffer(this.count * SECTION_SIZE);
+            for (int i = 0; i < this.count; i++) {
+                buffer.writeBytes(this.sources[i], this.offsets[i], SECTION_SIZE);
+            }
+
+            return buffer;
+        }
+
+        private static int uniformLevel(ByteBuf source, int offset) {
+            byte first = source.getByte(offset);
+            if ((first >> 4 & 15) != (first & 15)) {
+                return -1;
+            }
+
+            long pattern = (first & 0xFFL) * 0x0101010101010101L;
+            for (int i = 0; i < SECTION_SIZE; i += Long.BYTES) {
+                if (source.getLong(offset + i) != pattern) {
+                    return -1;
+                }
+            }
+
+            return first & 15;
+        }
+
+        private static int uniform(int level) {
+            return -level - 2;
+        }
+
+        private static int cardinality(long[] mask) {
+            int count = 0;
+            for (long word : mask) {
+                count += Long.bitCount(word);
+            }
+
+            return count;
+        }
+
+        private static int bitLength(long[] mask) {
+            for (int word = mask.length - 1; word >= 0; word--) {
+                if (mask[word] != 0) {
+                    return word * Long.SIZE + Long.SIZE - Long.numberOfLeadingZeros(mask[word]);
+                }
+            }
+
+            return 0;
+        }
+
+        private static int nextSetBit(long[] mask, int from) {
+            for (int bit = from; bit < mask.length * Long.SIZE; bit++) {
+                if (isSet(mask, bit)) {
+                    return bit;
+                }
+            }
+
+            return -1;
+        }
+    }
+}
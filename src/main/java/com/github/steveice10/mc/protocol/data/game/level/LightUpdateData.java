@@ -2,26 +2,124 @@ package com.github.steveice10.mc.protocol.data.game.level;
 
 import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
 import io.netty.buffer.ByteBuf;
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.ToString;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
 
-@Data
-@AllArgsConstructor
+@ToString
+@EqualsAndHashCode
 public class LightUpdateData {
-    private final @NonNull BitSet skyYMask;
-    private final @NonNull BitSet blockYMask;
-    private final @NonNull BitSet emptySkyYMask;
-    private final @NonNull BitSet emptyBlockYMask;
-    private final @NonNull List<byte[]> skyUpdates;
-    private final @NonNull List<byte[]> blockUpdates;
+    private BitSet skyYMask;
+    private BitSet blockYMask;
+    private BitSet emptySkyYMask;
+    private BitSet emptyBlockYMask;
+    private List<byte[]> skyUpdates;
+    private List<byte[]> blockUpdates;
+    @Getter
     private final boolean trustEdges;
 
+    /**
+     * The compact light data this data is backed by, if it was read in compact mode and none of
+     * the masks or arrays have been accessed since.
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile CompactLightData compact;
+
+    public LightUpdateData(@NonNull BitSet skyYMask, @NonNull BitSet blockYMask, @NonNull BitSet emptySkyYMask, @NonNull BitSet emptyBlockYMask,
+                           @NonNull List<byte[]> skyUpdates, @NonNull List<byte[]> blockUpdates, boolean trustEdges) {
+        this.skyYMask = skyYMask;
+        this.blockYMask = blockYMask;
+        this.emptySkyYMask = emptySkyYMask;
+        this.emptyBlockYMask = emptyBlockYMask;
+        this.skyUpdates = skyUpdates;
+        this.blockUpdates = blockUpdates;
+        this.trustEdges = trustEdges;
+    }
+
+    /**
+     * Creates light update data backed by compact light data. The masks and per-section arrays
+     * are only created if they are accessed. Since they may then be modified, the data stops being
+     * backed by the compact data at that point, and is written from the arrays.
+     *
+     * @param compact the compact light data
+     */
+    public LightUpdateData(@NonNull CompactLightData compact) {
+        this.trustEdges = compact.isTrustEdges();
+        this.compact = compact;
+    }
+
+    private void expand() {
+        // Only data read in compact mode has to be expanded, and only once.
+        if (this.compact == null) {
+            return;
+        }
+
+        synchronized (this) {
+            CompactLightData compact = this.compact;
+            if (compact == null) {
+                return;
+            }
+
+            LightUpdateData expanded = compact.toLightUpdateData();
+            this.skyYMask = expanded.skyYMask;
+            this.blockYMask = expanded.blockYMask;
+            this.emptySkyYMask = expanded.emptySkyYMask;
+            this.emptyBlockYMask = expanded.emptyBlockYMask;
+            this.skyUpdates = expanded.skyUpdates;
+            this.blockUpdates = expanded.blockUpdates;
+            this.compact = null;
+        }
+    }
+
+    /**
+     * Gets the compact light data backing this data.
+     *
+     * @return the compact light data, or null if this data holds separate arrays, including
+     * after they have been accessed
+     */
+    @Nullable
+    public CompactLightData getCompact() {
+        return this.compact;
+    }
+
+    public BitSet getSkyYMask() {
+        this.expand();
+        return this.skyYMask;
+    }
+
+    public BitSet getBlockYMask() {
+        this.expand();
+        return this.blockYMask;
+    }
+
+    public BitSet getEmptySkyYMask() {
+        this.expand();
+        return this.emptySkyYMask;
+    }
+
+    public BitSet getEmptyBlockYMask() {
+        this.expand();
+        return this.emptyBlockYMask;
+    }
+
+    public List<byte[]> getSkyUpdates() {
+        this.expand();
+        return this.skyUpdates;
+    }
+
+    public List<byte[]> getBlockUpdates() {
+        this.expand();
+        return this.blockUpdates;
+    }
+
     public static LightUpdateData read(ByteBuf in, MinecraftCodecHelper helper) throws IOException {
         return new LightUpdateData(in, helper);
     }
@@ -52,6 +150,12 @@ public class LightUpdateData {
     }
 
     private void write(ByteBuf out, MinecraftCodecHelper helper) throws IOException {
+        CompactLightData compact = this.compact;
+        if (compact != null) {
+            compact.write(out, helper);
+            return;
+        }
+
         out.writeBoolean(this.trustEdges);
 
         writeBitSet(out, helper, this.skyYMask);
@@ -0,0 +1,67 @@
+package com.github.steveice10.mc.protocol.data.game.registry;
+
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundLoginPacket;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.Tag;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An indexed view of the registry tag sent in the {@link ClientboundLoginPacket}.
+ * <p>
+ * Views, and the tags they are built from, may be shared between sessions by a
+ * {@link com.github.steveice10.mc.protocol.codec.RegistryCache}, so neither should be modified.
+ */
+public final class GameRegistry {
+    public static final String DIMENSION_TYPE = "minecraft:dimension_type";
+    public static final String BIOME = "minecraft:worldgen/biome";
+    public static final String CHAT_TYPE = "minecraft:chat_type";
+
+    /**
+     * The registry tag this view was built from.
+     */
+    @Getter
+    private final CompoundTag tag;
+    private final Map<String, Registry> registries = new HashMap<>();
+
+    /**
+     * Indexes every registry of a registry tag.
+     *
+     * @param tag the registry tag
+     * @throws IOException if a registry is malformed
+     */
+    public GameRegistry(@NonNull CompoundTag tag) throws IOException {
+        this.tag = tag;
+        for (Tag registry : tag) {
+            if (registry instanceof CompoundTag) {
+                this.registries.put(registry.getName(), Registry.of((CompoundTag) registry));
+            }
+        }
+    }
+
+    /**
+     * Gets a registry by its type.
+     *
+     * @param type the registry type, such as {@link #DIMENSION_TYPE}
+     * @return the registry, which is empty if the tag does not contain it
+     */
+    public Registry getRegistry(String type) {
+        return this.registries.getOrDefault(type, Registry.EMPTY);
+    }
+
+    public Registry getDimensionTypes() {
+        return this.getRegistry(DIMENSION_TYPE);
+    }
+
+    public Registry getBiomes() {
+        return this.getRegistry(BIOME);
+    }
+
+    public Registry getChatTypes() {
+        return this.getRegistry(CHAT_TYPE);
+    }
+}
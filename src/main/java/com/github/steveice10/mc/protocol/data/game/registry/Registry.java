@@ -0,0 +1,113 @@
+package com.github.steveice10.mc.protocol.data.game.registry;
+
+import com.github.steveice10.mc.protocol.data.game.Identifier;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.IntTag;
+import com.github.steveice10.opennbt.tag.builtin.ListTag;
+import com.github.steveice10.opennbt.tag.builtin.StringTag;
+import com.github.steveice10.opennbt.tag.builtin.Tag;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * One registry from a {@link GameRegistry}, such as the dimension types, indexed by network id and by name.
+ */
+public final class Registry {
+    static final Registry EMPTY = new Registry("", new Int2ObjectOpenHashMap<>(), new Object2IntOpenHashMap<>());
+
+    /**
+     * The registry type, such as {@code minecraft:dimension_type}.
+     */
+    @Getter
+    private final String type;
+    private final Int2ObjectMap<CompoundTag> elementsById;
+    private final Object2IntMap<String> idsByName;
+
+    private Registry(String type, Int2ObjectMap<CompoundTag> elementsById, Object2IntMap<String> idsByName) {
+        this.type = type;
+        this.elementsById = elementsById;
+        this.idsByName = idsByName;
+        this.idsByName.defaultReturnValue(-1);
+    }
+
+    static Registry of(CompoundTag tag) throws IOException {
+        Tag entries = tag.get("value");
+        if (entries == null) {
+            return EMPTY;
+        }
+
+        if (!(entries instanceof ListTag)) {
+            throw new IOException("Expected list of entries in registry " + tag.getName());
+        }
+
+        ListTag list = (ListTag) entries;
+        Int2ObjectMap<CompoundTag> elementsById = new Int2ObjectOpenHashMap<>(list.size());
+        Object2IntMap<String> idsByName = new Object2IntOpenHashMap<>(list.size());
+        for (Tag entryTag : list) {
+            if (!(entryTag instanceof CompoundTag)) {
+                throw new IOException("Expected compound entry in registry " + tag.getName());
+            }
+
+            CompoundTag entry = (CompoundTag) entryTag;
+            Tag id = entry.get("id");
+            Tag name = entry.get("name");
+            Tag element = entry.get("element");
+            if (!(id instanceof IntTag) || !(name instanceof StringTag) || (element != null && !(element instanceof CompoundTag))) {
+                throw new IOException("Malformed entry in registry " + tag.getName());
+            }
+
+            int networkId = ((IntTag) id).getValue();
+            if (networkId < 0) {
+                throw new IOException("Negative id " + networkId + " in registry " + tag.getName());
+            }
+
+            elementsById.put(networkId, (CompoundTag) element);
+            idsByName.put(Identifier.formalize(((StringTag) name).getValue()), networkId);
+        }
+
+        Tag type = tag.get("type");
+        return new Registry(type instanceof StringTag ? ((StringTag) type).getValue() : "", elementsById, idsByName);
+    }
+
+    /**
+     * Gets an element by its network id.
+     *
+     * @param id the network id
+     * @return the element, or null if there is none with the id
+     */
+    @Nullable
+    public CompoundTag get(int id) {
+        return this.elementsById.get(id);
+    }
+
+    /**
+     * Gets an element by its name.
+     *
+     * @param name the name, with or without the {@code minecraft:} namespace
+     * @return the element, or null if there is none with the name
+     */
+    @Nullable
+    public CompoundTag get(String name) {
+        return this.get(this.getId(name));
+    }
+
+    /**
+     * Gets the network id of an element.
+     *
+     * @param name the name, with or without the {@code minecraft:} namespace
+     * @return the network id, or -1 if there is no element with the name
+     */
+    public int getId(String name) {
+        return this.idsByName.getInt(Identifier.formalize(name));
+    }
+
+    public int size() {
+        return this.idsByName.size();
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.steveice10.mc.protocol.metrics;
+
+import com.github.steveice10.packetlib.codec.PacketCodecHelper;
+import com.github.steveice10.packetlib.codec.PacketDefinition;
+import com.github.steveice10.packetlib.codec.PacketSerializer;
+import com.github.steveice10.packetlib.packet.Packet;
+import io.netty.buffer.ByteBuf;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+
+/**
+ * Wraps a serializer to record encode sizes and latencies.
+ */
+@RequiredArgsConstructor
+class MeteredSerializer<T extends Packet, H extends PacketCodecHelper> implements PacketSerializer<T, H> {
+    private final PacketSerializer<T, H> serializer;
+    private final PacketStats stats;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static PacketDefinition<?, ?> wrap(PacketDefinition<?, ?> definition, PacketStats stats) {
+        PacketDefinition raw = definition;
+        return new PacketDefinition(raw.getId(), raw.getPacketClass(), new MeteredSerializer<>(raw.getSerializer(), stats));
+    }
+
+    @Override
+    public void serialize(ByteBuf buf, H helper, T packet) throws IOException {
+        int start = buf.writerIndex();
+        long startTime = System.nanoTime();
+        this.serializer.serialize(buf, helper, packet);
+        this.stats.recordEncode(buf.writerIndex() - start, System.nanoTime() - startTime);
+    }
+
+    @Override
+    public T deserialize(ByteBuf buf, H helper, PacketDefinition<T, H> definition) throws IOException {
+        return this.serializer.deserialize(buf, helper, definition);
+    }
+}
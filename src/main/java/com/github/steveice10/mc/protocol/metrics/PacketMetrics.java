@@ -0,0 +1,122 @@
+package com.github.steveice10.mc.protocol.metrics;
+
+import com.github.steveice10.mc.protocol.MinecraftProtocol;
+import com.github.steveice10.mc.protocol.capture.PacketDirection;
+import com.github.steveice10.mc.protocol.data.ProtocolState;
+import com.github.steveice10.packetlib.codec.PacketDefinition;
+import com.github.steveice10.packetlib.packet.Packet;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Collects per packet type counts, byte totals and latency histograms.
+ * <p>
+ * Metrics are enabled for a session with {@link MinecraftProtocol#setMetrics(PacketMetrics)}, and
+ * one instance may be shared by any number of sessions. Recording only uses striped counters and
+ * atomic increments, so it never blocks. Statistics are created the first time a packet type is
+ * seen and can be pulled with {@link #getStats()} for export. Packet ids of {@link #MAX_ID} and
+ * above are not recorded.
+ */
+public class PacketMetrics {
+    public static final int MAX_ID = 256;
+
+    private static final ProtocolState[] STATES = ProtocolState.values();
+    private static final PacketDirection[] DIRECTIONS = PacketDirection.values();
+
+    private final AtomicReferenceArray<PacketStats> stats = new AtomicReferenceArray<>(STATES.length * DIRECTIONS.length * MAX_ID);
+
+    private static int index(ProtocolState state, PacketDirection direction, int id) {
+        return (state.ordinal() * DIRECTIONS.length + direction.ordinal()) * MAX_ID + id;
+    }
+
+    private @Nullable PacketStats stats(ProtocolState state, PacketDirection direction, int id, @Nullable Class<? extends Packet> packetClass) {
+        if (id < 0 || id >= MAX_ID) {
+            return null;
+        }
+
+        int index = index(state, direction, id);
+        PacketStats stats = this.stats.get(index);
+        if (stats == null) {
+            stats = new PacketStats(state, direction, id, packetClass);
+            if (!this.stats.compareAndSet(index, null, stats)) {
+                stats = this.stats.get(index);
+            }
+        }
+
+        return stats;
+    }
+
+    /**
+     * Records a decoded packet.
+     *
+     * @param state       the state the packet was received in
+     * @param direction   the direction of the packet
+     * @param id          the packet id
+     * @param packetClass the packet class, if known
+     * @param bytes       the uncompressed size of the packet body
+     * @param nanos       how long decoding took
+     */
+    public void recordDecode(ProtocolState state, PacketDirection direction, int id, @Nullable Class<? extends Packet> packetClass, int bytes, long nanos) {
+        PacketStats stats = this.stats(state, direction, id, packetClass);
+        if (stats != null) {
+            stats.recordDecode(bytes, nanos);
+        }
+    }
+
+    /**
+     * Wraps a packet definition so that serializing a packet through it records the encode.
+     *
+     * @param state      the state the packet is sent in
+     * @param direction  the direction of the packet
+     * @param definition the definition to wrap
+     * @return the instrumented definition
+     */
+    public PacketDefinition<?, ?> instrument(ProtocolState state, PacketDirection direction, PacketDefinition<?, ?> definition) {
+        PacketStats stats = this.stats(state, direction, definition.getId(), definition.getPacketClass());
+        return stats != null ? stats.getMetered(definition) : definition;
+    }
+
+    /**
+     * Gets the statistics of one packet type.
+     *
+     * @param state     the protocol state
+     * @param direction the packet direction
+     * @param id        the packet id
+     * @return the statistics, or null if the packet type has not been seen
+     */
+    public @Nullable PacketStats getStats(ProtocolState state, PacketDirection direction, int id) {
+        return id >= 0 && id < MAX_ID ? this.stats.get(index(state, direction, id)) : null;
+    }
+
+    /**
+     * Gets the statistics of every packet type seen so far.
+     *
+     * @return the statistics, ordered by state, direction and id
+     */
+    public List<PacketStats> getStats() {
+        List<PacketStats> result = new ArrayList<>();
+        for (int i = 0; i < this.stats.length(); i++) {
+            PacketStats stats = this.stats.get(i);
+            if (stats != null) {
+                result.add(stats);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Clears all recorded values, keeping the packet types seen so far.
+     */
+    public void reset() {
+        for (int i = 0; i < this.stats.length(); i++) {
+            PacketStats stats = this.stats.get(i);
+            if (stats != null) {
+                stats.reset();
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.steveice10.mc.protocol.metrics;
+
+import com.github.steveice10.mc.protocol.capture.PacketDirection;
+import com.github.steveice10.mc.protocol.data.ProtocolState;
+import com.github.steveice10.packetlib.codec.PacketDefinition;
+import com.github.steveice10.packetlib.packet.Packet;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics for one packet type, identified by protocol state, direction and packet id.
+ */
+public class PacketStats {
+    @Getter
+    private final ProtocolState state;
+    @Getter
+    private final PacketDirection direction;
+    @Getter
+    private final int id;
+    /**
+     * The class of the packet, or null if the id is unknown to the codec.
+     */
+    @Getter
+    private final @Nullable Class<? extends Packet> packetClass;
+
+    private final LongAdder decoded = new LongAdder();
+    private final LongAdder encoded = new LongAdder();
+    private final LongAdder decodedBytes = new LongAdder();
+    private final LongAdder encodedBytes = new LongAdder();
+    /**
+     * How long {@code createClientboundPacket} or {@code createServerboundPacket} took.
+     */
+    @Getter
+    private final LatencyHistogram decodeLatency = new LatencyHistogram();
+    /**
+     * How long serializing the packet took.
+     */
+    @Getter
+    private final LatencyHistogram encodeLatency = new LatencyHistogram();
+
+    private volatile Metered metered;
+
+    PacketStats(ProtocolState state, PacketDirection direction, int id, @Nullable Class<? extends Packet> packetClass) {
+        this.state = state;
+        this.direction = direction;
+        this.id = id;
+        this.packetClass = packetClass;
+    }
+
+    void recordDecode(int bytes, long nanos) {
+        this.decoded.increment();
+        this.decodedBytes.add(bytes);
+        this.decodeLatency.record(nanos);
+    }
+
+    void recordEncode(int bytes, long nanos) {
+        this.encoded.increment();
+        this.encodedBytes.add(bytes);
+        this.encodeLatency.record(nanos);
+    }
+
+    PacketDefinition<?, ?> getMetered(PacketDefinition<?, ?> definition) {
+        Metered metered = this.metered;
+        if (metered == null || metered.source != definition) {
+            metered = new Metered(definition, MeteredSerializer.wrap(definition, this));
+            this.metered = metered;
+        }
+
+        return metered.definition;
+    }
+
+    /**
+     * Gets the number of packets decoded.
+     *
+     * @return the decode count
+     */
+    public long getDecodedCount() {
+        return this.decoded.sum();
+    }
+
+    /**
+     * Gets the number of packets encoded.
+     *
+     * @return the encode count
+     */
+    public long getEncodedCount() {
+        return this.encoded.sum();
+    }
+
+    /**
+     * Gets the total uncompressed size of decoded packet bodies.
+     *
+     * @return the decoded bytes, excluding packet ids
+     */
+    public long getDecodedBytes() {
+        return this.decodedBytes.sum();
+    }
+
+    /**
+     * Gets the total uncompressed size of encoded packet bodies.
+     *
+     * @return the encoded bytes, excluding packet ids
+     */
+    public long getEncodedBytes() {
+        return this.encodedBytes.sum();
+    }
+
+    void reset() {
+        this.decoded.reset();
+        this.encoded.reset();
+        this.decodedBytes.reset();
+        this.encodedBytes.reset();
+        this.decodeLatency.reset();
+        this.encodeLatency.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "PacketStats(state=" + this.state + ", direction=" + this.direction + ", id=" + this.id
+                + ", packetClass=" + (this.packetClass != null ? this.packetClass.getSimpleName() : null)
+                + ", decoded=" + this.getDecodedCount() + ", encoded=" + this.getEncodedCount()
+                + ", decodedBytes=" + this.getDecodedBytes() + ", encodedBytes=" + this.getEncodedBytes() + ")";
+    }
+
+    /**
+     * The instrumented definition handed out for encoding, along with the definition it wraps.
+     */
+    @RequiredArgsConstructor
+    private static class Metered {
+        private final PacketDefinition<?, ?> source;
+        private final PacketDefinition<?, ?> definition;
+    }
+}
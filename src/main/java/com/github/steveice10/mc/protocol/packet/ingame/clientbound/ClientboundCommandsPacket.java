@@ -38,10 +38,7 @@ public class ClientboundCommandsPacket implements MinecraftPacket {
             CommandType type = MagicValues.key(CommandType.class, flags & FLAG_TYPE_MASK);
             boolean executable = (flags & FLAG_EXECUTABLE) != 0;
 
-            int[] children = new int[helper.readVarInt(in)];
-            for (int j = 0; j < children.length; j++) {
-                children[j] = helper.readVarInt(in);
-            }
+            int[] children = helper.readVarIntArray(in);
 
             int redirectIndex = -1;
             if ((flags & FLAG_REDIRECT) != 0) {
@@ -171,10 +168,7 @@ public class ClientboundCommandsPacket implements MinecraftPacket {
 
             out.writeByte(flags);
 
-            helper.writeVarInt(out, node.getChildIndices().length);
-            for (int childIndex : node.getChildIndices()) {
-                helper.writeVarInt(out, childIndex);
-            }
+            helper.writeVarIntArray(out, node.getChildIndices());
 
             if (node.getRedirectIndex() != -1) {
                 helper.writeVarInt(out, node.getRedirectIndex());
@@ -47,7 +47,7 @@ public class ClientboundLoginPacket implements MinecraftPacket {
         for (int i = 0; i < worldCount; i++) {
             this.worldNames[i] = helper.readString(in);
         }
-        this.registry = helper.readTag(in);
+        this.registry = helper.readRegistry(in);
         this.dimension = helper.readString(in);
         this.worldName = helper.readString(in);
         this.hashedSeed = in.readLong();
@@ -14,10 +14,6 @@ import lombok.With;
 import net.kyori.adventure.text.Component;
 
 import java.io.IOException;
-import java.security.GeneralSecurityException;
-import java.security.KeyFactory;
-import java.security.PublicKey;
-import java.security.spec.X509EncodedKeySpec;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
@@ -40,7 +36,8 @@ public class ClientboundPlayerInfoUpdatePacket implements MinecraftPacket {
                     case ADD_PLAYER: {
                         GameProfile profile = new GameProfile(entry.getProfile().getId(), helper.readString(in, 16));
                         int propertyCount = helper.readVarInt(in);
-                        List<GameProfile.Property> propertyList = new ArrayList<>();
+                        // The count is untrusted, so the list is never sized beyond the bytes that are left.
+                        List<GameProfile.Property> propertyList = new ArrayList<>(Math.min(propertyCount, in.readableBytes()));
                         for (int index = 0; index < propertyCount; index++) {
                             propertyList.add(helper.readProperty(in));
                         }
@@ -54,17 +51,8 @@ public class ClientboundPlayerInfoUpdatePacket implements MinecraftPacket {
                         if (in.readBoolean()) {
                             entry.setSessionId(helper.readUUID(in));
                             entry.setExpiresAt(in.readLong());
-                            byte[] keyBytes = helper.readByteArray(in);
+                            entry.setPublicKey(helper.readPublicKey(in));
                             entry.setKeySignature(helper.readByteArray(in));
-
-                            PublicKey publicKey;
-                            try {
-                                publicKey = KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(keyBytes));
-                            } catch (GeneralSecurityException e) {
-                                throw new IOException("Could not decode public key.", e);
-                            }
-
-                            entry.setPublicKey(publicKey);
                         }
                         break;
                     }
@@ -108,6 +96,7 @@ public class ClientboundPlayerInfoUpdatePacket implements MinecraftPacket {
                 switch (action) {
                     case ADD_PLAYER:
                         helper.writeString(out, entry.getProfile().getName());
+                        helper.writeVarInt(out, entry.getProfile().getProperties().size());
                         for (GameProfile.Property property : entry.getProfile().getProperties()) {
                             helper.writeProperty(out, property);
                         }
@@ -17,9 +17,14 @@ import java.util.Map;
 @With
 @AllArgsConstructor
 public class ClientboundUpdateTagsPacket implements MinecraftPacket {
-    private final @NonNull Map<String, Map<String, int[]>> tags = new HashMap<>();
+    private final @NonNull Map<String, Map<String, int[]>> tags;
+
+    public ClientboundUpdateTagsPacket() {
+        this.tags = new HashMap<>();
+    }
 
     public ClientboundUpdateTagsPacket(ByteBuf in, MinecraftCodecHelper helper) throws IOException {
+        this.tags = new HashMap<>();
         int totalTagCount = helper.readVarInt(in);
         for (int i = 0; i < totalTagCount; i++) {
             Map<String, int[]> tag = new HashMap<>();
@@ -27,13 +32,7 @@ public class ClientboundUpdateTagsPacket implements MinecraftPacket {
             int tagsCount = helper.readVarInt(in);
             for (int j = 0; j < tagsCount; j++) {
                 String name = helper.readString(in);
-                int entriesCount = helper.readVarInt(in);
-                int[] entries = new int[entriesCount];
-                for (int index = 0; index < entriesCount; index++) {
-                    entries[index] = helper.readVarInt(in);
-                }
-
-                tag.put(name, entries);
+                tag.put(name, helper.readVarIntArray(in));
             }
             tags.put(tagName, tag);
         }
@@ -47,10 +46,7 @@ public class ClientboundUpdateTagsPacket implements MinecraftPacket {
             helper.writeVarInt(out, tagSet.getValue().size());
             for (Map.Entry<String, int[]> tag : tagSet.getValue().entrySet()) {
                 helper.writeString(out, tag.getKey());
-                helper.writeVarInt(out, tag.getValue().length);
-                for (int id : tag.getValue()) {
-                    helper.writeVarInt(out, id);
-                }
+                helper.writeVarIntArray(out, tag.getValue());
             }
         }
     }
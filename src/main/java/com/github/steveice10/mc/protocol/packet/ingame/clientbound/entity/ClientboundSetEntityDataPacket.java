@@ -3,6 +3,7 @@ package com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity;
 import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
 import com.github.steveice10.mc.protocol.codec.MinecraftPacket;
 import com.github.steveice10.mc.protocol.data.game.entity.metadata.EntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.EntityMetadataMap;
 import io.netty.buffer.ByteBuf;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -23,6 +24,15 @@ public class ClientboundSetEntityDataPacket implements MinecraftPacket {
         this.metadata = helper.readEntityMetadata(in);
     }
 
+    /**
+     * Builds a map of the metadata of the update. If a slot is sent more than once, the last value wins.
+     *
+     * @return a new map of the metadata
+     */
+    public EntityMetadataMap toMetadataMap() {
+        return EntityMetadataMap.of(this.metadata);
+    }
+
     @Override
     public void serialize(ByteBuf out, MinecraftCodecHelper helper) throws IOException {
         helper.writeVarInt(out, this.entityId);
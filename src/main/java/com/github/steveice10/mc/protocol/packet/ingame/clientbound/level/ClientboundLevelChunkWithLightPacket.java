@@ -2,32 +2,86 @@ package com.github.steveice10.mc.protocol.packet.ingame.clientbound.level;
 
 import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
 import com.github.steveice10.mc.protocol.codec.MinecraftPacket;
+import com.github.steveice10.mc.protocol.codec.NBTCodec;
 import com.github.steveice10.mc.protocol.data.game.level.LightUpdateData;
 import com.github.steveice10.mc.protocol.data.game.level.block.BlockEntityInfo;
 import com.github.steveice10.mc.protocol.data.game.level.block.BlockEntityType;
 import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
 import io.netty.buffer.ByteBuf;
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import io.netty.util.ReferenceCounted;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NonNull;
-import lombok.With;
+import lombok.ToString;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
-@Data
-@With
-@AllArgsConstructor
-public class ClientboundLevelChunkWithLightPacket implements MinecraftPacket {
+/**
+ * A full chunk with its light data.
+ * <p>
+ * If {@link MinecraftCodecHelper#isOpaqueChunks()} is enabled, received packets only decode their
+ * position and keep the rest of their payload as a retained slice of the input buffer. The payload is
+ * decoded the first time one of the other getters is called. Until then,
+ * {@link #serialize(ByteBuf, MinecraftCodecHelper)} writes it back with a single copy; afterwards it writes the
+ * decoded fields, so edits made through the getters are kept when the packet is forwarded. Opaque packets are reference counted through that slice: the session
+ * releases them once listeners have run, so {@link #retain()} a packet before holding on to it or forwarding it.
+ */
+@ToString
+@EqualsAndHashCode
+public class ClientboundLevelChunkWithLightPacket implements MinecraftPacket, ReferenceCounted {
+    @Getter
     private final int x;
+    @Getter
     private final int z;
-    private final @NonNull byte[] chunkData;
-    private final @NonNull CompoundTag heightMaps;
-    private final @NonNull BlockEntityInfo[] blockEntities;
-    private final @NonNull LightUpdateData lightData;
+    private byte[] chunkData;
+    private CompoundTag heightMaps;
+    private BlockEntityInfo[] blockEntities;
+    private LightUpdateData lightData;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final ByteBuf opaqueData;
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final MinecraftCodecHelper helper;
+    /**
+     * Whether the body fields are set. Written after them, so a getter that reads true also sees the fields.
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile boolean decoded;
+
+    public ClientboundLevelChunkWithLightPacket(int x, int z, @NonNull byte[] chunkData, @NonNull CompoundTag heightMaps, @NonNull BlockEntityInfo[] blockEntities, @NonNull LightUpdateData lightData) {
+        this.x = x;
+        this.z = z;
+        this.chunkData = chunkData;
+        this.heightMaps = heightMaps;
+        this.blockEntities = blockEntities;
+        this.lightData = lightData;
+        this.opaqueData = null;
+        this.helper = null;
+        this.decoded = true;
+    }
 
     public ClientboundLevelChunkWithLightPacket(ByteBuf in, MinecraftCodecHelper helper) throws IOException {
         this.x = in.readInt();
         this.z = in.readInt();
+
+        if (helper.isOpaqueChunks()) {
+            int start = in.readerIndex();
+            skipBody(in, helper);
+            this.opaqueData = in.retainedSlice(start, in.readerIndex() - start);
+            this.helper = helper;
+        } else {
+            this.readBody(in, helper);
+            this.opaqueData = null;
+            this.helper = null;
+            this.decoded = true;
+        }
+    }
+
+    private void readBody(ByteBuf in, MinecraftCodecHelper helper) throws IOException {
         this.heightMaps = helper.readTag(in);
         this.chunkData = helper.readByteArray(in);
 
@@ -45,10 +99,114 @@ public class ClientboundLevelChunkWithLightPacket implements MinecraftPacket {
         this.lightData = helper.readLightUpdateData(in);
     }
 
+    private static void skipBody(ByteBuf in, MinecraftCodecHelper helper) throws IOException {
+        NBTCodec.skipTag(in, false);
+        in.skipBytes(helper.readVarInt(in));
+
+        int blockEntityCount = helper.readVarInt(in);
+        for (int i = 0; i < blockEntityCount; i++) {
+            in.skipBytes(Byte.BYTES + Short.BYTES);
+            helper.readVarInt(in);
+            NBTCodec.skipTag(in, false);
+        }
+
+        in.skipBytes(1);
+        for (int i = 0; i < 4; i++) {
+            in.skipBytes(helper.readVarInt(in) * Long.BYTES);
+        }
+
+        for (int i = 0; i < 2; i++) {
+            int updateCount = helper.readVarInt(in);
+            for (int j = 0; j < updateCount; j++) {
+                in.skipBytes(helper.readVarInt(in));
+            }
+        }
+    }
+
+    private void decodeOpaqueData() {
+        if (this.decoded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (this.decoded) {
+                return;
+            }
+
+            try {
+                this.readBody(this.opaqueData.duplicate(), this.helper);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to decode opaque chunk data.", e);
+            }
+
+            this.decoded = true;
+        }
+    }
+
+    /**
+     * Whether this packet was decoded in opaque mode and still holds its encoded payload. The payload
+     * is held even once decoded, as it backs the reference count.
+     *
+     * @return true if the packet is backed by a buffer slice
+     */
+    public boolean isOpaque() {
+        return this.opaqueData != null;
+    }
+
+    public byte[] getChunkData() {
+        this.decodeOpaqueData();
+        return this.chunkData;
+    }
+
+    public CompoundTag getHeightMaps() {
+        this.decodeOpaqueData();
+        return this.heightMaps;
+    }
+
+    public BlockEntityInfo[] getBlockEntities() {
+        this.decodeOpaqueData();
+        return this.blockEntities;
+    }
+
+    public LightUpdateData getLightData() {
+        this.decodeOpaqueData();
+        return this.lightData;
+    }
+
+    public ClientboundLevelChunkWithLightPacket withX(int x) {
+        return this.x == x ? this : new ClientboundLevelChunkWithLightPacket(x, this.z, this.getChunkData(), this.getHeightMaps(), this.getBlockEntities(), this.getLightData());
+    }
+
+    public ClientboundLevelChunkWithLightPacket withZ(int z) {
+        return this.z == z ? this : new ClientboundLevelChunkWithLightPacket(this.x, z, this.getChunkData(), this.getHeightMaps(), this.getBlockEntities(), this.getLightData());
+    }
+
+    public ClientboundLevelChunkWithLightPacket withChunkData(@NonNull byte[] chunkData) {
+        return new ClientboundLevelChunkWithLightPacket(this.x, this.z, chunkData, this.getHeightMaps(), this.getBlockEntities(), this.getLightData());
+    }
+
+    public ClientboundLevelChunkWithLightPacket withHeightMaps(@NonNull CompoundTag heightMaps) {
+        return new ClientboundLevelChunkWithLightPacket(this.x, this.z, this.getChunkData(), heightMaps, this.getBlockEntities(), this.getLightData());
+    }
+
+    public ClientboundLevelChunkWithLightPacket withBlockEntities(@NonNull BlockEntityInfo[] blockEntities) {
+        return new ClientboundLevelChunkWithLightPacket(this.x, this.z, this.getChunkData(), this.getHeightMaps(), blockEntities, this.getLightData());
+    }
+
+    public ClientboundLevelChunkWithLightPacket withLightData(@NonNull LightUpdateData lightData) {
+        return new ClientboundLevelChunkWithLightPacket(this.x, this.z, this.getChunkData(), this.getHeightMaps(), this.getBlockEntities(), lightData);
+    }
+
     @Override
     public void serialize(ByteBuf out, MinecraftCodecHelper helper) throws IOException {
         out.writeInt(this.x);
         out.writeInt(this.z);
+
+        if (!this.decoded) {
+            out.writeBytes(this.opaqueData, this.opaqueData.readerIndex(), this.opaqueData.readableBytes());
+            return;
+        }
+
         helper.writeTag(out, this.heightMaps);
         helper.writeVarInt(out, this.chunkData.length);
         out.writeBytes(this.chunkData);
@@ -63,4 +221,47 @@ public class ClientboundLevelChunkWithLightPacket implements MinecraftPacket {
 
         helper.writeLightUpdateData(out, this.lightData);
     }
-}
\ No newline at end of file
+
+    @Override
+    public int refCnt() {
+        return this.opaqueData != null ? this.opaqueData.refCnt() : 1;
+    }
+
+    @Override
+    public ClientboundLevelChunkWithLightPacket retain() {
+        if (this.opaqueData != null) {
+            this.opaqueData.retain();
+        }
+
+        return this;
+    }
+
+    @Override
+    public ClientboundLevelChunkWithLightPacket retain(int increment) {
+        if (this.opaqueData != null) {
+            this.opaqueData.retain(increment);
+        }
+
+        return this;
+    }
+
+    @Override
+    public ClientboundLevelChunkWithLightPacket touch() {
+        return this;
+    }
+
+    @Override
+    public ClientboundLevelChunkWithLightPacket touch(Object hint) {
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return this.opaqueData != null && this.opaqueData.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return this.opaqueData != null && this.opaqueData.release(decrement);
+    }
+}
@@ -8,10 +8,7 @@ import lombok.Data;
 import lombok.With;
 
 import java.io.IOException;
-import java.security.GeneralSecurityException;
-import java.security.KeyFactory;
 import java.security.PublicKey;
-import java.security.spec.X509EncodedKeySpec;
 import java.util.UUID;
 
 @Data
@@ -26,17 +23,8 @@ public class ServerboundChatSessionUpdatePacket implements MinecraftPacket {
     public ServerboundChatSessionUpdatePacket(ByteBuf in, MinecraftCodecHelper helper) throws IOException {
         this.sessionId = helper.readUUID(in);
         this.expiresAt = in.readLong();
-        byte[] keyBytes = helper.readByteArray(in);
+        this.publicKey = helper.readPublicKey(in);
         this.keySignature = helper.readByteArray(in);
-
-        PublicKey publicKey = null;
-        try {
-            publicKey = KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(keyBytes));
-        } catch (GeneralSecurityException e) {
-            throw new IOException("Could not decode public key.", e);
-        }
-
-        this.publicKey = publicKey;
     }
 
     @Override
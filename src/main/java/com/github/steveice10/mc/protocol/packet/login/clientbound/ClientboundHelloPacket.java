@@ -9,10 +9,7 @@ import lombok.NonNull;
 import lombok.With;
 
 import java.io.IOException;
-import java.security.GeneralSecurityException;
-import java.security.KeyFactory;
 import java.security.PublicKey;
-import java.security.spec.X509EncodedKeySpec;
 
 @Data
 @With
@@ -24,14 +21,8 @@ public class ClientboundHelloPacket implements MinecraftPacket {
 
     public ClientboundHelloPacket(ByteBuf in, MinecraftCodecHelper helper) throws IOException {
         this.serverId = helper.readString(in);
-        byte[] publicKey = helper.readByteArray(in);
+        this.publicKey = helper.readPublicKey(in);
         this.challenge = helper.readByteArray(in);
-
-        try {
-            this.publicKey = KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(publicKey));
-        } catch (GeneralSecurityException e) {
-            throw new IOException("Could not decode public key.", e);
-        }
     }
 
     @Override
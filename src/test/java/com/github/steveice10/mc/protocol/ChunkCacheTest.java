@@ -0,0 +1,145 @@
+package com.github.steveice10.mc.protocol;
+
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.data.game.chunk.ChunkSection;
+import com.github.steveice10.mc.protocol.data.game.entity.player.GameMode;
+import com.github.steveice10.mc.protocol.data.game.level.LightUpdateData;
+import com.github.steveice10.mc.protocol.data.game.level.block.BlockChangeEntry;
+import com.github.steveice10.mc.protocol.data.game.level.block.BlockEntityInfo;
+import com.github.steveice10.mc.protocol.data.game.registry.GameRegistry;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundLoginPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundBlockUpdatePacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundForgetLevelChunkPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundLevelChunkWithLightPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundLightUpdatePacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundSectionBlocksUpdatePacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundSetChunkCacheCenterPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundSetChunkCacheRadiusPacket;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.IntTag;
+import com.github.steveice10.opennbt.tag.builtin.ListTag;
+import com.github.steveice10.opennbt.tag.builtin.StringTag;
+import com.github.steveice10.opennbt.tag.builtin.Tag;
+import com.nukkitx.math.vector.Vector3i;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Collections;
+
+public class ChunkCacheTest {
+    private static ClientboundLevelChunkWithLightPacket chunk(int chunkX, int chunkZ) {
+        MinecraftCodecHelper helper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        ByteBuf buf = Unpooled.buffer();
+        for (int i = 0; i < 24; i++) {
+            ChunkSection section = new ChunkSection();
+            section.setBlock(1, 0, 0, 0);
+            section.setBlock(0, 0, 0, i + 1);
+            helper.writeChunkSection(buf, section);
+        }
+
+        return new ClientboundLevelChunkWithLightPacket(chunkX, chunkZ, ByteBufUtil.getBytes(buf), new CompoundTag("HeightMaps"), new BlockEntityInfo[0],
+                new LightUpdateData(new BitSet(), new BitSet(), new BitSet(), new BitSet(), Collections.emptyList(), Collections.emptyList(), false));
+    }
+
+    @Test
+    public void testBlockUpdates() {
+        ChunkCache cache = new ChunkCache();
+        cache.packetReceived(null, chunk(-1, 2));
+        Assert.assertTrue(cache.isLoaded(-1, 2));
+        long encodedSize = cache.getMemoryUsage(-1, 2);
+        Assert.assertTrue(encodedSize > 0);
+
+        Assert.assertEquals(1, cache.getBlock(-16, -64, 32));
+        Assert.assertEquals(5, cache.getBlock(-16, 0, 32));
+        Assert.assertEquals(0, cache.getBlock(-15, 0, 32));
+        Assert.assertEquals(0, cache.getBlock(0, 0, 0));
+        Assert.assertEquals(0, cache.getBlock(-16, 320, 32));
+
+        cache.packetReceived(null, new ClientboundBlockUpdatePacket(new BlockChangeEntry(Vector3i.from(-1, 100, 47), 42)));
+        Assert.assertEquals(42, cache.getBlock(-1, 100, 47));
+
+        cache.packetReceived(null, new ClientboundSectionBlocksUpdatePacket(-1, 0, 2, false,
+                new BlockChangeEntry(Vector3i.from(-16, 0, 32), 7),
+                new BlockChangeEntry(Vector3i.from(-10, 3, 40), 8)));
+        Assert.assertEquals(7, cache.getBlock(-16, 0, 32));
+        Assert.assertEquals(8, cache.getBlock(-10, 3, 40));
+        Assert.assertTrue(cache.getMemoryUsage() > 0);
+
+        byte[] light = new byte[2048];
+        light[0] = 9;
+        BitSet section = new BitSet();
+        section.set(5);
+        cache.packetReceived(null, new ClientboundLightUpdatePacket(-1, 2, section, new BitSet(), new BitSet(), new BitSet(),
+                Collections.singletonList(light), Collections.emptyList(), true));
+        Assert.assertEquals(9, cache.getSkyLight(-16, 0, 32));
+        Assert.assertEquals(0, cache.getBlockLight(-16, 0, 32));
+
+        cache.packetReceived(null, new ClientboundForgetLevelChunkPacket(-1, 2));
+        Assert.assertFalse(cache.isLoaded(-1, 2));
+        Assert.assertEquals(0, cache.getBlock(-16, 0, 32));
+    }
+
+    @Test
+    public void testEviction() {
+        ChunkCache cache = new ChunkCache();
+        cache.packetReceived(null, new ClientboundSetChunkCacheRadiusPacket(2));
+        for (int x = -10; x <= 10; x++) {
+            cache.packetReceived(null, chunk(x, 0));
+        }
+
+        Assert.assertEquals(21, cache.getLoadedChunkCount());
+        cache.packetReceived(null, new ClientboundSetChunkCacheCenterPacket(0, 0));
+        Assert.assertEquals(11, cache.getLoadedChunkCount());
+        for (int x = -5; x <= 5; x++) {
+            Assert.assertTrue(cache.isLoaded(x, 0));
+        }
+
+        cache.packetReceived(null, new ClientboundSetChunkCacheCenterPacket(5, 0));
+        Assert.assertEquals(6, cache.getLoadedChunkCount());
+        Assert.assertTrue(cache.isLoaded(0, 0));
+        Assert.assertFalse(cache.isLoaded(-1, 0));
+    }
+
+    @Test
+    public void testDimensionHeight() {
+        ChunkCache cache = new ChunkCache();
+        cache.packetReceived(null, login("minecraft:overworld", dimensionType("overworld", new IntTag("min_y", 0), new IntTag("height", 256))));
+        Assert.assertEquals(0, cache.getMinY());
+        Assert.assertEquals(16, cache.getSectionCount());
+
+        // A missing or wrongly typed height leaves the world height unchanged.
+        cache.packetReceived(null, login("minecraft:overworld", dimensionType("overworld", new IntTag("min_y", 0), new StringTag("height", "256"))));
+        Assert.assertEquals(16, cache.getSectionCount());
+        cache.packetReceived(null, login("minecraft:overworld", dimensionType("overworld", new IntTag("min_y", -64))));
+        Assert.assertEquals(0, cache.getMinY());
+    }
+
+    private static CompoundTag dimensionType(String name, Tag... values) {
+        CompoundTag element = new CompoundTag("element");
+        for (Tag value : values) {
+            element.put(value);
+        }
+
+        CompoundTag entry = new CompoundTag("");
+        entry.put(new StringTag("name", name));
+        entry.put(new IntTag("id", 0));
+        entry.put(element);
+        ListTag entries = new ListTag("value");
+        entries.add(entry);
+        CompoundTag dimensionTypes = new CompoundTag(GameRegistry.DIMENSION_TYPE);
+        dimensionTypes.put(entries);
+        CompoundTag registry = new CompoundTag("");
+        registry.put(dimensionTypes);
+        return registry;
+    }
+
+    private static ClientboundLoginPacket login(String dimension, CompoundTag registry) {
+        return new ClientboundLoginPacket(0, false, GameMode.SURVIVAL, null, new String[] {dimension}, registry, dimension, dimension,
+                0, 20, 10, 10, false, true, false, false, null);
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.steveice10.mc.protocol;
+
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.codec.MinecraftPacket;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.ItemStack;
+import com.github.steveice10.mc.protocol.data.game.inventory.ClickItemAction;
+import com.github.steveice10.mc.protocol.data.game.inventory.ContainerActionType;
+import com.github.steveice10.mc.protocol.data.game.inventory.ContainerType;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.inventory.ClientboundContainerClosePacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.inventory.ClientboundContainerSetContentPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.inventory.ClientboundContainerSetSlotPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.inventory.ClientboundOpenScreenPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.serverbound.inventory.ServerboundContainerClickPacket;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.StringTag;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import net.kyori.adventure.text.Component;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+public class ContainerTrackerTest {
+    private static final MinecraftCodecHelper HELPER = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+
+    private static ItemStack[] chest() {
+        ItemStack[] items = new ItemStack[90];
+        for (int i = 0; i < 54; i++) {
+            items[i] = new ItemStack(1 + i % 5, 1 + i % 64);
+        }
+
+        return items;
+    }
+
+    private static ItemStack named(String name) {
+        CompoundTag nbt = new CompoundTag("");
+        CompoundTag display = new CompoundTag("display");
+        display.put(new StringTag("Name", "{\"text\":\"" + name + "\"}"));
+        nbt.put(display);
+        return new ItemStack(10, 1, nbt);
+    }
+
+    @Test
+    public void testClientUpdates() {
+        ContainerTracker tracker = new ContainerTracker();
+        tracker.packetReceived(null, new ClientboundOpenScreenPacket(3, ContainerType.GENERIC_9X6, Component.text("Chest")));
+        Assert.assertTrue(tracker.isOpen(3));
+
+        ItemStack[] items = chest();
+        tracker.packetReceived(null, new ClientboundContainerSetContentPacket(3, 5, items, null));
+        Assert.assertEquals(5, tracker.getStateId(3));
+        Assert.assertArrayEquals(items, tracker.getItems(3));
+
+        tracker.packetReceived(null, new ClientboundContainerSetSlotPacket(3, 6, 10, new ItemStack(7)));
+        Assert.assertEquals(6, tracker.getStateId(3));
+        Assert.assertEquals(new ItemStack(7), tracker.getItem(3, 10));
+        Assert.assertEquals(items[11], tracker.getItem(3, 11));
+
+        // Container ids are read as unsigned bytes, so the carried item slot arrives as 255.
+        tracker.packetReceived(null, new ClientboundContainerSetSlotPacket(255, 6, -1, new ItemStack(8)));
+        Assert.assertEquals(new ItemStack(8), tracker.getCarriedItem());
+
+        tracker.packetSent(null, new ServerboundContainerClickPacket(3, 6, 12, ContainerActionType.CLICK_ITEM, ClickItemAction.LEFT_CLICK, null,
+                Collections.singletonMap(12, new ItemStack(8))));
+        Assert.assertEquals(new ItemStack(8), tracker.getItem(3, 12));
+        Assert.assertNull(tracker.getCarriedItem());
+
+        tracker.packetReceived(null, new ClientboundContainerClosePacket(3));
+        Assert.assertFalse(tracker.isOpen(3));
+    }
+
+    @Test
+    public void testServerDiff() throws IOException {
+        ContainerTracker server = new ContainerTracker();
+        ContainerTracker client = new ContainerTracker();
+        ItemStack[] items = chest();
+
+        List<MinecraftPacket> packets = server.diff(1, items, null, HELPER);
+        Assert.assertEquals(1, packets.size());
+        Assert.assertTrue(packets.get(0) instanceof ClientboundContainerSetContentPacket);
+        apply(client, packets);
+        Assert.assertTrue(server.diff(1, items, null, HELPER).isEmpty());
+
+        // A few changed slots are cheaper to send one by one.
+        items[4] = named("Sword");
+        items[60] = new ItemStack(3, 2);
+        packets = server.diff(1, items, new ItemStack(5), HELPER);
+        Assert.assertEquals(3, packets.size());
+        Assert.assertEquals(4, ((ClientboundContainerSetSlotPacket) packets.get(0)).getSlot());
+        Assert.assertEquals(60, ((ClientboundContainerSetSlotPacket) packets.get(1)).getSlot());
+        Assert.assertEquals(ContainerTracker.CARRIED_ITEM_ID, ((ClientboundContainerSetSlotPacket) packets.get(2)).getContainerId());
+        Assert.assertTrue(encodedSize(packets) < encodedSize(Collections.singletonList(new ClientboundContainerSetContentPacket(1, 2, items, new ItemStack(5)))));
+        apply(client, packets);
+
+        // Changing most of the chest is cheaper as one content packet.
+        for (int i = 0; i < 54; i++) {
+            items[i] = new ItemStack(20, 1 + i % 3);
+        }
+
+        packets = server.diff(1, items, new ItemStack(5), HELPER);
+        Assert.assertEquals(1, packets.size());
+        Assert.assertTrue(packets.get(0) instanceof ClientboundContainerSetContentPacket);
+        apply(client, packets);
+        Assert.assertArrayEquals(server.getItems(1), client.getItems(1));
+        Assert.assertEquals(server.getStateId(1), client.getStateId(1));
+        Assert.assertEquals(new ItemStack(5), client.getCarriedItem());
+
+        // A click against an old state is answered with the whole container.
+        server.packetReceived(null, new ServerboundContainerClickPacket(1, 0, 0, ContainerActionType.CLICK_ITEM, ClickItemAction.LEFT_CLICK, null,
+                Collections.singletonMap(0, null)));
+        items[1] = new ItemStack(1);
+        packets = server.diff(1, items, null, HELPER);
+        Assert.assertEquals(1, packets.size());
+        Assert.assertTrue(packets.get(0) instanceof ClientboundContainerSetContentPacket);
+    }
+
+    @Test
+    public void testSizesAreKept() throws IOException {
+        int[] measured = new int[1];
+        MinecraftCodecHelper helper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap()) {
+            @Override
+            public void writeItemStack(ByteBuf buf, ItemStack item) throws IOException {
+                measured[0]++;
+                super.writeItemStack(buf, item);
+            }
+        };
+
+        ContainerTracker server = new ContainerTracker();
+        ItemStack[] items = new ItemStack[54];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = named("Item " + i);
+        }
+
+        server.diff(1, items, null, helper);
+        Assert.assertTrue(server.diff(1, items, null, helper).isEmpty());
+        Assert.assertEquals(items.length, measured[0]);
+
+        // Refreshing the whole chest only measures each new item once.
+        for (int i = 0; i < items.length; i++) {
+            items[i] = named("Other " + i);
+        }
+
+        measured[0] = 0;
+        Assert.assertTrue(server.diff(1, items, null, helper).get(0) instanceof ClientboundContainerSetContentPacket);
+        Assert.assertTrue(server.diff(1, items, null, helper).isEmpty());
+        Assert.assertEquals(items.length, measured[0]);
+
+        measured[0] = 0;
+        items[3] = named("Sword");
+        Assert.assertTrue(server.diff(1, items, null, helper).get(0) instanceof ClientboundContainerSetSlotPacket);
+        Assert.assertTrue(server.diff(1, items, null, helper).isEmpty());
+        Assert.assertEquals(1, measured[0]);
+    }
+
+    private static void apply(ContainerTracker tracker, List<MinecraftPacket> packets) throws IOException {
+        for (MinecraftPacket packet : packets) {
+            // Decode the packets as a client would.
+            ByteBuf buf = Unpooled.buffer();
+            packet.serialize(buf, HELPER);
+            tracker.packetReceived(null, packet instanceof ClientboundContainerSetSlotPacket ? new ClientboundContainerSetSlotPacket(buf, HELPER)
+                    : new ClientboundContainerSetContentPacket(buf, HELPER));
+        }
+    }
+
+    private static int encodedSize(List<MinecraftPacket> packets) throws IOException {
+        int size = 0;
+        for (MinecraftPacket packet : packets) {
+            ByteBuf buf = Unpooled.buffer();
+            packet.serialize(buf, HELPER);
+            size += buf.readableBytes();
+        }
+
+        return size;
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.steveice10.mc.protocol;
+
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.EntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.MetadataType;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.IntEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.type.EntityType;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.ClientboundMoveEntityPosPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.ClientboundMoveEntityRotPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.ClientboundRemoveEntitiesPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.ClientboundSetEntityDataPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.ClientboundTeleportEntityPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.spawn.ClientboundAddEntityPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.entity.spawn.ClientboundAddPlayerPacket;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+
+public class EntityTrackerTest {
+    @Test
+    public void testPackets() {
+        EntityTracker tracker = new EntityTracker();
+        UUID uuid = UUID.randomUUID();
+        tracker.packetReceived(null, new ClientboundAddEntityPacket(1, uuid, EntityType.ZOMBIE, 0.5, 64, 0.5, 90, 0, 45));
+        tracker.packetReceived(null, new ClientboundAddPlayerPacket(2, UUID.randomUUID(), 100, 64, 100, 0, 0));
+        Assert.assertEquals(2, tracker.size());
+        Assert.assertEquals(uuid, tracker.getUuid(1));
+        Assert.assertEquals(EntityType.PLAYER, tracker.getType(2));
+        Assert.assertEquals(90, tracker.getYaw(1), 0);
+
+        tracker.packetReceived(null, new ClientboundMoveEntityPosPacket(1, 0.25, -1, 16, true));
+        Assert.assertEquals(0.75, tracker.getX(1), 0);
+        Assert.assertEquals(63, tracker.getY(1), 0);
+        Assert.assertEquals(16.5, tracker.getZ(1), 0);
+        Assert.assertTrue(tracker.isOnGround(1));
+
+        tracker.packetReceived(null, new ClientboundMoveEntityRotPacket(1, 135, 45, false));
+        Assert.assertEquals(135, tracker.getYaw(1), 0);
+        Assert.assertEquals(45, tracker.getPitch(1), 0);
+
+        tracker.packetReceived(null, new ClientboundSetEntityDataPacket(1, new EntityMetadata[] {
+                new IntEntityMetadata(16, MetadataType.INT, 3)
+        }));
+        Assert.assertEquals(3, tracker.getMetadata(1).getInt(16));
+
+        Assert.assertArrayEquals(new int[] {1}, tracker.getEntitiesInRadius(0, 64, 16, 2, null));
+        Assert.assertArrayEquals(new int[0], tracker.getEntitiesInRadius(0, 64, 16, 2, EntityType.PLAYER));
+        Assert.assertArrayEquals(new int[] {2}, tracker.getEntitiesOfType(EntityType.PLAYER));
+
+        tracker.packetReceived(null, new ClientboundTeleportEntityPacket(2, -40, 70, -40, 0, 0, false));
+        Assert.assertArrayEquals(new int[] {2}, tracker.getEntitiesInRadius(-40, 70, -40, 1, null));
+
+        tracker.packetReceived(null, new ClientboundRemoveEntitiesPacket(new int[] {1, 3}));
+        Assert.assertFalse(tracker.contains(1));
+        Assert.assertEquals(1, tracker.size());
+        Assert.assertEquals(-40, tracker.getX(2), 0);
+    }
+
+    @Test
+    public void testRadiusMatchesScan() {
+        Random random = new Random(0);
+        EntityTracker tracker = new EntityTracker();
+        double[][] positions = new double[500][];
+        for (int step = 0; step < 5000; step++) {
+            int id = random.nextInt(positions.length);
+            int action = random.nextInt(4);
+            if (action == 0) {
+                tracker.remove(id);
+                positions[id] = null;
+            } else if (action == 1 || positions[id] == null) {
+                double[] position = {random.nextInt(400 * 4096) / 4096D - 200, 64, random.nextInt(400 * 4096) / 4096D - 200};
+                tracker.add(id, null, EntityType.ZOMBIE, position[0], position[1], position[2], 0, 0, 0);
+                positions[id] = position;
+            } else {
+                double dx = (random.nextInt(65536) - 32768) / 4096D;
+                double dz = (random.nextInt(65536) - 32768) / 4096D;
+                tracker.packetReceived(null, new ClientboundMoveEntityPosPacket(id, dx, 0, dz, true));
+                positions[id][0] += dx;
+                positions[id][2] += dz;
+            }
+
+            if (step % 50 == 0) {
+                double x = random.nextInt(400) - 200;
+                double z = random.nextInt(400) - 200;
+                double radius = random.nextInt(64);
+                int[] expected = new int[0];
+                for (int i = 0; i < positions.length; i++) {
+                    if (positions[i] != null) {
+                        double distX = positions[i][0] - x;
+                        double distZ = positions[i][2] - z;
+                        if (distX * distX + distZ * distZ <= radius * radius) {
+                            expected = Arrays.copyOf(expected, expected.length + 1);
+                            expected[expected.length - 1] = i;
+                        }
+                    }
+                }
+
+                int[] actual = tracker.getEntitiesInRadius(x, 64, z, radius, null);
+                Arrays.sort(actual);
+                Assert.assertArrayEquals(expected, actual);
+            }
+        }
+    }
+}
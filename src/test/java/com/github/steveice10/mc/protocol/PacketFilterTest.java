@@ -0,0 +1,46 @@
+package com.github.steveice10.mc.protocol;
+
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.codec.MinecraftPacket;
+import com.github.steveice10.mc.protocol.codec.SkippedPacket;
+import com.github.steveice10.mc.protocol.data.ProtocolState;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundKeepAlivePacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundSystemChatPacket;
+import com.github.steveice10.packetlib.packet.Packet;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.kyori.adventure.text.Component;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+
+public class PacketFilterTest {
+    @Test
+    public void testClientboundFilter() throws IOException {
+        MinecraftProtocol protocol = new MinecraftProtocol("Username");
+        MinecraftCodecHelper helper = (MinecraftCodecHelper) protocol.createHelper();
+        Set<Class<? extends Packet>> allowed = Collections.singleton(ClientboundKeepAlivePacket.class);
+        protocol.setClientboundFilter(ProtocolState.GAME, allowed::contains);
+
+        ClientboundSystemChatPacket chat = new ClientboundSystemChatPacket(Component.text("Hello"), false);
+        ClientboundKeepAlivePacket keepAlive = new ClientboundKeepAlivePacket(42);
+
+        protocol.setState(ProtocolState.GAME);
+        Assert.assertSame(SkippedPacket.INSTANCE, decode(protocol, helper, chat));
+        Assert.assertEquals(keepAlive, decode(protocol, helper, keepAlive));
+
+        protocol.setClientboundFilter(ProtocolState.GAME, null);
+        Assert.assertEquals(chat, decode(protocol, helper, chat));
+    }
+
+    private static Packet decode(MinecraftProtocol protocol, MinecraftCodecHelper helper, MinecraftPacket packet) throws IOException {
+        ByteBuf buf = Unpooled.buffer();
+        packet.serialize(buf, helper);
+        Packet decoded = protocol.createClientboundPacket(protocol.getClientboundId(packet), buf, helper);
+        Assert.assertFalse(buf.isReadable());
+        return decoded;
+    }
+}
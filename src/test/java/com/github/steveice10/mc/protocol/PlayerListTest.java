@@ -0,0 +1,102 @@
+package com.github.steveice10.mc.protocol;
+
+import com.github.steveice10.mc.auth.data.GameProfile;
+import com.github.steveice10.mc.protocol.codec.MinecraftPacket;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntry;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntryAction;
+import com.github.steveice10.mc.protocol.data.game.entity.player.GameMode;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundPlayerInfoRemovePacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundPlayerInfoUpdatePacket;
+import net.kyori.adventure.text.Component;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+public class PlayerListTest {
+    private static PlayerListEntry entry(UUID id, String name, int latency) {
+        return new PlayerListEntry(id, new GameProfile(id, name), true, latency, GameMode.SURVIVAL, null, null, 0, null, null);
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        UUID id = UUID.randomUUID();
+        PlayerList list = new PlayerList();
+        list.packetReceived(null, new ClientboundPlayerInfoUpdatePacket(EnumSet.of(PlayerListEntryAction.ADD_PLAYER, PlayerListEntryAction.UPDATE_LISTED),
+                new PlayerListEntry[]{entry(id, "Player", 50)}));
+
+        PlayerListEntry entry = list.get(id);
+        Assert.assertNotNull(entry);
+        Assert.assertEquals("Player", entry.getProfile().getName());
+        Assert.assertTrue(entry.isListed());
+        // Latency was not part of the actions.
+        Assert.assertEquals(0, entry.getLatency());
+
+        PlayerListEntry update = new PlayerListEntry(id);
+        update.setLatency(120);
+        list.packetReceived(null, new ClientboundPlayerInfoUpdatePacket(EnumSet.of(PlayerListEntryAction.UPDATE_LATENCY), new PlayerListEntry[]{update}));
+        Assert.assertSame(entry, list.get(id));
+        Assert.assertEquals(120, entry.getLatency());
+        Assert.assertTrue(entry.isListed());
+
+        // Unknown players are only created by ADD_PLAYER.
+        list.packetReceived(null, new ClientboundPlayerInfoUpdatePacket(EnumSet.of(PlayerListEntryAction.UPDATE_LATENCY), new PlayerListEntry[]{new PlayerListEntry(UUID.randomUUID())}));
+        Assert.assertEquals(1, list.size());
+
+        list.packetReceived(null, new ClientboundPlayerInfoRemovePacket(Collections.singletonList(id)));
+        Assert.assertNull(list.get(id));
+    }
+
+    @Test
+    public void testDiff() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        PlayerList server = new PlayerList();
+        PlayerList client = new PlayerList();
+
+        List<MinecraftPacket> packets = server.diff(Arrays.asList(entry(first, "First", 10), entry(second, "Second", 10)));
+        Assert.assertEquals(1, packets.size());
+        ClientboundPlayerInfoUpdatePacket add = (ClientboundPlayerInfoUpdatePacket) packets.get(0);
+        Assert.assertEquals(EnumSet.of(PlayerListEntryAction.ADD_PLAYER, PlayerListEntryAction.UPDATE_LISTED, PlayerListEntryAction.UPDATE_LATENCY), add.getActions());
+        Assert.assertEquals(2, add.getEntries().length);
+        apply(client, packets);
+
+        Assert.assertTrue(server.diff(Arrays.asList(entry(first, "First", 10), entry(second, "Second", 10))).isEmpty());
+
+        PlayerListEntry renamed = entry(first, "First", 10);
+        renamed.setDisplayName(Component.text("Renamed"));
+        packets = server.diff(Arrays.asList(renamed, entry(third, "Third", 0)));
+        Assert.assertEquals(3, packets.size());
+        Assert.assertEquals(Collections.singletonList(second), ((ClientboundPlayerInfoRemovePacket) packets.get(0)).getProfileIds());
+        Assert.assertEquals(EnumSet.of(PlayerListEntryAction.UPDATE_DISPLAY_NAME), ((ClientboundPlayerInfoUpdatePacket) packets.get(1)).getActions());
+        Assert.assertEquals(EnumSet.of(PlayerListEntryAction.ADD_PLAYER, PlayerListEntryAction.UPDATE_LISTED), ((ClientboundPlayerInfoUpdatePacket) packets.get(2)).getActions());
+        apply(client, packets);
+
+        // A changed profile can only be sent by adding the player again.
+        packets = server.diff(Arrays.asList(renamed, entry(third, "Changed", 0)));
+        Assert.assertEquals(2, packets.size());
+        Assert.assertEquals(Collections.singletonList(third), ((ClientboundPlayerInfoRemovePacket) packets.get(0)).getProfileIds());
+        apply(client, packets);
+
+        List<String> names = new ArrayList<>();
+        for (PlayerListEntry entry : client.getEntries()) {
+            names.add(entry.getProfile().getName());
+            Assert.assertEquals(server.get(entry.getProfileId()), entry);
+        }
+
+        Assert.assertEquals(Arrays.asList("First", "Changed"), names);
+        Assert.assertEquals(Component.text("Renamed"), client.get(first).getDisplayName());
+    }
+
+    private static void apply(PlayerList list, List<MinecraftPacket> packets) {
+        for (MinecraftPacket packet : packets) {
+            list.packetReceived(null, packet);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.steveice10.mc.protocol;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class ServerExecutorTest {
+    @Test
+    public void testAuthQueue() throws InterruptedException {
+        ServerExecutor executor = new ServerExecutor(1, 1, true);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch finished = new CountDownLatch(2);
+            Runnable blocking = () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+
+                finished.countDown();
+            };
+
+            executor.executeAuth(blocking);
+            Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+            executor.executeAuth(finished::countDown);
+            Assert.assertEquals(1, executor.getAuthQueueDepth());
+
+            try {
+                executor.executeAuth(() -> {
+                });
+                Assert.fail("Expected the full queue to reject the task.");
+            } catch (RejectedExecutionException ignored) {
+            }
+
+            Assert.assertEquals(1, executor.getRejectedAuthTasks());
+            release.countDown();
+            Assert.assertTrue(finished.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(executor.getTotalAuthLatencyNanos() > 0);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSchedule() throws InterruptedException {
+        ServerExecutor executor = new ServerExecutor();
+        try {
+            CountDownLatch runs = new CountDownLatch(3);
+            ScheduledFuture<?> future = executor.schedule(runs::countDown, 10, TimeUnit.MILLISECONDS);
+            Assert.assertTrue(runs.await(5, TimeUnit.SECONDS));
+            future.cancel(false);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
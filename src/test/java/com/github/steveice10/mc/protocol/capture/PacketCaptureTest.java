@@ -0,0 +1,199 @@
+package com.github.steveice10.mc.protocol.capture;
+
+import com.github.steveice10.mc.protocol.MinecraftProtocol;
+import com.github.steveice10.mc.protocol.codec.MinecraftCodec;
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.codec.PreparedPacket;
+import com.github.steveice10.mc.protocol.data.ProtocolState;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundSetChunkCacheRadiusPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.serverbound.ServerboundKeepAlivePacket;
+import com.github.steveice10.packetlib.Session;
+import com.github.steveice10.packetlib.event.session.PacketSendingEvent;
+import com.github.steveice10.packetlib.packet.Packet;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+public class PacketCaptureTest {
+    private static final MinecraftCodecHelper HELPER = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Session session(MinecraftProtocol protocol, List<Packet> sent) {
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getPacketProtocol":
+                    return protocol;
+                case "getCodecHelper":
+                    return HELPER;
+                case "send":
+                    sent.add((Packet) args[0]);
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static ByteBuf body(int size, int value) {
+        ByteBuf buf = Unpooled.buffer(size);
+        for (int i = 0; i < size; i++) {
+            buf.writeByte(value);
+        }
+
+        return buf;
+    }
+
+    @Test
+    public void testRotationAndSeek() throws IOException {
+        Path directory = this.folder.getRoot().toPath().resolve("capture");
+        try (PacketCaptureWriter writer = new PacketCaptureWriter(directory, 761, 4096)) {
+            for (int i = 0; i < 1000; i++) {
+                writer.write(i * 10L, ProtocolState.GAME, i % 2 == 0 ? PacketDirection.CLIENTBOUND : PacketDirection.SERVERBOUND, i, body(i % 7, i));
+            }
+
+            writer.flush();
+            Assert.assertEquals(1000, writer.getPacketCount());
+            Assert.assertTrue(writer.getSegmentCount() > 1);
+        }
+
+        try (PacketCaptureReader reader = new PacketCaptureReader(directory)) {
+            Assert.assertEquals(761, reader.getProtocolVersion());
+            Assert.assertEquals(1000, reader.getPacketCount());
+            Assert.assertTrue(reader.getSegmentCount() > 1);
+
+            int i = 0;
+            for (CapturedPacket packet : reader) {
+                Assert.assertEquals(i * 10L, packet.getTimestamp());
+                Assert.assertEquals(ProtocolState.GAME, packet.getState());
+                Assert.assertEquals(i % 2 == 0 ? PacketDirection.CLIENTBOUND : PacketDirection.SERVERBOUND, packet.getDirection());
+                Assert.assertEquals(i, packet.getId());
+                Assert.assertEquals(body(i % 7, i), packet.getBody());
+                i++;
+            }
+
+            Assert.assertEquals(1000, i);
+
+            Iterator<CapturedPacket> iterator = reader.iterator(6125);
+            Assert.assertEquals(613, iterator.next().getId());
+            Assert.assertEquals(0, reader.iterator(-1).next().getId());
+            Assert.assertFalse(reader.iterator(10000).hasNext());
+        }
+    }
+
+    @Test
+    public void testCaptureAndReplay() throws IOException, InterruptedException {
+        Path directory = this.folder.getRoot().toPath().resolve("capture");
+        MinecraftProtocol protocol = new MinecraftProtocol();
+        protocol.setState(ProtocolState.GAME);
+        Session session = session(protocol, new ArrayList<>());
+
+        try (PacketCaptureWriter writer = new PacketCaptureWriter(directory, MinecraftCodec.CODEC.getProtocolVersion())) {
+            PacketCaptureListener listener = new PacketCaptureListener(writer, true);
+            listener.packetReceived(session, new ClientboundSetChunkCacheRadiusPacket(12));
+            listener.packetSent(session, new ServerboundKeepAlivePacket(42));
+            listener.packetReceived(session, new ClientboundSetChunkCacheRadiusPacket(8));
+
+            // Prepared packets are captured before the channel releases them, and only once.
+            PreparedPacket<ServerboundKeepAlivePacket> prepared = PreparedPacket.prepare(MinecraftCodec.CODEC, ProtocolState.GAME, new ServerboundKeepAlivePacket(7));
+            listener.packetSending(new PacketSendingEvent(session, prepared));
+            prepared.release();
+            listener.packetSent(session, prepared);
+        }
+
+        List<Packet> sent = new ArrayList<>();
+        try (PacketCaptureReader reader = new PacketCaptureReader(directory)) {
+            Iterator<CapturedPacket> iterator = reader.iterator();
+            CapturedPacket first = iterator.next();
+            Assert.assertEquals(PacketDirection.CLIENTBOUND, first.getDirection());
+            Assert.assertEquals(new ClientboundSetChunkCacheRadiusPacket(12), first.decode(MinecraftCodec.CODEC, HELPER));
+            CapturedPacket second = iterator.next();
+            Assert.assertEquals(PacketDirection.SERVERBOUND, second.getDirection());
+            Assert.assertEquals(new ServerboundKeepAlivePacket(42), second.decode(MinecraftCodec.CODEC, HELPER));
+
+            Assert.assertEquals(new ClientboundSetChunkCacheRadiusPacket(8), iterator.next().decode(MinecraftCodec.CODEC, HELPER));
+            Assert.assertEquals(new ServerboundKeepAlivePacket(7), iterator.next().decode(MinecraftCodec.CODEC, HELPER));
+            Assert.assertFalse(iterator.hasNext());
+
+            Assert.assertEquals(2, reader.replay(session(protocol, sent), PacketDirection.CLIENTBOUND, 0));
+        }
+
+        Assert.assertEquals(2, sent.size());
+        Assert.assertEquals(new ClientboundSetChunkCacheRadiusPacket(12), sent.get(0));
+        Assert.assertEquals(new ClientboundSetChunkCacheRadiusPacket(8), sent.get(1));
+    }
+
+    @Test
+    public void testReplayState() throws IOException, InterruptedException {
+        Path directory = this.folder.getRoot().toPath().resolve("capture");
+        int id = MinecraftCodec.CODEC.getCodec(ProtocolState.GAME).getClientboundId(ClientboundSetChunkCacheRadiusPacket.class);
+        try (PacketCaptureWriter writer = new PacketCaptureWriter(directory, MinecraftCodec.CODEC.getProtocolVersion())) {
+            for (int i = 0; i < 3; i++) {
+                ByteBuf body = Unpooled.buffer();
+                new ClientboundSetChunkCacheRadiusPacket(i).serialize(body, HELPER);
+                writer.write(i, ProtocolState.GAME, PacketDirection.CLIENTBOUND, id, body);
+            }
+        }
+
+        // The session leaves the state while the capture is replayed, which must not change what is sent.
+        MinecraftProtocol protocol = new MinecraftProtocol();
+        protocol.setState(ProtocolState.GAME);
+        List<Packet> sent = new ArrayList<>();
+        Session session = session(protocol, sent);
+        Session switching = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class}, (proxy, method, args) -> {
+            Object result = method.invoke(session, args);
+            if (method.getName().equals("send")) {
+                protocol.setState(ProtocolState.LOGIN);
+            }
+
+            return result;
+        });
+
+        try (PacketCaptureReader reader = new PacketCaptureReader(directory)) {
+            Assert.assertEquals(3, reader.replay(switching, PacketDirection.CLIENTBOUND, 0));
+        }
+
+        Assert.assertEquals(new ClientboundSetChunkCacheRadiusPacket(2), sent.get(2));
+    }
+
+    @Test
+    public void testWriteFailure() throws IOException {
+        Path directory = this.folder.getRoot().toPath().resolve("capture");
+        MinecraftProtocol protocol = new MinecraftProtocol();
+        protocol.setState(ProtocolState.GAME);
+        Session session = session(protocol, new ArrayList<>());
+
+        PacketCaptureWriter writer = new PacketCaptureWriter(directory, 761, 4096);
+        // The next segment cannot be created, so the writer fails once the first one is full.
+        Files.createDirectory(directory.resolve(PacketCaptureWriter.segmentName(1)));
+        PacketCaptureListener listener = new PacketCaptureListener(writer, true);
+        for (int i = 0; i < 1000; i++) {
+            listener.packetReceived(session, new ClientboundSetChunkCacheRadiusPacket(i));
+        }
+
+        try {
+            writer.close();
+            Assert.fail("Expected the write failure to be reported.");
+        } catch (IOException ignored) {
+        }
+
+        Assert.assertNotNull(writer.getFailure());
+        Assert.assertTrue(writer.getDroppedCount() > 0);
+        Assert.assertEquals(1000, writer.getPacketCount() + writer.getDroppedCount());
+        listener.packetReceived(session, new ClientboundSetChunkCacheRadiusPacket(1));
+    }
+}
@@ -0,0 +1,157 @@
+package com.github.steveice10.mc.protocol.chat;
+
+import com.github.steveice10.mc.auth.data.GameProfile;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntry;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntryAction;
+import com.github.steveice10.mc.protocol.data.game.chat.ChatFilterType;
+import com.github.steveice10.mc.protocol.data.game.chat.MessageSignature;
+import com.github.steveice10.mc.protocol.data.game.entity.player.GameMode;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundPlayerChatPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundPlayerInfoUpdatePacket;
+import com.github.steveice10.mc.protocol.packet.ingame.serverbound.ServerboundChatAckPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.serverbound.ServerboundChatCommandPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.serverbound.ServerboundChatPacket;
+import com.github.steveice10.packetlib.Session;
+import com.github.steveice10.packetlib.packet.Packet;
+import net.kyori.adventure.text.Component;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class ChatSignerTest {
+    private static final UUID PROFILE = UUID.randomUUID();
+    private static final UUID SESSION = UUID.randomUUID();
+
+    private static KeyPair keyPair;
+
+    @BeforeClass
+    public static void generateKey() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+    }
+
+    private static Session session(List<Packet> sent) {
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class}, (proxy, method, args) -> {
+            if (method.getName().equals("send")) {
+                synchronized (sent) {
+                    sent.add((Packet) args[0]);
+                }
+
+                return null;
+            }
+
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private static ChatVerifier verifier() {
+        ChatVerifier verifier = new ChatVerifier(Runnable::run, 1, 1, null);
+        PlayerListEntry entry = new PlayerListEntry(PROFILE, new GameProfile(PROFILE, "Signer"), true, 0, GameMode.SURVIVAL, null,
+                SESSION, Long.MAX_VALUE, keyPair.getPublic(), null);
+        verifier.packetReceived(null, new ClientboundPlayerInfoUpdatePacket(EnumSet.of(PlayerListEntryAction.ADD_PLAYER, PlayerListEntryAction.INITIALIZE_CHAT), new PlayerListEntry[]{entry}));
+        return verifier;
+    }
+
+    private static ClientboundPlayerChatPacket broadcast(int index, byte[] signature, String content, long timeStamp, long salt, List<byte[]> lastSeen) {
+        List<MessageSignature> seen = new ArrayList<>();
+        for (byte[] bytes : lastSeen) {
+            seen.add(new MessageSignature(-1, bytes));
+        }
+
+        return new ClientboundPlayerChatPacket(PROFILE, index, signature, content, timeStamp, salt, seen, null, ChatFilterType.PASS_THROUGH, 0, Component.text("Signer"), null);
+    }
+
+    @Test
+    public void testSignedChat() throws Exception {
+        ChatSigner signer = new ChatSigner(PROFILE, SESSION, keyPair.getPrivate());
+        ChatVerifier verifier = verifier();
+
+        ServerboundChatPacket first = signer.chat("first");
+        Assert.assertEquals(0, first.getOffset());
+        Assert.assertTrue(first.getAcknowledgedMessages().isEmpty());
+        Assert.assertEquals(ChatVerificationStatus.VERIFIED, verifier.verify(broadcast(0, first.getSignature(), "first", first.getTimeStamp(), first.getSalt(), Collections.emptyList())).get().getStatus());
+
+        // The client sees its own message, and acknowledges it with the next one.
+        Assert.assertEquals(0, signer.track(first.getSignature()));
+        Assert.assertEquals(1, signer.getPendingCount());
+        ServerboundChatPacket second = signer.chat("second");
+        Assert.assertEquals(1, second.getOffset());
+        Assert.assertTrue(second.getAcknowledgedMessages().get(ChatSigner.LAST_SEEN_SIZE - 1));
+        Assert.assertEquals(0, signer.getPendingCount());
+        Assert.assertEquals(ChatVerificationStatus.VERIFIED, verifier.verify(broadcast(1, second.getSignature(), "second", second.getTimeStamp(), second.getSalt(),
+                Collections.singletonList(first.getSignature()))).get().getStatus());
+
+        Map<String, String> arguments = new LinkedHashMap<>();
+        arguments.put("targets", "ignored");
+        arguments.put("message", "hello");
+        ServerboundChatCommandPacket command = signer.command("msg Steve hello", arguments);
+        Assert.assertEquals(2, command.getSignatures().size());
+        Assert.assertEquals("message", command.getSignatures().get(1).getName());
+        Assert.assertEquals(ChatVerificationStatus.VERIFIED, verifier.verify(broadcast(3, command.getSignatures().get(1).getSignature(), "hello", command.getTimeStamp(), command.getSalt(),
+                Collections.singletonList(first.getSignature()))).get().getStatus());
+    }
+
+    @Test
+    public void testAcknowledgements() {
+        List<Packet> sent = new ArrayList<>();
+        Session session = session(sent);
+        ChatSigner signer = new ChatSigner(PROFILE, SESSION, null);
+        for (int i = 0; i < 65; i++) {
+            byte[] signature = new byte[256];
+            signature[0] = (byte) i;
+            ClientboundPlayerChatPacket packet = broadcast(i, signature, "message", 0, 0, Collections.emptyList());
+            signer.packetReceived(session, packet);
+            // Repeated messages are only tracked once.
+            signer.packetReceived(session, packet);
+        }
+
+        Assert.assertEquals(1, sent.size());
+        Assert.assertEquals(65, ((ServerboundChatAckPacket) sent.get(0)).getOffset());
+
+        ServerboundChatPacket chat = signer.chat("unsigned");
+        Assert.assertNull(chat.getSignature());
+        Assert.assertEquals(0, chat.getOffset());
+        Assert.assertEquals(ChatSigner.LAST_SEEN_SIZE, chat.getAcknowledgedMessages().cardinality());
+    }
+
+    @Test
+    public void testAsyncSigningKeepsOrder() throws Exception {
+        List<Packet> sent = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ChatSigner signer = new ChatSigner(PROFILE, SESSION, keyPair.getPrivate(), executor);
+            List<CompletableFuture<ServerboundChatPacket>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(signer.sendChat(session(sent), "message " + i));
+            }
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+            ChatVerifier verifier = verifier();
+            Assert.assertEquals(50, sent.size());
+            for (int i = 0; i < 50; i++) {
+                ServerboundChatPacket packet = (ServerboundChatPacket) sent.get(i);
+                Assert.assertEquals("message " + i, packet.getMessage());
+                Assert.assertEquals(ChatVerificationStatus.VERIFIED, verifier.verify(broadcast(i, packet.getSignature(), packet.getMessage(), packet.getTimeStamp(), packet.getSalt(),
+                        Collections.emptyList())).get().getStatus());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.steveice10.mc.protocol.chat;
+
+import com.github.steveice10.mc.auth.data.GameProfile;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntry;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntryAction;
+import com.github.steveice10.mc.protocol.data.game.chat.ChatFilterType;
+import com.github.steveice10.mc.protocol.data.game.chat.MessageSignature;
+import com.github.steveice10.mc.protocol.data.game.entity.player.GameMode;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundPlayerChatPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundPlayerInfoUpdatePacket;
+import net.kyori.adventure.text.Component;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class ChatVerifierTest {
+    private static final UUID SENDER = UUID.randomUUID();
+    private static final UUID SESSION = UUID.randomUUID();
+
+    private static KeyPair keyPair;
+
+    @BeforeClass
+    public static void generateKey() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+    }
+
+    private static void initializeChat(ChatVerifier verifier, UUID sender, KeyPair key) {
+        PlayerListEntry entry = new PlayerListEntry(sender, new GameProfile(sender, "Sender"), true, 0, GameMode.SURVIVAL, null,
+                key != null ? SESSION : null, Long.MAX_VALUE, key != null ? key.getPublic() : null, null);
+        verifier.packetReceived(null, new ClientboundPlayerInfoUpdatePacket(EnumSet.of(PlayerListEntryAction.ADD_PLAYER, PlayerListEntryAction.INITIALIZE_CHAT), new PlayerListEntry[]{entry}));
+    }
+
+    private static byte[] sign(int index, String content, List<byte[]> lastSeen) throws Exception {
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update(ChatVerifier.signedData(SENDER, SESSION, index, 42, 1000000, content, lastSeen));
+        return signature.sign();
+    }
+
+    private static ClientboundPlayerChatPacket message(int index, byte[] signature, String content, List<MessageSignature> lastSeen) {
+        return new ClientboundPlayerChatPacket(SENDER, index, signature, content, 1000000, 42, lastSeen, null, ChatFilterType.PASS_THROUGH, 0, Component.text("Sender"), null);
+    }
+
+    private static ChatVerificationStatus status(CompletableFuture<ChatVerification> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS).getStatus();
+    }
+
+    @Test
+    public void testSignedChain() throws Exception {
+        List<ChatVerification> published = Collections.synchronizedList(new ArrayList<>());
+        ChatVerifier verifier = new ChatVerifier(Runnable::run, 1, 4, published::add);
+        initializeChat(verifier, SENDER, keyPair);
+
+        byte[] first = sign(0, "first", Collections.emptyList());
+        Assert.assertEquals(ChatVerificationStatus.VERIFIED, status(verifier.verify(message(0, first, "first", Collections.emptyList()))));
+
+        // The second message has seen the first, which the server sends as its cache index.
+        byte[] second = sign(1, "second", Collections.singletonList(first));
+        List<MessageSignature> packed = Collections.singletonList(new MessageSignature(0, null));
+        Assert.assertEquals(ChatVerificationStatus.VERIFIED, status(verifier.verify(message(1, second, "second", packed))));
+
+        Assert.assertEquals(ChatVerificationStatus.BROKEN_CHAIN, status(verifier.verify(message(1, second, "second", packed))));
+        Assert.assertEquals(ChatVerificationStatus.BROKEN_CHAIN, status(verifier.verify(message(2, sign(2, "third", Collections.emptyList()), "third", Collections.emptyList()))));
+        Assert.assertEquals(4, published.size());
+        Assert.assertEquals(2, verifier.getCount(ChatVerificationStatus.VERIFIED));
+
+        // A new chat session starts a new chain.
+        initializeChat(verifier, SENDER, keyPair);
+        Assert.assertEquals(ChatVerificationStatus.VERIFIED, status(verifier.verify(message(0, first, "first", Collections.emptyList()))));
+    }
+
+    @Test
+    public void testInvalidMessages() throws Exception {
+        ChatVerifier verifier = new ChatVerifier(Runnable::run, 1, 4, null);
+        Assert.assertEquals(ChatVerificationStatus.UNKNOWN_SENDER, status(verifier.verify(message(0, null, "hello", Collections.emptyList()))));
+
+        initializeChat(verifier, SENDER, null);
+        Assert.assertEquals(ChatVerificationStatus.UNSIGNED, status(verifier.verify(message(0, null, "hello", Collections.emptyList()))));
+        Assert.assertEquals(ChatVerificationStatus.MISSING_KEY, status(verifier.verify(message(1, sign(1, "hello", Collections.emptyList()), "hello", Collections.emptyList()))));
+        Assert.assertEquals(ChatVerificationStatus.UNKNOWN_LAST_SEEN, status(verifier.verify(message(2, null, "hello", Collections.singletonList(new MessageSignature(5, null))))));
+
+        initializeChat(verifier, SENDER, keyPair);
+        byte[] signature = sign(0, "hello", Collections.emptyList());
+        Assert.assertEquals(ChatVerificationStatus.INVALID_SIGNATURE, status(verifier.verify(message(0, signature, "tampered", Collections.emptyList()))));
+        // An invalid signature breaks the rest of the chain.
+        Assert.assertEquals(ChatVerificationStatus.BROKEN_CHAIN, status(verifier.verify(message(1, sign(1, "next", Collections.emptyList()), "next", Collections.emptyList()))));
+    }
+
+    @Test
+    public void testParallelVerification() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ChatVerifier verifier = new ChatVerifier(executor, 4, 8, null);
+            initializeChat(verifier, SENDER, keyPair);
+            List<CompletableFuture<ChatVerification>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String content = "message " + i;
+                futures.add(verifier.verify(message(i, sign(i, content, Collections.emptyList()), content, Collections.emptyList())));
+            }
+
+            for (CompletableFuture<ChatVerification> future : futures) {
+                Assert.assertEquals(ChatVerificationStatus.VERIFIED, status(future));
+            }
+
+            Assert.assertEquals(200, verifier.getCount(ChatVerificationStatus.VERIFIED));
+            Assert.assertEquals(0, verifier.getPendingCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSignatureCache() {
+        MessageSignatureCache cache = new MessageSignatureCache(4);
+        byte[] a = {1};
+        byte[] b = {2};
+        byte[] c = {3};
+        cache.push(Collections.emptyList(), a);
+        cache.push(Collections.singletonList(a), b);
+        Assert.assertEquals(0, cache.pack(b));
+        Assert.assertEquals(1, cache.pack(a));
+
+        cache.push(Arrays.asList(a, b), c);
+        Assert.assertArrayEquals(c, cache.unpack(0));
+        Assert.assertArrayEquals(b, cache.unpack(1));
+        Assert.assertArrayEquals(a, cache.unpack(2));
+        Assert.assertNull(cache.unpack(3));
+        Assert.assertNull(cache.unpack(4));
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ComponentCacheTest {
+    private static final Component COMPONENT = Component.text("Hello ").append(Component.text("world", NamedTextColor.RED));
+
+    @Test
+    public void testCachedComponents() {
+        MinecraftCodecHelper helper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        ByteBuf expected = Unpooled.buffer();
+        helper.writeComponent(expected, COMPONENT);
+
+        ComponentCache cache = new ComponentCache(16);
+        helper.setComponentCache(cache);
+        ByteBuf buf = Unpooled.buffer();
+        helper.writeComponent(buf, COMPONENT);
+        helper.writeComponent(buf, COMPONENT);
+        Assert.assertEquals(1, cache.getEncodeCache().getHits());
+        Assert.assertEquals(1, cache.getEncodeCache().getMisses());
+        Assert.assertEquals(ByteBufUtil.hexDump(expected) + ByteBufUtil.hexDump(expected), ByteBufUtil.hexDump(buf));
+
+        Component first = helper.readComponent(buf);
+        Component second = helper.readComponent(buf);
+        Assert.assertFalse(buf.isReadable());
+        Assert.assertEquals(COMPONENT, first);
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, cache.getDecodeCache().getHits());
+        Assert.assertEquals(1, cache.getDecodeCache().getMisses());
+    }
+
+    @Test
+    public void testLengthLimits() {
+        MinecraftCodecHelper helper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        helper.setComponentCache(new ComponentCache(16));
+
+        ByteBuf negative = Unpooled.buffer();
+        helper.writeVarInt(negative, -1);
+        assertRejected(helper, negative);
+
+        char[] text = new char[Short.MAX_VALUE];
+        Arrays.fill(text, 'a');
+        ByteBuf tooLong = Unpooled.buffer();
+        helper.writeString(tooLong, '"' + new String(text) + '"');
+        assertRejected(helper, tooLong);
+    }
+
+    private static void assertRejected(MinecraftCodecHelper helper, ByteBuf buf) {
+        try {
+            helper.readComponent(buf);
+            Assert.fail("Expected component to be rejected");
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void testEviction() {
+        LruCache<Integer, String> cache = new LruCache<>(2, 1);
+        cache.put(1, "a");
+        cache.put(2, "b");
+        Assert.assertEquals("a", cache.get(1));
+
+        cache.put(3, "c");
+        Assert.assertNull(cache.get(2));
+        Assert.assertEquals("a", cache.get(1));
+        Assert.assertEquals("c", cache.get(3));
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(1, cache.getEvictions());
+        Assert.assertEquals(3, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+}
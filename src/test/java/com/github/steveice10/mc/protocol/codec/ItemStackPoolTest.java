@@ -0,0 +1,80 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.ItemStack;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.IntTag;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+
+public class ItemStackPoolTest {
+    private static MinecraftCodecHelper helper(ItemStackPool pool) {
+        MinecraftCodecHelper helper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        helper.setItemStackPool(pool);
+        return helper;
+    }
+
+    private static ItemStack damaged(int damage) {
+        CompoundTag nbt = new CompoundTag("");
+        nbt.put(new IntTag("Damage", damage));
+        return new ItemStack(700, 1, nbt);
+    }
+
+    private static ByteBuf encode(MinecraftCodecHelper helper, ItemStack... items) throws IOException {
+        ByteBuf buf = Unpooled.buffer();
+        for (ItemStack item : items) {
+            helper.writeItemStack(buf, item);
+        }
+
+        return buf;
+    }
+
+    @Test
+    public void testCanonicalStacks() throws IOException {
+        ItemStackPool pool = new ItemStackPool();
+        MinecraftCodecHelper first = helper(pool);
+        MinecraftCodecHelper second = helper(new ItemStackPool());
+        ItemStack[] items = {new ItemStack(1, 64), null, new ItemStack(1, 64), new ItemStack(5000, 1), new ItemStack(2, -3), damaged(5)};
+
+        ByteBuf buf = encode(first, items);
+        ItemStack[] read = new ItemStack[items.length];
+        for (int i = 0; i < items.length; i++) {
+            read[i] = first.readItemStack(buf);
+        }
+
+        Assert.assertEquals(0, buf.readableBytes());
+        Assert.assertArrayEquals(items, read);
+        Assert.assertSame(read[0], read[2]);
+        Assert.assertSame(ItemStackPool.canonical(1, 64), read[0]);
+        Assert.assertSame(read[0], second.readItemStack(encode(second, new ItemStack(1, 64))));
+        // Out of range stacks and stacks with NBT are not shared by default.
+        Assert.assertNotSame(read[3], first.readItemStack(encode(first, new ItemStack(5000, 1))));
+        Assert.assertNotSame(read[5], first.readItemStack(encode(first, damaged(5))));
+        Assert.assertTrue(pool.getHits() >= 1);
+        Assert.assertTrue(pool.getHitRate() > 0 && pool.getHitRate() < 1);
+    }
+
+    @Test
+    public void testNbtStacks() throws IOException {
+        ItemStackPool pool = new ItemStackPool(1024);
+        MinecraftCodecHelper helper = helper(pool);
+        ByteBuf buf = encode(helper, damaged(5), new ItemStack(3), damaged(5), damaged(6));
+
+        ItemStack first = helper.readItemStack(buf);
+        Assert.assertEquals(new ItemStack(3), helper.readItemStack(buf));
+        ItemStack second = helper.readItemStack(buf);
+        ItemStack other = helper.readItemStack(buf);
+        Assert.assertEquals(0, buf.readableBytes());
+
+        Assert.assertEquals(damaged(5), first);
+        Assert.assertSame(first, second);
+        Assert.assertEquals(damaged(6), other);
+        Assert.assertEquals(2, pool.getNbtCache().size());
+        Assert.assertEquals(1, pool.getNbtCache().getHits());
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.mc.protocol.data.ProtocolState;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundSystemChatPacket;
+import com.github.steveice10.packetlib.packet.Packet;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.util.IllegalReferenceCountException;
+import net.kyori.adventure.text.Component;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class LazyPacketTest {
+    @Test
+    public void testLazyPacket() throws IOException {
+        PacketStateCodec codec = MinecraftCodec.CODEC.getCodec(ProtocolState.GAME);
+        MinecraftCodecHelper helper = MinecraftCodec.CODEC.getHelperFactory().get();
+        helper.setLazyPackets(ClientboundSystemChatPacket.class::equals);
+
+        ClientboundSystemChatPacket packet = new ClientboundSystemChatPacket(Component.text("Hello"), false);
+        int id = codec.getClientboundId(packet);
+        ByteBuf buf = Unpooled.buffer();
+        packet.serialize(buf, helper);
+        byte[] encoded = ByteBufUtil.getBytes(buf);
+
+        Packet decoded = codec.createClientboundPacket(id, buf, helper);
+        Assert.assertTrue(decoded instanceof LazyPacket);
+        Assert.assertFalse(buf.isReadable());
+
+        LazyPacket<?> lazyPacket = (LazyPacket<?>) decoded;
+        Assert.assertFalse(lazyPacket.isDecoded());
+        Assert.assertEquals(ClientboundSystemChatPacket.class, lazyPacket.getPacketClass());
+        Assert.assertEquals(id, codec.getClientboundId(lazyPacket));
+        Assert.assertEquals(2, buf.refCnt());
+
+        ByteBuf out = Unpooled.buffer();
+        lazyPacket.serialize(out, helper);
+        Assert.assertArrayEquals(encoded, ByteBufUtil.getBytes(out));
+
+        Assert.assertEquals(packet, lazyPacket.get());
+        Assert.assertTrue(lazyPacket.isDecoded());
+        Assert.assertEquals(1, buf.refCnt());
+
+        out.clear();
+        lazyPacket.serialize(out, helper);
+        Assert.assertArrayEquals(encoded, ByteBufUtil.getBytes(out));
+        Assert.assertTrue(lazyPacket.release());
+    }
+
+    @Test
+    public void testAccessAfterRelease() throws IOException {
+        PacketStateCodec codec = MinecraftCodec.CODEC.getCodec(ProtocolState.GAME);
+        MinecraftCodecHelper helper = MinecraftCodec.CODEC.getHelperFactory().get();
+        helper.setLazyPackets(ClientboundSystemChatPacket.class::equals);
+
+        ClientboundSystemChatPacket packet = new ClientboundSystemChatPacket(Component.text("Hello"), false);
+        for (boolean decode : new boolean[]{false, true}) {
+            ByteBuf buf = Unpooled.buffer();
+            packet.serialize(buf, helper);
+            LazyPacket<?> lazyPacket = (LazyPacket<?>) codec.createClientboundPacket(codec.getClientboundId(packet), buf, helper);
+            if (decode) {
+                lazyPacket.get();
+            }
+
+            Assert.assertTrue(lazyPacket.release());
+            try {
+                lazyPacket.get();
+                Assert.fail("Expected a released packet to be rejected.");
+            } catch (IllegalReferenceCountException ignored) {
+            }
+
+            try {
+                lazyPacket.serialize(Unpooled.buffer(), helper);
+                Assert.fail("Expected a released packet to be rejected.");
+            } catch (IllegalReferenceCountException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void testEagerPacket() throws IOException {
+        PacketStateCodec codec = MinecraftCodec.CODEC.getCodec(ProtocolState.GAME);
+        MinecraftCodecHelper helper = MinecraftCodec.CODEC.getHelperFactory().get();
+        helper.setLazyPackets(ClientboundSystemChatPacket.class::equals);
+
+        ClientboundSystemChatPacket packet = new ClientboundSystemChatPacket(Component.text("Hello"), true);
+        ByteBuf buf = Unpooled.buffer();
+        packet.serialize(buf, helper);
+
+        helper.setLazyPackets(null);
+        Assert.assertEquals(packet, codec.createClientboundPacket(codec.getClientboundId(packet), buf, helper));
+    }
+
+    @Test
+    public void testUnwrap() throws IOException {
+        PacketStateCodec codec = MinecraftCodec.CODEC.getCodec(ProtocolState.GAME);
+        MinecraftCodecHelper helper = MinecraftCodec.CODEC.getHelperFactory().get();
+        helper.setLazyPackets(ClientboundSystemChatPacket.class::equals);
+
+        ClientboundSystemChatPacket packet = new ClientboundSystemChatPacket(Component.text("Hello"), false);
+        ByteBuf buf = Unpooled.buffer();
+        packet.serialize(buf, helper);
+        LazyPacket<?> lazyPacket = (LazyPacket<?>) codec.createClientboundPacket(codec.getClientboundId(packet), buf, helper);
+
+        Assert.assertNull(LazyPacket.unwrap(lazyPacket, packetClass -> false));
+        Assert.assertFalse(lazyPacket.isDecoded());
+        Assert.assertEquals(packet, LazyPacket.unwrap(lazyPacket, ClientboundSystemChatPacket.class::equals));
+        Assert.assertSame(packet, LazyPacket.unwrap(packet, packetClass -> false));
+        Assert.assertTrue(lazyPacket.release());
+    }
+}
@@ -0,0 +1,110 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.opennbt.tag.builtin.ByteArrayTag;
+import com.github.steveice10.opennbt.tag.builtin.ByteTag;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.DoubleTag;
+import com.github.steveice10.opennbt.tag.builtin.FloatTag;
+import com.github.steveice10.opennbt.tag.builtin.IntArrayTag;
+import com.github.steveice10.opennbt.tag.builtin.IntTag;
+import com.github.steveice10.opennbt.tag.builtin.ListTag;
+import com.github.steveice10.opennbt.tag.builtin.LongArrayTag;
+import com.github.steveice10.opennbt.tag.builtin.LongTag;
+import com.github.steveice10.opennbt.tag.builtin.ShortTag;
+import com.github.steveice10.opennbt.tag.builtin.StringTag;
+import com.github.steveice10.opennbt.tag.builtin.Tag;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class NBTCodecTest {
+    private static CompoundTag createTag() {
+        CompoundTag tag = new CompoundTag("root");
+        tag.put(new ByteTag("byte", (byte) -5));
+        tag.put(new ShortTag("short", (short) 1234));
+        tag.put(new IntTag("int", 0x12345678));
+        tag.put(new LongTag("long", Long.MIN_VALUE));
+        tag.put(new FloatTag("float", 1.5F));
+        tag.put(new DoubleTag("double", -0.25D));
+        tag.put(new ByteArrayTag("bytes", new byte[]{1, 2, 3}));
+        tag.put(new StringTag("ascii", "minecraft:overworld"));
+        tag.put(new StringTag("unicode é", "null\u0000 é世 😀"));
+        tag.put(new ListTag("list", Arrays.asList(new IntTag("", 1), new IntTag("", 2))));
+        tag.put(new ListTag("empty"));
+        tag.put(new IntArrayTag("ints", new int[]{-1, 0, Integer.MAX_VALUE}));
+        tag.put(new LongArrayTag("longs", new long[]{Long.MAX_VALUE, 42}));
+
+        CompoundTag nested = new CompoundTag("nested");
+        nested.put(new StringTag("name", "value"));
+        tag.put(nested);
+        return tag;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (boolean littleEndian : new boolean[]{false, true}) {
+            CompoundTag tag = createTag();
+            ByteBuf buf = Unpooled.buffer();
+            NBTCodec.writeTag(buf, tag, littleEndian);
+
+            Tag decoded = NBTCodec.readTag(buf, littleEndian);
+            Assert.assertEquals(tag, decoded);
+            Assert.assertFalse(buf.isReadable());
+        }
+    }
+
+    @Test
+    public void testWireFormat() throws IOException {
+        CompoundTag tag = new CompoundTag("");
+        tag.put(new IntTag("a", 1));
+        tag.put(new StringTag("b", "\u0000"));
+
+        ByteBuf buf = Unpooled.buffer();
+        NBTCodec.writeTag(buf, tag, false);
+        Assert.assertEquals("0a0000" + "0300016100000001" + "08000162" + "0002c080" + "00", ByteBufUtil.hexDump(buf));
+
+        buf.clear();
+        NBTCodec.writeTag(buf, null, false);
+        Assert.assertEquals("00", ByteBufUtil.hexDump(buf));
+        Assert.assertNull(NBTCodec.readTag(buf, false));
+    }
+
+    @Test
+    public void testSkipTag() throws IOException {
+        ByteBuf buf = Unpooled.buffer();
+        NBTCodec.writeTag(buf, createTag(), false);
+        buf.writeByte(0x7F);
+
+        NBTCodec.skipTag(buf, false);
+        Assert.assertEquals(1, buf.readableBytes());
+    }
+
+    @Test
+    public void testLazyTag() throws IOException {
+        MinecraftCodecHelper helper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        CompoundTag tag = createTag();
+        ByteBuf buf = Unpooled.buffer();
+        helper.writeTag(buf, tag);
+        byte[] encoded = ByteBufUtil.getBytes(buf);
+
+        LazyTag<CompoundTag> lazyTag = helper.readLazyTag(buf, CompoundTag.class);
+        Assert.assertFalse(buf.isReadable());
+        Assert.assertFalse(lazyTag.isDecoded());
+
+        ByteBuf out = Unpooled.buffer();
+        helper.writeLazyTag(out, lazyTag);
+        Assert.assertArrayEquals(encoded, ByteBufUtil.getBytes(out));
+
+        Assert.assertEquals(tag, lazyTag.get());
+        Assert.assertTrue(lazyTag.isDecoded());
+        Assert.assertTrue(lazyTag.release());
+        Assert.assertEquals(1, buf.refCnt());
+    }
+}
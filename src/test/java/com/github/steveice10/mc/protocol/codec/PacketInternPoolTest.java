@@ -0,0 +1,83 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.mc.protocol.data.ProtocolState;
+import com.github.steveice10.mc.protocol.data.game.TagTable;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundUpdateTagsPacket;
+import com.github.steveice10.packetlib.packet.Packet;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class PacketInternPoolTest {
+    private static MinecraftCodecHelper helper(PacketInternPool pool) {
+        MinecraftCodecHelper helper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        helper.setInternPool(pool);
+        return helper;
+    }
+
+    private static ByteBuf encodeTags(int extra) throws IOException {
+        ClientboundUpdateTagsPacket packet = new ClientboundUpdateTagsPacket();
+        Map<String, int[]> blocks = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            blocks.put("minecraft:tag_" + i, new int[]{i, i + 1, i + extra});
+        }
+
+        packet.getTags().put("minecraft:block", blocks);
+        packet.getTags().put("minecraft:item", Collections.singletonMap("minecraft:logs", new int[]{7}));
+
+        ByteBuf buf = Unpooled.buffer();
+        packet.serialize(buf, helper(null));
+        return buf;
+    }
+
+    @Test
+    public void testSharedTags() throws IOException {
+        PacketStateCodec codec = MinecraftCodec.CODEC.getCodec(ProtocolState.GAME);
+        int id = codec.getClientboundId(ClientboundUpdateTagsPacket.class);
+        PacketInternPool pool = new PacketInternPool();
+        ByteBuf encoded = encodeTags(2);
+
+        ByteBuf in = encoded.duplicate();
+        Packet first = codec.createClientboundPacket(id, in, helper(pool));
+        Assert.assertEquals(0, in.readableBytes());
+        Packet second = codec.createClientboundPacket(id, encoded.duplicate(), helper(pool));
+        Assert.assertSame(first, second);
+        Assert.assertNotSame(first, codec.createClientboundPacket(id, encodeTags(3), helper(pool)));
+        Assert.assertEquals(1, pool.getCache(ClientboundUpdateTagsPacket.class).getHits());
+        Assert.assertEquals(2, pool.getCache(ClientboundUpdateTagsPacket.class).getMisses());
+
+        Map<String, int[]> blocks = ((ClientboundUpdateTagsPacket) first).getTags().get("minecraft:block");
+        Assert.assertTrue(blocks instanceof TagTable);
+        TagTable table = (TagTable) blocks;
+        Assert.assertEquals(100, table.size());
+        Assert.assertArrayEquals(new int[]{42, 43, 44}, table.get("minecraft:tag_42"));
+        Assert.assertTrue(table.contains("minecraft:tag_42", 44));
+        Assert.assertFalse(table.contains("minecraft:tag_42", 45));
+        Assert.assertNull(table.get("minecraft:missing"));
+        Assert.assertEquals("minecraft:tag_0", table.getName(0));
+
+        // The interned packet serializes to the same tags as an uninterned one.
+        ByteBuf reencoded = Unpooled.buffer();
+        ((ClientboundUpdateTagsPacket) first).serialize(reencoded, helper(null));
+        ClientboundUpdateTagsPacket expected = new ClientboundUpdateTagsPacket(encoded.duplicate(), helper(null));
+        ClientboundUpdateTagsPacket actual = new ClientboundUpdateTagsPacket(reencoded, helper(null));
+        Assert.assertEquals(expected.getTags().keySet(), actual.getTags().keySet());
+        for (Map.Entry<String, int[]> entry : expected.getTags().get("minecraft:block").entrySet()) {
+            Assert.assertArrayEquals(entry.getValue(), table.get(entry.getKey()));
+            Assert.assertArrayEquals(entry.getValue(), actual.getTags().get("minecraft:block").get(entry.getKey()));
+        }
+
+        try {
+            ((ClientboundUpdateTagsPacket) first).getTags().put("minecraft:fluid", new HashMap<>());
+            Assert.fail("Interned tags should not be modifiable.");
+        } catch (UnsupportedOperationException ignored) {
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.mc.protocol.MinecraftProtocol;
+import com.github.steveice10.mc.protocol.data.ProtocolState;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundSystemChatPacket;
+import com.github.steveice10.packetlib.Session;
+import com.github.steveice10.packetlib.event.session.PacketSendingEvent;
+import com.github.steveice10.packetlib.event.session.SessionAdapter;
+import com.github.steveice10.packetlib.event.session.SessionListener;
+import com.github.steveice10.packetlib.packet.Packet;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import net.kyori.adventure.text.Component;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class PreparedPacketTest {
+    @Test
+    public void testPreparedPacket() throws IOException {
+        MinecraftProtocol protocol = new MinecraftProtocol("Username");
+        MinecraftCodecHelper helper = (MinecraftCodecHelper) protocol.createHelper();
+        ClientboundSystemChatPacket packet = new ClientboundSystemChatPacket(Component.text("Hello"), false);
+        ByteBuf expected = Unpooled.buffer();
+        packet.serialize(expected, helper);
+
+        PreparedPacket<ClientboundSystemChatPacket> prepared = PreparedPacket.prepare(protocol.getCodec(), ProtocolState.GAME, packet);
+        Assert.assertEquals(expected.readableBytes(), prepared.getEncodedSize());
+        for (int i = 0; i < 2; i++) {
+            ByteBuf out = Unpooled.buffer();
+            prepared.serialize(out, helper);
+            Assert.assertEquals(ByteBufUtil.hexDump(expected), ByteBufUtil.hexDump(out));
+        }
+
+        try {
+            protocol.getClientboundId(prepared);
+            Assert.fail("Expected a packet prepared for another state to be rejected.");
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        protocol.setState(ProtocolState.GAME);
+        Assert.assertEquals(protocol.getClientboundId(packet), protocol.getClientboundId(prepared));
+        Assert.assertTrue(prepared.release());
+    }
+
+    @Test
+    public void testSendReleasesDroppedPackets() throws IOException {
+        MinecraftProtocol protocol = new MinecraftProtocol("Username");
+        PreparedPacket<ClientboundSystemChatPacket> prepared = PreparedPacket.prepare(protocol.getCodec(), ProtocolState.GAME,
+                new ClientboundSystemChatPacket(Component.text("Hello"), false));
+
+        List<Packet> written = new ArrayList<>();
+        Session open = session(true, written);
+        prepared.send(open);
+        Assert.assertEquals(1, written.size());
+        Assert.assertEquals(2, prepared.refCnt());
+        // The channel releases the packet once it is encoded.
+        prepared.release();
+
+        open.addListener(new SessionAdapter() {
+            @Override
+            public void packetSending(PacketSendingEvent event) {
+                event.setCancelled(true);
+            }
+        });
+        prepared.send(open);
+        Assert.assertEquals(1, prepared.refCnt());
+
+        prepared.send(Collections.singletonList(session(false, written)));
+        Assert.assertEquals(1, prepared.refCnt());
+        Assert.assertEquals(1, written.size());
+        Assert.assertTrue(prepared.release());
+    }
+
+    @Test
+    public void testNestedSends() throws IOException {
+        MinecraftProtocol protocol = new MinecraftProtocol("Username");
+        PreparedPacket<ClientboundSystemChatPacket> first = PreparedPacket.prepare(protocol.getCodec(), ProtocolState.GAME,
+                new ClientboundSystemChatPacket(Component.text("First"), false));
+        PreparedPacket<ClientboundSystemChatPacket> second = PreparedPacket.prepare(protocol.getCodec(), ProtocolState.GAME,
+                new ClientboundSystemChatPacket(Component.text("Second"), false));
+        ClientboundSystemChatPacket followUp = new ClientboundSystemChatPacket(Component.text("Follow-up"), false);
+
+        List<Packet> written = new ArrayList<>();
+        Session session = session(true, written);
+        session.addListener(new SessionAdapter() {
+            @Override
+            public void packetSending(PacketSendingEvent event) {
+                if (event.getPacket() == first) {
+                    second.send(event.getSession());
+                    event.getSession().send(followUp);
+                } else if (event.getPacket() == second) {
+                    event.setCancelled(true);
+                }
+            }
+        });
+
+        first.send(session);
+        Assert.assertEquals(Arrays.asList(followUp, first), written);
+        Assert.assertEquals(2, first.refCnt());
+        Assert.assertEquals(1, second.refCnt());
+
+        // The tracker is added by the first send only.
+        first.send(session);
+        Assert.assertEquals(3, first.refCnt());
+        Assert.assertEquals(2, session.getListeners().size());
+    }
+
+    private static Session session(boolean connected, List<Packet> written) {
+        List<SessionListener> listeners = new CopyOnWriteArrayList<>();
+        Map<String, Object> flags = new HashMap<>();
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "isConnected":
+                    return connected;
+                case "hasFlag":
+                    return flags.containsKey((String) args[0]);
+                case "setFlag":
+                    flags.put((String) args[0], args[1]);
+                    return null;
+                case "getListeners":
+                    return listeners;
+                case "addListener":
+                    listeners.add((SessionListener) args[0]);
+                    return null;
+                case "removeListener":
+                    listeners.remove((SessionListener) args[0]);
+                    return null;
+                case "send":
+                    // Mirrors TcpSession, which drops the packet without a channel or when a listener cancels it.
+                    if (!connected) {
+                        return null;
+                    }
+
+                    PacketSendingEvent event = new PacketSendingEvent((Session) proxy, (Packet) args[0]);
+                    for (SessionListener listener : listeners) {
+                        listener.packetSending(event);
+                    }
+
+                    if (!event.isCancelled()) {
+                        written.add(event.getPacket());
+                    }
+
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
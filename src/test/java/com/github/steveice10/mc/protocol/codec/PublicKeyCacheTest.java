@@ -0,0 +1,67 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.mc.auth.data.GameProfile;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntry;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntryAction;
+import com.github.steveice10.mc.protocol.data.game.entity.player.GameMode;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.ClientboundPlayerInfoUpdatePacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.UUID;
+
+public class PublicKeyCacheTest {
+    @Test
+    public void testSharedKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        PublicKey key = generator.generateKeyPair().getPublic();
+
+        UUID profileId = UUID.randomUUID();
+        PlayerListEntry entry = new PlayerListEntry(profileId, new GameProfile(profileId, "Player"), true, 0, GameMode.SURVIVAL, null,
+                UUID.randomUUID(), 1000, key, new byte[]{1, 2, 3});
+        ClientboundPlayerInfoUpdatePacket packet = new ClientboundPlayerInfoUpdatePacket(EnumSet.allOf(PlayerListEntryAction.class), new PlayerListEntry[]{entry});
+
+        PublicKeyCache cache = new PublicKeyCache();
+        MinecraftCodecHelper first = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        MinecraftCodecHelper second = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        first.setPublicKeyCache(cache);
+        second.setPublicKeyCache(cache);
+
+        ClientboundPlayerInfoUpdatePacket firstRead = this.roundTrip(packet, first);
+        ClientboundPlayerInfoUpdatePacket secondRead = this.roundTrip(packet, second);
+        Assert.assertEquals(key, firstRead.getEntries()[0].getPublicKey());
+        Assert.assertSame(firstRead.getEntries()[0].getPublicKey(), secondRead.getEntries()[0].getPublicKey());
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, secondRead.getEntries()[0].getKeySignature());
+        Assert.assertEquals(1, cache.getCache().getHits());
+
+        // Without a cache, keys are still decoded correctly.
+        MinecraftCodecHelper uncached = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        PublicKey decoded = this.roundTrip(packet, uncached).getEntries()[0].getPublicKey();
+        Assert.assertEquals(key, decoded);
+        Assert.assertNotSame(firstRead.getEntries()[0].getPublicKey(), decoded);
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidKey() throws IOException {
+        MinecraftCodecHelper helper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        helper.setPublicKeyCache(new PublicKeyCache());
+        ByteBuf buf = Unpooled.buffer();
+        helper.writeByteArray(buf, new byte[]{1, 2, 3});
+        helper.readPublicKey(buf);
+    }
+
+    private ClientboundPlayerInfoUpdatePacket roundTrip(ClientboundPlayerInfoUpdatePacket packet, MinecraftCodecHelper helper) throws IOException {
+        ByteBuf buf = Unpooled.buffer();
+        packet.serialize(buf, helper);
+        return new ClientboundPlayerInfoUpdatePacket(buf, helper);
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import com.github.steveice10.mc.protocol.data.game.registry.GameRegistry;
+import com.github.steveice10.mc.protocol.data.game.registry.Registry;
+import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.IntTag;
+import com.github.steveice10.opennbt.tag.builtin.ListTag;
+import com.github.steveice10.opennbt.tag.builtin.StringTag;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+public class RegistryCacheTest {
+    private static ByteBuf loadRegistry() throws IOException {
+        try (InputStream in = new GZIPInputStream(RegistryCacheTest.class.getClassLoader().getResourceAsStream("networkCodec.nbt"))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+
+            return Unpooled.wrappedBuffer(out.toByteArray());
+        }
+    }
+
+    @Test
+    public void testSharedRegistry() throws IOException {
+        ByteBuf encoded = loadRegistry();
+        RegistryCache cache = new RegistryCache();
+
+        MinecraftCodecHelper first = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        MinecraftCodecHelper second = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        first.setRegistryCache(cache);
+        second.setRegistryCache(cache);
+
+        CompoundTag firstTag = first.readRegistry(encoded.duplicate());
+        CompoundTag secondTag = second.readRegistry(encoded.duplicate());
+        Assert.assertSame(firstTag, secondTag);
+        Assert.assertSame(first.getRegistryView(), second.getRegistryView());
+        Assert.assertEquals(1, cache.getCache().getHits());
+        Assert.assertEquals(1, cache.getCache().getMisses());
+
+        MinecraftCodecHelper uncached = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        Assert.assertEquals(firstTag, uncached.readRegistry(encoded.duplicate()));
+    }
+
+    @Test
+    public void testRegistryView() throws IOException {
+        RegistryCache.CachedRegistry cached = new RegistryCache().read(loadRegistry());
+        GameRegistry registry = cached.getView();
+        Assert.assertSame(registry, cached.getView());
+
+        Registry dimensionTypes = registry.getDimensionTypes();
+        int overworld = dimensionTypes.getId("overworld");
+        Assert.assertTrue(overworld >= 0);
+        Assert.assertSame(dimensionTypes.get(overworld), dimensionTypes.get("minecraft:overworld"));
+        Assert.assertTrue(registry.getBiomes().size() > 0);
+        Assert.assertEquals(GameRegistry.CHAT_TYPE, registry.getChatTypes().getType());
+        Assert.assertEquals(-1, registry.getChatTypes().getId("missing"));
+        Assert.assertEquals(0, registry.getRegistry("minecraft:missing").size());
+    }
+
+    @Test
+    public void testMalformedRegistry() throws IOException {
+        CompoundTag entry = new CompoundTag("");
+        entry.put(new StringTag("name", "minecraft:overworld"));
+        entry.put(new IntTag("id", Integer.MAX_VALUE));
+        entry.put(new CompoundTag("element"));
+        CompoundTag registry = registry(entry);
+
+        // Sparse ids are kept by id, without allocating up to the largest one.
+        MinecraftCodecHelper helper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        helper.setRegistry(registry);
+        Registry dimensionTypes = helper.getRegistryView().getDimensionTypes();
+        Assert.assertEquals(Integer.MAX_VALUE, dimensionTypes.getId("overworld"));
+        Assert.assertNotNull(dimensionTypes.get(Integer.MAX_VALUE));
+
+        entry.put(new StringTag("id", "0"));
+        helper.setRegistry(registry);
+        try {
+            helper.getRegistryView();
+            Assert.fail("Expected malformed entry to be rejected");
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static CompoundTag registry(CompoundTag entry) {
+        ListTag entries = new ListTag("value");
+        entries.add(entry);
+        CompoundTag dimensionTypes = new CompoundTag(GameRegistry.DIMENSION_TYPE);
+        dimensionTypes.put(new StringTag("type", GameRegistry.DIMENSION_TYPE));
+        dimensionTypes.put(entries);
+        CompoundTag registry = new CompoundTag("");
+        registry.put(dimensionTypes);
+        return registry;
+    }
+}
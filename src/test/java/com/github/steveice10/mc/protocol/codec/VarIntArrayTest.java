@@ -0,0 +1,146 @@
+package com.github.steveice10.mc.protocol.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Random;
+
+public class VarIntArrayTest {
+    private static final MinecraftCodecHelper HELPER = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+
+    private static int[] randomInts() {
+        Random random = new Random(0);
+        int[] values = new int[1000];
+        for (int i = 0; i < values.length; i++) {
+            // Cover every encoded length, including negative values.
+            values[i] = random.nextInt() >> random.nextInt(32);
+        }
+
+        values[0] = 0;
+        values[1] = -1;
+        values[2] = Integer.MAX_VALUE;
+        values[3] = Integer.MIN_VALUE;
+        return values;
+    }
+
+    private static ByteBuf[] buffers(ByteBuf encoded) {
+        ByteBuf direct = Unpooled.directBuffer(encoded.readableBytes());
+        direct.writeBytes(encoded, encoded.readerIndex(), encoded.readableBytes());
+
+        int half = encoded.readableBytes() / 2;
+        CompositeByteBuf composite = Unpooled.compositeBuffer();
+        composite.addComponent(true, encoded.copy(encoded.readerIndex(), half));
+        composite.addComponent(true, encoded.copy(encoded.readerIndex() + half, encoded.readableBytes() - half));
+
+        // A slice with an offset into its backing array.
+        ByteBuf padded = Unpooled.buffer();
+        padded.writeBytes(new byte[7]);
+        padded.writeBytes(encoded, encoded.readerIndex(), encoded.readableBytes());
+        return new ByteBuf[]{encoded.duplicate(), direct, composite, padded.slice(7, encoded.readableBytes())};
+    }
+
+    @Test
+    public void testSizes() {
+        for (int value : randomInts()) {
+            ByteBuf buf = Unpooled.buffer();
+            HELPER.writeVarInt(buf, value);
+            Assert.assertEquals(buf.readableBytes(), MinecraftCodecHelper.getVarIntSize(value));
+            Assert.assertEquals(value, HELPER.readVarInt(buf));
+            Assert.assertEquals(0, buf.readableBytes());
+        }
+
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            long value = random.nextLong() >> random.nextInt(64);
+            ByteBuf buf = Unpooled.buffer();
+            HELPER.writeVarLong(buf, value);
+            Assert.assertEquals(buf.readableBytes(), MinecraftCodecHelper.getVarLongSize(value));
+            Assert.assertEquals(value, HELPER.readVarLong(buf));
+        }
+    }
+
+    @Test
+    public void testVarIntArrays() {
+        int[] values = randomInts();
+        ByteBuf encoded = Unpooled.buffer();
+        HELPER.writeVarIntArray(encoded, values);
+
+        ByteBuf expected = Unpooled.buffer();
+        HELPER.writeVarInt(expected, values.length);
+        for (int value : values) {
+            HELPER.writeVarInt(expected, value);
+        }
+
+        Assert.assertEquals(expected, encoded);
+        for (ByteBuf buf : buffers(encoded)) {
+            Assert.assertArrayEquals(values, HELPER.readVarIntArray(buf));
+            Assert.assertEquals(0, buf.readableBytes());
+        }
+
+        ByteBuf direct = Unpooled.directBuffer();
+        HELPER.writeVarInts(direct, values, 10, 20);
+        int[] read = new int[25];
+        HELPER.readVarInts(direct, read, 5, 20);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(values[10 + i], read[5 + i]);
+        }
+    }
+
+    @Test
+    public void testVarLongArrays() {
+        Random random = new Random(2);
+        long[] values = new long[500];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextLong() >> random.nextInt(64);
+        }
+
+        ByteBuf encoded = Unpooled.buffer();
+        HELPER.writeVarLongs(encoded, values, 0, values.length);
+        ByteBuf expected = Unpooled.buffer();
+        for (long value : values) {
+            HELPER.writeVarLong(expected, value);
+        }
+
+        Assert.assertEquals(expected, encoded);
+        for (ByteBuf buf : buffers(encoded)) {
+            long[] read = new long[values.length];
+            HELPER.readVarLongs(buf, read, 0, read.length);
+            Assert.assertArrayEquals(values, read);
+            Assert.assertEquals(0, buf.readableBytes());
+        }
+    }
+
+    @Test
+    public void testMalformedInput() {
+        ByteBuf truncated = Unpooled.buffer();
+        HELPER.writeVarInts(truncated, new int[]{1, 300, 70000}, 0, 3);
+        truncated.writerIndex(truncated.writerIndex() - 1);
+        for (ByteBuf buf : buffers(truncated)) {
+            try {
+                HELPER.readVarInts(buf, new int[3], 0, 3);
+                Assert.fail("Expected truncated input to be rejected.");
+            } catch (IndexOutOfBoundsException ignored) {
+            }
+        }
+
+        ByteBuf tooLong = Unpooled.wrappedBuffer(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01, 0, 0, 0, 0});
+        for (ByteBuf buf : buffers(tooLong)) {
+            try {
+                HELPER.readVarInts(buf, new int[1], 0, 1);
+                Assert.fail("Expected an over-long VarInt to be rejected.");
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+
+        try {
+            HELPER.readVarInts(Unpooled.buffer(), new int[2], 1, 2);
+            Assert.fail("Expected an out of range destination to be rejected.");
+        } catch (IndexOutOfBoundsException ignored) {
+        }
+    }
+}
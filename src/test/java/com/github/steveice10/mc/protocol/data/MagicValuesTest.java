@@ -35,6 +35,7 @@ import com.github.steveice10.mc.protocol.data.game.inventory.UpdateStructureBloc
 import com.github.steveice10.mc.protocol.data.game.inventory.UpdateStructureBlockMode;
 import com.github.steveice10.mc.protocol.data.game.inventory.property.AnvilProperty;
 import com.github.steveice10.mc.protocol.data.game.inventory.property.BrewingStandProperty;
+import com.github.steveice10.mc.protocol.data.game.inventory.property.ContainerProperty;
 import com.github.steveice10.mc.protocol.data.game.inventory.property.EnchantmentTableProperty;
 import com.github.steveice10.mc.protocol.data.game.inventory.property.FurnaceProperty;
 import com.github.steveice10.mc.protocol.data.game.level.block.CommandBlockMode;
@@ -176,4 +177,26 @@ public class MagicValuesTest {
             }
         }));
     }
+
+    @Test
+    public void testLookupConversions() {
+        assertThat(MagicValues.key(ContainerProperty.class, 0) instanceof ContainerProperty, is(true));
+        assertThat(MagicValues.key(CommandParser.class, 3L), is(MagicValues.key(CommandParser.class, 3)));
+        assertThat(MagicValues.key(CollisionRule.class, "ALWAYS"), is(CollisionRule.ALWAYS));
+        assertThat(MagicValues.key(CollisionRule.class, ""), is(CollisionRule.ALWAYS));
+        assertThat(MagicValues.key(CollisionRule.class, "pushotherteams"), is(CollisionRule.PUSH_OTHER_TEAMS));
+        assertThat(MagicValues.value(String.class, CollisionRule.ALWAYS), is(""));
+        assertThat(MagicValues.value(Byte.class, Hand.OFF_HAND), is((byte) 1));
+        assertThat(MagicValues.value(Number.class, Hand.OFF_HAND), is(1));
+    }
+
+    @Test(expected = UnmappedValueException.class)
+    public void testUnmappedValue() {
+        MagicValues.key(CommandParser.class, 1.5D);
+    }
+
+    @Test(expected = UnmappedKeyException.class)
+    public void testUnmappedValueType() {
+        MagicValues.value(String.class, Hand.OFF_HAND);
+    }
 }
@@ -0,0 +1,115 @@
+package com.github.steveice10.mc.protocol.data.game.chunk;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class BitStorageTest {
+    private static final int[] SIZES = {4096, 64, 1000};
+
+    private static int[] randomValues(Random random, int bitsPerEntry, int size) {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = (int) (random.nextLong() & Math.min((1L << bitsPerEntry) - 1, Integer.MAX_VALUE));
+        }
+
+        return values;
+    }
+
+    @Test
+    public void testBulkMatchesPerEntry() {
+        Random random = new Random(0);
+        for (int bitsPerEntry = 1; bitsPerEntry <= 32; bitsPerEntry++) {
+            for (int size : SIZES) {
+                int[] values = randomValues(random, bitsPerEntry, size);
+                BitStorage single = new BitStorage(bitsPerEntry, size);
+                for (int i = 0; i < size; i++) {
+                    single.set(i, values[i]);
+                }
+
+                BitStorage bulk = new BitStorage(bitsPerEntry, size);
+                bulk.setAll(values);
+                Assert.assertArrayEquals(single.getData(), bulk.getData());
+                Assert.assertArrayEquals(values, bulk.toIntArray());
+
+                if (bitsPerEntry <= 16) {
+                    short[] shorts = new short[size];
+                    bulk.toShortArray(shorts);
+                    for (int i = 0; i < size; i++) {
+                        Assert.assertEquals(values[i], shorts[i] & 0xFFFF);
+                    }
+
+                    BitStorage fromShorts = new BitStorage(bitsPerEntry, size);
+                    fromShorts.setAll(shorts);
+                    Assert.assertArrayEquals(single.getData(), fromShorts.getData());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRemapAndResize() {
+        Random random = new Random(1);
+        for (int bitsPerEntry = 1; bitsPerEntry <= 8; bitsPerEntry++) {
+            for (int size : SIZES) {
+                int[] values = randomValues(random, bitsPerEntry, size);
+                int[] translation = new int[1 << bitsPerEntry];
+                for (int i = 0; i < translation.length; i++) {
+                    translation[i] = translation.length - 1 - i;
+                }
+
+                BitStorage storage = new BitStorage(bitsPerEntry, size);
+                storage.setAll(values);
+
+                for (int newBitsPerEntry : new int[]{bitsPerEntry, bitsPerEntry + 1, 15}) {
+                    BitStorage resized = storage.resize(newBitsPerEntry, translation);
+                    Assert.assertEquals(newBitsPerEntry, resized.getBitsPerEntry());
+                    for (int i = 0; i < size; i++) {
+                        Assert.assertEquals(translation[values[i]], resized.get(i));
+                    }
+
+                    Assert.assertArrayEquals(values, storage.resize(newBitsPerEntry, null).toIntArray());
+                }
+
+                BitStorage expected = new BitStorage(bitsPerEntry, size);
+                for (int i = 0; i < size; i++) {
+                    expected.set(i, translation[values[i]]);
+                }
+
+                storage.remap(translation);
+                Assert.assertEquals(expected, storage);
+            }
+        }
+    }
+
+    @Test
+    public void testRangeChecks() {
+        BitStorage storage = new BitStorage(4, 16);
+        int[] values = new int[16];
+        values[3] = 16;
+        Assert.assertThrows(IllegalArgumentException.class, () -> storage.setAll(values));
+        values[3] = -1;
+        Assert.assertThrows(IllegalArgumentException.class, () -> storage.setAll(values));
+        Assert.assertThrows(IllegalArgumentException.class, () -> storage.setAll(new int[15]));
+        Assert.assertThrows(IllegalArgumentException.class, () -> storage.remap(new int[]{16}));
+        Assert.assertThrows(IllegalArgumentException.class, () -> storage.resize(2, new int[]{4}));
+        Assert.assertThrows(IllegalStateException.class, () -> new BitStorage(17, 16).toShortArray(new short[16]));
+    }
+
+    @Test
+    public void testPaletteResize() {
+        // 200 states fit in a map palette, 300 need the global palette.
+        for (int states : new int[]{200, 300}) {
+            DataPalette palette = DataPalette.createForChunk();
+            for (int i = 0; i < 4096; i++) {
+                palette.set(i & 15, i >> 8, (i >> 4) & 15, (i * 7) % states);
+            }
+
+            Assert.assertEquals(states == 200 ? 8 : DataPalette.GLOBAL_PALETTE_BITS_PER_ENTRY, palette.getStorage().getBitsPerEntry());
+            for (int i = 0; i < 4096; i++) {
+                Assert.assertEquals((i * 7) % states, palette.get(i & 15, i >> 8, (i >> 4) & 15));
+            }
+        }
+    }
+}
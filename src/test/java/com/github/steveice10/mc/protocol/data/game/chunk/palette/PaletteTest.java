@@ -0,0 +1,83 @@
+package com.github.steveice10.mc.protocol.data.game.chunk.palette;
+
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+
+public class PaletteTest {
+    private static final MinecraftCodecHelper HELPER = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+
+    @Test
+    public void testListPalette() throws IOException {
+        testInsertAndLookup(new ListPalette(4), 16);
+        testNetworkPalette(new ListPalette(4, networkPalette(), HELPER));
+    }
+
+    @Test
+    public void testMapPalette() throws IOException {
+        testInsertAndLookup(new MapPalette(8), 256);
+        testNetworkPalette(new MapPalette(8, networkPalette(), HELPER));
+
+        // States that collide in the table are still told apart.
+        MapPalette palette = new MapPalette(5);
+        for (int i = 0; i < 32; i++) {
+            Assert.assertEquals(i, palette.stateToId(i << 16));
+        }
+
+        for (int i = 0; i < 32; i++) {
+            Assert.assertEquals(i, palette.stateToId(i << 16));
+            Assert.assertEquals(i << 16, palette.idToState(i));
+        }
+    }
+
+    private static void testInsertAndLookup(Palette palette, int capacity) {
+        for (int i = 0; i < capacity; i++) {
+            Assert.assertEquals(i, palette.stateToId(1000 + i * 7));
+            Assert.assertEquals(i + 1, palette.size());
+        }
+
+        // Repeated lookups return the existing id without growing the palette.
+        for (int i = 0; i < capacity; i++) {
+            Assert.assertEquals(i, palette.stateToId(1000 + i * 7));
+            Assert.assertEquals(1000 + i * 7, palette.idToState(i));
+        }
+
+        Assert.assertEquals(capacity, palette.size());
+        Assert.assertEquals(-1, palette.stateToId(1));
+        Assert.assertEquals(capacity, palette.size());
+
+        Assert.assertEquals(0, palette.idToState(-1));
+        Assert.assertEquals(0, palette.idToState(capacity));
+    }
+
+    private static ByteBuf networkPalette() {
+        ByteBuf buf = Unpooled.buffer();
+        int[] states = {5, 9, 5, 12};
+        HELPER.writeVarInt(buf, states.length);
+        for (int state : states) {
+            HELPER.writeVarInt(buf, state);
+        }
+
+        return buf;
+    }
+
+    private static void testNetworkPalette(Palette palette) {
+        Assert.assertEquals(4, palette.size());
+        Assert.assertEquals(5, palette.idToState(2));
+        // A state sent twice resolves to its first id.
+        Assert.assertEquals(0, palette.stateToId(5));
+        Assert.assertEquals(1, palette.stateToId(9));
+        Assert.assertEquals(3, palette.stateToId(12));
+        Assert.assertEquals(4, palette.size());
+
+        Assert.assertEquals(4, palette.stateToId(20));
+        Assert.assertEquals(20, palette.idToState(4));
+        Assert.assertEquals(0, palette.idToState(5));
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.steveice10.mc.protocol.data.game.entity.metadata;
+
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.BooleanEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.ByteEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.FloatEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.IntEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.LongEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.metadata.type.ObjectEntityMetadata;
+import com.github.steveice10.mc.protocol.data.game.entity.object.Direction;
+import com.nukkitx.math.vector.Vector3i;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.OptionalInt;
+
+public class EntityMetadataMapTest {
+    private static final EntityMetadata<?, ?>[] METADATA = new EntityMetadata[] {
+            new BooleanEntityMetadata(0, MetadataType.BOOLEAN, true),
+            new IntEntityMetadata(1, MetadataType.INT, 555),
+            new FloatEntityMetadata(3, MetadataType.FLOAT, 3.0f),
+            new ByteEntityMetadata(4, MetadataType.BYTE, (byte) 45),
+            new ObjectEntityMetadata<>(5, MetadataType.POSITION, Vector3i.from(0, 1, 0)),
+            new ObjectEntityMetadata<>(6, MetadataType.DIRECTION, Direction.EAST),
+            new ObjectEntityMetadata<>(7, MetadataType.OPTIONAL_VARINT, OptionalInt.of(1038)),
+            new LongEntityMetadata(8, MetadataType.LONG, 123456789L),
+            new ObjectEntityMetadata<>(20, MetadataType.BLOCK_STATE, OptionalInt.empty())
+    };
+
+    private final MinecraftCodecHelper helper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        ByteBuf expected = Unpooled.buffer();
+        this.helper.writeEntityMetadata(expected, METADATA);
+
+        EntityMetadataMap map = new EntityMetadataMap();
+        this.helper.readEntityMetadata(expected.duplicate(), map);
+        Assert.assertEquals(METADATA.length, map.size());
+        Assert.assertTrue(map.getBoolean(0));
+        Assert.assertEquals(555, map.getInt(1));
+        Assert.assertFalse(map.has(2));
+        Assert.assertEquals(3.0f, map.getFloat(3), 0);
+        Assert.assertEquals(45, map.getByte(4));
+        Assert.assertEquals(Vector3i.from(0, 1, 0), map.get(5));
+        Assert.assertEquals(1038, map.getOptionalInt(7, -1));
+        Assert.assertEquals(123456789L, map.getLong(8));
+        Assert.assertEquals(OptionalInt.empty(), map.getOptionalInt(20));
+        Assert.assertArrayEquals(METADATA, map.toArray());
+        Assert.assertEquals(map, EntityMetadataMap.of(METADATA));
+
+        ByteBuf actual = Unpooled.buffer();
+        this.helper.writeEntityMetadata(actual, map);
+        Assert.assertEquals(ByteBufUtil.hexDump(expected), ByteBufUtil.hexDump(actual));
+    }
+
+    @Test
+    public void testMerge() {
+        EntityMetadataMap state = EntityMetadataMap.of(METADATA);
+        EntityMetadataMap update = new EntityMetadataMap();
+        update.set(1, MetadataType.INT, 7);
+        update.set(6, MetadataType.DIRECTION, Direction.WEST);
+        update.set(100, MetadataType.BOOLEAN, false);
+        state.merge(update);
+
+        Assert.assertEquals(METADATA.length + 1, state.size());
+        Assert.assertEquals(7, state.getInt(1));
+        Assert.assertEquals(Direction.WEST, state.get(6));
+        Assert.assertFalse(state.getBoolean(100));
+        Assert.assertEquals(45, state.getByte(4));
+
+        update.clear();
+        Assert.assertEquals(0, update.size());
+        Assert.assertFalse(update.has(1));
+        update.set(1, MetadataType.FLOAT, 2.0f);
+        Assert.assertEquals(2.0f, update.getFloat(1), 0);
+
+        state.remove(100);
+        Assert.assertFalse(state.has(100));
+        Assert.assertEquals(METADATA.length, state.size());
+    }
+
+    @Test
+    public void testNullObject() throws IOException {
+        EntityMetadataMap map = new EntityMetadataMap();
+        map.set(8, MetadataType.ITEM, null);
+        Assert.assertTrue(map.has(8));
+        Assert.assertNull(map.get(8));
+        Assert.assertEquals(map, EntityMetadataMap.of(map.toArray()));
+        Assert.assertEquals(map.hashCode(), EntityMetadataMap.of(map.toArray()).hashCode());
+
+        ByteBuf buf = Unpooled.buffer();
+        this.helper.writeEntityMetadata(buf, map);
+        EntityMetadataMap read = new EntityMetadataMap();
+        this.helper.readEntityMetadata(buf, read);
+        Assert.assertEquals(map, read);
+    }
+
+    @Test
+    public void testDuplicateSlots() throws IOException {
+        ByteBuf buf = Unpooled.buffer();
+        this.helper.writeEntityMetadata(buf, new EntityMetadata[] {
+                new IntEntityMetadata(2, MetadataType.INT, 555),
+                new ObjectEntityMetadata<>(2, MetadataType.BLOCK_STATE, OptionalInt.of(60))
+        });
+
+        // Entries are kept as sent, so forwarding them writes the same bytes.
+        EntityMetadata<?, ?>[] read = this.helper.readEntityMetadata(buf.duplicate());
+        Assert.assertEquals(2, read.length);
+        ByteBuf written = Unpooled.buffer();
+        this.helper.writeEntityMetadata(written, read);
+        Assert.assertEquals(buf, written);
+
+        EntityMetadataMap map = new EntityMetadataMap();
+        this.helper.readEntityMetadata(buf, map);
+        Assert.assertEquals(1, map.size());
+        Assert.assertEquals(MetadataType.BLOCK_STATE, map.getType(2));
+        Assert.assertEquals(OptionalInt.of(60), map.get(2));
+        Assert.assertEquals(map, EntityMetadataMap.of(read));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWrongType() {
+        EntityMetadataMap.of(METADATA).getInt(0);
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.steveice10.mc.protocol.data.game.level;
+
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Random;
+
+public class CompactLightDataTest {
+    private final MinecraftCodecHelper helper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+
+    private static byte[] uniform(int level) {
+        byte[] array = new byte[CompactLightData.SECTION_SIZE];
+        Arrays.fill(array, (byte) (level << 4 | level));
+        return array;
+    }
+
+    private static byte[] random(Random random) {
+        byte[] array = new byte[CompactLightData.SECTION_SIZE];
+        random.nextBytes(array);
+        return array;
+    }
+
+    private static BitSet bits(int... indices) {
+        BitSet bitSet = new BitSet();
+        for (int index : indices) {
+            bitSet.set(index);
+        }
+
+        return bitSet;
+    }
+
+    private static void assertLightEquals(LightUpdateData expected, LightUpdateData actual) {
+        Assert.assertEquals(expected.getSkyYMask(), actual.getSkyYMask());
+        Assert.assertEquals(expected.getBlockYMask(), actual.getBlockYMask());
+        Assert.assertEquals(expected.getEmptySkyYMask(), actual.getEmptySkyYMask());
+        Assert.assertEquals(expected.getEmptyBlockYMask(), actual.getEmptyBlockYMask());
+        Assert.assertArrayEquals(expected.getSkyUpdates().toArray(), actual.getSkyUpdates().toArray());
+        Assert.assertArrayEquals(expected.getBlockUpdates().toArray(), actual.getBlockUpdates().toArray());
+        Assert.assertEquals(expected.isTrustEdges(), actual.isTrustEdges());
+    }
+
+    private static LightUpdateData sample() {
+        Random random = new Random(0);
+        return new LightUpdateData(bits(0, 1, 2, 3), bits(1, 3), bits(4), bits(0),
+                Arrays.asList(uniform(15), random(random), uniform(15), uniform(0)),
+                Arrays.asList(random(random), uniform(7)), true);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        LightUpdateData data = sample();
+        ByteBuf expected = Unpooled.buffer();
+        this.helper.writeLightUpdateData(expected, data);
+
+        CompactLightData compact = CompactLightData.read(expected.duplicate(), this.helper, UnpooledByteBufAllocator.DEFAULT);
+        Assert.assertEquals(2 * CompactLightData.SECTION_SIZE, compact.getBufferSize());
+        assertLightEquals(data, compact.toLightUpdateData());
+        assertLightEquals(data, new LightUpdateData(compact));
+        Assert.assertEquals(15, compact.getSkyLight(0, 3, 4, 5));
+        Assert.assertEquals(0, compact.getSkyLight(4, 3, 4, 5));
+        Assert.assertEquals(7, compact.getBlockLight(3, 15, 15, 15));
+        Assert.assertFalse(compact.hasBlockLight(2));
+        Assert.assertTrue(compact.hasBlockLight(0));
+
+        byte[] sky = data.getSkyUpdates().get(1);
+        for (int index = 0; index < 4096; index++) {
+            int expectedLevel = (index & 1) == 0 ? sky[index >> 1] & 15 : sky[index >> 1] >> 4 & 15;
+            Assert.assertEquals(expectedLevel, compact.getSkyLight(1, index & 15, index >> 8, index >> 4 & 15));
+        }
+
+        Assert.assertArrayEquals(sky, compact.getSkyLightArray(1).getData());
+
+        ByteBuf actual = Unpooled.buffer();
+        compact.write(actual, this.helper);
+        Assert.assertEquals(ByteBufUtil.hexDump(expected), ByteBufUtil.hexDump(actual));
+        Assert.assertEquals(compact.getBufferSize(), CompactLightData.of(data, UnpooledByteBufAllocator.DEFAULT).getBufferSize());
+        Assert.assertTrue(compact.release());
+    }
+
+    @Test
+    public void testCompactHelper() throws IOException {
+        LightUpdateData data = sample();
+        ByteBuf encoded = Unpooled.buffer();
+        this.helper.writeLightUpdateData(encoded, data);
+
+        MinecraftCodecHelper compactHelper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        compactHelper.setCompactLight(true);
+        LightUpdateData decoded = compactHelper.readLightUpdateData(encoded.duplicate());
+        Assert.assertNotNull(decoded.getCompact());
+
+        ByteBuf reencoded = Unpooled.buffer();
+        compactHelper.writeLightUpdateData(reencoded, decoded);
+        Assert.assertEquals(ByteBufUtil.hexDump(encoded), ByteBufUtil.hexDump(reencoded));
+        assertLightEquals(data, decoded);
+    }
+
+    @Test
+    public void testMerge() {
+        CompactLightData base = CompactLightData.of(sample(), UnpooledByteBufAllocator.DEFAULT);
+        Random random = new Random(1);
+        byte[] updated = random(random);
+        CompactLightData update = CompactLightData.of(new LightUpdateData(bits(2), new BitSet(), bits(1), bits(3),
+                Collections.singletonList(updated), Collections.emptyList(), false), UnpooledByteBufAllocator.DEFAULT);
+
+        LightUpdateData merged = base.merge(update, UnpooledByteBufAllocator.DEFAULT).toLightUpdateData();
+        Assert.assertEquals(bits(0, 2, 3), merged.getSkyYMask());
+        Assert.assertEquals(bits(1, 4), merged.getEmptySkyYMask());
+        Assert.assertEquals(bits(1), merged.getBlockYMask());
+        Assert.assertEquals(bits(0, 3), merged.getEmptyBlockYMask());
+        Assert.assertArrayEquals(updated, merged.getSkyUpdates().get(1));
+        Assert.assertArrayEquals(uniform(0), merged.getSkyUpdates().get(2));
+        Assert.assertFalse(merged.isTrustEdges());
+    }
+
+    @Test
+    public void testEditsAfterExpansion() throws IOException {
+        LightUpdateData data = sample();
+        ByteBuf encoded = Unpooled.buffer();
+        this.helper.writeLightUpdateData(encoded, data);
+
+        MinecraftCodecHelper compactHelper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        compactHelper.setCompactLight(true);
+        LightUpdateData decoded = compactHelper.readLightUpdateData(encoded);
+        decoded.getBlockYMask().set(5);
+        decoded.getBlockUpdates().add(uniform(3));
+        Assert.assertNull(decoded.getCompact());
+
+        ByteBuf reencoded = Unpooled.buffer();
+        compactHelper.writeLightUpdateData(reencoded, decoded);
+        LightUpdateData read = this.helper.readLightUpdateData(reencoded);
+        Assert.assertTrue(read.getBlockYMask().get(5));
+        Assert.assertEquals(3, read.getBlockUpdates().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingArrays() throws IOException {
+        ByteBuf encoded = Unpooled.buffer();
+        encoded.writeBoolean(true);
+        this.helper.writeLongArray(encoded, bits(0, 1).toLongArray());
+        this.helper.writeLongArray(encoded, new long[0]);
+        this.helper.writeLongArray(encoded, new long[0]);
+        this.helper.writeLongArray(encoded, new long[0]);
+        // Two sections in the sky mask, but only one array.
+        this.helper.writeVarInt(encoded, 1);
+        this.helper.writeByteArray(encoded, uniform(15));
+        this.helper.writeVarInt(encoded, 0);
+        CompactLightData.read(encoded, this.helper, UnpooledByteBufAllocator.DEFAULT);
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.steveice10.mc.protocol.metrics;
+
+import com.github.steveice10.mc.protocol.MinecraftProtocol;
+import com.github.steveice10.mc.protocol.capture.PacketDirection;
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.data.ProtocolState;
+import com.github.steveice10.mc.protocol.packet.ingame.clientbound.level.ClientboundSetChunkCacheRadiusPacket;
+import com.github.steveice10.mc.protocol.packet.ingame.serverbound.ServerboundKeepAlivePacket;
+import com.github.steveice10.packetlib.codec.PacketDefinition;
+import com.github.steveice10.packetlib.codec.PacketSerializer;
+import com.github.steveice10.packetlib.packet.Packet;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+
+public class PacketMetricsTest {
+    private static final MinecraftCodecHelper HELPER = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+
+    @Test
+    public void testHistogramBuckets() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 100, 12345, 987654321L, LatencyHistogram.MAX_VALUE}) {
+            int bucket = LatencyHistogram.getBucket(value);
+            Assert.assertTrue(LatencyHistogram.getLowerBound(bucket) <= value);
+            Assert.assertTrue(LatencyHistogram.getUpperBound(bucket) >= value);
+            Assert.assertTrue(LatencyHistogram.getUpperBound(bucket) - LatencyHistogram.getLowerBound(bucket) <= value / 8);
+        }
+
+        Assert.assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.getBucket(Long.MAX_VALUE));
+        for (int i = 1; i < LatencyHistogram.BUCKET_COUNT; i++) {
+            Assert.assertEquals(LatencyHistogram.getUpperBound(i - 1) + 1, LatencyHistogram.getLowerBound(i));
+        }
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getValueAtPercentile(50));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(1_000_000, histogram.getMax());
+        Assert.assertEquals(500_500, histogram.getMean(), 0.001);
+        long median = histogram.getValueAtPercentile(50);
+        Assert.assertTrue(median >= 500_000 && median <= 500_000 * 1.125);
+        Assert.assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getBucketCount(LatencyHistogram.getBucket(1000)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProtocolRecording() throws IOException {
+        MinecraftProtocol protocol = new MinecraftProtocol();
+        protocol.setState(ProtocolState.GAME);
+        ByteBuf buf = Unpooled.buffer();
+        new ClientboundSetChunkCacheRadiusPacket(300).serialize(buf, HELPER);
+        int id = protocol.getClientboundId(ClientboundSetChunkCacheRadiusPacket.class);
+
+        // Nothing is recorded while metrics are disabled.
+        Assert.assertSame(protocol.getClientboundDefinition(id), protocol.getClientboundDefinition(id));
+        protocol.createClientboundPacket(id, buf.duplicate(), HELPER);
+
+        PacketMetrics metrics = new PacketMetrics();
+        protocol.setMetrics(metrics);
+        Assert.assertEquals(new ClientboundSetChunkCacheRadiusPacket(300), protocol.createClientboundPacket(id, buf.duplicate(), HELPER));
+        protocol.createClientboundPacket(id, buf.duplicate(), HELPER);
+
+        PacketStats stats = metrics.getStats(ProtocolState.GAME, PacketDirection.CLIENTBOUND, id);
+        Assert.assertNotNull(stats);
+        Assert.assertEquals(ClientboundSetChunkCacheRadiusPacket.class, stats.getPacketClass());
+        Assert.assertEquals(2, stats.getDecodedCount());
+        Assert.assertEquals(2L * buf.readableBytes(), stats.getDecodedBytes());
+        Assert.assertEquals(2, stats.getDecodeLatency().getCount());
+        Assert.assertEquals(0, stats.getEncodedCount());
+
+        int keepAliveId = protocol.getServerboundId(ServerboundKeepAlivePacket.class);
+        PacketDefinition<?, ?> definition = protocol.getServerboundDefinition(keepAliveId);
+        Assert.assertSame(definition, protocol.getServerboundDefinition(keepAliveId));
+        ByteBuf out = Unpooled.buffer();
+        ((PacketSerializer<Packet, MinecraftCodecHelper>) definition.getSerializer()).serialize(out, HELPER, new ServerboundKeepAlivePacket(7));
+
+        PacketStats keepAlive = metrics.getStats(ProtocolState.GAME, PacketDirection.SERVERBOUND, keepAliveId);
+        Assert.assertNotNull(keepAlive);
+        Assert.assertEquals(1, keepAlive.getEncodedCount());
+        Assert.assertEquals(out.readableBytes(), keepAlive.getEncodedBytes());
+        Assert.assertEquals(1, keepAlive.getEncodeLatency().getCount());
+        Assert.assertEquals(2, metrics.getStats().size());
+
+        metrics.reset();
+        Assert.assertEquals(0, stats.getDecodedCount());
+        Assert.assertEquals(2, metrics.getStats().size());
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.steveice10.mc.protocol.packet.ingame.clientbound;
+
+import com.github.steveice10.mc.auth.data.GameProfile;
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntry;
+import com.github.steveice10.mc.protocol.data.game.PlayerListEntryAction;
+import com.github.steveice10.mc.protocol.data.game.entity.player.GameMode;
+import com.github.steveice10.mc.protocol.packet.PacketTest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import net.kyori.adventure.text.Component;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.UUID;
+
+public class ClientboundPlayerInfoUpdatePacketTest extends PacketTest {
+    private static final ClientboundPlayerInfoUpdatePacket ADD_PLAYER = new ClientboundPlayerInfoUpdatePacket(
+            EnumSet.of(PlayerListEntryAction.ADD_PLAYER, PlayerListEntryAction.UPDATE_LISTED, PlayerListEntryAction.UPDATE_LATENCY),
+            new PlayerListEntry[] {
+                    entry(new UUID(1, 2), "Steve", new GameProfile.Property("textures", "dGV4dHVyZXM=", "c2lnbmF0dXJl"),
+                            new GameProfile.Property("unsigned", "value")),
+                    entry(new UUID(3, 4), "Alex")
+            });
+
+    private static PlayerListEntry entry(UUID id, String name, GameProfile.Property... properties) {
+        GameProfile profile = new GameProfile(id, name);
+        profile.setProperties(Arrays.asList(properties));
+        return new PlayerListEntry(id, profile, true, 25, GameMode.SURVIVAL, null, null, 0, null, null);
+    }
+
+    @Before
+    public void setup() {
+        this.setPackets(
+                ADD_PLAYER,
+                new ClientboundPlayerInfoUpdatePacket(EnumSet.of(PlayerListEntryAction.UPDATE_DISPLAY_NAME), new PlayerListEntry[] {
+                        new PlayerListEntry(new UUID(1, 2), new GameProfile(new UUID(1, 2), null), false, 0, GameMode.SURVIVAL,
+                                Component.text("Steve"), null, 0, null, null)
+                })
+        );
+    }
+
+    @Test
+    public void testProfileProperties() throws IOException {
+        MinecraftCodecHelper helper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        ByteBuf buf = Unpooled.buffer();
+        ADD_PLAYER.serialize(buf, helper);
+
+        ClientboundPlayerInfoUpdatePacket decoded = new ClientboundPlayerInfoUpdatePacket(buf, helper);
+        Assert.assertFalse(buf.isReadable());
+        for (int i = 0; i < ADD_PLAYER.getEntries().length; i++) {
+            Assert.assertEquals(ADD_PLAYER.getEntries()[i].getProfile().getProperties(), decoded.getEntries()[i].getProfile().getProperties());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOversizedPropertyCount() throws IOException {
+        MinecraftCodecHelper helper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        ByteBuf buf = Unpooled.buffer();
+        helper.writeEnumSet(buf, EnumSet.of(PlayerListEntryAction.ADD_PLAYER), PlayerListEntryAction.VALUES);
+        helper.writeVarInt(buf, 1);
+        helper.writeUUID(buf, new UUID(1, 2));
+        helper.writeString(buf, "Steve");
+        helper.writeVarInt(buf, Integer.MAX_VALUE);
+        new ClientboundPlayerInfoUpdatePacket(buf, helper);
+    }
+}
@@ -1,11 +1,19 @@
 package com.github.steveice10.mc.protocol.packet.ingame.clientbound.level;
 
+import com.github.steveice10.mc.protocol.codec.MinecraftCodecHelper;
 import com.github.steveice10.mc.protocol.data.game.level.LightUpdateData;
 import com.github.steveice10.mc.protocol.data.game.level.block.BlockEntityInfo;
 import com.github.steveice10.mc.protocol.data.game.level.block.BlockEntityType;
 import com.github.steveice10.mc.protocol.packet.PacketTest;
 import com.github.steveice10.opennbt.tag.builtin.CompoundTag;
+import com.github.steveice10.opennbt.tag.builtin.IntTag;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Test;
 
 import java.io.IOException;
 import java.util.BitSet;
@@ -26,4 +34,45 @@ public class ClientboundLevelChunkWithLightPacketTest extends PacketTest {
                 )
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testOpaqueChunks() throws IOException {
+        CompoundTag nbt = new CompoundTag("");
+        nbt.put(new IntTag("Items", 3));
+        BitSet mask = BitSet.valueOf(new long[]{0b110});
+        ClientboundLevelChunkWithLightPacket packet = new ClientboundLevelChunkWithLightPacket(-3, 7,
+                new byte[]{1, 2, 3}, new CompoundTag("HeightMaps"), new BlockEntityInfo[] {
+                new BlockEntityInfo(4, -60, 9, BlockEntityType.CHEST, nbt)
+        }, new LightUpdateData(mask, mask, new BitSet(), new BitSet(), Collections.singletonList(new byte[2048]), Collections.singletonList(new byte[2048]), true));
+
+        MinecraftCodecHelper helper = new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap());
+        helper.setOpaqueChunks(true);
+        ByteBuf buf = Unpooled.buffer();
+        packet.serialize(buf, helper);
+        byte[] encoded = ByteBufUtil.getBytes(buf);
+        buf.writeByte(0x7F);
+
+        ClientboundLevelChunkWithLightPacket opaque = new ClientboundLevelChunkWithLightPacket(buf, helper);
+        Assert.assertTrue(opaque.isOpaque());
+        Assert.assertEquals(1, buf.readableBytes());
+        Assert.assertEquals(2, buf.refCnt());
+
+        ByteBuf out = Unpooled.buffer();
+        opaque.serialize(out, helper);
+        Assert.assertArrayEquals(encoded, ByteBufUtil.getBytes(out));
+
+        Assert.assertEquals(packet.withLightData(opaque.getLightData()), opaque);
+        Assert.assertEquals(mask, opaque.getLightData().getSkyYMask());
+        Assert.assertEquals(2048, opaque.getLightData().getBlockUpdates().get(0).length);
+        Assert.assertEquals(-3, opaque.withChunkData(new byte[0]).getX());
+
+        // Once decoded, the fields are written instead of the payload, so edits are kept.
+        opaque.getChunkData()[0] = 42;
+        out = Unpooled.buffer();
+        opaque.serialize(out, helper);
+        ClientboundLevelChunkWithLightPacket edited = new ClientboundLevelChunkWithLightPacket(out, new MinecraftCodecHelper(Int2ObjectMaps.emptyMap(), Collections.emptyMap()));
+        Assert.assertArrayEquals(new byte[]{42, 2, 3}, edited.getChunkData());
+        opaque.release();
+        Assert.assertEquals(1, buf.refCnt());
+    }
+}